@@ -21,9 +21,11 @@
 
 #include "codegen/llvm_codegen.h"
 #include "exec/hash_table.hpp"
+#include "exprs/binary_predicate.h"
 #include "exprs/expr.h"
 #include "exprs/in_predicate.h"
 #include "exprs/slot_ref.h"
+#include "runtime/datetime_value.h"
 #include "runtime/row_batch.h"
 #include "runtime/runtime_state.h"
 #include "util/debug_util.h"
@@ -54,6 +56,9 @@ HashJoinNode::HashJoinNode(
     _match_all_build =
         (_join_op == TJoinOp::RIGHT_OUTER_JOIN || _join_op == TJoinOp::FULL_OUTER_JOIN);
     _is_push_down = tnode.hash_join_node.is_push_down;
+    if (tnode.hash_join_node.__isset.runtime_filters) {
+        _runtime_filter_descs = tnode.hash_join_node.runtime_filters;
+    }
 }
 
 HashJoinNode::~HashJoinNode() {
@@ -303,32 +308,19 @@ Status HashJoinNode::open(RuntimeState* state) {
             return Status::OK;
         }
 
-        if (_hash_tbl->size() > 1024) {
+        if (!_runtime_filter_descs.empty()) {
+            // the number of values of IN filters is limited by the frontend
+            RETURN_IF_ERROR(push_down_runtime_filters(state));
+        } else if (_hash_tbl->size() > 1024) {
             _is_push_down = false;
         }
 
         // TODO: this is used for Code Check, Remove this later
-        if (_is_push_down || 0 != child(1)->conjunct_ctxs().size()) {
+        if (_runtime_filter_descs.empty()
+                && (_is_push_down || 0 != child(1)->conjunct_ctxs().size())) {
             for (int i = 0; i < _probe_expr_ctxs.size(); ++i) {
-                TExprNode node;
-                node.__set_node_type(TExprNodeType::IN_PRED);
-                TScalarType tscalar_type;
-                tscalar_type.__set_type(TPrimitiveType::BOOLEAN);
-                TTypeNode ttype_node;
-                ttype_node.__set_type(TTypeNodeType::SCALAR);
-                ttype_node.__set_scalar_type(tscalar_type);
-                TTypeDesc t_type_desc;
-                t_type_desc.types.push_back(ttype_node);
-                node.__set_type(t_type_desc);
-                node.in_predicate.__set_is_not_in(false);
-                node.__set_opcode(TExprOpcode::FILTER_IN);
-                node.__isset.vector_opcode = true;
-                node.__set_vector_opcode(to_in_opcode(_probe_expr_ctxs[i]->root()->type().type));
-                // NOTE(zc): in predicate only used here, no need prepare.
-                InPredicate* in_pred = _pool->add(new InPredicate(node));
-                RETURN_IF_ERROR(in_pred->prepare(state, _probe_expr_ctxs[i]->root()->type()));
-                in_pred->add_child(Expr::copy(_pool, _probe_expr_ctxs[i]->root()));
-                ExprContext* ctx = _pool->add(new ExprContext(in_pred));
+                ExprContext* ctx = NULL;
+                RETURN_IF_ERROR(create_in_predicate(state, i, &ctx));
                 _push_down_expr_ctxs.push_back(ctx);
             }
 
@@ -405,6 +397,183 @@ Status HashJoinNode::open(RuntimeState* state) {
     return Status::OK;
 }
 
+Status HashJoinNode::create_in_predicate(RuntimeState* state, int i, ExprContext** ctx) {
+    TExprNode node;
+    node.__set_node_type(TExprNodeType::IN_PRED);
+    TScalarType tscalar_type;
+    tscalar_type.__set_type(TPrimitiveType::BOOLEAN);
+    TTypeNode ttype_node;
+    ttype_node.__set_type(TTypeNodeType::SCALAR);
+    ttype_node.__set_scalar_type(tscalar_type);
+    TTypeDesc t_type_desc;
+    t_type_desc.types.push_back(ttype_node);
+    node.__set_type(t_type_desc);
+    node.in_predicate.__set_is_not_in(false);
+    node.__set_opcode(TExprOpcode::FILTER_IN);
+    node.__isset.vector_opcode = true;
+    node.__set_vector_opcode(to_in_opcode(_probe_expr_ctxs[i]->root()->type().type));
+    // NOTE(zc): in predicate only used here, no need prepare.
+    InPredicate* in_pred = _pool->add(new InPredicate(node));
+    RETURN_IF_ERROR(in_pred->prepare(state, _probe_expr_ctxs[i]->root()->type()));
+    in_pred->add_child(Expr::copy(_pool, _probe_expr_ctxs[i]->root()));
+    *ctx = _pool->add(new ExprContext(in_pred));
+    return Status::OK;
+}
+
+Status HashJoinNode::create_min_max_predicates(RuntimeState* state, int i) {
+    const TypeDescriptor& type = _probe_expr_ctxs[i]->root()->type();
+    bool is_date = type.type == TYPE_DATE || type.type == TYPE_DATETIME;
+    if (!is_date && type.type != TYPE_TINYINT && type.type != TYPE_SMALLINT
+            && type.type != TYPE_INT && type.type != TYPE_BIGINT) {
+        return Status::OK;
+    }
+
+    bool has_value = false;
+    int64_t min_int = 0;
+    int64_t max_int = 0;
+    DateTimeValue min_date;
+    DateTimeValue max_date;
+    {
+        SCOPED_TIMER(_push_compute_timer);
+        HashTable::Iterator iter = _hash_tbl->begin();
+        while (iter.has_next()) {
+            void* val = _build_expr_ctxs[i]->get_value(iter.get_row());
+            iter.next<false>();
+            if (val == NULL) {
+                continue;
+            }
+            if (is_date) {
+                const DateTimeValue& date = *reinterpret_cast<DateTimeValue*>(val);
+                if (!has_value || date < min_date) {
+                    min_date = date;
+                }
+                if (!has_value || date > max_date) {
+                    max_date = date;
+                }
+            } else {
+                int64_t value = 0;
+                switch (type.type) {
+                case TYPE_TINYINT:
+                    value = *reinterpret_cast<int8_t*>(val);
+                    break;
+                case TYPE_SMALLINT:
+                    value = *reinterpret_cast<int16_t*>(val);
+                    break;
+                case TYPE_INT:
+                    value = *reinterpret_cast<int32_t*>(val);
+                    break;
+                default:
+                    value = *reinterpret_cast<int64_t*>(val);
+                    break;
+                }
+                min_int = has_value ? std::min(min_int, value) : value;
+                max_int = has_value ? std::max(max_int, value) : value;
+            }
+            has_value = true;
+        }
+    }
+    if (!has_value) {
+        return Status::OK;
+    }
+
+    TScalarType tscalar_type;
+    tscalar_type.__set_type(TPrimitiveType::BOOLEAN);
+    TTypeNode ttype_node;
+    ttype_node.__set_type(TTypeNodeType::SCALAR);
+    ttype_node.__set_scalar_type(tscalar_type);
+    TTypeDesc bool_type_desc;
+    bool_type_desc.types.push_back(ttype_node);
+
+    TExprOpcode::type opcodes[2] = {TExprOpcode::GE, TExprOpcode::LE};
+    for (int j = 0; j < 2; ++j) {
+        TExprNode literal_node;
+        literal_node.__set_type(type.to_thrift());
+        literal_node.__set_num_children(0);
+        if (is_date) {
+            TDateLiteral date_literal;
+            date_literal.__set_value((j == 0 ? min_date : max_date).debug_string());
+            literal_node.__set_node_type(TExprNodeType::DATE_LITERAL);
+            literal_node.__set_date_literal(date_literal);
+        } else {
+            TIntLiteral int_literal;
+            int_literal.__set_value(j == 0 ? min_int : max_int);
+            literal_node.__set_node_type(TExprNodeType::INT_LITERAL);
+            literal_node.__set_int_literal(int_literal);
+        }
+
+        TExpr literal_expr;
+        literal_expr.nodes.push_back(literal_node);
+        ExprContext* literal_ctx = NULL;
+        RETURN_IF_ERROR(Expr::create_expr_tree(_pool, literal_expr, &literal_ctx));
+
+        TExprNode pred_node;
+        pred_node.__set_node_type(TExprNodeType::BINARY_PRED);
+        pred_node.__set_type(bool_type_desc);
+        pred_node.__set_opcode(opcodes[j]);
+        pred_node.__set_child_type(to_thrift(type.type));
+        pred_node.__set_num_children(2);
+        Expr* pred = _pool->add(BinaryPredicate::from_thrift(pred_node));
+        pred->add_child(Expr::copy(_pool, _probe_expr_ctxs[i]->root()));
+        pred->add_child(literal_ctx->root());
+        _push_down_expr_ctxs.push_back(_pool->add(new ExprContext(pred)));
+    }
+    return Status::OK;
+}
+
+Status HashJoinNode::add_in_predicate(RuntimeState* state, int i) {
+    ExprContext* ctx = NULL;
+    RETURN_IF_ERROR(create_in_predicate(state, i, &ctx));
+    SCOPED_TIMER(_push_compute_timer);
+    InPredicate* in_pred = (InPredicate*)(ctx->root());
+    HashTable::Iterator iter = _hash_tbl->begin();
+    while (iter.has_next()) {
+        in_pred->insert(_build_expr_ctxs[i]->get_value(iter.get_row()));
+        iter.next<false>();
+    }
+    _push_down_expr_ctxs.push_back(ctx);
+    return Status::OK;
+}
+
+Status HashJoinNode::push_down_runtime_filters(RuntimeState* state) {
+    // the probe exprs without a local IN filter, eg. the exprs which are not slots of a scan,
+    // keep the IN predicates of at most 1024 values pushed down before runtime filters
+    std::vector<bool> has_in_filter(_probe_expr_ctxs.size(), false);
+    for (const TRuntimeFilterDesc& desc : _runtime_filter_descs) {
+        // filters with remote targets are merged by the coordinator, not applied here
+        if (!desc.has_local_targets) {
+            continue;
+        }
+        int i = desc.expr_order;
+        if (desc.type == TRuntimeFilterType::IN) {
+            has_in_filter[i] = true;
+            if (desc.__isset.max_in_num && _hash_tbl->size() > desc.max_in_num) {
+                VLOG(1) << "skip runtime filter " << desc.filter_id << ", too many values: "
+                        << _hash_tbl->size();
+                continue;
+            }
+            RETURN_IF_ERROR(add_in_predicate(state, i));
+        } else if (desc.type == TRuntimeFilterType::MIN_MAX) {
+            RETURN_IF_ERROR(create_min_max_predicates(state, i));
+        } else {
+            VLOG(1) << "skip runtime filter " << desc.filter_id << ", bloom filter is not supported";
+        }
+    }
+
+    if (_hash_tbl->size() <= 1024) {
+        for (int i = 0; i < _probe_expr_ctxs.size(); ++i) {
+            if (!has_in_filter[i]) {
+                RETURN_IF_ERROR(add_in_predicate(state, i));
+            }
+        }
+    }
+
+    if (!_push_down_expr_ctxs.empty()) {
+        SCOPED_TIMER(_push_down_timer);
+        push_down_predicate(state, &_push_down_expr_ctxs);
+    }
+    return Status::OK;
+}
+
 Status HashJoinNode::get_next(RuntimeState* state, RowBatch* out_batch, bool* eos) {
     RETURN_IF_ERROR(exec_debug_action(TExecNodePhase::GETNEXT));
     RETURN_IF_CANCELLED(state);
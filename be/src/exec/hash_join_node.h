@@ -79,6 +79,9 @@ private:
     std::vector<ExprContext*> _probe_expr_ctxs;
     std::vector<ExprContext*> _build_expr_ctxs;
     std::list<ExprContext*> _push_down_expr_ctxs;
+    // runtime filters planned by the frontend, only the IN and MIN_MAX filters with local
+    // targets are pushed down to the probe side
+    std::vector<TRuntimeFilterDesc> _runtime_filter_descs;
 
     // non-equi-join conjuncts from the JOIN clause
     std::vector<ExprContext*> _other_join_conjunct_ctxs;
@@ -161,6 +164,22 @@ private:
     // return the number of rows added to out_batch
     int process_probe_batch(RowBatch* out_batch, RowBatch* probe_batch, int max_added_rows);
 
+    // Push down the runtime filters with local targets to the probe side, after the hash
+    // table is constructed. The probe exprs without IN filters get the IN predicates of
+    // the hash tables of at most 1024 rows as before.
+    Status push_down_runtime_filters(RuntimeState* state);
+
+    // Create an empty IN predicate of the i-th probe expr, the values are inserted by the caller
+    Status create_in_predicate(RuntimeState* state, int i, ExprContext** ctx);
+
+    // Add the IN predicate of the i-th probe expr with the values of the i-th build expr in the
+    // hash table to the predicates pushed down
+    Status add_in_predicate(RuntimeState* state, int i);
+
+    // Create the predicates "<probe expr> >= min" and "<probe expr> <= max" of the i-th probe
+    // expr with the min and max values of the i-th build expr, integer and date types only
+    Status create_min_max_predicates(RuntimeState* state, int i);
+
     // Construct the build hash table, adding all the rows in 'build_batch'
     void process_build_batch(RowBatch* build_batch);
 
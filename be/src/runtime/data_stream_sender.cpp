@@ -18,6 +18,7 @@
 #include "runtime/data_stream_sender.h"
 
 #include <iostream>
+#include <map>
 #include <boost/shared_ptr.hpp>
 #include <boost/thread/thread.hpp>
 #include <thrift/protocol/TDebugProtocol.h>
@@ -302,15 +303,32 @@ DataStreamSender::DataStreamSender(
     DCHECK(sink.output_partition.type == TPartitionType::UNPARTITIONED
             || sink.output_partition.type == TPartitionType::HASH_PARTITIONED
             || sink.output_partition.type == TPartitionType::RANDOM
-            || sink.output_partition.type == TPartitionType::RANGE_PARTITIONED);
+            || sink.output_partition.type == TPartitionType::RANGE_PARTITIONED
+            || sink.output_partition.type == TPartitionType::BUCKET_SHUFFLE_HASH_PARTITIONED);
+    // The destinations of bucket shuffle are one per bucket, and an instance may receive
+    // rows of several buckets, so there is one channel per instance.
+    std::map<std::pair<int64_t, int64_t>, Channel*> instance_to_channel;
     // TODO: use something like google3's linked_ptr here (scoped_ptr isn't copyable)
     for (int i = 0; i < destinations.size(); ++i) {
+        const TUniqueId& instance_id = destinations[i].fragment_instance_id;
+        if (_part_type == TPartitionType::BUCKET_SHUFFLE_HASH_PARTITIONED) {
+            auto it = instance_to_channel.find(std::make_pair(instance_id.hi, instance_id.lo));
+            if (it != instance_to_channel.end()) {
+                _channel_per_bucket.push_back(it->second);
+                continue;
+            }
+        }
         _channel_shared_ptrs.emplace_back(
             new Channel(this, row_desc,
                         destinations[i].brpc_server,
-                        destinations[i].fragment_instance_id,
+                        instance_id,
                         sink.dest_node_id, per_channel_buffer_size));
-        _channels.push_back(_channel_shared_ptrs[i].get());
+        Channel* channel = _channel_shared_ptrs.back().get();
+        _channels.push_back(channel);
+        if (_part_type == TPartitionType::BUCKET_SHUFFLE_HASH_PARTITIONED) {
+            instance_to_channel[std::make_pair(instance_id.hi, instance_id.lo)] = channel;
+            _channel_per_bucket.push_back(channel);
+        }
     }
 }
 
@@ -323,7 +341,8 @@ static bool compare_part_use_range(const PartitionInfo* v1, const PartitionInfo*
 Status DataStreamSender::init(const TDataSink& tsink) {
     RETURN_IF_ERROR(DataSink::init(tsink));
     const TDataStreamSink& t_stream_sink = tsink.stream_sink;
-    if (_part_type == TPartitionType::HASH_PARTITIONED) {
+    if (_part_type == TPartitionType::HASH_PARTITIONED
+            || _part_type == TPartitionType::BUCKET_SHUFFLE_HASH_PARTITIONED) {
         RETURN_IF_ERROR(Expr::create_expr_trees(
                 _pool, t_stream_sink.output_partition.partition_exprs, &_partition_expr_ctxs));
     } else if (_part_type == TPartitionType::RANGE_PARTITIONED) {
@@ -365,7 +384,8 @@ Status DataStreamSender::prepare(RuntimeState* state) {
         // Randomize the order we open/transmit to channels to avoid thundering herd problems.
         srand(reinterpret_cast<uint64_t>(this));
         random_shuffle(_channels.begin(), _channels.end());
-    } else if (_part_type == TPartitionType::HASH_PARTITIONED) {
+    } else if (_part_type == TPartitionType::HASH_PARTITIONED
+            || _part_type == TPartitionType::BUCKET_SHUFFLE_HASH_PARTITIONED) {
         RETURN_IF_ERROR(Expr::prepare(
                 _partition_expr_ctxs, state, _row_desc, _expr_mem_tracker.get()));
     } else {
@@ -451,6 +471,26 @@ Status DataStreamSender::send(RuntimeState* state, RowBatch* batch) {
             }
             RETURN_IF_ERROR(_channels[hash_val % num_channels]->add_row(row));
         }
+    } else if (_part_type == TPartitionType::BUCKET_SHUFFLE_HASH_PARTITIONED) {
+        // send rows to the instances scanning their buckets, the hash of a row is same as
+        // the hash of distribution columns of olap tables, see process_distribute()
+        int num_buckets = _channel_per_bucket.size();
+        for (int i = 0; i < batch->num_rows(); ++i) {
+            TupleRow* row = batch->get_row(i);
+            uint32_t hash_val = 0;
+            for (auto ctx : _partition_expr_ctxs) {
+                void* partition_val = ctx->get_value(row);
+                if (partition_val != NULL) {
+                    hash_val = RawValue::zlib_crc32(partition_val, ctx->root()->type(), hash_val);
+                } else {
+                    //NULL is treat as 0 when hash
+                    static const int INT_VALUE = 0;
+                    static const TypeDescriptor INT_TYPE(TYPE_INT);
+                    hash_val = RawValue::zlib_crc32(&INT_VALUE, INT_TYPE, hash_val);
+                }
+            }
+            RETURN_IF_ERROR(_channel_per_bucket[hash_val % num_buckets]->add_row(row));
+        }
     } else {
         // Range partition
         int num_channels = _channels.size();
@@ -55,7 +55,8 @@ public:
     // Per_channel_buffer_size is the buffer size allocated to each channel
     // and is specified in bytes.
     // The RowDescriptor must live until close() is called.
-    // NOTE: supported partition types are UNPARTITIONED (broadcast) and HASH_PARTITIONED
+    // NOTE: supported partition types are UNPARTITIONED (broadcast), HASH_PARTITIONED,
+    // RANDOM, RANGE_PARTITIONED and BUCKET_SHUFFLE_HASH_PARTITIONED
     DataStreamSender(ObjectPool* pool, int sender_id,
                      const RowDescriptor& row_desc, const TDataStreamSink& sink,
                      const std::vector<TPlanFragmentDestination>& destinations,
@@ -140,6 +141,8 @@ private:
 
     std::vector<Channel*> _channels;
     std::vector<std::shared_ptr<Channel>> _channel_shared_ptrs;
+    // channel of each bucket seq, only for BUCKET_SHUFFLE_HASH_PARTITIONED
+    std::vector<Channel*> _channel_per_bucket;
 
     // map from range value to partition_id
     // sorted in ascending orderi by range for binary search
@@ -637,12 +637,11 @@ public class RollupHandler extends AlterHandler {
                 continue;
             }
 
-            db.writeLock();
+            OlapTable olapTable = (OlapTable) db.writeLockTable(rollupJob.getTableId());
             try {
-                OlapTable olapTable = (OlapTable) db.getTable(rollupJob.getTableId());
                 rollupJob.cancel(olapTable, "cancelled");
             } finally {
-                db.writeUnlock();
+                db.writeUnlockTable(olapTable);
             }
             jobDone(rollupJob);
         }
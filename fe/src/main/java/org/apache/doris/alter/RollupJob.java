@@ -338,10 +338,9 @@ public class RollupJob extends AlterJob {
         }
 
         batchClearAlterTask = new AgentBatchTask();
-        db.readLock();
+        OlapTable olapTable = (OlapTable) db.readLockTable(tableId);
         try {
             synchronized (this) {
-                OlapTable olapTable = (OlapTable) db.getTable(tableId);
                 if (olapTable == null) {
                     cancelMsg = "table[" + tableId + "] does not exist";
                     LOG.warn(cancelMsg);
@@ -384,7 +383,7 @@ public class RollupJob extends AlterJob {
                 }
             }
         } finally {
-            db.readUnlock();
+            db.readUnlockTable(olapTable);
         }
         LOG.info("successfully sending clear rollup job[{}]", tableId);
         return 0;
@@ -403,10 +402,9 @@ public class RollupJob extends AlterJob {
             return false;
         }
 
-        db.readLock();
+        OlapTable olapTable = (OlapTable) db.readLockTable(tableId);
         try {
             synchronized (this) {
-                OlapTable olapTable = (OlapTable) db.getTable(tableId);
                 if (olapTable == null) {
                     cancelMsg = "table[" + tableId + "] does not exist";
                     LOG.warn(cancelMsg);
@@ -456,7 +454,7 @@ public class RollupJob extends AlterJob {
                 this.state = JobState.RUNNING;
             }
         } finally {
-            db.readUnlock();
+            db.readUnlockTable(olapTable);
         }
 
         Preconditions.checkState(this.state == JobState.RUNNING);
@@ -610,11 +608,10 @@ public class RollupJob extends AlterJob {
             return -1;
         }
 
-        db.writeLock();
+        OlapTable olapTable = (OlapTable) db.writeLockTable(tableId);
         try {
             // if all previous transaction has finished, then check base and rollup replica num
             synchronized (this) {
-                OlapTable olapTable = (OlapTable) db.getTable(tableId);
                 if (olapTable == null) {
                     cancelMsg = "Table[" + tableId + "] does not exist";
                     LOG.warn(cancelMsg);
@@ -753,7 +750,7 @@ public class RollupJob extends AlterJob {
                 this.transactionId = Catalog.getCurrentGlobalTransactionMgr().getTransactionIDGenerator().getNextTransactionId();
             }
         } finally {
-            db.writeUnlock();
+            db.writeUnlockTable(olapTable);
         }
 
         // log rollup done operation
@@ -1175,12 +1175,11 @@ public class SchemaChangeHandler extends AlterHandler {
                 continue;
             }
 
-            db.writeLock();
+            OlapTable olapTable = (OlapTable) db.writeLockTable(alterJob.getTableId());
             try {
-                OlapTable olapTable = (OlapTable) db.getTable(alterJob.getTableId());
                 alterJob.cancel(olapTable, "cancelled");
             } finally {
-                db.writeUnlock();
+                db.writeUnlockTable(olapTable);
             }
             jobDone(alterJob);
         }
@@ -220,9 +220,8 @@ public class SchemaChangeJob extends AlterJob {
             return;
         }
 
-        db.readLock();
+        OlapTable olapTable = (OlapTable) db.readLockTable(tableId);
         try {
-            OlapTable olapTable = (OlapTable) db.getTable(tableId);
             if (olapTable == null) {
                 LOG.warn("table[{}] does not exist in db[{}]", tableId, dbId);
                 return;
@@ -248,7 +247,7 @@ public class SchemaChangeJob extends AlterJob {
                 }
             } // end for partitions
         } finally {
-            db.readUnlock();
+            db.readUnlockTable(olapTable);
         }
         return;
     }
@@ -311,9 +310,8 @@ public class SchemaChangeJob extends AlterJob {
         }
 
         batchClearAlterTask = new AgentBatchTask();
-        db.readLock();
+        OlapTable olapTable = (OlapTable) db.readLockTable(tableId);
         try {
-            OlapTable olapTable = (OlapTable) db.getTable(tableId);
             if (olapTable == null) {
                 cancelMsg = "could not find table[" + tableId + "] in db [" + dbId + "]";
                 LOG.warn(cancelMsg);
@@ -349,7 +347,7 @@ public class SchemaChangeJob extends AlterJob {
                 batchClearAlterTask = null;
             }
         } finally {
-            db.readUnlock();
+            db.readUnlockTable(olapTable);
         }
         LOG.info("successfully sending clear schemachange job [{}]", tableId);
         return 0;
@@ -371,10 +369,9 @@ public class SchemaChangeJob extends AlterJob {
             return false;
         }
 
-        db.readLock();
+        OlapTable olapTable = (OlapTable) db.readLockTable(tableId);
         try {
             synchronized (this) {
-                OlapTable olapTable = (OlapTable) db.getTable(tableId);
                 if (olapTable == null) {
                     cancelMsg = "table[" + tableId + "] does not exist";
                     LOG.warn(cancelMsg);
@@ -469,7 +466,7 @@ public class SchemaChangeJob extends AlterJob {
                 this.state = JobState.RUNNING;
             } // end synchronized block
         } finally {
-            db.readUnlock();
+            db.readUnlockTable(olapTable);
         }
 
         Preconditions.checkState(this.state == JobState.RUNNING);
@@ -479,7 +476,7 @@ public class SchemaChangeJob extends AlterJob {
 
     @Override
     public synchronized void cancel(OlapTable olapTable, String msg) {
-        // make sure to get db write lock before calling this
+        // make sure to get db write lock or table write lock before calling this
 
         if (olapTable != null) {
             // 1. remove all task and set state
@@ -562,9 +559,8 @@ public class SchemaChangeJob extends AlterJob {
         if (db == null) {
             throw new MetaNotFoundException("Cannot find db[" + dbId + "]");
         }
-        db.writeLock();
+        OlapTable olapTable = (OlapTable) db.writeLockTable(tableId);
         try {
-            OlapTable olapTable = (OlapTable) db.getTable(tableId);
             if (olapTable == null) {
                 throw new MetaNotFoundException("Cannot find table[" + tableId + "]");
             }
@@ -601,7 +597,7 @@ public class SchemaChangeJob extends AlterJob {
             // do not need check version > replica.getVersion, because the new replica's version is first set by sc
             replica.updateInfo(version, versionHash, dataSize, rowCount);
         } finally {
-            db.writeUnlock();
+            db.writeUnlockTable(olapTable);
         }
 
         Catalog.getCurrentSystemInfo().updateBackendReportVersion(schemaChangeTask.getBackendId(),
@@ -630,10 +626,9 @@ public class SchemaChangeJob extends AlterJob {
             return -1;
         }
 
-        db.writeLock();
+        Table table = db.writeLockTable(tableId);
         try {
             synchronized (this) {
-                Table table = db.getTable(tableId);
                 if (table == null) {
                     LOG.warn("table[{}] does not exist", tableId);
                     return -1;
@@ -837,7 +832,7 @@ public class SchemaChangeJob extends AlterJob {
                 this.transactionId = Catalog.getCurrentGlobalTransactionMgr().getTransactionIDGenerator().getNextTransactionId();
             }
         } finally {
-            db.writeUnlock();
+            db.writeUnlockTable(table);
         }
 
         // log schema change done operation
@@ -0,0 +1,85 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.analysis;
+
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.ErrorCode;
+import org.apache.doris.common.ErrorReport;
+import org.apache.doris.common.UserException;
+import org.apache.doris.mysql.privilege.PrivPredicate;
+import org.apache.doris.qe.ConnectContext;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+// ANALYZE TABLE tbl [PARTITION (p1, p2, ...)]
+// Collect the column statistics of the partitions, all partitions if not specified.
+public class AnalyzeStmt extends DdlStmt {
+    private TableName tbl;
+    private List<String> partitionNames;
+
+    public AnalyzeStmt(TableName tbl, List<String> partitionNames) {
+        this.tbl = tbl;
+        this.partitionNames = partitionNames == null ? Lists.<String>newArrayList() : partitionNames;
+    }
+
+    public String getDbName() {
+        return tbl.getDb();
+    }
+
+    public String getTblName() {
+        return tbl.getTbl();
+    }
+
+    // empty if all partitions are analyzed
+    public List<String> getPartitionNames() {
+        return partitionNames;
+    }
+
+    @Override
+    public void analyze(Analyzer analyzer) throws AnalysisException, UserException {
+        super.analyze(analyzer);
+        tbl.analyze(analyzer);
+
+        if (!Catalog.getCurrentCatalog().getAuth().checkTblPriv(ConnectContext.get(), tbl.getDb(), tbl.getTbl(),
+                                                                PrivPredicate.ALTER)) {
+            ErrorReport.reportAnalysisException(ErrorCode.ERR_TABLEACCESS_DENIED_ERROR, "ANALYZE TABLE",
+                                                ConnectContext.get().getQualifiedUser(),
+                                                ConnectContext.get().getRemoteIP(),
+                                                tbl.getTbl());
+        }
+    }
+
+    @Override
+    public String toSql() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("ANALYZE TABLE ").append(tbl.toSql());
+        if (!partitionNames.isEmpty()) {
+            sb.append(" PARTITION (").append(Joiner.on(", ").join(partitionNames)).append(")");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toSql();
+    }
+}
@@ -160,6 +160,9 @@ public class Analyzer {
         // analysis.
         public boolean isExplain;
 
+        // "db.table" -> snapshot of the table, which is used instead of the table in catalog, see OlapTable.getSnapshot()
+        public Map<String, Table> tableSnapshots = Maps.newHashMap();
+
         // Indicates whether the query has plan hints.
         public boolean hasPlanHints = false;
 
@@ -224,6 +227,12 @@ public class Analyzer {
         // map from slot id to the analyzer/block in which it was registered
         public final Map<SlotId, Analyzer> blockBySlot = Maps.newHashMap();
 
+        // tuples whose inferred predicates have been registered, see registerInferredPredicates()
+        public final Set<TupleId> inferredTupleIds = Sets.newHashSet();
+
+        // view id -> catalog views referenced by the query, including the ones referenced by other views
+        public final Map<Long, View> referencedViews = Maps.newTreeMap();
+
         // Expr rewriter for normalizing and rewriting expressions.
         private final ExprRewriter exprRewriter_;
 
@@ -467,7 +476,10 @@ public class Analyzer {
             ErrorReport.reportAnalysisException(ErrorCode.ERR_BAD_DB_ERROR, dbName);
         }
 
-        Table table = database.getTable(tableName.getTbl());
+        Table table = globalState.tableSnapshots.get(getSnapshotKey(database.getFullName(), tableName.getTbl()));
+        if (table == null) {
+            table = database.getTable(tableName.getTbl());
+        }
         if (table == null) {
             ErrorReport.reportAnalysisException(ErrorCode.ERR_BAD_TABLE_ERROR, tableName.getTbl());
         }
@@ -479,6 +491,7 @@ public class Analyzer {
 
         TableName tblName = new TableName(database.getFullName(), table.getName());
         if (table instanceof View) {
+            globalState.referencedViews.put(table.getId(), (View) table);
             return new InlineViewRef((View) table, tableRef);
         } else {
             // The table must be a base table.
@@ -486,6 +499,18 @@ public class Analyzer {
         }
     }
 
+    /*
+     * Resolve tables to the given snapshots instead of the tables in catalog, so the query can be analyzed
+     * and planned without holding the locks of tables. Should be set before starting analysis.
+     */
+    public void setTableSnapshots(Map<String, Table> tableSnapshots) {
+        globalState.tableSnapshots = tableSnapshots;
+    }
+
+    public static String getSnapshotKey(String dbName, String tableName) {
+        return dbName + "." + tableName;
+    }
+
     public Table getTable(TableName tblName) {
         Database db = globalState.catalog.getDb(tblName.getDb());
         if (db == null) {
@@ -850,6 +875,147 @@ public class Analyzer {
         registerConjunct(p);
     }
 
+    /**
+     * Infer the predicates on the slots of the tuple from the predicates on the slots whose
+     * values are transferred to them, and register them as conjuncts, eg. "a.k1 = 1" is inferred
+     * from "b.k1 = 1" and "a.k1 = b.k1". So the partitions and buckets of the scan of the tuple
+     * can be pruned, or the inferred predicates can be migrated into the inline view of the tuple.
+     *
+     * The values are transferred between two slots of tuples which are neither outer joined nor
+     * semi joined by an equal conjunct which is not tied to an outer or semi join clause, and
+     * from the input to the output of inline views and aggregations by the auxiliary equivalence
+     * predicates. A value is not transferred into an inline view, which is done by migrating
+     * conjuncts into it if possible.
+     * Only the predicates of a slot and constants, ie. binary and in predicates, are inferred.
+     */
+    public void registerInferredPredicates(TupleId tid) throws AnalysisException {
+        if (!globalState.inferredTupleIds.add(tid) || !canTransferValues(tid)) {
+            return;
+        }
+
+        // slot id -> ids of the slots whose values are transferred to it
+        Map<SlotId, List<SlotId>> valueTransfers = Maps.newHashMap();
+        for (Expr e : globalState.conjuncts.values()) {
+            if (!isValueTransferPredicate(e)) {
+                continue;
+            }
+            SlotId lhsSlotId = ((SlotRef) e.getChild(0)).getSlotId();
+            SlotId rhsSlotId = ((SlotRef) e.getChild(1)).getSlotId();
+            // the lhs of an auxiliary predicate is the output of the rhs
+            addValueTransfer(valueTransfers, rhsSlotId, lhsSlotId);
+            if (!e.isAuxExpr()) {
+                addValueTransfer(valueTransfers, lhsSlotId, rhsSlotId);
+            }
+        }
+        if (valueTransfers.isEmpty()) {
+            return;
+        }
+
+        List<Expr> inferredPredicates = Lists.newArrayList();
+        List<Expr> conjuncts = Lists.newArrayList(globalState.conjuncts.values());
+        for (SlotDescriptor slotDesc : getTupleDesc(tid).getSlots()) {
+            Set<SlotId> srcSlotIds = getTransferredSlotIds(slotDesc.getId(), valueTransfers);
+            if (srcSlotIds.isEmpty()) {
+                continue;
+            }
+            for (Expr e : conjuncts) {
+                SlotRef srcSlotRef = getInferableSlotRef(e);
+                if (srcSlotRef == null || !srcSlotIds.contains(srcSlotRef.getSlotId())) {
+                    continue;
+                }
+                ExprSubstitutionMap smap = new ExprSubstitutionMap();
+                smap.put(srcSlotRef, new SlotRef(slotDesc));
+                Expr pred = e.trySubstitute(smap, this, false);
+                pred.setIsOnClauseConjunct(false);
+                if (pred instanceof BinaryPredicate) {
+                    ((BinaryPredicate) pred).setIsInferred();
+                }
+                if (!conjuncts.contains(pred) && !inferredPredicates.contains(pred)) {
+                    inferredPredicates.add(pred);
+                }
+            }
+        }
+        for (Expr pred : inferredPredicates) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("register inferred predicate: " + pred.toSql());
+            }
+            registerConjunct(pred);
+        }
+    }
+
+    private boolean canTransferValues(TupleId tid) {
+        return !isOuterJoined(tid) && !isFullOuterJoined(tid) && !isSemiJoined(tid);
+    }
+
+    // Return true if e is "<slot> = <slot>" transferring the values between the slots.
+    private boolean isValueTransferPredicate(Expr e) {
+        if (!(e instanceof BinaryPredicate) || ((BinaryPredicate) e).getOp() != BinaryPredicate.Operator.EQ
+                || !(e.getChild(0) instanceof SlotRef) || !(e.getChild(1) instanceof SlotRef)
+                || e.getChild(0).getType().getPrimitiveType() != e.getChild(1).getType().getPrimitiveType()) {
+            return false;
+        }
+        if (e.isAuxExpr()) {
+            return true;
+        }
+        if (globalState.ojClauseByConjunct.containsKey(e.getId())
+                || globalState.sjClauseByConjunct.containsKey(e.getId())
+                || globalState.fullOuterJoinedConjuncts.containsKey(e.getId())) {
+            return false;
+        }
+        return canTransferValues(getTupleId(((SlotRef) e.getChild(0)).getSlotId()))
+                && canTransferValues(getTupleId(((SlotRef) e.getChild(1)).getSlotId()));
+    }
+
+    private static void addValueTransfer(Map<SlotId, List<SlotId>> valueTransfers, SlotId src, SlotId dest) {
+        List<SlotId> srcSlotIds = valueTransfers.get(dest);
+        if (srcSlotIds == null) {
+            srcSlotIds = Lists.newArrayList();
+            valueTransfers.put(dest, srcSlotIds);
+        }
+        srcSlotIds.add(src);
+    }
+
+    // Return the ids of the slots whose values are transferred to the slot directly or indirectly.
+    private static Set<SlotId> getTransferredSlotIds(SlotId slotId, Map<SlotId, List<SlotId>> valueTransfers) {
+        Set<SlotId> result = Sets.newHashSet();
+        List<SlotId> queue = Lists.newArrayList(slotId);
+        for (int i = 0; i < queue.size(); i++) {
+            List<SlotId> srcSlotIds = valueTransfers.get(queue.get(i));
+            if (srcSlotIds == null) {
+                continue;
+            }
+            for (SlotId srcSlotId : srcSlotIds) {
+                if (!srcSlotId.equals(slotId) && result.add(srcSlotId)) {
+                    queue.add(srcSlotId);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Return the slot of e if it is "<slot> <op> <constant>" or "<slot> [not] in (<constants>)",
+    // and it is not tied to an outer or semi join clause.
+    private SlotRef getInferableSlotRef(Expr e) {
+        if (e.isAuxExpr() || e.isConstant()
+                || globalState.ojClauseByConjunct.containsKey(e.getId())
+                || globalState.sjClauseByConjunct.containsKey(e.getId())
+                || globalState.fullOuterJoinedConjuncts.containsKey(e.getId())) {
+            return null;
+        }
+        if (e instanceof BinaryPredicate) {
+            if (!e.getChild(1).isConstant()) {
+                return null;
+            }
+        } else if (e instanceof InPredicate) {
+            if (!((InPredicate) e).isLiteralChildren()) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+        return e.getChild(0).unwrapSlotRef(true);
+    }
+
     /**
      * Return all unassigned registered conjuncts that are fully bound by the given
      * (logical) tuple ids, can be evaluated by 'tupleIds' and are not tied to an
@@ -1646,6 +1812,11 @@ public class Analyzer {
 
     public Map<String, View> getLocalViews() { return localViews_; }
 
+    // catalog views referenced by the query, in the order of ids
+    public Collection<View> getReferencedViews() {
+        return globalState.referencedViews.values();
+    }
+
     public boolean isOuterJoined(TupleId tid) {
         return globalState.outerJoinedTupleIds.containsKey(tid);
     }
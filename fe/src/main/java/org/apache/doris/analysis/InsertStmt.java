@@ -143,9 +143,10 @@ public class InsertStmt extends DdlStmt {
     }
 
     // TODO(zc): used to get all dbs for lock
-    public void getDbs(Analyzer analyzer, Map<String, Database> dbs) throws AnalysisException {
+    public void getDbs(Analyzer analyzer, Map<String, Database> dbs,
+                       Map<String, Set<String>> tableNames) throws AnalysisException {
         // get dbs of statement
-        queryStmt.getDbs(analyzer, dbs);
+        queryStmt.getDbs(analyzer, dbs, tableNames);
         // get db of target table
         tblName.analyze(analyzer);
         String dbName = tblName.getDb();
@@ -165,6 +166,12 @@ public class InsertStmt extends DdlStmt {
         }
 
         dbs.put(dbName, db);
+        Set<String> names = tableNames.get(dbName);
+        if (names == null) {
+            names = Sets.newHashSet();
+            tableNames.put(dbName, names);
+        }
+        names.add(tblName.getTbl());
     }
 
     public QueryStmt getQueryStmt() {
@@ -0,0 +1,83 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.analysis;
+
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.thrift.TExprNode;
+
+/*
+ * The parameter marker '?' of a prepared statement.
+ *
+ * A prepared statement is never analyzed itself. Each execution analyzes a clone of it, and the clone of
+ * a placeholder is the clone of the value bound to it, so the analyzed statement only contains ordinary literals.
+ * Clones of an unbound placeholder share the binding of the placeholder created by the parser.
+ */
+public class PlaceHolderExpr extends LiteralExpr {
+    private final PlaceHolderExpr origin;
+    private LiteralExpr value;
+
+    public PlaceHolderExpr() {
+        origin = this;
+    }
+
+    protected PlaceHolderExpr(PlaceHolderExpr other) {
+        super(other);
+        origin = other.origin;
+    }
+
+    public void bind(LiteralExpr value) {
+        origin.value = value;
+    }
+
+    public LiteralExpr getValue() {
+        return origin.value;
+    }
+
+    @Override
+    public Expr clone() {
+        if (origin.value != null) {
+            return origin.value.clone();
+        }
+        return new PlaceHolderExpr(this);
+    }
+
+    @Override
+    protected void analyzeImpl(Analyzer analyzer) throws AnalysisException {
+        throw new AnalysisException("Parameter marker '?' can only be used in prepared statement");
+    }
+
+    @Override
+    public boolean isMinValue() {
+        return false;
+    }
+
+    @Override
+    public int compareLiteral(LiteralExpr expr) {
+        return -1;
+    }
+
+    @Override
+    protected String toSqlImpl() {
+        return "?";
+    }
+
+    @Override
+    protected void toThrift(TExprNode msg) {
+        throw new IllegalStateException("Unbound parameter marker can not be sent to backend");
+    }
+}
@@ -361,14 +361,17 @@ public abstract class QueryStmt extends StatementBase {
         return resultExprs.get((int) pos - 1).clone();
     }
 
-    public void getWithClauseDbs(Analyzer analyzer, Map<String, Database> dbs) throws AnalysisException {
+    public void getWithClauseDbs(Analyzer analyzer, Map<String, Database> dbs,
+                                 Map<String, Set<String>> tableNames) throws AnalysisException {
         if (withClause_ != null) {
-            withClause_.getDbs(analyzer, dbs);
+            withClause_.getDbs(analyzer, dbs, tableNames);
         }
     }
 
-    // get database used by this query.
-    public abstract void getDbs(Analyzer analyzer, Map<String, Database> dbs) throws AnalysisException;
+    // get databases used by this query, and the names of referenced tables of each database (by full db name).
+    // table names may contain aliases of WITH clause, which should be ignored if not found in database.
+    public abstract void getDbs(Analyzer analyzer, Map<String, Database> dbs,
+                                Map<String, Set<String>> tableNames) throws AnalysisException;
 
     /**
      * UnionStmt and SelectStmt have different implementations.
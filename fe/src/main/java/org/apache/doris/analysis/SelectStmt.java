@@ -160,6 +160,21 @@ public class SelectStmt extends QueryStmt {
         return selectList;
     }
 
+    /**
+     * @return the exprs of the select list items, which are not substituted by the outputs of aggregation,
+     * or null if any item is a star
+     */
+    public List<Expr> getSelectListExprs() {
+        List<Expr> exprs = Lists.newArrayList();
+        for (SelectListItem item : selectList.getItems()) {
+            if (item.isStar()) {
+                return null;
+            }
+            exprs.add(item.getExpr());
+        }
+        return exprs;
+    }
+
     /**
      * @return the HAVING clause post-analysis and with aliases resolved
      */
@@ -205,13 +220,14 @@ public class SelectStmt extends QueryStmt {
     }
 
     @Override
-    public void getDbs(Analyzer analyzer, Map<String, Database> dbs) throws AnalysisException {
-        getWithClauseDbs(analyzer, dbs);
+    public void getDbs(Analyzer analyzer, Map<String, Database> dbs,
+                       Map<String, Set<String>> tableNames) throws AnalysisException {
+        getWithClauseDbs(analyzer, dbs, tableNames);
         for (TableRef tblRef : fromClause_) {
             if (tblRef instanceof InlineViewRef) {
                 // Inline view reference
                 QueryStmt inlineStmt = ((InlineViewRef) tblRef).getViewStmt();
-                inlineStmt.getDbs(analyzer, dbs);
+                inlineStmt.getDbs(analyzer, dbs, tableNames);
             } else {
                 String dbName = tblRef.getName().getDb();
                 if (Strings.isNullOrEmpty(dbName)) {
@@ -239,8 +255,31 @@ public class SelectStmt extends QueryStmt {
                 }
 
                 dbs.put(dbName, db);
+                Set<String> names = tableNames.get(dbName);
+                if (names == null) {
+                    names = Sets.newHashSet();
+                    tableNames.put(dbName, names);
+                }
+                names.add(tblRef.getName().getTbl());
             }
         }
+
+        // tables referenced by subqueries in expressions
+        List<Subquery> subqueries = Lists.newArrayList();
+        for (SelectListItem item : selectList.getItems()) {
+            if (!item.isStar()) {
+                item.getExpr().collect(Subquery.class, subqueries);
+            }
+        }
+        if (whereClause != null) {
+            whereClause.collect(Subquery.class, subqueries);
+        }
+        if (havingClause != null) {
+            havingClause.collect(Subquery.class, subqueries);
+        }
+        for (Subquery subquery : subqueries) {
+            subquery.getStatement().getDbs(analyzer, dbs, tableNames);
+        }
     }
 
     // Column alias generator used during query rewriting.
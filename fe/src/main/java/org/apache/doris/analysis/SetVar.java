@@ -91,6 +91,11 @@ public class SetVar {
                 throw new AnalysisException("Invalid resource group, now we support {low, normal, high}.");
             }
         }
+        if (variable.equalsIgnoreCase(SessionVariable.REPLICA_SELECTION_POLICY)) {
+            if (!SessionVariable.isValidReplicaSelectionPolicy(value.getStringValue())) {
+                throw new AnalysisException("Invalid replica selection policy, now we support {random, load_aware}.");
+            }
+        }
     }
 
     public String toSql() {
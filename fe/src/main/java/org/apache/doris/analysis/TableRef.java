@@ -180,6 +180,10 @@ public class TableRef implements ParseNode, Writable {
         return partitions;
     }
 
+    public void setPartitions(List<String> partitions) {
+        this.partitions = partitions;
+    }
+
     @Override
     public void analyze(Analyzer analyzer) throws AnalysisException, UserException {
         ErrorReport.reportAnalysisException(ErrorCode.ERR_UNRESOLVED_TABLE_REF, tableRefToSql());
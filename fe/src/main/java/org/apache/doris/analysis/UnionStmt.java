@@ -31,6 +31,7 @@ import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Representation of a union with its list of operands, and optional order by and limit.
@@ -169,10 +170,11 @@ public class UnionStmt extends QueryStmt {
     public List<Expr> getUnionResultExprs() { return unionResultExprs_; }
 
     @Override
-    public void getDbs(Analyzer analyzer, Map<String, Database> dbs) throws AnalysisException {
-        getWithClauseDbs(analyzer, dbs);
+    public void getDbs(Analyzer analyzer, Map<String, Database> dbs,
+                       Map<String, Set<String>> tableNames) throws AnalysisException {
+        getWithClauseDbs(analyzer, dbs, tableNames);
         for (UnionOperand op : operands) {
-            op.getQueryStmt().getDbs(analyzer, dbs);
+            op.getQueryStmt().getDbs(analyzer, dbs, tableNames);
         }
     }
 
@@ -21,12 +21,14 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Joiner.MapJoiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Range;
 import com.google.common.collect.Sets;
+import com.google.common.io.CountingOutputStream;
 import com.sleepycat.je.rep.InsufficientLogException;
 import com.sleepycat.je.rep.NetworkRestore;
 import com.sleepycat.je.rep.NetworkRestoreConfig;
@@ -108,9 +110,9 @@ import org.apache.doris.common.UserException;
 import org.apache.doris.common.io.Text;
 import org.apache.doris.common.util.Daemon;
 import org.apache.doris.common.util.KuduUtil;
+import org.apache.doris.common.util.MonitoredReadWriteLock;
 import org.apache.doris.common.util.PrintableMap;
 import org.apache.doris.common.util.PropertyAnalyzer;
-import org.apache.doris.common.util.QueryableReentrantLock;
 import org.apache.doris.common.util.Util;
 import org.apache.doris.consistency.ConsistencyChecker;
 import org.apache.doris.deploy.DeployManager;
@@ -125,6 +127,7 @@ import org.apache.doris.ha.MasterInfo;
 import org.apache.doris.http.meta.MetaBaseAction;
 import org.apache.doris.journal.JournalCursor;
 import org.apache.doris.journal.JournalEntity;
+import org.apache.doris.journal.PrefetchJournalCursor;
 import org.apache.doris.journal.bdbje.Timestamp;
 import org.apache.doris.load.DeleteInfo;
 import org.apache.doris.load.ExportChecker;
@@ -148,10 +151,14 @@ import org.apache.doris.persist.DropInfo;
 import org.apache.doris.persist.DropLinkDbAndUpdateDbInfo;
 import org.apache.doris.persist.DropPartitionInfo;
 import org.apache.doris.persist.EditLog;
+import org.apache.doris.persist.ImageCompression;
 import org.apache.doris.persist.ModifyPartitionInfo;
 import org.apache.doris.persist.PartitionPersistInfo;
 import org.apache.doris.persist.RecoverInfo;
 import org.apache.doris.persist.ReplicaPersistInfo;
+import org.apache.doris.persist.SectionedImageReader;
+import org.apache.doris.persist.SectionedImageWriter;
+import org.apache.doris.persist.SectionedImageWriter.SectionEntry;
 import org.apache.doris.persist.Storage;
 import org.apache.doris.persist.StorageInfo;
 import org.apache.doris.persist.TableInfo;
@@ -187,12 +194,15 @@ import org.codehaus.jackson.map.JsonMappingException;
 import org.codehaus.jackson.map.ObjectMapper;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
@@ -204,8 +214,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -216,9 +231,26 @@ public class Catalog {
     private static final int HTTP_TIMEOUT_SECOND = 5;
     private static final int STATE_CHANGE_CHECK_INTERVAL_MS = 100;
     private static final int REPLAY_INTERVAL_MS = 1;
+    // notify the journal observers at least once every this number of replayed journals
+    private static final int REPLAY_NOTIFY_BATCH_SIZE = 100;
     public static final String BDB_DIR = Config.meta_dir + "/bdb";
     public static final String IMAGE_DIR = Config.meta_dir + "/image";
 
+    // section names of sectioned image
+    private static final String IMAGE_SECTION_HEADER = "header";
+    private static final String IMAGE_SECTION_DB_PREFIX = "db.";
+    private static final String IMAGE_SECTION_LOAD_JOB = "load_job";
+    private static final String IMAGE_SECTION_ALTER_JOB = "alter_job";
+    private static final String IMAGE_SECTION_RECYCLE_BIN = "recycle_bin";
+    private static final String IMAGE_SECTION_GLOBAL_VARIABLE = "global_variable";
+    private static final String IMAGE_SECTION_CLUSTER = "cluster";
+    private static final String IMAGE_SECTION_BROKER = "broker";
+    private static final String IMAGE_SECTION_EXPORT_JOB = "export_job";
+    private static final String IMAGE_SECTION_BACKUP_HANDLER = "backup_handler";
+    private static final String IMAGE_SECTION_PALO_AUTH = "palo_auth";
+    private static final String IMAGE_SECTION_TRANSACTION_STATE = "transaction_state";
+    private static final String IMAGE_SECTION_COLOCATE_TABLE_INDEX = "colocate_table_index";
+
     // Image file meta data version. Use this version to load image file
     private int imageVersion = 0;
     // Current journal meta data version. Use this version to load journals
@@ -230,8 +262,9 @@ public class Catalog {
     // Operations like Get or Put do not need lock.
     // We use fair ReentrantLock to avoid starvation. Do not use this lock in critical code pass
     // because fair lock has poor performance.
-    // Using QueryableReentrantLock to print owner thread in debug mode.
-    private QueryableReentrantLock lock;
+    // Only the write lock of MonitoredReadWriteLock is used, as an exclusive lock.
+    // It can print owner thread in debug mode, and its holders are shown in proc '/locks'.
+    private MonitoredReadWriteLock lock;
 
     private ConcurrentHashMap<Long, Database> idToDb;
     private ConcurrentHashMap<String, Database> fullNameToDb;
@@ -244,6 +277,8 @@ public class Catalog {
     private Clone clone;
     private Alter alter;
     private ConsistencyChecker consistencyChecker;
+    private ColumnStatsMgr columnStatsMgr;
+    private ColocateTableIndex colocateTableIndex;
     private BackupHandler backupHandler;
     private PublishVersionDaemon publishVersionDaemon;
 
@@ -253,6 +288,10 @@ public class Catalog {
     private Daemon cleaner; // To clean old LabelInfo, ExportJobInfos
     private Daemon txnCleaner; // To clean aborted or timeout txns
     private Daemon replayer;
+    // the replayer waits on this monitor when there is no new journal
+    private final Object replayerMonitor = new Object();
+    private boolean replayerWakeUp = false;
+    private long replayerIdleWaitMs = 0;
     private Daemon timePrinter;
     private Daemon listener;
     private EsStateStore esStateStore;  // it is a daemon, so add it here
@@ -374,7 +413,9 @@ public class Catalog {
         this.clone = new Clone();
         this.alter = new Alter();
         this.consistencyChecker = new ConsistencyChecker();
-        this.lock = new QueryableReentrantLock(true);
+        this.columnStatsMgr = new ColumnStatsMgr();
+        this.colocateTableIndex = new ColocateTableIndex();
+        this.lock = new MonitoredReadWriteLock();
         this.backupHandler = new BackupHandler(this);
         this.metaDir = Config.meta_dir;
         this.userPropertyMgr = new UserPropertyMgr();
@@ -484,6 +525,10 @@ public class Catalog {
         return getCurrentCatalog().getRecycleBin();
     }
 
+    public static ColocateTableIndex getCurrentColocateIndex() {
+        return getCurrentCatalog().getColocateTableIndex();
+    }
+
     // use this to get correct Catalog's journal version
     public static int getCurrentCatalogJournalVersion() {
         return getCurrentCatalog().getJournalVersion();
@@ -497,7 +542,7 @@ public class Catalog {
     private boolean tryLock(boolean mustLock) {
         while (true) {
             try {
-                if (!lock.tryLock(Config.catalog_try_lock_timeout_ms, TimeUnit.MILLISECONDS)) {
+                if (!lock.tryWriteLock(Config.catalog_try_lock_timeout_ms, TimeUnit.MILLISECONDS)) {
                     if (LOG.isDebugEnabled()) {
                         // to see which thread held this lock for long time.
                         Thread owner = lock.getOwner();
@@ -518,18 +563,22 @@ public class Catalog {
                 if (mustLock) {
                     continue;
                 } else {
-                    return lock.isHeldByCurrentThread();
+                    return lock.isWriteLockHeldByCurrentThread();
                 }
             }
         }
     }
 
     private void unlock() {
-        if (lock.isHeldByCurrentThread()) {
-            this.lock.unlock();
+        if (lock.isWriteLockHeldByCurrentThread()) {
+            this.lock.writeUnlock();
         }
     }
 
+    public MonitoredReadWriteLock getLock() {
+        return lock;
+    }
+
     public void initialize(String[] args) throws Exception {
         // 0. get local node and helper node info
         getSelfHostPort();
@@ -924,6 +973,7 @@ public class Catalog {
         editLog.open();
         if (replayer != null) {
             replayer.exit();
+            wakeUpReplayer();
         }
         if (!haProtocol.fencing()) {
             LOG.error("fencing failed. will exit.");
@@ -1015,6 +1065,11 @@ public class Catalog {
         // Consistency checker
         getConsistencyChecker().start();
 
+        // Column stats refresher
+        if (Config.column_stats_refresh_interval_second > 0) {
+            getColumnStatsMgr().start();
+        }
+
         // Backup handler
         getBackupHandler().start();
 
@@ -1131,8 +1186,7 @@ public class Catalog {
                         + "/image?version=" + version;
                 String filename = Storage.IMAGE + "." + version;
                 File dir = new File(IMAGE_DIR);
-                MetaHelper.getRemoteFile(url, HTTP_TIMEOUT_SECOND * 1000, MetaHelper.getOutputStream(filename, dir));
-                MetaHelper.complete(filename, dir);
+                MetaHelper.downloadFile(url, HTTP_TIMEOUT_SECOND * 1000, filename, dir);
             }
         } catch (Exception e) {
             return;
@@ -1185,6 +1239,14 @@ public class Catalog {
     }
 
     public void loadImage(String imageDir) throws IOException, DdlException {
+        loadImage(imageDir, null);
+    }
+
+    /*
+     * If dbIds is not null, only databases in dbIds will be loaded.
+     * This is only used by incremental checkpoint, and only works with sectioned image.
+     */
+    public void loadImage(String imageDir, Set<Long> dbIds) throws IOException, DdlException {
         Storage storage = new Storage(imageDir);
         clusterId = storage.getClusterID();
         File curFile = storage.getCurrentImageFile();
@@ -1196,7 +1258,23 @@ public class Catalog {
         replayedJournalId.set(storage.getImageSeq());
         LOG.info("start load image from {}. is ckpt: {}", curFile.getAbsolutePath(), Catalog.isCheckpointThread());
         long loadImageStartTime = System.currentTimeMillis();
-        DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(curFile)));
+        if (SectionedImageReader.isSectionedImage(curFile)) {
+            loadSectionedImage(curFile, dbIds);
+        } else {
+            Preconditions.checkState(dbIds == null, "can not load part of databases from legacy image");
+            loadLegacyImage(curFile);
+        }
+
+        long loadImageEndTime = System.currentTimeMillis();
+        LOG.info("finished load image in " + (loadImageEndTime - loadImageStartTime) + " ms");
+    }
+
+    private void loadLegacyImage(File curFile) throws IOException, DdlException {
+        InputStream in = new BufferedInputStream(new FileInputStream(curFile), Config.image_io_buffer_size_bytes);
+        if (ImageCompression.isCompressedLegacyImage(curFile)) {
+            in = ImageCompression.decompress(in);
+        }
+        DataInputStream dis = new DataInputStream(in);
 
         long checksum = 0;
         try {
@@ -1224,15 +1302,226 @@ public class Catalog {
             if (Catalog.getCurrentCatalogJournalVersion() >= FeMetaVersion.VERSION_45) {
                 checksum = loadTransactionState(dis, checksum);
             }
+            if (Catalog.getCurrentCatalogJournalVersion() >= FeMetaVersion.VERSION_49) {
+                checksum = loadColocateTableIndex(dis, checksum);
+            }
 
             long remoteChecksum = dis.readLong();
             Preconditions.checkState(remoteChecksum == checksum, remoteChecksum + " vs. " + checksum);
         } finally {
             dis.close();
         }
+    }
 
-        long loadImageEndTime = System.currentTimeMillis();
-        LOG.info("finished load image in " + (loadImageEndTime - loadImageStartTime) + " ms");
+    /*
+     * Sectioned image is always saved by a version which has all the modules below,
+     * so there is no need to check the image version before loading each section.
+     * Each section is checked by its own checksum when the section stream is closed.
+     */
+    private void loadSectionedImage(File curFile, Set<Long> dbIds) throws IOException, DdlException {
+        SectionedImageReader reader = new SectionedImageReader(curFile, Config.image_io_buffer_size_bytes);
+        try {
+            DataInputStream dis = reader.openSection(IMAGE_SECTION_HEADER);
+            loadHeader(dis, 0);
+            loadMasterInfo(dis, 0);
+            loadFrontends(dis, 0);
+            Catalog.getCurrentSystemInfo().loadBackends(dis, 0);
+            dis.close();
+
+            loadDbSections(reader, dbIds);
+            // ATTN: this should be done after load Db, and before loadAlterJob
+            recreateTabletInvertIndex();
+
+            // modules are loaded in the same order as legacy image, because some of them depend on others.
+            dis = reader.openSection(IMAGE_SECTION_LOAD_JOB);
+            loadLoadJob(dis, 0);
+            dis.close();
+            dis = reader.openSection(IMAGE_SECTION_ALTER_JOB);
+            loadAlterJob(dis, 0);
+            dis.close();
+            dis = reader.openSection(IMAGE_SECTION_RECYCLE_BIN);
+            loadRecycleBin(dis, 0);
+            dis.close();
+            dis = reader.openSection(IMAGE_SECTION_GLOBAL_VARIABLE);
+            loadGlobalVariable(dis, 0);
+            dis.close();
+            dis = reader.openSection(IMAGE_SECTION_CLUSTER);
+            loadCluster(dis, 0);
+            dis.close();
+            dis = reader.openSection(IMAGE_SECTION_BROKER);
+            loadBrokers(dis, 0);
+            dis.close();
+            dis = reader.openSection(IMAGE_SECTION_EXPORT_JOB);
+            loadExportJob(dis, 0);
+            dis.close();
+            dis = reader.openSection(IMAGE_SECTION_BACKUP_HANDLER);
+            loadBackupHandler(dis, 0);
+            dis.close();
+            dis = reader.openSection(IMAGE_SECTION_PALO_AUTH);
+            loadPaloAuth(dis, 0);
+            dis.close();
+            dis = reader.openSection(IMAGE_SECTION_TRANSACTION_STATE);
+            loadTransactionState(dis, 0);
+            dis.close();
+            // images saved before colocation groups are supported do not have this section
+            if (reader.hasSection(IMAGE_SECTION_COLOCATE_TABLE_INDEX)) {
+                dis = reader.openSection(IMAGE_SECTION_COLOCATE_TABLE_INDEX);
+                loadColocateTableIndex(dis, 0);
+                dis.close();
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /*
+     * Each database is saved in its own section, so databases can be deserialized in parallel.
+     * Deserialized databases are added to catalog in the order they were saved.
+     *
+     * ATTN: Deserialization depends on Catalog.getCurrentCatalogJournalVersion(), which returns
+     * the version of the checkpoint catalog only in the checkpoint thread itself.
+     * So image loaded by checkpoint thread is always loaded in this thread.
+     */
+    private void loadDbSections(final SectionedImageReader reader, Set<Long> dbIds) throws IOException {
+        final List<String> dbSections = Lists.newArrayList();
+        for (SectionEntry entry : reader.getSections()) {
+            if (!entry.name.startsWith(IMAGE_SECTION_DB_PREFIX)) {
+                continue;
+            }
+            if (dbIds == null || dbIds.contains(getDbIdOfSection(entry.name))) {
+                dbSections.add(entry.name);
+            }
+        }
+
+        List<Database> dbs = Lists.newArrayListWithCapacity(dbSections.size());
+        int threadNum = Math.min(Config.image_load_thread_num, dbSections.size());
+        if (isCheckpointThread() || threadNum <= 1) {
+            for (String sectionName : dbSections) {
+                dbs.add(loadDbSection(reader, sectionName));
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threadNum);
+            try {
+                List<Future<Database>> futures = Lists.newArrayListWithCapacity(dbSections.size());
+                for (final String sectionName : dbSections) {
+                    futures.add(executor.submit(new Callable<Database>() {
+                        @Override
+                        public Database call() throws Exception {
+                            return loadDbSection(reader, sectionName);
+                        }
+                    }));
+                }
+                for (Future<Database> future : futures) {
+                    dbs.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted when loading databases from image", e);
+            } catch (ExecutionException e) {
+                Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+                throw new IOException("failed to load databases from image", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        for (Database db : dbs) {
+            idToDb.put(db.getId(), db);
+            fullNameToDb.put(db.getFullName(), db);
+            if (db.getDbState() == DbState.LINK) {
+                fullNameToDb.put(db.getAttachDb(), db);
+            }
+        }
+        LOG.info("finished load {} databases from image", dbs.size());
+    }
+
+    private static long getDbIdOfSection(String sectionName) {
+        return Long.parseLong(sectionName.substring(IMAGE_SECTION_DB_PREFIX.length()));
+    }
+
+    /*
+     * Decide which databases should be loaded for incremental checkpoint.
+     *
+     * Return the ids of databases which will be modified by replaying journals from current image
+     * to toJournalId, plus the databases which have unfinished alter jobs (because loading alter jobs
+     * modifies their databases). All other database sections can be copied from the current image directly.
+     * Return null if incremental checkpoint can not be done, eg. current image is not sectioned,
+     * or some of the journals are DDL, which should be replayed on the whole catalog.
+     *
+     * Only called by checkpoint thread on the checkpoint catalog, before loading image.
+     */
+    public Set<Long> planIncrementalCheckpoint(String imageDir, long toJournalId) throws IOException {
+        Storage storage = new Storage(imageDir);
+        File curFile = storage.getCurrentImageFile();
+        if (!curFile.exists() || !SectionedImageReader.isSectionedImage(curFile)) {
+            LOG.info("image {} is not a sectioned image, can not do incremental checkpoint", curFile.getName());
+            return null;
+        }
+
+        Set<Long> dbIds = Sets.newHashSet();
+        SectionedImageReader reader = new SectionedImageReader(curFile, Config.image_io_buffer_size_bytes);
+        try {
+            // journals and alter jobs are deserialized according to the meta version in image header.
+            loadHeader(reader.openSection(IMAGE_SECTION_HEADER), 0);
+            collectAlterJobDbIds(reader.openSection(IMAGE_SECTION_ALTER_JOB), dbIds);
+        } finally {
+            reader.close();
+        }
+
+        JournalCursor cursor = editLog.read(storage.getImageSeq() + 1, toJournalId);
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            while (true) {
+                JournalEntity entity = cursor.next();
+                if (entity == null) {
+                    break;
+                }
+                if (!EditLog.collectModifiedDbIds(entity, dbIds)) {
+                    LOG.info("journal with op code {} can not be replayed incrementally", entity.getOpCode());
+                    return null;
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return dbIds;
+    }
+
+    private void collectAlterJobDbIds(DataInputStream dis, Set<Long> dbIds) throws IOException {
+        try {
+            for (JobType type : JobType.values()) {
+                // alter jobs
+                int size = dis.readInt();
+                for (int i = 0; i < size; i++) {
+                    dis.readLong(); // table id
+                    AlterJob job = AlterJob.read(dis);
+                    if (job.getState() == org.apache.doris.alter.AlterJob.JobState.PENDING
+                            || job.getState() == org.apache.doris.alter.AlterJob.JobState.RUNNING) {
+                        dbIds.add(job.getDbId());
+                    }
+                }
+                // finished or cancelled jobs
+                size = dis.readInt();
+                for (int i = 0; i < size; i++) {
+                    dis.readLong(); // table id
+                    AlterJob.read(dis);
+                }
+            }
+        } finally {
+            dis.close();
+        }
+    }
+
+    private Database loadDbSection(SectionedImageReader reader, String sectionName) throws IOException {
+        DataInputStream dis = reader.openSection(sectionName);
+        try {
+            Database db = new Database();
+            db.readFields(dis);
+            return db;
+        } finally {
+            dis.close();
+        }
     }
     
     private void recreateTabletInvertIndex() {
@@ -1607,6 +1896,11 @@ public class Catalog {
         return newChecksum;
     }
 
+    public long loadColocateTableIndex(DataInputStream dis, long checksum) throws IOException {
+        colocateTableIndex.readFields(dis);
+        return checksum;
+    }
+
     public long loadRecycleBin(DataInputStream dis, long checksum) throws IOException {
         if (Catalog.getCurrentCatalogJournalVersion() >= FeMetaVersion.VERSION_10) {
             Catalog.getCurrentRecycleBin().readFields(dis);
@@ -1621,11 +1915,29 @@ public class Catalog {
 
     // Only called by checkpoint thread
     public void saveImage() throws IOException {
+        saveImage(null, null);
+    }
+
+    /*
+     * If baseImage is not null, only databases in dirtyDbIds are saved from this catalog,
+     * other database sections are copied from baseImage.
+     * This is only used by incremental checkpoint, and baseImage must be a sectioned image.
+     */
+    public void saveImage(File baseImage, Set<Long> dirtyDbIds) throws IOException {
         // Write image.ckpt
         Storage storage = new Storage(IMAGE_DIR);
         File curFile = storage.getImageFile(replayedJournalId.get());
         File ckpt = new File(IMAGE_DIR, Storage.IMAGE_NEW);
-        saveImage(ckpt, replayedJournalId.get());
+        if (baseImage == null) {
+            saveImage(ckpt, replayedJournalId.get());
+        } else {
+            SectionedImageReader baseReader = new SectionedImageReader(baseImage, Config.image_io_buffer_size_bytes);
+            try {
+                saveSectionedImage(ckpt, replayedJournalId.get(), baseReader, dirtyDbIds);
+            } finally {
+                baseReader.close();
+            }
+        }
 
         // Move image.ckpt to image.dataVersion
         LOG.info("Move " + ckpt.getAbsolutePath() + " to " + curFile.getAbsolutePath());
@@ -1643,9 +1955,19 @@ public class Catalog {
         // save image does not need any lock. because only checkpoint thread will call this method.
         LOG.info("start save image to {}. is ckpt: {}", curFile.getAbsolutePath(), Catalog.isCheckpointThread());
 
+        if (Config.enable_sectioned_image) {
+            saveSectionedImage(curFile, replayedJournalId, null, null);
+            return;
+        }
+
         long checksum = 0;
         long saveImageStartTime = System.currentTimeMillis();
-        DataOutputStream dos = new DataOutputStream(new FileOutputStream(curFile));
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(curFile), Config.image_io_buffer_size_bytes);
+        if (ImageCompression.isCompressionEnabled()) {
+            out = ImageCompression.compress(out);
+        }
+        CountingOutputStream countingOut = new CountingOutputStream(out);
+        DataOutputStream dos = new DataOutputStream(countingOut);
         try {
             checksum = saveHeader(dos, replayedJournalId, checksum);
             checksum = saveMasterInfo(dos, checksum);
@@ -1662,16 +1984,107 @@ public class Catalog {
             checksum = saveBackupHandler(dos, checksum);
             checksum = savePaloAuth(dos, checksum);
             checksum = saveTransactionState(dos, checksum);
+            checksum = saveColocateTableIndex(dos, checksum);
             dos.writeLong(checksum);
         } finally {
             dos.close();
         }
+        ImageCompression.onImageSaved(curFile, countingOut.getCount());
 
         long saveImageEndTime = System.currentTimeMillis();
         LOG.info("finished save image {} in {} ms. checksum is {}",
                  curFile.getAbsolutePath(), (saveImageEndTime - saveImageStartTime), checksum);
     }
 
+    private void saveSectionedImage(File curFile, long replayedJournalId,
+                                    SectionedImageReader baseReader, Set<Long> dirtyDbIds) throws IOException {
+        long saveImageStartTime = System.currentTimeMillis();
+        SectionedImageWriter writer = new SectionedImageWriter(curFile, Config.image_io_buffer_size_bytes,
+                ImageCompression.isCompressionEnabled());
+        try {
+            DataOutputStream dos = writer.beginSection(IMAGE_SECTION_HEADER);
+            saveHeader(dos, replayedJournalId, 0);
+            saveMasterInfo(dos, 0);
+            saveFrontends(dos, 0);
+            Catalog.getCurrentSystemInfo().saveBackends(dos, 0);
+            writer.endSection();
+
+            if (baseReader == null) {
+                for (Map.Entry<Long, Database> entry : idToDb.entrySet()) {
+                    long dbId = entry.getKey();
+                    // info schema dbs are created when loading clusters
+                    if (dbId < NEXT_ID_INIT_VALUE) {
+                        continue;
+                    }
+                    saveDbSection(writer, entry.getValue());
+                }
+            } else {
+                // incremental checkpoint. no database is created or dropped since base image.
+                int copiedNum = 0;
+                for (SectionEntry entry : baseReader.getSections()) {
+                    if (!entry.name.startsWith(IMAGE_SECTION_DB_PREFIX)) {
+                        continue;
+                    }
+                    long dbId = getDbIdOfSection(entry.name);
+                    if (dirtyDbIds.contains(dbId)) {
+                        Database db = idToDb.get(dbId);
+                        if (db == null) {
+                            throw new IOException("database " + dbId + " is not loaded in incremental checkpoint");
+                        }
+                        saveDbSection(writer, db);
+                    } else {
+                        writer.copySection(baseReader, entry.name);
+                        copiedNum++;
+                    }
+                }
+                LOG.info("incremental checkpoint copied {} database sections from base image", copiedNum);
+            }
+
+            saveLoadJob(writer.beginSection(IMAGE_SECTION_LOAD_JOB), 0);
+            writer.endSection();
+            saveAlterJob(writer.beginSection(IMAGE_SECTION_ALTER_JOB), 0);
+            writer.endSection();
+            saveRecycleBin(writer.beginSection(IMAGE_SECTION_RECYCLE_BIN), 0);
+            writer.endSection();
+            saveGlobalVariable(writer.beginSection(IMAGE_SECTION_GLOBAL_VARIABLE), 0);
+            writer.endSection();
+            saveCluster(writer.beginSection(IMAGE_SECTION_CLUSTER), 0);
+            writer.endSection();
+            saveBrokers(writer.beginSection(IMAGE_SECTION_BROKER), 0);
+            writer.endSection();
+            saveExportJob(writer.beginSection(IMAGE_SECTION_EXPORT_JOB), 0);
+            writer.endSection();
+            saveBackupHandler(writer.beginSection(IMAGE_SECTION_BACKUP_HANDLER), 0);
+            writer.endSection();
+            savePaloAuth(writer.beginSection(IMAGE_SECTION_PALO_AUTH), 0);
+            writer.endSection();
+            saveTransactionState(writer.beginSection(IMAGE_SECTION_TRANSACTION_STATE), 0);
+            writer.endSection();
+            saveColocateTableIndex(writer.beginSection(IMAGE_SECTION_COLOCATE_TABLE_INDEX), 0);
+            writer.endSection();
+
+            writer.finish();
+        } finally {
+            writer.close();
+        }
+        ImageCompression.onImageSaved(curFile, writer.getRawLength());
+
+        long saveImageEndTime = System.currentTimeMillis();
+        LOG.info("finished save sectioned image {} in {} ms. section num: {}",
+                 curFile.getAbsolutePath(), (saveImageEndTime - saveImageStartTime), writer.getSections().size());
+    }
+
+    private void saveDbSection(SectionedImageWriter writer, Database db) throws IOException {
+        DataOutputStream dos = writer.beginSection(IMAGE_SECTION_DB_PREFIX + db.getId());
+        db.readLock();
+        try {
+            db.write(dos);
+        } finally {
+            db.readUnlock();
+        }
+        writer.endSection();
+    }
+
     public long saveHeader(DataOutputStream dos, long replayedJournalId, long checksum) throws IOException {
         // Write meta version
         checksum ^= FeConstants.meta_version;
@@ -1882,6 +2295,11 @@ public class Catalog {
         return checksum;
     }
 
+    public long saveColocateTableIndex(DataOutputStream dos, long checksum) throws IOException {
+        colocateTableIndex.write(dos);
+        return checksum;
+    }
+
     public long saveRecycleBin(DataOutputStream dos, long checksum) throws IOException {
         CatalogRecycleBin recycleBin = Catalog.getCurrentRecycleBin();
         recycleBin.write(dos);
@@ -1933,7 +2351,9 @@ public class Catalog {
                 boolean err = false;
                 boolean hasLog = false;
                 try {
-                    hasLog = replayJournal(-1);
+                    if (waitForNewJournal()) {
+                        hasLog = replayJournal(-1);
+                    }
                     metaReplayState.setOk();
                 } catch (InsufficientLogException insufficientLogEx) {
                     // Copy the missing log files from a member of the
@@ -1960,6 +2380,49 @@ public class Catalog {
         };
     }
 
+    /*
+     * Return true if there are new journals to replay. Otherwise, wait until woken up by wakeUpReplayer(),
+     * or for an idle interval which doubles each time up to Config.meta_replay_max_idle_wait_ms,
+     * and check again.
+     *
+     * Checking the next journal id is a cheap key lookup in bdbje, unlike getMaxJournalId(),
+     * so an idle non-master FE costs almost no CPU. When there are forwarded statements waiting for
+     * the replay (see JournalObservable), the replayer keeps checking in the minimum interval.
+     */
+    private boolean waitForNewJournal() throws InterruptedException {
+        long nextJournalId = replayedJournalId.get() + 1;
+        if (editLog.hasJournal(nextJournalId)) {
+            synchronized (replayerMonitor) {
+                replayerIdleWaitMs = 0;
+            }
+            return true;
+        }
+
+        boolean hasObservers = journalObservable.hasObservers();
+        synchronized (replayerMonitor) {
+            long waitMs = REPLAY_INTERVAL_MS;
+            if (!hasObservers) {
+                replayerIdleWaitMs = Math.min(Math.max(REPLAY_INTERVAL_MS, replayerIdleWaitMs * 2),
+                                              Math.max(REPLAY_INTERVAL_MS, Config.meta_replay_max_idle_wait_ms));
+                waitMs = replayerIdleWaitMs;
+            }
+            if (!replayerWakeUp) {
+                replayerMonitor.wait(waitMs);
+            }
+            replayerWakeUp = false;
+        }
+        return editLog.hasJournal(nextJournalId);
+    }
+
+    // wake up the replayer to check new journals immediately
+    public void wakeUpReplayer() {
+        synchronized (replayerMonitor) {
+            replayerWakeUp = true;
+            replayerIdleWaitMs = 0;
+            replayerMonitor.notifyAll();
+        }
+    }
+
     private void setCanRead(boolean hasLog, boolean err) {
         if (err) {
             canRead = false;
@@ -2110,24 +2573,39 @@ public class Catalog {
             return false;
         }
 
+        if (!isCheckpointThread() && Config.meta_replay_prefetch_num > 0) {
+            // deserialize journals in another thread, ahead of applying them.
+            // not for checkpoint thread, because deserialization depends on the journal version of current catalog.
+            cursor = new PrefetchJournalCursor(cursor, Config.meta_replay_prefetch_num);
+        }
+
         long startTime = System.currentTimeMillis();
         boolean hasLog = false;
-        while (true) {
-            JournalEntity entity = cursor.next();
-            if (entity == null) {
-                break;
+        int unnotifiedNum = 0;
+        try {
+            while (true) {
+                JournalEntity entity = cursor.next();
+                if (entity == null) {
+                    break;
+                }
+                hasLog = true;
+                EditLog.loadJournal(this, entity);
+                replayedJournalId.incrementAndGet();
+                LOG.debug("journal {} replayed.", replayedJournalId);
+                if (!isMaster && ++unnotifiedNum >= REPLAY_NOTIFY_BATCH_SIZE) {
+                    journalObservable.notifyObservers(replayedJournalId.get());
+                    unnotifiedNum = 0;
+                }
+                if (MetricRepo.isInit.get()) {
+                    // Metric repo may not init after this replay thread start
+                    MetricRepo.COUNTER_EDIT_LOG_READ.increase(1L);
+                }
             }
-            hasLog = true;
-            EditLog.loadJournal(this, entity);
-            replayedJournalId.incrementAndGet();
-            LOG.debug("journal {} replayed.", replayedJournalId);
-            if (!isMaster) {
+        } finally {
+            cursor.close();
+            if (!isMaster && unnotifiedNum > 0) {
                 journalObservable.notifyObservers(replayedJournalId.get());
             }
-            if (MetricRepo.isInit.get()) {
-                // Metric repo may not init after this replay thread start
-                MetricRepo.COUNTER_EDIT_LOG_READ.increase(1L);
-            }
         }
         long cost = System.currentTimeMillis() - startTime;
         if (cost >= 1000) {
@@ -2420,6 +2898,9 @@ public class Catalog {
 
             fullNameToDb.put(db.getFullName(), db);
             idToDb.put(db.getId(), db);
+            for (Table table : db.getTables()) {
+                addToColocateGroup(db.getId(), table);
+            }
 
             // log
             RecoverInfo recoverInfo = new RecoverInfo(db.getId(), -1L, -1L);
@@ -2450,6 +2931,7 @@ public class Catalog {
             if (!Catalog.getCurrentRecycleBin().recoverTable(db, tableName)) {
                 ErrorReport.reportDdlException(ErrorCode.ERR_BAD_TABLE_ERROR, tableName);
             }
+            addToColocateGroup(db.getId(), db.getTable(tableName));
         } finally {
             db.writeUnlock();
         }
@@ -2497,6 +2979,9 @@ public class Catalog {
 
         // add db to catalog
         replayCreateDb(db);
+        for (Table table : db.getTables()) {
+            addToColocateGroup(dbId, table);
+        }
 
         LOG.info("replay recover db[{}]", dbId);
     }
@@ -2662,6 +3147,7 @@ public class Catalog {
         Map<Long, Short> indexIdToShortKeyColumnCount = null;
         Map<Long, TStorageType> indexIdToStorageType = null;
         Set<String> bfColumns = null;
+        List<List<Long>> backendsPerBucketSeq = null;
 
         String partitionName = singlePartitionDesc.getPartitionName();
 
@@ -2747,6 +3233,12 @@ public class Catalog {
             indexIdToSchema = olapTable.getCopiedIndexIdToSchema();
             bfColumns = olapTable.getCopiedBfColumns();
 
+            // tablets of the new partition of a colocate table are created on the backends of the group
+            String fullGroupName = colocateTableIndex.getGroup(olapTable.getId());
+            if (fullGroupName != null && !isRestore) {
+                backendsPerBucketSeq = colocateTableIndex.getBackendsPerBucketSeq(fullGroupName);
+            }
+
         } catch (AnalysisException e) {
             throw new DdlException(e.getMessage());
         } finally {
@@ -2779,7 +3271,7 @@ public class Catalog {
                                                              dataProperty.getStorageMedium(),
                                                              singlePartitionDesc.getReplicationNum(),
                                                              versionInfo, bfColumns, olapTable.getBfFpp(),
-                                                             tabletIdSet, isRestore);
+                                                             tabletIdSet, backendsPerBucketSeq, isRestore);
 
             // check again
             db.writeLock();
@@ -2834,6 +3326,12 @@ public class Catalog {
                     throw new DdlException("Table[" + tableName + "]'s meta has been changed. try again.");
                 }
 
+                if (backendsPerBucketSeq != null && !backendsPerBucketSeq.equals(colocateTableIndex
+                        .getBackendsPerBucketSeq(colocateTableIndex.getGroup(olapTable.getId())))) {
+                    throw new DdlException("Backends of colocate group of table[" + tableName
+                            + "] have been changed. try again.");
+                }
+
                 if (!isRestore) {
                     // update partition info
                     RangePartitionInfo rangePartitionInfo = (RangePartitionInfo) partitionInfo;
@@ -3069,6 +3567,7 @@ public class Catalog {
                                                  Set<String> bfColumns,
                                                  double bfFpp,
                                                  Set<Long> tabletIdSet,
+                                                 List<List<Long>> backendsPerBucketSeq,
                                                  boolean isRestore) throws DdlException {
         // create base index first. use table id as base index id
         long baseIndexId = tableId;
@@ -3106,7 +3605,7 @@ public class Catalog {
             int schemaHash = indexIdToSchemaHash.get(indexId);
             TabletMeta tabletMeta = new TabletMeta(dbId, tableId, partitionId, indexId, schemaHash);
             createTablets(clusterName, index, ReplicaState.NORMAL, distributionInfo, version, versionHash,
-                    replicationNum, tabletMeta, tabletIdSet);
+                    replicationNum, tabletMeta, tabletIdSet, backendsPerBucketSeq);
 
             boolean ok = false;
             String errMsg = null;
@@ -3261,6 +3760,27 @@ public class Catalog {
             throw new DdlException(e.getMessage());
         }
 
+        // analyze colocation group
+        String colocateGroup = null;
+        try {
+            colocateGroup = PropertyAnalyzer.analyzeColocate(properties);
+        } catch (AnalysisException e) {
+            throw new DdlException(e.getMessage());
+        }
+        String fullGroupName = null;
+        List<List<Long>> backendsPerBucketSeq = null;
+        if (colocateGroup != null && !isRestore) {
+            if (distributionInfo.getType() != DistributionInfoType.HASH) {
+                throw new DdlException("Colocate table must be distributed by hash");
+            }
+            fullGroupName = ColocateTableIndex.getFullGroupName(db.getId(), colocateGroup);
+            backendsPerBucketSeq = colocateTableIndex.getBackendsPerBucketSeq(fullGroupName);
+            if (backendsPerBucketSeq != null) {
+                checkColocateDistribution(db, fullGroupName, (HashDistributionInfo) distributionInfo);
+            }
+            olapTable.setColocateGroup(colocateGroup);
+        }
+
         // set index schema
         int schemaVersion = 0;
         try {
@@ -3314,6 +3834,11 @@ public class Catalog {
                 }
                 partitionInfo.setReplicationNum(partitionId, replicationNum);
 
+                if (fullGroupName != null && backendsPerBucketSeq == null) {
+                    backendsPerBucketSeq = chooseBackendsPerBucketSeq(db.getClusterName(),
+                                                                      distributionInfo.getBucketNum(), replicationNum);
+                }
+
                 // create partition
                 Partition partition = createPartitionWithIndices(db.getClusterName(), db.getId(),
                                                                  olapTable.getId(),
@@ -3327,7 +3852,7 @@ public class Catalog {
                                                                  dataProperty.getStorageMedium(),
                                                                  replicationNum,
                                                                  versionInfo, bfColumns, bfFpp,
-                                                                 tabletIdSet, isRestore);
+                                                                 tabletIdSet, backendsPerBucketSeq, isRestore);
                 olapTable.addPartition(partition);
             } else if (partitionInfo.getType() == PartitionType.RANGE) {
                 try {
@@ -3347,6 +3872,10 @@ public class Catalog {
                 // this is a 2-level partitioned tables
                 RangePartitionInfo rangePartitionInfo = (RangePartitionInfo) partitionInfo;
                 for (Map.Entry<String, Long> entry : partitionNameToId.entrySet()) {
+                    if (fullGroupName != null && backendsPerBucketSeq == null) {
+                        backendsPerBucketSeq = chooseBackendsPerBucketSeq(db.getClusterName(),
+                                distributionInfo.getBucketNum(), partitionInfo.getReplicationNum(entry.getValue()));
+                    }
                     DataProperty dataProperty = rangePartitionInfo.getDataProperty(entry.getValue());
                     Partition partition = createPartitionWithIndices(db.getClusterName(), db.getId(), olapTable.getId(),
                                                                      entry.getValue(), entry.getKey(),
@@ -3358,7 +3887,7 @@ public class Catalog {
                                                                      dataProperty.getStorageMedium(),
                                                                      partitionInfo.getReplicationNum(entry.getValue()),
                                                                      versionInfo, bfColumns, bfFpp,
-                                                                     tabletIdSet, isRestore);
+                                                                     tabletIdSet, backendsPerBucketSeq, isRestore);
                     olapTable.addPartition(partition);
                 }
             } else {
@@ -3373,9 +3902,20 @@ public class Catalog {
                 returnTable = olapTable;
                 LOG.info("successfully create table[{};{}] to restore", tableName, tableId);
             } else {
+                if (fullGroupName != null) {
+                    // the group may be created or changed by others while creating tablets
+                    List<List<Long>> groupBackendsPerBucketSeq = colocateTableIndex.getBackendsPerBucketSeq(fullGroupName);
+                    if (groupBackendsPerBucketSeq != null && !groupBackendsPerBucketSeq.equals(backendsPerBucketSeq)) {
+                        throw new DdlException("Backends of colocate group " + colocateGroup
+                                + " are changed, try again");
+                    }
+                }
                 if (!db.createTableWithLock(olapTable, false, stmt.isSetIfNotExists())) {
                     ErrorReport.reportDdlException(ErrorCode.ERR_CANT_CREATE_TABLE, tableName, "table already exists");
                 }
+                if (fullGroupName != null) {
+                    colocateTableIndex.addTableToGroup(db.getId(), tableId, fullGroupName, backendsPerBucketSeq);
+                }
                 LOG.info("successfully create table[{};{}]", tableName, tableId);
             }
         } catch (DdlException e) {
@@ -3388,6 +3928,59 @@ public class Catalog {
         return returnTable;
     }
 
+    // Check the distribution of the table to be added to a colocation group against a table in the group.
+    private void checkColocateDistribution(Database db, String fullGroupName, HashDistributionInfo distributionInfo)
+            throws DdlException {
+        db.readLock();
+        try {
+            OlapTable groupTable = null;
+            for (long tableId : colocateTableIndex.getTableIdsInGroup(fullGroupName)) {
+                Table table = db.getTable(tableId);
+                if (table != null && table.getType() == TableType.OLAP) {
+                    groupTable = (OlapTable) table;
+                    break;
+                }
+            }
+            if (groupTable == null) {
+                return;
+            }
+
+            HashDistributionInfo groupDistributionInfo = (HashDistributionInfo) groupTable.getDefaultDistributionInfo();
+            if (distributionInfo.getBucketNum() != groupDistributionInfo.getBucketNum()) {
+                throw new DdlException("Bucket num of colocate table should be same as its group: "
+                        + groupDistributionInfo.getBucketNum());
+            }
+            List<Column> columns = distributionInfo.getDistributionColumns();
+            List<Column> groupColumns = groupDistributionInfo.getDistributionColumns();
+            if (columns.size() != groupColumns.size()) {
+                throw new DdlException("Distribution column num of colocate table should be same as its group: "
+                        + groupColumns.size());
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).getDataType() != groupColumns.get(i).getDataType()) {
+                    throw new DdlException("Type of distribution column " + columns.get(i).getName()
+                            + " of colocate table should be " + groupColumns.get(i).getDataType());
+                }
+            }
+        } finally {
+            db.readUnlock();
+        }
+    }
+
+    private List<List<Long>> chooseBackendsPerBucketSeq(String clusterName, int bucketNum, short replicationNum)
+            throws DdlException {
+        List<List<Long>> backendsPerBucketSeq = Lists.newArrayListWithCapacity(bucketNum);
+        for (int i = 0; i < bucketNum; i++) {
+            List<Long> chosenBackendIds = Catalog.getCurrentSystemInfo().seqChooseBackendIds(replicationNum, true,
+                    true, clusterName);
+            if (chosenBackendIds == null) {
+                throw new DdlException("Failed to find " + replicationNum + " different hosts to create table");
+            }
+            backendsPerBucketSeq.add(chosenBackendIds);
+        }
+        return backendsPerBucketSeq;
+    }
+
     private Table createMysqlTable(Database db, CreateTableStmt stmt, boolean isRestore) throws DdlException {
         String tableName = stmt.getTableName();
 
@@ -3794,6 +4387,7 @@ public class Catalog {
     public void replayCreateTable(String dbName, Table table) {
         Database db = this.fullNameToDb.get(dbName);
         db.createTableWithLock(table, true, false);
+        addToColocateGroup(db.getId(), table);
 
         if (!isCheckpointThread()) {
             // add to inverted index
@@ -3822,11 +4416,27 @@ public class Catalog {
 
     }
 
+    /*
+     * Create tablets of the index. If backendsPerBucketSeq is not null, the index belongs to a colocate table,
+     * and the replicas of the tablet of each bucket seq are created on the backends of the bucket seq.
+     */
     private void createTablets(String clusterName, MaterializedIndex index, ReplicaState replicaState,
             DistributionInfo distributionInfo, long version, long versionHash, short replicationNum,
-            TabletMeta tabletMeta, Set<Long> tabletIdSet) throws DdlException {
+            TabletMeta tabletMeta, Set<Long> tabletIdSet, List<List<Long>> backendsPerBucketSeq)
+            throws DdlException {
         Preconditions.checkArgument(replicationNum > 0);
 
+        if (backendsPerBucketSeq != null) {
+            if (backendsPerBucketSeq.size() != distributionInfo.getBucketNum()) {
+                throw new DdlException("Bucket num of colocate table should be same as its group: "
+                        + backendsPerBucketSeq.size());
+            }
+            if (backendsPerBucketSeq.get(0).size() != replicationNum) {
+                throw new DdlException("Replication num of colocate table should be same as its group: "
+                        + backendsPerBucketSeq.get(0).size());
+            }
+        }
+
         DistributionInfoType distributionInfoType = distributionInfo.getType();
         if (distributionInfoType == DistributionInfoType.RANDOM || distributionInfoType == DistributionInfoType.HASH) {
             for (int i = 0; i < distributionInfo.getBucketNum(); ++i) {
@@ -3837,9 +4447,14 @@ public class Catalog {
                 index.addTablet(tablet, tabletMeta);
                 tabletIdSet.add(tablet.getId());
 
-                // create replicas for tablet with random chosen backends
-                List<Long> chosenBackendIds = Catalog.getCurrentSystemInfo().seqChooseBackendIds(replicationNum, true,
-                        true, clusterName);
+                // create replicas for tablet with random chosen backends, or the backends of the bucket seq
+                List<Long> chosenBackendIds = null;
+                if (backendsPerBucketSeq != null) {
+                    chosenBackendIds = backendsPerBucketSeq.get(i);
+                } else {
+                    chosenBackendIds = Catalog.getCurrentSystemInfo().seqChooseBackendIds(replicationNum, true,
+                            true, clusterName);
+                }
                 if (chosenBackendIds == null) {
                     throw new DdlException("Failed to find " + replicationNum + " different hosts to create table");
                 }
@@ -3928,6 +4543,7 @@ public class Catalog {
 
         db.dropTable(table.getName());
         Catalog.getCurrentRecycleBin().recycleTable(db.getId(), table);
+        colocateTableIndex.removeTable(tableId);
 
         LOG.info("finished dropping table[{}] in db[{}]", table.getName(), db.getFullName());
         return true;
@@ -3952,11 +4568,39 @@ public class Catalog {
         db.writeLock();
         try {
             Catalog.getCurrentRecycleBin().replayRecoverTable(db, info.getTableId());
+            addToColocateGroup(dbId, db.getTable(info.getTableId()));
         } finally {
             db.writeUnlock();
         }
     }
 
+    /*
+     * Add a created or recovered olap table to its colocation group. The backends of its tablets are used as
+     * the backends of bucket seqs if the group does not exist.
+     */
+    private void addToColocateGroup(long dbId, Table table) {
+        if (table == null || table.getType() != TableType.OLAP) {
+            return;
+        }
+        OlapTable olapTable = (OlapTable) table;
+        if (olapTable.getColocateGroup() == null) {
+            return;
+        }
+        List<List<Long>> backendsPerBucketSeq = Lists.newArrayList();
+        for (Partition partition : olapTable.getPartitions()) {
+            for (Tablet tablet : partition.getBaseIndex().getTablets()) {
+                List<Long> backendIds = Lists.newArrayList();
+                for (Replica replica : tablet.getReplicas()) {
+                    backendIds.add(replica.getBackendId());
+                }
+                backendsPerBucketSeq.add(backendIds);
+            }
+            break;
+        }
+        colocateTableIndex.addTableToGroup(dbId, olapTable.getId(),
+                ColocateTableIndex.getFullGroupName(dbId, olapTable.getColocateGroup()), backendsPerBucketSeq);
+    }
+
     public void handleJobsWhenDeleteReplica(long tableId, long partitionId, long indexId, long tabletId, long replicaId,
             long backendId) {
         // rollup
@@ -4223,6 +4867,14 @@ public class Catalog {
         return this.consistencyChecker;
     }
 
+    public ColumnStatsMgr getColumnStatsMgr() {
+        return this.columnStatsMgr;
+    }
+
+    public ColocateTableIndex getColocateTableIndex() {
+        return this.colocateTableIndex;
+    }
+
     public Alter getAlterInstance() {
         return this.alter;
     }
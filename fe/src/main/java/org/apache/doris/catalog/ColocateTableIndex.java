@@ -0,0 +1,291 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import org.apache.doris.common.io.Text;
+import org.apache.doris.common.io.Writable;
+import org.apache.doris.persist.ColocatePersistInfo;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Index of colocation groups. The tables in a group have the same bucket num, replication num and types of
+ * distribution columns, and the replicas of the tablets with the same bucket seq of all partitions of all
+ * tables in the group are placed on the same backends, which are recorded as the backends of the bucket seq.
+ * So rows with the same values of distribution columns are always on the same backends, and the tables can be
+ * joined locally on the distribution columns.
+ *
+ * The backends of bucket seqs are decided when the first table of a group is created, and are changed by
+ * CloneChecker if some of them are dead or decommissioned. A group is unstable until all the replicas are
+ * cloned to the new backends, and unstable groups are not used to plan colocate joins.
+ *
+ * A group is identified by the db id and the name given by the 'colocate_with' property of tables.
+ */
+public class ColocateTableIndex implements Writable {
+    private static final Logger LOG = LogManager.getLogger(ColocateTableIndex.class);
+
+    private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // group -> ids of tables in the group
+    private Multimap<String, Long> group2Tables = LinkedHashMultimap.create();
+    // table id -> group
+    private Map<Long, String> table2Group = Maps.newHashMap();
+    // group -> db id
+    private Map<String, Long> group2Db = Maps.newHashMap();
+    // group -> backend ids of the replicas of each bucket seq
+    private Map<String, List<List<Long>>> group2BackendsPerBucketSeq = Maps.newHashMap();
+    // groups whose replicas are not all on the backends of their bucket seqs
+    private Set<String> unstableGroups = Sets.newHashSet();
+
+    public ColocateTableIndex() {
+    }
+
+    public static String getFullGroupName(long dbId, String groupName) {
+        return dbId + "_" + groupName;
+    }
+
+    private final void readLock() {
+        this.lock.readLock().lock();
+    }
+
+    private final void readUnlock() {
+        this.lock.readLock().unlock();
+    }
+
+    private final void writeLock() {
+        this.lock.writeLock().lock();
+    }
+
+    private final void writeUnlock() {
+        this.lock.writeLock().unlock();
+    }
+
+    /*
+     * Add table to the group. backendsPerBucketSeq is only used if the group does not exist,
+     * it should be the backends of the tablets of the table in this case.
+     */
+    public void addTableToGroup(long dbId, long tableId, String fullGroupName,
+                                List<List<Long>> backendsPerBucketSeq) {
+        writeLock();
+        try {
+            if (!group2BackendsPerBucketSeq.containsKey(fullGroupName)) {
+                group2BackendsPerBucketSeq.put(fullGroupName, copyBackendsPerBucketSeq(backendsPerBucketSeq));
+                group2Db.put(fullGroupName, dbId);
+            }
+            group2Tables.put(fullGroupName, tableId);
+            table2Group.put(tableId, fullGroupName);
+        } finally {
+            writeUnlock();
+        }
+        LOG.info("add table {} to colocate group {}", tableId, fullGroupName);
+    }
+
+    // The group is removed with its last table.
+    public void removeTable(long tableId) {
+        writeLock();
+        try {
+            String group = table2Group.remove(tableId);
+            if (group == null) {
+                return;
+            }
+            group2Tables.remove(group, tableId);
+            if (!group2Tables.containsKey(group)) {
+                group2BackendsPerBucketSeq.remove(group);
+                group2Db.remove(group);
+                unstableGroups.remove(group);
+                LOG.info("remove colocate group {} with its last table {}", group, tableId);
+            }
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    public boolean isColocateTable(long tableId) {
+        readLock();
+        try {
+            return table2Group.containsKey(tableId);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public boolean isSameGroup(long tableId1, long tableId2) {
+        readLock();
+        try {
+            String group = table2Group.get(tableId1);
+            return group != null && group.equals(table2Group.get(tableId2));
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public boolean isGroupExist(String fullGroupName) {
+        readLock();
+        try {
+            return group2BackendsPerBucketSeq.containsKey(fullGroupName);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public boolean isGroupUnstable(String fullGroupName) {
+        readLock();
+        try {
+            return unstableGroups.contains(fullGroupName);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public String getGroup(long tableId) {
+        readLock();
+        try {
+            return table2Group.get(tableId);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public long getDbIdOfGroup(String fullGroupName) {
+        readLock();
+        try {
+            Long dbId = group2Db.get(fullGroupName);
+            return dbId == null ? -1L : dbId;
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public Set<String> getAllGroups() {
+        readLock();
+        try {
+            return Sets.newHashSet(group2BackendsPerBucketSeq.keySet());
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public List<Long> getTableIdsInGroup(String fullGroupName) {
+        readLock();
+        try {
+            return Lists.newArrayList(group2Tables.get(fullGroupName));
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // Return a copy of the backends of bucket seqs, null if the group does not exist.
+    public List<List<Long>> getBackendsPerBucketSeq(String fullGroupName) {
+        readLock();
+        try {
+            List<List<Long>> backendsPerBucketSeq = group2BackendsPerBucketSeq.get(fullGroupName);
+            return backendsPerBucketSeq == null ? null : copyBackendsPerBucketSeq(backendsPerBucketSeq);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public void updateGroup(ColocatePersistInfo info) {
+        writeLock();
+        try {
+            String group = info.getGroup();
+            if (!group2BackendsPerBucketSeq.containsKey(group)) {
+                LOG.warn("colocate group {} does not exist", group);
+                return;
+            }
+            group2BackendsPerBucketSeq.put(group, copyBackendsPerBucketSeq(info.getBackendsPerBucketSeq()));
+            if (info.isStable()) {
+                unstableGroups.remove(group);
+            } else {
+                unstableGroups.add(group);
+            }
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    public void replayUpdateGroup(ColocatePersistInfo info) {
+        updateGroup(info);
+    }
+
+    private static List<List<Long>> copyBackendsPerBucketSeq(List<List<Long>> backendsPerBucketSeq) {
+        List<List<Long>> copied = Lists.newArrayListWithCapacity(backendsPerBucketSeq.size());
+        for (List<Long> backendIds : backendsPerBucketSeq) {
+            copied.add(Lists.newArrayList(backendIds));
+        }
+        return copied;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        readLock();
+        try {
+            out.writeInt(group2BackendsPerBucketSeq.size());
+            for (Map.Entry<String, List<List<Long>>> entry : group2BackendsPerBucketSeq.entrySet()) {
+                String group = entry.getKey();
+                Text.writeString(out, group);
+                out.writeLong(group2Db.get(group));
+                out.writeBoolean(unstableGroups.contains(group));
+
+                out.writeInt(group2Tables.get(group).size());
+                for (Long tableId : group2Tables.get(group)) {
+                    out.writeLong(tableId);
+                }
+
+                ColocatePersistInfo.writeBackendsPerBucketSeq(out, entry.getValue());
+            }
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public void readFields(DataInput in) throws IOException {
+        int groupNum = in.readInt();
+        for (int i = 0; i < groupNum; i++) {
+            String group = Text.readString(in);
+            group2Db.put(group, in.readLong());
+            if (in.readBoolean()) {
+                unstableGroups.add(group);
+            }
+
+            int tableNum = in.readInt();
+            for (int j = 0; j < tableNum; j++) {
+                long tableId = in.readLong();
+                group2Tables.put(group, tableId);
+                table2Group.put(tableId, group);
+            }
+
+            group2BackendsPerBucketSeq.put(group, ColocatePersistInfo.readBackendsPerBucketSeq(in));
+        }
+    }
+}
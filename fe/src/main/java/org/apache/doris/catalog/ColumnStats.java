@@ -42,6 +42,9 @@ public class ColumnStats implements Writable {
     private long  maxSize;  // in bytes
     private long  numDistinctValues;
     private long  numNulls;
+    // text of min and max values, null if unknown. They are not persisted by write(), see PartitionColumnStats.
+    private String minValue;
+    private String maxValue;
 
     /**
      * For fixed-length type (those which don't need additional storage besides
@@ -59,6 +62,8 @@ public class ColumnStats implements Writable {
         maxSize = other.maxSize;
         numDistinctValues = other.numDistinctValues;
         numNulls = other.numNulls;
+        minValue = other.minValue;
+        maxValue = other.maxValue;
     }
 
     public long getNumDistinctValues() {
@@ -97,6 +102,22 @@ public class ColumnStats implements Writable {
         this.numNulls = numNulls;
     }
 
+    public String getMinValue() {
+        return minValue;
+    }
+
+    public void setMinValue(String minValue) {
+        this.minValue = minValue;
+    }
+
+    public String getMaxValue() {
+        return maxValue;
+    }
+
+    public void setMaxValue(String maxValue) {
+        this.maxValue = maxValue;
+    }
+
     public boolean hasAvgSerializedSize() {
         return avgSerializedSize >= 0;
     }
@@ -113,7 +134,7 @@ public class ColumnStats implements Writable {
     public String toString() {
         return Objects.toStringHelper(this.getClass()).add("avgSerializedSize",
           avgSerializedSize).add("maxSize", maxSize).add("numDistinct", numDistinctValues).add(
-          "numNulls", numNulls).toString();
+          "numNulls", numNulls).add("minValue", minValue).add("maxValue", maxValue).toString();
     }
 
     public void write(DataOutput out) throws IOException {
@@ -148,7 +169,9 @@ public class ColumnStats implements Writable {
         return (numDistinctValues == stats.numDistinctValues) 
                 && (avgSerializedSize == stats.avgSerializedSize)
                 && (maxSize == stats.maxSize) 
-                && (numNulls == stats.numNulls);
+                && (numNulls == stats.numNulls)
+                && Objects.equal(minValue, stats.minValue)
+                && Objects.equal(maxValue, stats.maxValue);
     }
     /**
      * For fixed-length type (those which don't need additional storage besides
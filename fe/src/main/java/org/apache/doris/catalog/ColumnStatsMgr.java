@@ -0,0 +1,428 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import org.apache.doris.analysis.AnalyzeStmt;
+import org.apache.doris.analysis.LiteralExpr;
+import org.apache.doris.catalog.Table.TableType;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.Config;
+import org.apache.doris.common.DdlException;
+import org.apache.doris.common.ErrorCode;
+import org.apache.doris.common.ErrorReport;
+import org.apache.doris.common.util.Daemon;
+import org.apache.doris.persist.ColumnStatsInfo;
+import org.apache.doris.planner.OlapScanNode;
+import org.apache.doris.planner.Planner;
+import org.apache.doris.planner.ScanNode;
+import org.apache.doris.qe.InternalQueryExecutor;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Collect the column statistics of olap tables.
+ *
+ * The statistics of a partition are collected by an aggregation query over at most
+ * Config.column_stats_sample_tablet_num of its tablets, in which NDV is computed by the HLL function ndv().
+ * They are kept in the partition and persisted, and merged to the stats of the columns of the table, which
+ * are used by planner.
+ *
+ * On master, the analyzed partitions which have new versions, and the new partitions of the analyzed tables,
+ * are analyzed again every Config.column_stats_refresh_interval_second.
+ */
+public class ColumnStatsMgr extends Daemon {
+    private static final Logger LOG = LogManager.getLogger(ColumnStatsMgr.class);
+
+    // NDV of the sampled rows is scaled to the partition if most of the sampled values are distinct
+    private static final double UNIQUE_NDV_RATIO = 0.9;
+
+    public ColumnStatsMgr() {
+        super("column stats mgr", Math.max(Config.column_stats_refresh_interval_second, 1) * 1000L);
+    }
+
+    public void analyze(AnalyzeStmt stmt) throws DdlException {
+        Database db = Catalog.getInstance().getDb(stmt.getDbName());
+        if (db == null) {
+            ErrorReport.reportDdlException(ErrorCode.ERR_BAD_DB_ERROR, stmt.getDbName());
+        }
+
+        long tableId;
+        List<Long> partitionIds = Lists.newArrayList();
+        List<Table> tables = db.readLockTablesByName(Lists.newArrayList(stmt.getTblName()));
+        try {
+            if (tables.isEmpty()) {
+                ErrorReport.reportDdlException(ErrorCode.ERR_BAD_TABLE_ERROR, stmt.getTblName());
+            }
+            Table table = tables.get(0);
+            if (table.getType() != TableType.OLAP) {
+                throw new DdlException("Only olap table can be analyzed: " + stmt.getTblName());
+            }
+            OlapTable olapTable = (OlapTable) table;
+            tableId = olapTable.getId();
+            if (stmt.getPartitionNames().isEmpty()) {
+                for (Partition partition : olapTable.getPartitions()) {
+                    partitionIds.add(partition.getId());
+                }
+            } else {
+                for (String partitionName : stmt.getPartitionNames()) {
+                    Partition partition = olapTable.getPartition(partitionName);
+                    if (partition == null) {
+                        throw new DdlException("Partition does not exist: " + partitionName);
+                    }
+                    partitionIds.add(partition.getId());
+                }
+            }
+        } finally {
+            db.readUnlockTables(tables);
+        }
+
+        analyzePartitions(db, tableId, partitionIds);
+    }
+
+    @Override
+    protected void runOneCycle() {
+        if (!Catalog.getInstance().isMaster()) {
+            return;
+        }
+        for (long dbId : Catalog.getInstance().getDbIds()) {
+            Database db = Catalog.getInstance().getDb(dbId);
+            if (db == null) {
+                continue;
+            }
+            for (long tableId : db.getTableIdsWithLock()) {
+                List<Long> partitionIds = getPartitionsToRefresh(db, tableId);
+                if (partitionIds.isEmpty()) {
+                    continue;
+                }
+                try {
+                    analyzePartitions(db, tableId, partitionIds);
+                } catch (DdlException e) {
+                    LOG.warn("failed to refresh column stats of table {} in db {}", tableId, db.getFullName(), e);
+                }
+            }
+        }
+    }
+
+    // Return the partitions of an analyzed table which are not analyzed, or changed after analyzed.
+    private List<Long> getPartitionsToRefresh(Database db, long tableId) {
+        List<Long> partitionIds = Lists.newArrayList();
+        Table table = db.readLockTable(tableId);
+        try {
+            if (table == null || table.getType() != TableType.OLAP) {
+                return partitionIds;
+            }
+            boolean isAnalyzed = false;
+            for (Partition partition : ((OlapTable) table).getPartitions()) {
+                PartitionColumnStats stats = partition.getColumnStats();
+                if (stats == null || stats.isStale(partition)) {
+                    partitionIds.add(partition.getId());
+                }
+                if (stats != null) {
+                    isAnalyzed = true;
+                }
+            }
+            if (!isAnalyzed) {
+                partitionIds.clear();
+            }
+            return partitionIds;
+        } finally {
+            db.readUnlockTable(table);
+        }
+    }
+
+    private void analyzePartitions(Database db, long tableId, List<Long> partitionIds) throws DdlException {
+        Map<Long, PartitionColumnStats> partitionStats = Maps.newHashMap();
+        for (long partitionId : partitionIds) {
+            PartitionColumnStats stats = analyzePartition(db, tableId, partitionId);
+            if (stats != null) {
+                partitionStats.put(partitionId, stats);
+            }
+        }
+        if (partitionStats.isEmpty()) {
+            return;
+        }
+
+        Table table = db.writeLockTable(tableId);
+        try {
+            if (table == null || table.getType() != TableType.OLAP) {
+                throw new DdlException("Table is dropped during analysis: " + tableId);
+            }
+            updateColumnStats((OlapTable) table, partitionStats);
+            Catalog.getInstance().getEditLog().logUpdateColumnStats(
+                    new ColumnStatsInfo(db.getId(), tableId, partitionStats));
+        } finally {
+            db.writeUnlockTable(table);
+        }
+        LOG.info("finished to analyze {} partitions of table {} in db {}",
+                 partitionStats.size(), table.getName(), db.getFullName());
+    }
+
+    // Return null if the partition is dropped.
+    private PartitionColumnStats analyzePartition(Database db, long tableId, long partitionId) throws DdlException {
+        List<Column> columns = Lists.newArrayList();
+        InternalQueryExecutor executor;
+        PartitionColumnStats stats;
+        int tabletNum;
+        int sampledTabletNum;
+        Column distributionColumn = null;
+        Table table = db.readLockTable(tableId);
+        try {
+            if (table == null || table.getType() != TableType.OLAP) {
+                throw new DdlException("Table is dropped during analysis: " + tableId);
+            }
+            OlapTable olapTable = (OlapTable) table;
+            Partition partition = olapTable.getPartition(partitionId);
+            if (partition == null) {
+                return null;
+            }
+            for (Column column : olapTable.getBaseSchema()) {
+                if (!column.getType().isHllType()) {
+                    columns.add(column);
+                }
+            }
+            // values of the only distribution column are different in different tablets
+            if (partition.getDistributionInfo() instanceof HashDistributionInfo) {
+                List<Column> distributionColumns =
+                        ((HashDistributionInfo) partition.getDistributionInfo()).getDistributionColumns();
+                if (distributionColumns.size() == 1) {
+                    distributionColumn = distributionColumns.get(0);
+                }
+            }
+
+            executor = new InternalQueryExecutor(db, buildQuery(olapTable, partition, columns));
+            Planner planner = executor.plan();
+            tabletNum = 0;
+            sampledTabletNum = 0;
+            for (ScanNode scanNode : planner.getScanNodes()) {
+                tabletNum += ((OlapScanNode) scanNode).sampleTablets(Config.column_stats_sample_tablet_num);
+                sampledTabletNum += scanNode.getScanRangeLocations(0).size();
+            }
+            stats = new PartitionColumnStats(partition.getCommittedVersion(), partition.getCommittedVersionHash(),
+                                             0, System.currentTimeMillis());
+        } catch (DdlException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DdlException("Failed to plan analysis of partition " + partitionId + ": " + e.getMessage());
+        } finally {
+            db.readUnlockTable(table);
+        }
+
+        List<List<String>> rows;
+        try {
+            rows = executor.execute();
+        } catch (Exception e) {
+            throw new DdlException("Failed to analyze partition " + partitionId + ": " + e.getMessage());
+        }
+        if (rows.size() != 1) {
+            throw new DdlException("Unexpected result of analysis of partition " + partitionId);
+        }
+        double scale = sampledTabletNum == 0 ? 1 : (double) tabletNum / sampledTabletNum;
+        return toPartitionStats(stats, columns, rows.get(0), scale, distributionColumn);
+    }
+
+    // SELECT count(*), count(c), ndv(c), min(c), max(c)[, max(length(c)), avg(length(c))], ... FROM tbl PARTITION (p)
+    private static String buildQuery(OlapTable table, Partition partition, List<Column> columns) {
+        StringBuilder sb = new StringBuilder("SELECT count(*)");
+        for (Column column : columns) {
+            String name = "`" + column.getName() + "`";
+            sb.append(", count(").append(name).append(")");
+            sb.append(", ndv(").append(name).append(")");
+            sb.append(", min(").append(name).append(")");
+            sb.append(", max(").append(name).append(")");
+            if (column.getType().isStringType()) {
+                sb.append(", max(length(").append(name).append("))");
+                sb.append(", avg(length(").append(name).append("))");
+            }
+        }
+        sb.append(" FROM `").append(table.getName()).append("` PARTITION (`").append(partition.getName()).append("`)");
+        return sb.toString();
+    }
+
+    private static PartitionColumnStats toPartitionStats(PartitionColumnStats stats, List<Column> columns,
+                                                         List<String> row, double scale, Column distributionColumn) {
+        long sampledRows = parseLong(row.get(0));
+        PartitionColumnStats result = new PartitionColumnStats(stats.getVersion(), stats.getVersionHash(),
+                                                               Math.round(sampledRows * scale), stats.getUpdateTime());
+        int idx = 1;
+        for (Column column : columns) {
+            long nonNullRows = parseLong(row.get(idx++));
+            long ndv = parseLong(row.get(idx++));
+            ColumnStats columnStats = new ColumnStats(column.getDataType());
+            columnStats.setNumNulls(Math.round((sampledRows - nonNullRows) * scale));
+            columnStats.setNumDistinctValues(scaleNdv(ndv, nonNullRows, scale, column == distributionColumn));
+            columnStats.setMinValue(row.get(idx++));
+            columnStats.setMaxValue(row.get(idx++));
+            if (column.getType().isStringType()) {
+                columnStats.setMaxSize(parseLong(row.get(idx++)));
+                String avgSize = row.get(idx++);
+                columnStats.setAvgSerializedSize(avgSize == null ? 0 : Float.parseFloat(avgSize));
+            }
+            result.putColumnStats(column.getName(), columnStats);
+        }
+        return result;
+    }
+
+    private static long parseLong(String value) {
+        // values of aggregate functions are NULL if there is no row
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    /*
+     * Estimate NDV of a partition from NDV of the sampled tablets. Values of the only distribution column are
+     * different in different tablets, and so are the mostly distinct values, so their NDV is scaled.
+     * Otherwise, the values are assumed to appear in all tablets.
+     */
+    static long scaleNdv(long ndv, long nonNullRows, double scale, boolean isDistributionColumn) {
+        if (scale <= 1 || ndv <= 0) {
+            return ndv;
+        }
+        if (isDistributionColumn || ndv >= nonNullRows * UNIQUE_NDV_RATIO) {
+            return Math.round(ndv * scale);
+        }
+        return ndv;
+    }
+
+    public void replayUpdateColumnStats(ColumnStatsInfo info) {
+        Database db = Catalog.getInstance().getDb(info.getDbId());
+        if (db == null) {
+            return;
+        }
+        Table table = db.writeLockTable(info.getTableId());
+        try {
+            if (table == null || table.getType() != TableType.OLAP) {
+                return;
+            }
+            updateColumnStats((OlapTable) table, info.getPartitionStats());
+        } finally {
+            db.writeUnlockTable(table);
+        }
+    }
+
+    // Should be called with table write locked.
+    private static void updateColumnStats(OlapTable table, Map<Long, PartitionColumnStats> partitionStats) {
+        for (Map.Entry<Long, PartitionColumnStats> entry : partitionStats.entrySet()) {
+            Partition partition = table.getPartition(entry.getKey());
+            if (partition != null) {
+                partition.setColumnStats(entry.getValue());
+            }
+        }
+        updateTableColumnStats(table);
+    }
+
+    /*
+     * Merge the stats of the analyzed partitions to the stats of the columns of the table.
+     * NDV of the table is the max NDV of partitions, or the sum of them if the column is the only
+     * range partition column, whose values in different partitions are different.
+     */
+    public static void updateTableColumnStats(OlapTable table) {
+        List<PartitionColumnStats> partitionStats = Lists.newArrayList();
+        for (Partition partition : table.getPartitions()) {
+            if (partition.getColumnStats() != null) {
+                partitionStats.add(partition.getColumnStats());
+            }
+        }
+        if (partitionStats.isEmpty()) {
+            return;
+        }
+        Column partitionColumn = null;
+        if (table.getPartitionInfo() instanceof RangePartitionInfo) {
+            List<Column> partitionColumns = ((RangePartitionInfo) table.getPartitionInfo()).getPartitionColumns();
+            if (partitionColumns.size() == 1) {
+                partitionColumn = partitionColumns.get(0);
+            }
+        }
+        for (Column column : table.getBaseSchema()) {
+            ColumnStats stats = mergeColumnStats(column, partitionStats, column == partitionColumn);
+            if (stats != null) {
+                column.setStats(stats);
+            }
+        }
+    }
+
+    // Return null if the column is not analyzed in any partition.
+    static ColumnStats mergeColumnStats(Column column, List<PartitionColumnStats> partitionStats,
+                                        boolean isDisjoint) {
+        ColumnStats result = new ColumnStats(column.getDataType());
+        boolean isAnalyzed = false;
+        long rowCount = 0;
+        long ndv = 0;
+        long numNulls = 0;
+        long maxSize = -1;
+        double totalSize = 0;
+        long nonNullRows = 0;
+        boolean hasMinMax = true;
+        LiteralExpr min = null;
+        LiteralExpr max = null;
+        for (PartitionColumnStats partition : partitionStats) {
+            ColumnStats stats = partition.getColumnStats(column.getName());
+            if (stats == null) {
+                // the column is added after the partition is analyzed
+                continue;
+            }
+            isAnalyzed = true;
+            rowCount += partition.getRowCount();
+            ndv = isDisjoint ? ndv + stats.getNumDistinctValues() : Math.max(ndv, stats.getNumDistinctValues());
+            numNulls += stats.getNumNulls();
+            maxSize = Math.max(maxSize, stats.getMaxSize());
+            long rows = partition.getRowCount() - stats.getNumNulls();
+            if (stats.hasAvgSerializedSize() && rows > 0) {
+                totalSize += stats.getAvgSerializedSize() * rows;
+                nonNullRows += rows;
+            }
+            if (hasMinMax && stats.getMinValue() != null && stats.getMaxValue() != null) {
+                try {
+                    LiteralExpr partitionMin = LiteralExpr.create(stats.getMinValue(), column.getType());
+                    LiteralExpr partitionMax = LiteralExpr.create(stats.getMaxValue(), column.getType());
+                    if (min == null || partitionMin.compareLiteral(min) < 0) {
+                        min = partitionMin;
+                        result.setMinValue(stats.getMinValue());
+                    }
+                    if (max == null || partitionMax.compareLiteral(max) > 0) {
+                        max = partitionMax;
+                        result.setMaxValue(stats.getMaxValue());
+                    }
+                } catch (AnalysisException e) {
+                    LOG.warn("invalid min or max value of column {}: {}", column.getName(), e.getMessage());
+                    hasMinMax = false;
+                }
+            }
+        }
+        if (!isAnalyzed) {
+            return null;
+        }
+
+        result.setNumDistinctValues(Math.min(ndv, Math.max(rowCount - numNulls, 0)));
+        result.setNumNulls(numNulls);
+        if (column.getType().isStringType()) {
+            result.setMaxSize(maxSize);
+            result.setAvgSerializedSize(nonNullRows == 0 ? 0 : (float) (totalSize / nonNullRows));
+        }
+        if (!hasMinMax) {
+            result.setMinValue(null);
+            result.setMaxValue(null);
+        }
+        return result;
+    }
+}
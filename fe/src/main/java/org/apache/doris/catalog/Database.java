@@ -28,11 +28,15 @@ import org.apache.doris.common.Pair;
 import org.apache.doris.common.io.Text;
 import org.apache.doris.common.io.Writable;
 import org.apache.doris.common.util.DebugUtil;
+import org.apache.doris.common.util.MonitoredReadWriteLock;
+import org.apache.doris.common.util.MonitoredReadWriteLock.LockHolder;
+import org.apache.doris.common.util.MultiGranularityLock;
 import org.apache.doris.persist.CreateTableInfo;
 import org.apache.doris.system.SystemInfoService;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Maps;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -42,6 +46,8 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -49,7 +55,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.zip.Adler32;
 
 /**
@@ -75,10 +80,21 @@ public class Database extends MetaObject implements Writable {
     private long id;
     private String fullQualifiedName;
     private String clusterName;
-    private ReentrantReadWriteLock rwLock;
-    
-    // temp for trace
-    private Map<String, Throwable> allLocks = Maps.newConcurrentMap();
+    /*
+     * Hierarchical lock of database and its tables:
+     *  readLock() / writeLock() lock the whole database, including all of its tables.
+     *  readLockTables() / writeLockTables() take the intention lock of database, and then the read or write
+     *  lock of the given tables, so that operations on different tables of the same database will not
+     *  block each other.
+     *
+     * To avoid deadlock, the database lock is always acquired before table locks, and tables are always
+     * locked in ascending order of table id. So do not lock another table while holding some table locks.
+     * The table map of database can only be modified with the database write lock held.
+     */
+    private MultiGranularityLock rwLock;
+    // Increased each time the write lock of db is released, since tables may be modified with only the db lock held.
+    // DO NOT persist this variable.
+    private volatile long modifyCount = 0;
 
     // table family group map
     private Map<Long, Table> idToTable;
@@ -103,7 +119,7 @@ public class Database extends MetaObject implements Writable {
         if (this.fullQualifiedName == null) {
             this.fullQualifiedName = "";
         }
-        this.rwLock = new ReentrantReadWriteLock(true);
+        this.rwLock = new MultiGranularityLock();
         this.idToTable = new HashMap<Long, Table>();
         this.nameToTable = new HashMap<String, Table>();
         this.dataQuotaBytes = FeConstants.default_db_data_quota_bytes;
@@ -113,33 +129,28 @@ public class Database extends MetaObject implements Writable {
     }
 
     public void readLock() {
-        this.rwLock.readLock().lock();
-        allLocks.put(Long.toString(Thread.currentThread().getId()), new Exception());
+        this.rwLock.readLock();
     }
 
+    // the stack of holders are only available if Config.lock_trace_sample_rate is set
     public void printLocks() {
-        for (Throwable exception: allLocks.values()) {
-            LOG.debug("a lock in db [{}]", fullQualifiedName, exception);
+        for (LockHolder holder : rwLock.getReadWriteLock().getHolders()) {
+            LOG.debug("a lock in db [{}]. mode: {}, state: {}, thread: {}, elapsed: {} ms", fullQualifiedName,
+                      holder.mode, holder.state, holder.thread.getName(), holder.elapsedMs, holder.stack);
         }
     }
 
     public void readUnlock() {
-        this.rwLock.readLock().unlock();
-        allLocks.remove(Long.toString(Thread.currentThread().getId()));
+        this.rwLock.readUnlock();
     }
 
     public void writeLock() {
-        this.rwLock.writeLock().lock();
-        allLocks.put(Long.toString(Thread.currentThread().getId()), new Exception());
+        this.rwLock.writeLock();
     }
 
     public boolean tryWriteLock(long timeout, TimeUnit unit) {
         try {
-            boolean result =  this.rwLock.writeLock().tryLock(timeout, unit);
-            if (result) {
-                allLocks.put(Long.toString(Thread.currentThread().getId()), new Exception());
-            }
-            return result;
+            return this.rwLock.tryWriteLock(timeout, unit);
         } catch (InterruptedException e) {
             LOG.warn("failed to try write lock at db[" + id + "]", e);
             return false;
@@ -147,12 +158,148 @@ public class Database extends MetaObject implements Writable {
     }
 
     public void writeUnlock() {
-        this.rwLock.writeLock().unlock();
-        allLocks.remove(Long.toString(Thread.currentThread().getId()));
+        modifyCount++;
+        this.rwLock.writeUnlock();
+    }
+
+    public long getModifyCount() {
+        return modifyCount;
     }
 
     public boolean isWriteLockHeldByCurrentThread() {
-        return this.rwLock.writeLock().isHeldByCurrentThread();
+        return this.rwLock.isWriteLockHeldByCurrentThread();
+    }
+
+    public MonitoredReadWriteLock getLock() {
+        return rwLock.getReadWriteLock();
+    }
+
+    public void intentionReadLock() {
+        this.rwLock.intentionReadLock();
+    }
+
+    public void intentionReadUnlock() {
+        this.rwLock.intentionReadUnlock();
+    }
+
+    public void intentionWriteLock() {
+        this.rwLock.intentionWriteLock();
+    }
+
+    public void intentionWriteUnlock() {
+        this.rwLock.intentionWriteUnlock();
+    }
+
+    // return true if current thread can modify any of the tables that it has locked
+    public boolean isIntentionWriteLockHeldByCurrentThread() {
+        return this.rwLock.isIntentionWriteLockHeldByCurrentThread();
+    }
+
+    /*
+     * Take the intention read lock of db and the read locks of the given tables.
+     * Tables which do not exist are ignored. Return the locked tables, which should be
+     * passed to readUnlockTables() later, even if it is empty.
+     */
+    public List<Table> readLockTables(Collection<Long> tableIds) {
+        intentionReadLock();
+        List<Table> tables = getSortedTables(tableIds);
+        for (Table table : tables) {
+            table.readLock();
+        }
+        return tables;
+    }
+
+    // same as readLockTables(), but tables are specified by name
+    public List<Table> readLockTablesByName(Collection<String> tableNames) {
+        intentionReadLock();
+        Set<Long> tableIds = Sets.newHashSet();
+        for (String tableName : tableNames) {
+            Table table = nameToTable.get(tableName);
+            if (table != null) {
+                tableIds.add(table.getId());
+            }
+        }
+        List<Table> tables = getSortedTables(tableIds);
+        for (Table table : tables) {
+            table.readLock();
+        }
+        return tables;
+    }
+
+    public void readUnlockTables(List<Table> tables) {
+        for (int i = tables.size() - 1; i >= 0; i--) {
+            tables.get(i).readUnlock();
+        }
+        intentionReadUnlock();
+    }
+
+    /*
+     * Take the intention write lock of db and the write locks of the given tables.
+     * Tables which do not exist are ignored. Return the locked tables, which should be
+     * passed to writeUnlockTables() later, even if it is empty.
+     */
+    public List<Table> writeLockTables(Collection<Long> tableIds) {
+        intentionWriteLock();
+        List<Table> tables = getSortedTables(tableIds);
+        for (Table table : tables) {
+            table.writeLock();
+        }
+        return tables;
+    }
+
+    public void writeUnlockTables(List<Table> tables) {
+        for (int i = tables.size() - 1; i >= 0; i--) {
+            tables.get(i).writeUnlock();
+        }
+        intentionWriteUnlock();
+    }
+
+    // Lock a single table. return null if table does not exist, and readUnlockTable(null) should still be called.
+    public Table readLockTable(long tableId) {
+        intentionReadLock();
+        Table table = idToTable.get(tableId);
+        if (table != null) {
+            table.readLock();
+        }
+        return table;
+    }
+
+    public void readUnlockTable(Table table) {
+        if (table != null) {
+            table.readUnlock();
+        }
+        intentionReadUnlock();
+    }
+
+    // Lock a single table. return null if table does not exist, and writeUnlockTable(null) should still be called.
+    public Table writeLockTable(long tableId) {
+        intentionWriteLock();
+        Table table = idToTable.get(tableId);
+        if (table != null) {
+            table.writeLock();
+        }
+        return table;
+    }
+
+    public void writeUnlockTable(Table table) {
+        if (table != null) {
+            table.writeUnlock();
+        }
+        intentionWriteUnlock();
+    }
+
+    // must be called with db lock held
+    private List<Table> getSortedTables(Collection<Long> tableIds) {
+        List<Long> sortedIds = Lists.newArrayList(Sets.newHashSet(tableIds));
+        Collections.sort(sortedIds);
+        List<Table> tables = Lists.newArrayListWithCapacity(sortedIds.size());
+        for (long tableId : sortedIds) {
+            Table table = idToTable.get(tableId);
+            if (table != null) {
+                tables.add(table);
+            }
+        }
+        return tables;
     }
 
     public long getId() {
@@ -319,6 +466,16 @@ public class Database extends MetaObject implements Writable {
         }
     }
 
+    // the table map can not be modified with the intention lock held, so it is enough here
+    public List<Long> getTableIdsWithLock() {
+        intentionReadLock();
+        try {
+            return new ArrayList<Long>(idToTable.keySet());
+        } finally {
+            intentionReadUnlock();
+        }
+    }
+
     public Table getTable(String tableName) {
         if (nameToTable.containsKey(tableName)) {
             return nameToTable.get(tableName);
@@ -36,6 +36,7 @@ import org.apache.doris.catalog.DistributionInfo.DistributionInfoType;
 import org.apache.doris.catalog.Replica.ReplicaState;
 import org.apache.doris.common.FeMetaVersion;
 import org.apache.doris.common.io.DeepCopy;
+import org.apache.doris.common.io.FastByteArrayOutputStream;
 import org.apache.doris.common.io.Text;
 import org.apache.doris.common.util.PropertyAnalyzer;
 import org.apache.doris.common.util.Util;
@@ -53,11 +54,15 @@ import com.google.common.collect.Sets;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -108,6 +113,36 @@ public class OlapTable extends Table {
     private Set<String> bfColumns;
     private double bfFpp;
 
+    // name of the colocation group in the database, null if not colocated with other tables
+    private String colocateGroup;
+
+    // immutable copy of this table for analyzing queries, see getSnapshot()
+    // DO NOT persist this variable.
+    private volatile Snapshot snapshot = null;
+
+    /*
+     * A snapshot is made of a copy of the meta of the table without partitions, and copies of the partitions.
+     * The copy of a partition is shared by the following snapshots until the partition is changed.
+     */
+    private static class Snapshot {
+        private final OlapTable table;
+        private final long modifyCount;
+        private final long dbModifyCount;
+        // the serialized meta of the table without partitions
+        private final byte[] meta;
+        // partition id -> fingerprint of the partition when copied
+        private final Map<Long, Long> partitionFingerprints;
+
+        public Snapshot(OlapTable table, long modifyCount, long dbModifyCount, byte[] meta,
+                        Map<Long, Long> partitionFingerprints) {
+            this.table = table;
+            this.modifyCount = modifyCount;
+            this.dbModifyCount = dbModifyCount;
+            this.meta = meta;
+            this.partitionFingerprints = partitionFingerprints;
+        }
+    }
+
     public OlapTable() {
         // for persist
         super(TableType.OLAP);
@@ -273,8 +308,7 @@ public class OlapTable extends Table {
                 rangePartitionInfo.idToReplicationNum.remove(entry.getValue());
                 rangePartitionInfo.idToReplicationNum.put(newPartId,
                                                           (short) restoreReplicationNum);
-                rangePartitionInfo.getIdToRange().put(newPartId,
-                                                      rangePartitionInfo.getIdToRange().remove(entry.getValue()));
+                rangePartitionInfo.changeRangeId(entry.getValue(), newPartId);
 
                 idToPartition.put(newPartId, idToPartition.remove(entry.getValue()));
             }
@@ -522,6 +556,14 @@ public class OlapTable extends Table {
         this.bfColumns = bfColumns;
         this.bfFpp = bfFpp;
     }
+
+    public String getColocateGroup() {
+        return colocateGroup;
+    }
+
+    public void setColocateGroup(String colocateGroup) {
+        this.colocateGroup = colocateGroup;
+    }
     
     // when the table is creating new rollup and enter finishing state, should tell be not auto load to new rollup
     // it is used for stream load
@@ -763,6 +805,11 @@ public class OlapTable extends Table {
 
     @Override
     public void write(DataOutput out) throws IOException {
+        write(out, idToPartition.values());
+    }
+
+    // the partitions are given, so the meta of the table can be written without partitions, see getSnapshot()
+    private void write(DataOutput out, Collection<Partition> partitions) throws IOException {
         super.write(out);
 
         // state
@@ -802,9 +849,9 @@ public class OlapTable extends Table {
         defaultDistributionInfo.write(out);
 
         // partitions
-        int partitionCount = idToPartition.size();
+        int partitionCount = partitions.size();
         out.writeInt(partitionCount);
-        for (Partition partition : idToPartition.values()) {
+        for (Partition partition : partitions) {
             partition.write(out);
         }
 
@@ -819,6 +866,14 @@ public class OlapTable extends Table {
             }
             out.writeDouble(bfFpp);
         }
+
+        // colocation group
+        if (colocateGroup == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            Text.writeString(out, colocateGroup);
+        }
     }
 
     @Override
@@ -900,6 +955,15 @@ public class OlapTable extends Table {
                 bfFpp = in.readDouble();
             }
         }
+
+        if (Catalog.getCurrentCatalogJournalVersion() >= FeMetaVersion.VERSION_49) {
+            if (in.readBoolean()) {
+                colocateGroup = Text.readString(in);
+            }
+        }
+
+        // min and max values of columns are only persisted in the stats of partitions
+        ColumnStatsMgr.updateTableColumnStats(this);
     }
 
     public boolean equals(Table table) {
@@ -913,6 +977,119 @@ public class OlapTable extends Table {
         return true;
     }
 
+    /*
+     * Return a copy of this table, including partitions, versions and replicas, which is never modified.
+     * Queries can be analyzed and planned with the copy without holding any lock. The copy is shared by queries
+     * until this table or its database is modified. Then the first query checks what is changed: only the changed
+     * partitions are copied again, and the meta of the table is copied without partitions, so a change of the db,
+     * eg. a tablet report of another table, costs no copy of partitions.
+     * Must be called with the read lock of this table or db held. Return null if failed to copy.
+     */
+    public OlapTable getSnapshot(Database db) {
+        Snapshot current = snapshot;
+        if (current != null && current.modifyCount == modifyCount && current.dbModifyCount == db.getModifyCount()) {
+            return current.table;
+        }
+        // queries holding the read lock concurrently only need one copy
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.modifyCount == modifyCount
+                    && current.dbModifyCount == db.getModifyCount()) {
+                return current.table;
+            }
+            try {
+                current = makeSnapshot(current, modifyCount, db.getModifyCount());
+            } catch (IOException e) {
+                LOG.warn("failed to copy olap table: " + getName(), e);
+                return null;
+            }
+            snapshot = current;
+            return current.table;
+        }
+    }
+
+    private Snapshot makeSnapshot(Snapshot previous, long modifyCount, long dbModifyCount) throws IOException {
+        FastByteArrayOutputStream metaBytes = new FastByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(metaBytes);
+        write(out, Collections.<Partition>emptyList());
+        out.flush();
+        byte[] meta = Arrays.copyOf(metaBytes.getByteArray(), metaBytes.getSize());
+
+        Map<Long, Long> fingerprints = Maps.newHashMap();
+        Map<Long, Partition> partitions = Maps.newHashMap();
+        boolean isChanged = previous == null || !Arrays.equals(meta, previous.meta)
+                || previous.partitionFingerprints.size() != idToPartition.size();
+        for (Partition partition : idToPartition.values()) {
+            long fingerprint = getFingerprint(partition);
+            fingerprints.put(partition.getId(), fingerprint);
+            Long previousFingerprint = previous == null ? null : previous.partitionFingerprints.get(partition.getId());
+            if (previousFingerprint != null && previousFingerprint == fingerprint) {
+                partitions.put(partition.getId(), previous.table.getPartition(partition.getId()));
+            } else {
+                partitions.put(partition.getId(), copyPartition(partition));
+                isChanged = true;
+            }
+        }
+        if (!isChanged) {
+            return new Snapshot(previous.table, modifyCount, dbModifyCount, previous.meta,
+                                previous.partitionFingerprints);
+        }
+
+        OlapTable copied = new OlapTable();
+        copied.readFields(new DataInputStream(new ByteArrayInputStream(meta)));
+        for (Partition partition : partitions.values()) {
+            copied.addPartition(partition);
+        }
+        ColumnStatsMgr.updateTableColumnStats(copied);
+        return new Snapshot(copied, modifyCount, dbModifyCount, meta, fingerprints);
+    }
+
+    private static Partition copyPartition(Partition partition) throws IOException {
+        FastByteArrayOutputStream bytes = new FastByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        partition.write(out);
+        out.flush();
+        return Partition.read(new DataInputStream(bytes.getInputStream()));
+    }
+
+    /*
+     * Fingerprint of the state of a partition which is used by queries: versions, indices, replicas and stats.
+     * Row counts and data sizes of replicas are not included, which are changed by every tablet report,
+     * so they are refreshed only when the partition is copied again.
+     */
+    private static long getFingerprint(Partition partition) {
+        long hash = partition.getId();
+        hash = mixFingerprint(hash, partition.getName().hashCode());
+        hash = mixFingerprint(hash, partition.getState().ordinal());
+        hash = mixFingerprint(hash, partition.getCommittedVersion());
+        hash = mixFingerprint(hash, partition.getCommittedVersionHash());
+        if (partition.getColumnStats() != null) {
+            hash = mixFingerprint(hash, partition.getColumnStats().getVersion());
+            hash = mixFingerprint(hash, partition.getColumnStats().getUpdateTime());
+        }
+        for (MaterializedIndex index : partition.getMaterializedIndices()) {
+            hash = mixFingerprint(hash, index.getId());
+            hash = mixFingerprint(hash, index.getState().ordinal());
+            for (Tablet tablet : index.getTablets()) {
+                hash = mixFingerprint(hash, tablet.getId());
+                for (Replica replica : tablet.getReplicas()) {
+                    hash = mixFingerprint(hash, replica.getId());
+                    hash = mixFingerprint(hash, replica.getBackendId());
+                    hash = mixFingerprint(hash, replica.getVersion());
+                    hash = mixFingerprint(hash, replica.getVersionHash());
+                    hash = mixFingerprint(hash, replica.getState().ordinal());
+                    hash = mixFingerprint(hash, replica.getLastFailedVersion());
+                }
+            }
+        }
+        return hash;
+    }
+
+    // one step of FNV-1a, on 64-bit values
+    private static long mixFingerprint(long hash, long value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
     public OlapTable selectiveCopy(Collection<String> reservedPartNames) {
         OlapTable copied = new OlapTable();
         if (!DeepCopy.copy(this, copied)) {
@@ -61,6 +61,9 @@ public class Partition extends MetaObject implements Writable {
 
     private DistributionInfo distributionInfo;
 
+    // null if the partition is not analyzed
+    private PartitionColumnStats columnStats;
+
     public Partition() {
         this.idToRollupIndex = new HashMap<Long, MaterializedIndex>();
     }
@@ -137,6 +140,14 @@ public class Partition extends MetaObject implements Writable {
         return distributionInfo;
     }
 
+    public PartitionColumnStats getColumnStats() {
+        return columnStats;
+    }
+
+    public void setColumnStats(PartitionColumnStats columnStats) {
+        this.columnStats = columnStats;
+    }
+
     public void createRollupIndex(MaterializedIndex mIndex) {
         this.idToRollupIndex.put(mIndex.getId(), mIndex);
     }
@@ -233,6 +244,13 @@ public class Partition extends MetaObject implements Writable {
 
         Text.writeString(out, distributionInfo.getType().name());
         distributionInfo.write(out);
+
+        if (columnStats == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            columnStats.write(out);
+        }
     }
 
     public void readFields(DataInput in) throws IOException {
@@ -276,6 +294,12 @@ public class Partition extends MetaObject implements Writable {
         } else {
             throw new IOException("invalid distribution type: " + distriType);
         }
+
+        if (Catalog.getCurrentCatalogJournalVersion() >= FeMetaVersion.VERSION_47) {
+            if (in.readBoolean()) {
+                columnStats = PartitionColumnStats.read(in);
+            }
+        }
     }
 
     public boolean equals(Object obj) {
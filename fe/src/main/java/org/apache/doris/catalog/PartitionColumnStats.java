@@ -0,0 +1,135 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import org.apache.doris.common.io.Text;
+import org.apache.doris.common.io.Writable;
+
+import com.google.common.collect.Maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+/*
+ * Column statistics of a partition collected by ANALYZE TABLE, and the committed version of the partition
+ * when they are collected. The statistics are collected again once the partition has a new version.
+ */
+public class PartitionColumnStats implements Writable {
+    private long version;
+    private long versionHash;
+    private long rowCount;
+    private long updateTime;
+    // column name -> stats
+    private Map<String, ColumnStats> columnStats = Maps.newHashMap();
+
+    public PartitionColumnStats() {
+        // for persist
+    }
+
+    public PartitionColumnStats(long version, long versionHash, long rowCount, long updateTime) {
+        this.version = version;
+        this.versionHash = versionHash;
+        this.rowCount = rowCount;
+        this.updateTime = updateTime;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getVersionHash() {
+        return versionHash;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    public void putColumnStats(String columnName, ColumnStats stats) {
+        columnStats.put(columnName, stats);
+    }
+
+    public ColumnStats getColumnStats(String columnName) {
+        return columnStats.get(columnName);
+    }
+
+    public Map<String, ColumnStats> getColumnStats() {
+        return columnStats;
+    }
+
+    // Whether the partition is changed after the statistics are collected.
+    public boolean isStale(Partition partition) {
+        return partition.getCommittedVersion() != version || partition.getCommittedVersionHash() != versionHash;
+    }
+
+    private static void writeNullableString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            Text.writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? Text.readString(in) : null;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(version);
+        out.writeLong(versionHash);
+        out.writeLong(rowCount);
+        out.writeLong(updateTime);
+        out.writeInt(columnStats.size());
+        for (Map.Entry<String, ColumnStats> entry : columnStats.entrySet()) {
+            Text.writeString(out, entry.getKey());
+            ColumnStats stats = entry.getValue();
+            stats.write(out);
+            writeNullableString(out, stats.getMinValue());
+            writeNullableString(out, stats.getMaxValue());
+        }
+    }
+
+    public void readFields(DataInput in) throws IOException {
+        version = in.readLong();
+        versionHash = in.readLong();
+        rowCount = in.readLong();
+        updateTime = in.readLong();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String columnName = Text.readString(in);
+            ColumnStats stats = ColumnStats.read(in);
+            stats.setMinValue(readNullableString(in));
+            stats.setMaxValue(readNullableString(in));
+            columnStats.put(columnName, stats);
+        }
+    }
+
+    public static PartitionColumnStats read(DataInput in) throws IOException {
+        PartitionColumnStats stats = new PartitionColumnStats();
+        stats.readFields(in);
+        return stats;
+    }
+}
@@ -0,0 +1,107 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Immutable index of the ranges of partitions, sorted by lower endpoint. Ranges of partitions never intersect,
+ * so their upper endpoints are sorted too, and the partitions intersected with a range are found by binary search.
+ * It is built by RangePartitionInfo once partitions are changed, and shared by all queries after that.
+ */
+public class RangePartitionIndex {
+    private final long[] partitionIds;
+    private final List<Range<PartitionKey>> ranges;
+
+    private RangePartitionIndex(long[] partitionIds, List<Range<PartitionKey>> ranges) {
+        this.partitionIds = partitionIds;
+        this.ranges = ranges;
+    }
+
+    public static RangePartitionIndex create(Map<Long, Range<PartitionKey>> idToRange) {
+        List<Map.Entry<Long, Range<PartitionKey>>> entries = Lists.newArrayList(idToRange.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Long, Range<PartitionKey>>>() {
+            @Override
+            public int compare(Map.Entry<Long, Range<PartitionKey>> o1, Map.Entry<Long, Range<PartitionKey>> o2) {
+                return compareLower(o1.getValue(), o2.getValue());
+            }
+        });
+
+        long[] partitionIds = new long[entries.size()];
+        List<Range<PartitionKey>> ranges = Lists.newArrayListWithCapacity(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            partitionIds[i] = entries.get(i).getKey();
+            ranges.add(entries.get(i).getValue());
+        }
+        return new RangePartitionIndex(partitionIds, ranges);
+    }
+
+    public int size() {
+        return partitionIds.length;
+    }
+
+    // Return ids of the partitions whose ranges are intersected with the given range, in the order of ranges.
+    public List<Long> getIntersected(Range<PartitionKey> range) {
+        List<Long> result = Lists.newArrayList();
+        int i = range.hasLowerBound() ? findFirstNotBelow(range.lowerEndpoint()) : 0;
+        for (; i < partitionIds.length; i++) {
+            Range<PartitionKey> partitionRange = ranges.get(i);
+            if (range.hasUpperBound() && partitionRange.hasLowerBound()
+                    && partitionRange.lowerEndpoint().compareTo(range.upperEndpoint()) > 0) {
+                // all the following partitions are above the range
+                break;
+            }
+            // bound types of the endpoints are checked here
+            if (partitionRange.isConnected(range) && !partitionRange.intersection(range).isEmpty()) {
+                result.add(partitionIds[i]);
+            }
+        }
+        return result;
+    }
+
+    // return the index of the first partition whose upper endpoint is not less than the key
+    private int findFirstNotBelow(PartitionKey key) {
+        int low = 0;
+        int high = partitionIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Range<PartitionKey> partitionRange = ranges.get(mid);
+            if (partitionRange.hasUpperBound() && partitionRange.upperEndpoint().compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compareLower(Range<PartitionKey> range1, Range<PartitionKey> range2) {
+        if (!range1.hasLowerBound()) {
+            return range2.hasLowerBound() ? -1 : 0;
+        } else if (!range2.hasLowerBound()) {
+            return 1;
+        }
+        return range1.lowerEndpoint().compareTo(range2.lowerEndpoint());
+    }
+}
@@ -49,6 +49,9 @@ public class RangePartitionInfo extends PartitionInfo {
     private List<Column> partitionColumns;
     // partition id -> partition range
     private Map<Long, Range<PartitionKey>> idToRange;
+    // sorted index of idToRange for partition pruning, which is built again after partitions are changed
+    // DO NOT persist this variable.
+    private volatile RangePartitionIndex partitionIndex = null;
 
     private static final Comparator<Map.Entry<Long, Range<PartitionKey>>> RANGE_MAP_ENTRY_COMPARATOR;
 
@@ -81,6 +84,7 @@ public class RangePartitionInfo extends PartitionInfo {
 
     public void dropPartition(long partitionId) {
         idToRange.remove(partitionId);
+        partitionIndex = null;
         idToDataProperty.remove(partitionId);
         idToReplicationNum.remove(partitionId);
     }
@@ -88,6 +92,7 @@ public class RangePartitionInfo extends PartitionInfo {
     public void addPartitionForRestore(long partitionId, Range<PartitionKey> range, DataProperty dataProperty,
             short replicationNum) {
         idToRange.put(partitionId, range);
+        partitionIndex = null;
         idToDataProperty.put(partitionId, dataProperty);
         idToReplicationNum.put(partitionId, replicationNum);
     }
@@ -179,6 +184,7 @@ public class RangePartitionInfo extends PartitionInfo {
         try {
             range = checkAndCreateRange(desc);
             idToRange.put(partitionId, range);
+            partitionIndex = null;
         } catch (IllegalArgumentException e) {
             // Range.closedOpen may throw this if (lower > upper)
             throw new DdlException("Invalid key range", e);
@@ -193,16 +199,35 @@ public class RangePartitionInfo extends PartitionInfo {
                                                       DataProperty dataProperty, short replicationNum)
             throws DdlException {
         idToRange.put(partitionId, range);
+        partitionIndex = null;
         idToDataProperty.put(partitionId, dataProperty);
         idToReplicationNum.put(partitionId, replicationNum);
     }
 
     public void setRange(long partitionId, Range<PartitionKey> range) {
         idToRange.put(partitionId, range);
+        partitionIndex = null;
     }
 
+    // change the id of a partition, for restore
+    public void changeRangeId(long oldPartitionId, long newPartitionId) {
+        idToRange.put(newPartitionId, idToRange.remove(oldPartitionId));
+        partitionIndex = null;
+    }
+
+    // ranges should be changed by the methods above, to keep partitionIndex consistent
     public Map<Long, Range<PartitionKey>> getIdToRange() {
-        return idToRange;
+        return Collections.unmodifiableMap(idToRange);
+    }
+
+    public RangePartitionIndex getPartitionIndex() {
+        RangePartitionIndex index = partitionIndex;
+        if (index == null) {
+            // queries may build it concurrently with the read lock held, which is harmless as the results are same
+            index = RangePartitionIndex.create(idToRange);
+            partitionIndex = index;
+        }
+        return index;
     }
 
     public Range<PartitionKey> getRange(long partitionId) {
@@ -374,6 +399,7 @@ public class RangePartitionInfo extends PartitionInfo {
             Range<PartitionKey> range = RangePartitionInfo.readRange(in);
             idToRange.put(partitionId, range);
         }
+        partitionIndex = null;
     }
 
     @Override
@@ -34,6 +34,7 @@ import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Internal representation of table-related metadata. A table contains several partitions.
@@ -60,6 +61,15 @@ public class Table extends MetaObject implements Writable {
     // DO NOT persist this variable.
     protected boolean isTypeRead = false;
 
+    // Table lock. It should be acquired with the intention lock of database held, see Database.
+    // DO NOT persist this variable.
+    protected ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock(true);
+
+    // Increased each time the write lock is released, so a copy made with the read lock held is the same as
+    // the table as long as the count does not change.
+    // DO NOT persist this variable.
+    protected volatile long modifyCount = 0;
+
     public Table(TableType type) {
         this.type = type;
         this.baseSchema = new LinkedList<Column>();
@@ -83,6 +93,31 @@ public class Table extends MetaObject implements Writable {
         }
     }
 
+    public void readLock() {
+        this.rwLock.readLock().lock();
+    }
+
+    public void readUnlock() {
+        this.rwLock.readLock().unlock();
+    }
+
+    public void writeLock() {
+        this.rwLock.writeLock().lock();
+    }
+
+    public void writeUnlock() {
+        modifyCount++;
+        this.rwLock.writeLock().unlock();
+    }
+
+    public long getModifyCount() {
+        return modifyCount;
+    }
+
+    public boolean isWriteLockHeldByCurrentThread() {
+        return this.rwLock.isWriteLockedByCurrentThread();
+    }
+
     public boolean isTypeRead() {
         return isTypeRead;
     }
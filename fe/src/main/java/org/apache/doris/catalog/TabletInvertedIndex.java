@@ -17,6 +17,8 @@
 
 package org.apache.doris.catalog;
 
+import org.apache.doris.common.util.LongLongHashMap;
+import org.apache.doris.common.util.LongObjectHashMap;
 import org.apache.doris.task.RecoverTabletTask;
 import org.apache.doris.thrift.TPartitionVersionInfo;
 import org.apache.doris.thrift.TStorageMedium;
@@ -33,11 +35,13 @@ import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +51,10 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 /*
  * this class stores a inverted index
  * key is tablet id. value is the related ids of this tablet
+ *
+ * There may be tens of millions of replicas in a cluster, so the index is built on primitive
+ * long-keyed maps (LongObjectHashMap and LongLongHashMap) instead of boxed HashMap and
+ * HashBasedTable, to reduce the heap usage and the GC pressure of master.
  */
 public class TabletInvertedIndex {
     private static final Logger LOG = LogManager.getLogger(TabletInvertedIndex.class);
@@ -56,10 +64,10 @@ public class TabletInvertedIndex {
     private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     // tablet id -> tablet meta
-    private Map<Long, TabletMeta> tabletMetaMap = Maps.newHashMap();
+    private LongObjectHashMap<TabletMeta> tabletMetaMap = new LongObjectHashMap<TabletMeta>();
     
     // replica id -> tablet id
-    private Map<Long, Long> replicaToTabletMap = Maps.newHashMap();
+    private LongLongHashMap replicaToTabletMap = new LongLongHashMap(NOT_EXIST_VALUE);
     
     /*
      *  we use this to save memory.
@@ -72,11 +80,13 @@ public class TabletInvertedIndex {
      */
     private Table<Long, Long, TabletMeta> tabletMetaTable = HashBasedTable.create();
     
-    // tablet id -> (backend id -> replica)
-    private Table<Long, Long, Replica> replicaMetaTable = HashBasedTable.create();
+    // tablet id -> replicas of this tablet.
+    // a tablet only has a few replicas, so a compact array is used instead of a (backend id -> replica) map.
+    // the array is replaced, not modified, when a replica is added or deleted.
+    private LongObjectHashMap<Replica[]> replicaMetaTable = new LongObjectHashMap<Replica[]>();
     // backing replica table, for visiting backend replicas faster.
     // backend id -> (tablet id -> replica)
-    private Table<Long, Long, Replica> backingReplicaMetaTable = HashBasedTable.create();
+    private Map<Long, LongObjectHashMap<Replica>> backingReplicaMetaTable = Maps.newHashMap();
 
     public TabletInvertedIndex() {
     }
@@ -113,17 +123,18 @@ public class TabletInvertedIndex {
         try {
             LOG.info("begin to do tablet diff with backend[{}]. num: {}", backendId, backendTablets.size());
             start = System.currentTimeMillis();
-            Map<Long, Replica> replicaMetaWithBackend = backingReplicaMetaTable.row(backendId);
+            LongObjectHashMap<Replica> replicaMetaWithBackend = backingReplicaMetaTable.get(backendId);
             if (replicaMetaWithBackend != null) {
                 // traverse replicas in meta with this backend
-                for (Map.Entry<Long, Replica> entry : replicaMetaWithBackend.entrySet()) {
-                    long tabletId = entry.getKey();
-                    Preconditions.checkState(tabletMetaMap.containsKey(tabletId));
+                LongObjectHashMap<Replica>.EntryIterator iter = replicaMetaWithBackend.iterator();
+                while (iter.next()) {
+                    long tabletId = iter.key();
                     TabletMeta tabletMeta = tabletMetaMap.get(tabletId);
+                    Preconditions.checkState(tabletMeta != null);
 
-                    if (backendTablets.containsKey(tabletId)) {
-                        TTablet backendTablet = backendTablets.get(tabletId);
-                        Replica replica = entry.getValue();
+                    TTablet backendTablet = backendTablets.get(tabletId);
+                    if (backendTablet != null) {
+                        Replica replica = iter.value();
                         for (TTabletInfo backendTabletInfo : backendTablet.getTablet_infos()) {
                             if (tabletMeta.containsSchemaHash(backendTabletInfo.getSchema_hash())) {
                                 foundTabletsWithValidSchema.add(tabletId);
@@ -203,10 +214,8 @@ public class TabletInvertedIndex {
     public long getDbId(long tabletId) {
         readLock();
         try {
-            if (tabletMetaMap.containsKey(tabletId)) {
-                return tabletMetaMap.get(tabletId).getDbId();
-            }
-            return NOT_EXIST_VALUE;
+            TabletMeta tabletMeta = tabletMetaMap.get(tabletId);
+            return tabletMeta == null ? NOT_EXIST_VALUE : tabletMeta.getDbId();
         } finally {
             readUnlock();
         }
@@ -215,10 +224,8 @@ public class TabletInvertedIndex {
     public long getTableId(long tabletId) {
         readLock();
         try {
-            if (tabletMetaMap.containsKey(tabletId)) {
-                return tabletMetaMap.get(tabletId).getTableId();
-            }
-            return NOT_EXIST_VALUE;
+            TabletMeta tabletMeta = tabletMetaMap.get(tabletId);
+            return tabletMeta == null ? NOT_EXIST_VALUE : tabletMeta.getTableId();
         } finally {
             readUnlock();
         }
@@ -227,12 +234,11 @@ public class TabletInvertedIndex {
     public TabletMeta getTabletMetaByReplica(long replicaId) {
         readLock();
         try {
-            Long tabletId = replicaToTabletMap.get(replicaId);
-            if (tabletId == null) {
+            long tabletId = replicaToTabletMap.get(replicaId);
+            if (tabletId == NOT_EXIST_VALUE) {
                 return null;
             }
-            TabletMeta tabletMeta = tabletMetaMap.get(tabletId);
-            return tabletMeta;
+            return tabletMetaMap.get(tabletId);
         } finally {
             readUnlock();
         }
@@ -241,8 +247,8 @@ public class TabletInvertedIndex {
     public Long getTabletIdByReplica(long replicaId) {
         readLock();
         try {
-            Long tabletId = replicaToTabletMap.get(replicaId);
-            return tabletId;
+            long tabletId = replicaToTabletMap.get(replicaId);
+            return tabletId == NOT_EXIST_VALUE ? null : tabletId;
         } finally {
             readUnlock();
         }
@@ -251,10 +257,8 @@ public class TabletInvertedIndex {
     public long getPartitionId(long tabletId) {
         readLock();
         try {
-            if (tabletMetaMap.containsKey(tabletId)) {
-                return tabletMetaMap.get(tabletId).getPartitionId();
-            }
-            return NOT_EXIST_VALUE;
+            TabletMeta tabletMeta = tabletMetaMap.get(tabletId);
+            return tabletMeta == null ? NOT_EXIST_VALUE : tabletMeta.getPartitionId();
         } finally {
             readUnlock();
         }
@@ -263,10 +267,8 @@ public class TabletInvertedIndex {
     public long getIndexId(long tabletId) {
         readLock();
         try {
-            if (tabletMetaMap.containsKey(tabletId)) {
-                return tabletMetaMap.get(tabletId).getIndexId();
-            }
-            return NOT_EXIST_VALUE;
+            TabletMeta tabletMeta = tabletMetaMap.get(tabletId);
+            return tabletMeta == null ? NOT_EXIST_VALUE : tabletMeta.getIndexId();
         } finally {
             readUnlock();
         }
@@ -276,10 +278,8 @@ public class TabletInvertedIndex {
         // always get old schema hash(as effective one)
         readLock();
         try {
-            if (tabletMetaMap.containsKey(tabletId)) {
-                return tabletMetaMap.get(tabletId).getOldSchemaHash();
-            }
-            return NOT_EXIST_VALUE;
+            TabletMeta tabletMeta = tabletMetaMap.get(tabletId);
+            return tabletMeta == null ? NOT_EXIST_VALUE : tabletMeta.getOldSchemaHash();
         } finally {
             readUnlock();
         }
@@ -295,9 +295,38 @@ public class TabletInvertedIndex {
     }
     
     public Set<Long> getTabletBackends(long tabletId) {
+        Set<Long> backendIds = Sets.newHashSet();
+        readLock();
+        try {
+            Replica[] replicas = replicaMetaTable.get(tabletId);
+            if (replicas != null) {
+                for (Replica replica : replicas) {
+                    backendIds.add(replica.getBackendId());
+                }
+            }
+        } finally {
+            readUnlock();
+        }
+        return backendIds;
+    }
 
-        Map<Long, Replica> backendIdToReplica = replicaMetaTable.row(tabletId);
-        return backendIdToReplica.keySet();
+    private static int indexOfBackend(Replica[] replicas, long backendId) {
+        for (int i = 0; i < replicas.length; i++) {
+            if (replicas[i].getBackendId() == backendId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeBackingReplica(long backendId, long tabletId) {
+        LongObjectHashMap<Replica> replicaMetaWithBackend = backingReplicaMetaTable.get(backendId);
+        if (replicaMetaWithBackend != null) {
+            replicaMetaWithBackend.remove(tabletId);
+            if (replicaMetaWithBackend.isEmpty()) {
+                backingReplicaMetaTable.remove(backendId);
+            }
+        }
     }
 
     private boolean checkSync(Replica replicaMeta, long backendVersion, long backendVersionHash) {
@@ -350,14 +379,11 @@ public class TabletInvertedIndex {
         }
         writeLock();
         try {
-            Map<Long, Replica> replicas = replicaMetaTable.rowMap().remove(tabletId);
+            Replica[] replicas = replicaMetaTable.remove(tabletId);
             if (replicas != null) {
-                for (Replica replica : replicas.values()) {
+                for (Replica replica : replicas) {
                     replicaToTabletMap.remove(replica.getId());
-                }
-
-                for (long backendId : replicas.keySet()) {
-                    backingReplicaMetaTable.remove(backendId, tabletId);
+                    removeBackingReplica(replica.getBackendId(), tabletId);
                 }
             }
             TabletMeta tabletMeta = tabletMetaMap.remove(tabletId);
@@ -376,9 +402,24 @@ public class TabletInvertedIndex {
         writeLock();
         try {
             Preconditions.checkState(tabletMetaMap.containsKey(tabletId));
-            replicaMetaTable.put(tabletId, replica.getBackendId(), replica);
+            long backendId = replica.getBackendId();
+            Replica[] replicas = replicaMetaTable.get(tabletId);
+            if (replicas == null) {
+                replicas = new Replica[] { replica };
+            } else {
+                int idx = indexOfBackend(replicas, backendId);
+                replicas = Arrays.copyOf(replicas, idx < 0 ? replicas.length + 1 : replicas.length);
+                replicas[idx < 0 ? replicas.length - 1 : idx] = replica;
+            }
+            replicaMetaTable.put(tabletId, replicas);
             replicaToTabletMap.put(replica.getId(), tabletId);
-            backingReplicaMetaTable.put(replica.getBackendId(), tabletId, replica);
+
+            LongObjectHashMap<Replica> replicaMetaWithBackend = backingReplicaMetaTable.get(backendId);
+            if (replicaMetaWithBackend == null) {
+                replicaMetaWithBackend = new LongObjectHashMap<Replica>();
+                backingReplicaMetaTable.put(backendId, replicaMetaWithBackend);
+            }
+            replicaMetaWithBackend.put(tabletId, replica);
         } finally {
             writeUnlock();
         }
@@ -392,11 +433,21 @@ public class TabletInvertedIndex {
         try {
             Preconditions.checkState(tabletMetaMap.containsKey(tabletId));
             // Preconditions.checkState(replicaMetaTable.containsRow(tabletId));
-            if (replicaMetaTable.containsRow(tabletId)) {
-                Replica replica = replicaMetaTable.remove(tabletId, backendId);
-                replicaToTabletMap.remove(replica.getId());
-                replicaMetaTable.remove(tabletId, backendId);
-                backingReplicaMetaTable.remove(backendId, tabletId);
+            Replica[] replicas = replicaMetaTable.get(tabletId);
+            if (replicas != null) {
+                int idx = indexOfBackend(replicas, backendId);
+                if (idx >= 0) {
+                    replicaToTabletMap.remove(replicas[idx].getId());
+                    if (replicas.length == 1) {
+                        replicaMetaTable.remove(tabletId);
+                    } else {
+                        Replica[] newReplicas = new Replica[replicas.length - 1];
+                        System.arraycopy(replicas, 0, newReplicas, 0, idx);
+                        System.arraycopy(replicas, idx + 1, newReplicas, idx, replicas.length - idx - 1);
+                        replicaMetaTable.put(tabletId, newReplicas);
+                    }
+                }
+                removeBackingReplica(backendId, tabletId);
                 LOG.debug("delete tablet[{}] in backend[{}]", tabletId, backendId);
             } else {
                 // this may happend when fe restart after tablet is empty(bug cause)
@@ -412,7 +463,12 @@ public class TabletInvertedIndex {
         readLock();
         try {
             Preconditions.checkState(tabletMetaMap.containsKey(tabletId), tabletId);
-            return replicaMetaTable.get(tabletId, backendId);
+            Replica[] replicas = replicaMetaTable.get(tabletId);
+            if (replicas == null) {
+                return null;
+            }
+            int idx = indexOfBackend(replicas, backendId);
+            return idx < 0 ? null : replicas[idx];
         } finally {
             readUnlock();
         }
@@ -421,8 +477,9 @@ public class TabletInvertedIndex {
     public List<Replica> getReplicasByTabletId(long tabletId) {
         readLock();
         try {
-            if (replicaMetaTable.containsRow(tabletId)) {
-                return Lists.newArrayList(replicaMetaTable.row(tabletId).values());
+            Replica[] replicas = replicaMetaTable.get(tabletId);
+            if (replicas != null) {
+                return Lists.newArrayList(replicas);
             }
             return null;
         } finally {
@@ -475,9 +532,11 @@ public class TabletInvertedIndex {
         List<Long> tabletIds = Lists.newArrayList();
         readLock();
         try {
-            Map<Long, Replica> replicaMetaWithBackend = backingReplicaMetaTable.row(backendId);
+            LongObjectHashMap<Replica> replicaMetaWithBackend = backingReplicaMetaTable.get(backendId);
             if (replicaMetaWithBackend != null) {
-                tabletIds.addAll(replicaMetaWithBackend.keySet());
+                for (long tabletId : replicaMetaWithBackend.keys()) {
+                    tabletIds.add(tabletId);
+                }
             }
         } finally {
             readUnlock();
@@ -488,7 +547,7 @@ public class TabletInvertedIndex {
     public int getTabletNumByBackendId(long backendId) {
         readLock();
         try {
-            Map<Long, Replica> replicaMetaWithBackend = backingReplicaMetaTable.row(backendId);
+            LongObjectHashMap<Replica> replicaMetaWithBackend = backingReplicaMetaTable.get(backendId);
             if (replicaMetaWithBackend != null) {
                 return replicaMetaWithBackend.size();
             }
@@ -512,8 +571,18 @@ public class TabletInvertedIndex {
         }
     }
 
+    // return a copy of the replica id -> tablet id mapping
     public Map<Long, Long> getReplicaToTabletMap() {
-        return replicaToTabletMap;
+        readLock();
+        try {
+            Map<Long, Long> result = Maps.newHashMapWithExpectedSize(replicaToTabletMap.size());
+            for (long replicaId : replicaToTabletMap.keys()) {
+                result.put(replicaId, replicaToTabletMap.get(replicaId));
+            }
+            return result;
+        } finally {
+            readUnlock();
+        }
     }
 }
 
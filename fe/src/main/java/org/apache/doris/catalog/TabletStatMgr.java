@@ -105,10 +105,11 @@ public class TabletStatMgr extends Daemon {
             if (db == null) {
                 continue;
             }
-            db.writeLock();
-            try {
-                for (Table table : db.getTables()) {
-                    if (table.getType() != TableType.OLAP) {
+            // lock tables one by one, so that loads and queries on other tables will not be blocked
+            for (long tableId : db.getTableIdsWithLock()) {
+                Table table = db.writeLockTable(tableId);
+                try {
+                    if (table == null || table.getType() != TableType.OLAP) {
                         continue;
                     }
 
@@ -133,9 +134,9 @@ public class TabletStatMgr extends Daemon {
                     } // end for partitions
                     LOG.info("finished to set row num for table: {} in database: {}",
                              table.getName(), db.getFullName());
+                } finally {
+                    db.writeUnlockTable(table);
                 }
-            } finally {
-                db.writeUnlock();
             }
         }
         LOG.info("finished to update index row num of all databases. cost: {} ms",
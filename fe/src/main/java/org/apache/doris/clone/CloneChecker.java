@@ -18,6 +18,7 @@
 package org.apache.doris.clone;
 
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.ColocateTableIndex;
 import org.apache.doris.catalog.DataProperty;
 import org.apache.doris.catalog.Database;
 import org.apache.doris.catalog.Database.DbState;
@@ -39,6 +40,7 @@ import org.apache.doris.common.Config;
 import org.apache.doris.common.MetaNotFoundException;
 import org.apache.doris.common.util.Daemon;
 import org.apache.doris.common.util.Util;
+import org.apache.doris.persist.ColocatePersistInfo;
 import org.apache.doris.persist.DatabaseInfo;
 import org.apache.doris.persist.ReplicaPersistInfo;
 import org.apache.doris.system.Backend;
@@ -107,6 +109,11 @@ public class CloneChecker extends Daemon {
             LOG.debug("tablet already have clone job. tablet id: {}", tabletId);
             return true;
         }
+        if (Catalog.getCurrentColocateIndex().isColocateTable(tableId)) {
+            // replicas of colocate tables can only be cloned to the backends of the bucket seqs
+            LOG.debug("tablet of colocate table will be checked with its group. tablet id: {}", tabletId);
+            return true;
+        }
 
         Database db = catalog.getDb(dbId);
         if (db == null) {
@@ -214,20 +221,23 @@ public class CloneChecker extends Daemon {
         // yiguolei: check whether the replica's version is less than last failed version
         checkFailedReplicas();
 
-        // 1. check tablet for supplement, migration and deletion
+        // 1. check tablets of colocate tables, which are placed on the backends of their bucket seqs
+        checkColocateGroups();
+
+        // 2. check tablet for supplement, migration and deletion
         checkTablets();
         
-        // 2. check timeout
+        // 3. check timeout
         clone.checkTimeout();
 
-        // 3. run pending job
+        // 4. run pending job
         List<CloneJob> jobs = clone.getCloneJobs(JobState.PENDING);
         for (CloneJob job : jobs) {
             // select src backends and submit clone task to backend
             runCloneJob(job);
         }
 
-        // 4. remove cancelled and finished jobs
+        // 5. remove cancelled and finished jobs
         clone.removeCloneJobs();
     }
     
@@ -423,6 +433,12 @@ public class CloneChecker extends Daemon {
                     if (table == null || table.getType() != TableType.OLAP) {
                         continue;
                     }
+                    if (Catalog.getCurrentColocateIndex().isColocateTable(table.getId())) {
+                        // checked in checkColocateGroups(). replicas of colocate tables are not migrated to
+                        // balance backends, which would break the placement of bucket seqs. the storage medium
+                        // migration after cooldown is done by ReportHandler for all tables, not here.
+                        continue;
+                    }
 
                     OlapTable olapTable = (OlapTable) table;
                     tableId = table.getId();
@@ -600,6 +616,232 @@ public class CloneChecker extends Daemon {
         } // end for dbs
     }
 
+    /*
+     * The backends of bucket seqs of a colocation group are replaced if they are decommissioned or dead for
+     * colocate_backend_dead_timeout_second, and the group is unstable until the replicas of all the tablets of
+     * tables in the group are cloned to the backends of their bucket seqs. Then the redundant replicas on the
+     * other backends are deleted, and the group is stable again.
+     */
+    private void checkColocateGroups() {
+        Catalog catalog = Catalog.getInstance();
+        ColocateTableIndex colocateIndex = Catalog.getCurrentColocateIndex();
+        Set<Long> cloneTabletIds = catalog.getCloneInstance().getCloneTabletIds();
+        for (String group : colocateIndex.getAllGroups()) {
+            Database db = catalog.getDb(colocateIndex.getDbIdOfGroup(group));
+            List<List<Long>> backendsPerBucketSeq = colocateIndex.getBackendsPerBucketSeq(group);
+            if (db == null || backendsPerBucketSeq == null) {
+                continue;
+            }
+
+            if (replaceUnavailableBackends(db.getClusterName(), backendsPerBucketSeq)) {
+                ColocatePersistInfo info = new ColocatePersistInfo(group, backendsPerBucketSeq, false);
+                colocateIndex.updateGroup(info);
+                catalog.getEditLog().logColocateUpdateGroup(info);
+                LOG.info("backends of colocate group {} are changed to {}", group, backendsPerBucketSeq);
+            }
+
+            boolean isStable = checkColocateTablets(db, group, backendsPerBucketSeq, cloneTabletIds);
+            if (isStable == colocateIndex.isGroupUnstable(group)) {
+                ColocatePersistInfo info = new ColocatePersistInfo(group, backendsPerBucketSeq, isStable);
+                colocateIndex.updateGroup(info);
+                catalog.getEditLog().logColocateUpdateGroup(info);
+                LOG.info("colocate group {} is {}", group, isStable ? "stable" : "unstable");
+            }
+        }
+    }
+
+    // Return true if some of the backends are replaced.
+    private boolean replaceUnavailableBackends(String clusterName, List<List<Long>> backendsPerBucketSeq) {
+        SystemInfoService clusterInfoService = Catalog.getCurrentSystemInfo();
+        // backend id -> num of bucket seqs on the backend
+        Map<Long, Integer> backendToBucketNum = Maps.newHashMap();
+        for (long backendId : clusterInfoService.getClusterBackendIds(clusterName, true)) {
+            backendToBucketNum.put(backendId, 0);
+        }
+        for (List<Long> backendIds : backendsPerBucketSeq) {
+            for (long backendId : backendIds) {
+                if (backendToBucketNum.containsKey(backendId)) {
+                    backendToBucketNum.put(backendId, backendToBucketNum.get(backendId) + 1);
+                }
+            }
+        }
+
+        boolean isChanged = false;
+        long currentTimeMs = System.currentTimeMillis();
+        for (List<Long> backendIds : backendsPerBucketSeq) {
+            for (int i = 0; i < backendIds.size(); i++) {
+                Backend backend = clusterInfoService.getBackend(backendIds.get(i));
+                if (backend != null && !backend.isDecommissioned() && (backend.isAlive()
+                        || currentTimeMs - backend.getLastUpdateMs()
+                        < Config.colocate_backend_dead_timeout_second * 1000L)) {
+                    continue;
+                }
+
+                // replace it with an available backend on another host, which has the least bucket seqs
+                Set<String> hosts = Sets.newHashSet();
+                for (long backendId : backendIds) {
+                    Backend other = clusterInfoService.getBackend(backendId);
+                    if (other != null) {
+                        hosts.add(other.getHost());
+                    }
+                }
+                long destBackendId = -1L;
+                int minBucketNum = Integer.MAX_VALUE;
+                for (Map.Entry<Long, Integer> entry : backendToBucketNum.entrySet()) {
+                    Backend candidate = clusterInfoService.getBackend(entry.getKey());
+                    if (candidate == null || !candidate.isAvailable() || hosts.contains(candidate.getHost())) {
+                        continue;
+                    }
+                    if (entry.getValue() < minBucketNum) {
+                        destBackendId = entry.getKey();
+                        minBucketNum = entry.getValue();
+                    }
+                }
+                if (destBackendId == -1L) {
+                    LOG.warn("no available backend to replace backend {} of colocate tables", backendIds.get(i));
+                    continue;
+                }
+
+                backendIds.set(i, destBackendId);
+                backendToBucketNum.put(destBackendId, minBucketNum + 1);
+                isChanged = true;
+            }
+        }
+        return isChanged;
+    }
+
+    private static boolean isHealthyReplica(Replica replica, Partition partition) {
+        Backend backend = Catalog.getCurrentSystemInfo().getBackend(replica.getBackendId());
+        return backend != null && backend.isAlive()
+                && replica.getState() != ReplicaState.CLONE
+                && replica.getLastFailedVersion() < 0
+                && (replica.getVersion() == partition.getCommittedVersion()
+                    && replica.getVersionHash() == partition.getCommittedVersionHash()
+                    || replica.getVersion() > partition.getCommittedVersion());
+    }
+
+    /*
+     * Add clone jobs for the tablets of tables in the group which have no replicas on some backends of their
+     * bucket seqs. If all of them are healthy on the backends, delete the replicas on the other backends.
+     * Return true if all the replicas are on the backends of their bucket seqs.
+     */
+    private boolean checkColocateTablets(Database db, String group, List<List<Long>> backendsPerBucketSeq,
+                                         Set<Long> cloneTabletIds) {
+        // tablet -> dest backend of clone job
+        Map<TabletInfo, Long> cloneTablets = Maps.newLinkedHashMap();
+        List<ReplicaPersistInfo> redundantReplicas = Lists.newArrayList();
+        boolean isStable = true;
+        db.readLock();
+        try {
+            for (long tableId : Catalog.getCurrentColocateIndex().getTableIdsInGroup(group)) {
+                Table table = db.getTable(tableId);
+                if (table == null || table.getType() != TableType.OLAP) {
+                    continue;
+                }
+                OlapTable olapTable = (OlapTable) table;
+                for (Partition partition : olapTable.getPartitions()) {
+                    short replicationNum = olapTable.getPartitionInfo().getReplicationNum(partition.getId());
+                    for (MaterializedIndex index : partition.getMaterializedIndices()) {
+                        if (index.getState() != IndexState.NORMAL) {
+                            continue;
+                        }
+                        List<Tablet> tablets = index.getTablets();
+                        if (tablets.size() != backendsPerBucketSeq.size()) {
+                            LOG.warn("tablet num of index {} is not the bucket num of colocate group {}",
+                                    index.getId(), group);
+                            continue;
+                        }
+                        for (int bucketSeq = 0; bucketSeq < tablets.size(); bucketSeq++) {
+                            Tablet tablet = tablets.get(bucketSeq);
+                            List<Long> backendIds = backendsPerBucketSeq.get(bucketSeq);
+                            long destBackendId = -1L;
+                            short onlineReplicaNum = 0;
+                            for (long backendId : backendIds) {
+                                Replica replica = tablet.getReplicaByBackendId(backendId);
+                                if (replica == null) {
+                                    destBackendId = destBackendId == -1L ? backendId : destBackendId;
+                                } else if (isHealthyReplica(replica, partition)) {
+                                    onlineReplicaNum++;
+                                    continue;
+                                }
+                                isStable = false;
+                            }
+
+                            if (destBackendId != -1L && !cloneTabletIds.contains(tablet.getId())) {
+                                TabletInfo tabletInfo = new TabletInfo(db.getId(), tableId, partition.getId(),
+                                        index.getId(), tablet.getId(), replicationNum, onlineReplicaNum, 0L,
+                                        Sets.newHashSet(backendIds));
+                                cloneTablets.put(tabletInfo, destBackendId);
+                            }
+
+                            for (Replica replica : tablet.getReplicas()) {
+                                if (!backendIds.contains(replica.getBackendId())) {
+                                    redundantReplicas.add(ReplicaPersistInfo.createForDelete(db.getId(), tableId,
+                                            partition.getId(), index.getId(), tablet.getId(),
+                                            replica.getBackendId()));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            db.readUnlock();
+        }
+
+        Clone clone = Catalog.getInstance().getCloneInstance();
+        for (Map.Entry<TabletInfo, Long> entry : cloneTablets.entrySet()) {
+            TabletInfo tabletInfo = entry.getKey();
+            JobPriority priority = Clone.calculatePriority(tabletInfo.getOnlineReplicaNum(),
+                    tabletInfo.getReplicationNum());
+            clone.addCloneJob(tabletInfo.getDbId(), tabletInfo.getTableId(), tabletInfo.getPartitionId(),
+                    tabletInfo.getIndexId(), tabletInfo.getTabletId(), entry.getValue(), JobType.SUPPLEMENT,
+                    priority, Config.clone_job_timeout_second * 1000L);
+        }
+
+        if (isStable && !redundantReplicas.isEmpty()) {
+            deleteColocateRedundantReplicas(db, redundantReplicas);
+        }
+        return isStable;
+    }
+
+    private void deleteColocateRedundantReplicas(Database db, List<ReplicaPersistInfo> redundantReplicas) {
+        db.writeLock();
+        try {
+            for (ReplicaPersistInfo info : redundantReplicas) {
+                OlapTable olapTable = (OlapTable) db.getTable(info.getTableId());
+                if (olapTable == null) {
+                    continue;
+                }
+                Partition partition = olapTable.getPartition(info.getPartitionId());
+                if (partition == null) {
+                    continue;
+                }
+                MaterializedIndex index = partition.getIndex(info.getIndexId());
+                if (index == null) {
+                    continue;
+                }
+                Tablet tablet = index.getTablet(info.getTabletId());
+                if (tablet == null) {
+                    continue;
+                }
+                Replica replica = tablet.getReplicaByBackendId(info.getBackendId());
+                if (replica == null || !tablet.deleteReplica(replica)) {
+                    continue;
+                }
+
+                Catalog.getInstance().handleJobsWhenDeleteReplica(info.getTableId(), info.getPartitionId(),
+                        info.getIndexId(), info.getTabletId(), replica.getId(), info.getBackendId());
+                Catalog.getCurrentInvertedIndex().deleteReplica(info.getTabletId(), info.getBackendId());
+                Catalog.getInstance().getEditLog().logDeleteReplica(info);
+                LOG.info("delete replica [out of colocate group], backendId: {}, tablet: {}",
+                        info.getBackendId(), info.getTabletId());
+            }
+        } finally {
+            db.writeUnlock();
+        }
+    }
+
     private Map<Long, BackendInfo> initBackendInfos(String clusterName) {
         Map<Long, BackendInfo> backendInfos = Maps.newHashMap();
         SystemInfoService clusterInfoService = Catalog.getCurrentSystemInfo();
@@ -116,6 +116,17 @@ public class Config extends ConfigBase {
      * if meta data delay gap exceeds *meta_delay_toleration_second*
      */
     @ConfField public static int meta_delay_toleration_second = 300;    // 5 min
+    /*
+     * Non-master FE replays journals once it finds new ones. When there is no new journal, the replayer
+     * checks again after an idle interval, which doubles each time up to *meta_replay_max_idle_wait_ms*.
+     * A forwarded statement waiting for the replay wakes up the replayer immediately.
+     */
+    @ConfField public static int meta_replay_max_idle_wait_ms = 100;
+    /*
+     * Max number of journals deserialized ahead of applying them when replaying.
+     * Set to 0 to deserialize journals in the replay thread.
+     */
+    @ConfField public static int meta_replay_prefetch_num = 1000;
     /*
      * Master FE sync policy of bdbje.
      * more info, see: http://docs.oracle.com/cd/E17277_02/html/java/com/sleepycat/je/Durability.SyncPolicy.html
@@ -131,6 +142,61 @@ public class Config extends ConfigBase {
      */
     @ConfField public static String replica_ack_policy = "SIMPLE_MAJORITY"; // ALL, NONE, SIMPLE_MAJORITY
 
+    /*
+     * If true, Master FE will write edit logs in group commit mode.
+     * Concurrent journal writes are queued and persisted by a single writer thread,
+     * which commits a batch of journals in one bdbje transaction.
+     * Only works if *edit_log_type* is BDB.
+     */
+    @ConfField public static boolean edit_log_group_commit = false;
+    /*
+     * Max number of journals committed in one bdbje transaction in group commit mode.
+     */
+    @ConfField public static int edit_log_group_commit_max_batch_size = 128;
+
+    /*
+     * If true, image will be saved in sectioned format.
+     * Each module of meta data (and each database) is saved as an independently checksummed section,
+     * and sections are loaded in parallel when FE starts.
+     * Both legacy and sectioned images can always be loaded.
+     * DO NOT set it to true before all FEs in the cluster are upgraded to a version which can load it.
+     */
+    @ConfField public static boolean enable_sectioned_image = false;
+    /*
+     * Buffer size of reading and writing image file.
+     */
+    @ConfField public static int image_io_buffer_size_bytes = 4 * 1024 * 1024; // 4MB
+    /*
+     * Number of threads to load databases of sectioned image.
+     * Image loaded by checkpoint thread is always loaded in single thread.
+     */
+    @ConfField public static int image_load_thread_num = 8;
+    /*
+     * If true, checkpoint will only load and save the databases modified by journals since last image,
+     * and copy the sections of other databases from last image byte-for-byte.
+     * This reduces both memory and time of checkpoint when only a few databases are changed.
+     * Only works when last image is a sectioned image (see *enable_sectioned_image*).
+     * Checkpoint falls back to full mode if there are journals (eg. DDL) which can not be replayed incrementally.
+     */
+    @ConfField public static boolean enable_incremental_checkpoint = false;
+    /*
+     * Compression of image file. "none" or "snappy".
+     * Compressed image takes less disk space, and is pushed to other FEs faster after checkpoint.
+     * A sectioned image (see *enable_sectioned_image*) is compressed section by section.
+     * Both compressed and uncompressed images can always be loaded.
+     * DO NOT set it to "snappy" before all FEs in the cluster are upgraded to a version which can load it.
+     */
+    @ConfField public static String image_compression = "none";
+    /*
+     * Image file is downloaded from other FE in chunks of this size. Each chunk is verified by its checksum,
+     * and a failed download resumes from the last verified chunk.
+     */
+    @ConfField public static long image_download_chunk_size_bytes = 64 * 1024 * 1024; // 64MB
+    /*
+     * Max retry times of downloading a chunk of image file, before the download fails.
+     */
+    @ConfField public static int image_download_max_retry_times = 3;
+
     /*
      * Specified an IP for frontend, instead of the ip get by *InetAddress.getByName*.
      * This can be used when *InetAddress.getByName* get an unexpected IP address.
@@ -376,6 +442,12 @@ public class Config extends ConfigBase {
      * Balance threshold of num of replicas in Backends.
      */
     @ConfField public static double clone_distribution_balance_threshold = 0.2;
+    /*
+     * A backend of the bucket seqs of a colocation group is replaced by another backend if it is decommissioned,
+     * or is dead for longer than this time. Replicas of colocate tables are then cloned to the new backend,
+     * and colocate joins of the group are not planned until the clone is finished.
+     */
+    @ConfField public static int colocate_backend_dead_timeout_second = 1800; // 30 min
     /*
      * The high water of disk capacity used percent.
      * This is used for calculating load score of a backend.
@@ -470,6 +542,46 @@ public class Config extends ConfigBase {
      * Maximal number of connections per user, per FE.
      */
     @ConfField public static int max_conn_per_user = 100;
+    /*
+     * If true, connections are served by a selector and a bounded worker pool instead of a thread per connection.
+     * An idle connection costs no thread, and commands are processed by at most max_mysql_service_task_threads_num
+     * threads, the others wait in queue.
+     */
+    @ConfField public static boolean mysql_service_nio_enabled = false;
+    /*
+     * Maximal number of threads to authenticate connections and process commands, if mysql_service_nio_enabled.
+     */
+    @ConfField public static int max_mysql_service_task_threads_num = 4096;
+    /*
+     * Maximal number of direct send buffers of mysql connections, which are reused by all connections.
+     * Each buffer is 256KB direct memory, and a connection holds at most 8 of them while sending a result.
+     * Connections use heap buffers when all direct buffers are in use.
+     */
+    @ConfField public static int mysql_send_buffer_pool_size = 128;
+    /*
+     * If true, the next batch of the query result is fetched from backend while the previous one is sent to client.
+     */
+    @ConfField public static boolean enable_result_prefetch = true;
+
+    /*
+     * Interval to collect the column statistics of the analyzed partitions which have new versions,
+     * and of the new partitions of the analyzed tables. 0 to disable it.
+     */
+    @ConfField public static int column_stats_refresh_interval_second = 600;
+    /*
+     * Number of tablets of a partition sampled by ANALYZE TABLE. All tablets are scanned if it is 0.
+     */
+    @ConfField public static int column_stats_sample_tablet_num = 16;
+    /*
+     * Maximal number of prepared statements per connection.
+     * Each prepared statement keeps its parsed statement in memory until it is closed.
+     */
+    @ConfField public static int max_prepared_stmt_per_conn = 1024;
+    /*
+     * Maximal number of analyzed statements and plans cached by a prepared statement, one for each of
+     * the most recently bound parameters. 0 to disable the cache.
+     */
+    @ConfField public static int max_cached_plans_per_prepared_stmt = 4;
     /*
      * Default query timeout.
      */
@@ -616,6 +728,12 @@ public class Config extends ConfigBase {
      * condition，try to set this timeout longer.
      */
     @ConfField public static long remote_fragment_exec_timeout_ms = 5000;   // 5 sec
+
+    /*
+     * If true, the fragments of a query at the same depth of the fragment tree are sent to backends concurrently,
+     * so the start of a query waits for one exec rpc round trip per level of the tree, instead of per fragment.
+     */
+    @ConfField public static boolean enable_concurrent_fragment_dispatch = true;
     
     /*
      * The number of query retries. 
@@ -629,6 +747,13 @@ public class Config extends ConfigBase {
      * Normally it does not need to change, unless you need to test something.
      */
     @ConfField public static long catalog_try_lock_timeout_ms = 5000; // 5 sec
+
+    /*
+     * The stack of a lock holder (of database, catalog and transaction manager) is captured
+     * for 1 out of every 'lock_trace_sample_rate' lock acquisitions, and shown in proc '/locks/holders'.
+     * Capturing stacks is costly, so it is disabled by default. Set to 0 to disable, or 1 to capture all.
+     */
+    @ConfField public static int lock_trace_sample_rate = 0;
     
     /*
      * if this is set to true
@@ -648,5 +773,47 @@ public class Config extends ConfigBase {
      * fe will call es api to get es index shard info every es_state_sync_interval_secs
      */
     @ConfField public static long es_state_sync_interval_secs = 10;
-}
 
+    /*
+     * Cache the results of queries in frontend. A result is cached with the versions of the partitions
+     * it scans, so it is only reused until a newer version of any of these partitions is visible.
+     */
+    @ConfField public static boolean enable_result_cache = false;
+
+    /*
+     * Max total bytes of the results in result cache. The least recently used ones are evicted when exceeded.
+     */
+    @ConfField public static long result_cache_max_size_bytes = 256 * 1024 * 1024L; // 256MB
+
+    /*
+     * Results larger than this are not cached.
+     */
+    @ConfField public static long result_cache_max_entry_size_bytes = 1024 * 1024L; // 1MB
+
+    /*
+     * Cache the results of aggregations grouped by the partition column of a range partitioned table
+     * partition by partition, so only the partitions changed since last execution are scanned.
+     * The results share the memory limit of result cache.
+     */
+    @ConfField public static boolean enable_partition_result_cache = false;
+
+    /*
+     * Analyze and plan queries of olap tables with snapshots of the tables, instead of holding the read locks
+     * of the tables all the time, so loads and other changes of the tables are not blocked by complex queries.
+     * The snapshot of a table is a copy of its meta, made by the first query after the table is changed,
+     * and shared by the following queries until the next change. Only the changed partitions are copied again.
+     */
+    @ConfField public static boolean enable_query_analysis_on_snapshot = false;
+
+    /*
+     * If true, joins of the tables in the same colocation group on their distribution columns are not planned
+     * as local joins, but as broadcast or shuffle joins.
+     */
+    @ConfField public static boolean disable_colocate_join = false;
+
+    /*
+     * If true, the right side of a join is shuffled to the backends of the buckets of the olap table on the left
+     * side by the distribution columns of the table, if the join is on them, so the left side is not moved.
+     */
+    @ConfField public static boolean enable_bucket_shuffle_join = true;
+}
@@ -97,4 +97,19 @@ public final class FeMetaVersion {
 
     // streaming load
     public static final int VERSION_45 = 45;
+
+    // replica selection policy in session variable
+    public static final int VERSION_46 = 46;
+
+    // column statistics of partitions
+    public static final int VERSION_47 = 47;
+
+    // cost based join reorder in session variable
+    public static final int VERSION_48 = 48;
+
+    // colocation group of olap table
+    public static final int VERSION_49 = 49;
+
+    // runtime filters in session variable
+    public static final int VERSION_50 = 50;
 }
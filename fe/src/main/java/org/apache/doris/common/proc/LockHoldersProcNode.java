@@ -0,0 +1,109 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.proc;
+
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.util.ListComparator;
+import org.apache.doris.common.util.MonitoredReadWriteLock;
+import org.apache.doris.common.util.MonitoredReadWriteLock.LockHolder;
+import org.apache.doris.common.util.OrderByPair;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * SHOW PROC '/locks/holders'
+ * show the current holders and waiters of all monitored locks, the longest ones first.
+ * The stack is only available if it is sampled, see Config.lock_trace_sample_rate.
+ */
+public class LockHoldersProcNode implements ProcNodeInterface {
+    public static final ImmutableList<String> TITLE_NAMES = new ImmutableList.Builder<String>()
+            .add("LockName").add("Mode").add("State").add("ThreadId").add("ThreadName")
+            .add("ElapsedMs").add("Stack")
+            .build();
+
+    // max number of stack frames shown
+    private static final int MAX_STACK_DEPTH = 20;
+
+    private Catalog catalog;
+
+    public LockHoldersProcNode(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public ProcResult fetchResult() throws AnalysisException {
+        List<List<Comparable>> infos = Lists.newArrayList();
+        for (Map.Entry<String, MonitoredReadWriteLock> entry : LocksProcDir.collectLocks(catalog).entrySet()) {
+            for (LockHolder holder : entry.getValue().getHolders()) {
+                List<Comparable> info = Lists.newArrayList();
+                info.add(entry.getKey());
+                info.add(holder.mode);
+                info.add(holder.state);
+                info.add(holder.thread.getId());
+                info.add(holder.thread.getName());
+                info.add(holder.elapsedMs);
+                info.add(formatStack(holder.stack));
+                infos.add(info);
+            }
+        }
+
+        // order by elapsed time desc
+        ListComparator<List<Comparable>> comparator = new ListComparator<List<Comparable>>(new OrderByPair(5, true));
+        Collections.sort(infos, comparator);
+
+        BaseProcResult result = new BaseProcResult();
+        result.setNames(TITLE_NAMES);
+        for (List<Comparable> info : infos) {
+            List<String> row = Lists.newArrayList();
+            for (Comparable item : info) {
+                row.add(item.toString());
+            }
+            result.addRow(row);
+        }
+        return result;
+    }
+
+    private String formatStack(Throwable stack) {
+        if (stack == null) {
+            return "N/A";
+        }
+        StringBuilder sb = new StringBuilder();
+        int depth = 0;
+        for (StackTraceElement element : stack.getStackTrace()) {
+            // skip the frames inside the lock itself
+            if (element.getClassName().equals(MonitoredReadWriteLock.class.getName())) {
+                continue;
+            }
+            if (depth >= MAX_STACK_DEPTH) {
+                break;
+            }
+            if (depth > 0) {
+                sb.append("\n");
+            }
+            sb.append(element.toString());
+            depth++;
+        }
+        return sb.toString();
+    }
+}
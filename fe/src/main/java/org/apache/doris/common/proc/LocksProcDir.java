@@ -0,0 +1,114 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.proc;
+
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.Database;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.util.LatencyHistogram;
+import org.apache.doris.common.util.MonitoredReadWriteLock;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * SHOW PROC '/locks'
+ * show the wait time and hold time statistic of catalog, transaction manager and database locks.
+ *
+ * SHOW PROC '/locks/holders'
+ * show the current holders and waiters of these locks.
+ */
+public class LocksProcDir implements ProcDirInterface {
+    public static final ImmutableList<String> TITLE_NAMES = new ImmutableList.Builder<String>()
+            .add("Name").add("WriteOwner").add("ReadLockCount").add("QueueLength")
+            .add("WaitCount").add("WaitAvgMs").add("WaitP99Ms").add("WaitMaxMs")
+            .add("HoldCount").add("HoldAvgMs").add("HoldP99Ms").add("HoldMaxMs")
+            .build();
+
+    public static final String HOLDERS = "holders";
+
+    private Catalog catalog;
+
+    public LocksProcDir(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    // lock name -> lock
+    public static Map<String, MonitoredReadWriteLock> collectLocks(Catalog catalog) {
+        Map<String, MonitoredReadWriteLock> locks = Maps.newLinkedHashMap();
+        locks.put("catalog", catalog.getLock());
+        locks.put("transaction", Catalog.getCurrentGlobalTransactionMgr().getLock());
+        for (long dbId : catalog.getDbIds()) {
+            Database db = catalog.getDb(dbId);
+            if (db != null) {
+                locks.put("db." + db.getFullName(), db.getLock());
+            }
+        }
+        return locks;
+    }
+
+    @Override
+    public ProcResult fetchResult() throws AnalysisException {
+        BaseProcResult result = new BaseProcResult();
+        result.setNames(TITLE_NAMES);
+
+        for (Map.Entry<String, MonitoredReadWriteLock> entry : collectLocks(catalog).entrySet()) {
+            MonitoredReadWriteLock lock = entry.getValue();
+            Thread owner = lock.getOwner();
+            List<String> row = Lists.newArrayList();
+            row.add(entry.getKey());
+            row.add(owner == null ? "N/A" : owner.getName());
+            row.add(String.valueOf(lock.getReadLockCount()));
+            row.add(String.valueOf(lock.getQueueLength()));
+            addHistogram(row, lock.getWaitHistogram());
+            addHistogram(row, lock.getHoldHistogram());
+            result.addRow(row);
+        }
+        return result;
+    }
+
+    private void addHistogram(List<String> row, LatencyHistogram histogram) {
+        row.add(String.valueOf(histogram.getCount()));
+        row.add(String.format("%.3f", histogram.getMeanMs()));
+        row.add(String.format("%.3f", histogram.getPercentileMs(0.99)));
+        row.add(String.format("%.3f", histogram.getMaxMs()));
+    }
+
+    @Override
+    public boolean register(String name, ProcNodeInterface node) {
+        return false;
+    }
+
+    @Override
+    public ProcNodeInterface lookup(String name) throws AnalysisException {
+        if (Strings.isNullOrEmpty(name)) {
+            throw new AnalysisException("name is null");
+        }
+
+        if (name.equalsIgnoreCase(HOLDERS)) {
+            return new LockHoldersProcNode(catalog);
+        } else {
+            throw new AnalysisException("unknown name: " + name);
+        }
+    }
+}
@@ -48,6 +48,7 @@ public final class ProcService {
         root.register("cluster_load_statistic", new ClusterLoadStatisticProcDir());
         root.register("current_queries", new CurrentQueryStatisticsProcDir());
         root.register("current_backend_instances", new CurrentQueryBackendInstanceProcDir());
+        root.register("locks", new LocksProcDir(Catalog.getInstance()));
     }
 
 
@@ -0,0 +1,97 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * A lock-free histogram of durations with power-of-two buckets in microseconds.
+ * Bucket 0 counts the durations less than 1 us, bucket i counts the durations in [2^(i-1), 2^i) us.
+ *
+ * update() does not allocate any object, so it can be called on hot paths such as lock acquisition.
+ * The percentile is estimated as the upper bound of the bucket which it falls into.
+ */
+public class LatencyHistogram {
+    private static final int BUCKET_NUM = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_NUM);
+    private final AtomicLong count = new AtomicLong(0);
+    private final AtomicLong sumNanos = new AtomicLong(0);
+    private final AtomicLong maxNanos = new AtomicLong(0);
+
+    public void update(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        long micros = nanos / 1000;
+        int idx = Math.min(BUCKET_NUM - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(idx);
+        count.incrementAndGet();
+        sumNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMeanMs() {
+        long n = count.get();
+        return n == 0 ? 0 : sumNanos.get() / 1000000.0 / n;
+    }
+
+    public double getMaxMs() {
+        return maxNanos.get() / 1000000.0;
+    }
+
+    // percentile is in (0, 1]
+    public double getPercentileMs(double percentile) {
+        long[] snapshot = new long[BUCKET_NUM];
+        long total = 0;
+        for (int i = 0; i < BUCKET_NUM; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long accumulated = 0;
+        for (int i = 0; i < BUCKET_NUM; i++) {
+            accumulated += snapshot[i];
+            if (accumulated >= rank) {
+                // upper bound of bucket i, and never larger than the max value
+                return Math.min((1L << i) / 1000.0, getMaxMs());
+            }
+        }
+        return getMaxMs();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_NUM; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sumNanos.set(0);
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,201 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/*
+ * A hash map with primitive long keys and primitive long values,
+ * using open addressing with linear probing. See LongObjectHashMap.
+ *
+ * Key 0 is used to mark the empty slot, so the mapping of key 0 (if any) is stored separately.
+ * get() and remove() return 'noEntryValue' if there is no mapping for the key.
+ * This class is NOT thread safe.
+ */
+public class LongLongHashMap {
+    private static final int MIN_CAPACITY = 4;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final long EMPTY_KEY = 0L;
+
+    private final long noEntryValue;
+
+    private long[] keys;
+    private long[] values;
+    private int size = 0;
+    private int mask;
+    private int resizeThreshold;
+
+    private boolean hasZeroKey = false;
+    private long zeroKeyValue;
+
+    public LongLongHashMap(long noEntryValue) {
+        this(MIN_CAPACITY, noEntryValue);
+    }
+
+    public LongLongHashMap(int expectedSize, long noEntryValue) {
+        long capacity = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        Preconditions.checkArgument(capacity <= (1 << 30), "too large size: " + expectedSize);
+        allocate(Integer.highestOneBit((int) capacity - 1) << 1);
+        this.noEntryValue = noEntryValue;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // return the slot of key, or -1 if not found. key should not be EMPTY_KEY
+    private int indexOf(long key) {
+        int i = LongObjectHashMap.hash(key) & mask;
+        while (keys[i] != EMPTY_KEY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public long getNoEntryValue() {
+        return noEntryValue;
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY_KEY) {
+            return hasZeroKey;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    public long get(long key) {
+        if (key == EMPTY_KEY) {
+            return hasZeroKey ? zeroKeyValue : noEntryValue;
+        }
+        int i = indexOf(key);
+        return i < 0 ? noEntryValue : values[i];
+    }
+
+    // return the previous value, or noEntryValue if there was no mapping for the key
+    public long put(long key, long value) {
+        if (key == EMPTY_KEY) {
+            long old = hasZeroKey ? zeroKeyValue : noEntryValue;
+            hasZeroKey = true;
+            zeroKeyValue = value;
+            return old;
+        }
+        int i = LongObjectHashMap.hash(key) & mask;
+        while (keys[i] != EMPTY_KEY) {
+            if (keys[i] == key) {
+                long old = values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return noEntryValue;
+    }
+
+    // return the removed value, or noEntryValue if there was no mapping for the key
+    public long remove(long key) {
+        if (key == EMPTY_KEY) {
+            long old = hasZeroKey ? zeroKeyValue : noEntryValue;
+            hasZeroKey = false;
+            return old;
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            return noEntryValue;
+        }
+        long old = values[i];
+        keys[i] = EMPTY_KEY;
+        size--;
+        shiftBackward(i);
+        return old;
+    }
+
+    private void shiftBackward(int hole) {
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == EMPTY_KEY) {
+                return;
+            }
+            int home = LongObjectHashMap.hash(keys[j]) & mask;
+            boolean inRange = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!inRange) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                keys[j] = EMPTY_KEY;
+                hole = j;
+            }
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int j = LongObjectHashMap.hash(oldKeys[i]) & mask;
+                while (keys[j] != EMPTY_KEY) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    public long[] keys() {
+        long[] result = new long[size()];
+        int n = 0;
+        if (hasZeroKey) {
+            result[n++] = EMPTY_KEY;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY_KEY) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+}
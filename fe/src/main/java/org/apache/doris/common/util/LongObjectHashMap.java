@@ -0,0 +1,248 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+ * A hash map with primitive long keys, using open addressing with linear probing.
+ *
+ * Keys and values are stored in two flat arrays, so no Entry object and no boxed Long
+ * is created for each mapping. This saves a lot of memory compared with HashMap<Long, V>
+ * when there are millions of entries.
+ *
+ * Null value is not allowed, a null slot in values array means the slot is empty.
+ * This class is NOT thread safe.
+ */
+public class LongObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 4;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private Object[] values;
+    private int size = 0;
+    private int mask;
+    private int resizeThreshold;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        Preconditions.checkArgument(capacity <= (1 << 30), "too large size: " + expectedSize);
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // return the slot of key, or -1 if not found
+    private int indexOf(long key) {
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    // return the previous value, or null if there was no mapping for the key
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Preconditions.checkNotNull(value);
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    // return the removed value, or null if there was no mapping for the key
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) values[i];
+        values[i] = null;
+        size--;
+        shiftBackward(i);
+        return old;
+    }
+
+    /*
+     * After the slot 'hole' is emptied, move the following entries of the same probe sequence
+     * backward, so that no tombstone is needed.
+     */
+    private void shiftBackward(int hole) {
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null) {
+                return;
+            }
+            int home = hash(keys[j]) & mask;
+            // the entry in slot j can be moved to the hole if its home slot is not in (hole, j] cyclically
+            boolean inRange = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!inRange) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                values[j] = null;
+                hole = j;
+            }
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int j = hash(oldKeys[i]) & mask;
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                result.add((V) values[i]);
+            }
+        }
+        return result;
+    }
+
+    public EntryIterator iterator() {
+        return new EntryIterator();
+    }
+
+    /*
+     * Iterate the entries without creating any Entry object. Usage:
+     *
+     *  LongObjectHashMap<V>.EntryIterator iter = map.iterator();
+     *  while (iter.next()) {
+     *      long key = iter.key();
+     *      V value = iter.value();
+     *  }
+     *
+     * The map should not be modified during iteration.
+     */
+    public class EntryIterator {
+        private int index = -1;
+
+        public boolean next() {
+            while (++index < values.length) {
+                if (values[index] != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public long key() {
+            checkIndex();
+            return keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V value() {
+            checkIndex();
+            return (V) values[index];
+        }
+
+        private void checkIndex() {
+            if (index < 0 || index >= values.length) {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import org.apache.doris.common.Config;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * A fair ReentrantReadWriteLock with instrumentation, used by Database, Catalog and GlobalTransactionMgr.
+ *
+ * 1. The wait time and the hold time of every acquisition are recorded in histograms.
+ * 2. The current holders and the waiting threads are recorded in fixed-size slot arrays,
+ *    so that they can be listed by proc '/locks'.
+ * 3. The stack of a holder is captured for 1 out of 'Config.lock_trace_sample_rate' acquisitions.
+ *
+ * Except for the sampled stacks, no object is allocated when locking and unlocking.
+ * Only the first (not reentrant) acquisition of a thread is recorded. If all the slots are occupied,
+ * the holder or the waiter is not recorded, and the hold time of such a reader is not counted.
+ */
+public class MonitoredReadWriteLock {
+    private static final int SLOT_NUM = 16;
+
+    public static final String MODE_READ = "READ";
+    public static final String MODE_WRITE = "WRITE";
+    public static final String STATE_HOLD = "HOLD";
+    public static final String STATE_WAIT = "WAIT";
+
+    // expose the protected getOwner()
+    private static class InnerLock extends ReentrantReadWriteLock {
+        private static final long serialVersionUID = 1L;
+
+        public InnerLock() {
+            super(true);
+        }
+
+        @Override
+        public Thread getOwner() {
+            return super.getOwner();
+        }
+    }
+
+    public static class LockHolder {
+        public final String mode;
+        public final String state;
+        public final Thread thread;
+        // the time of holding or waiting for the lock
+        public final long elapsedMs;
+        // may be null if stack is not sampled
+        public final Throwable stack;
+
+        public LockHolder(String mode, String state, Thread thread, long elapsedMs, Throwable stack) {
+            this.mode = mode;
+            this.state = state;
+            this.thread = thread;
+            this.elapsedMs = elapsedMs;
+            this.stack = stack;
+        }
+    }
+
+    private final InnerLock lock = new InnerLock();
+
+    private final LatencyHistogram waitHistogram = new LatencyHistogram();
+    private final LatencyHistogram holdHistogram = new LatencyHistogram();
+
+    // read lock holders
+    private final AtomicReferenceArray<Thread> readers = new AtomicReferenceArray<Thread>(SLOT_NUM);
+    private final AtomicLongArray readerStartNanos = new AtomicLongArray(SLOT_NUM);
+    private final AtomicReferenceArray<Throwable> readerStacks = new AtomicReferenceArray<Throwable>(SLOT_NUM);
+
+    // write lock holder. only modified by the owner of write lock
+    private volatile long writerStartNanos = 0;
+    private volatile Throwable writerStack = null;
+
+    // threads waiting for the lock
+    private final AtomicReferenceArray<Thread> waiters = new AtomicReferenceArray<Thread>(SLOT_NUM);
+    private final AtomicLongArray waiterStartNanos = new AtomicLongArray(SLOT_NUM);
+    private final AtomicReferenceArray<String> waiterModes = new AtomicReferenceArray<String>(SLOT_NUM);
+
+    public MonitoredReadWriteLock() {
+    }
+
+    private static int claimSlot(AtomicReferenceArray<Thread> slots, Thread thread) {
+        int start = (int) (thread.getId() % SLOT_NUM);
+        for (int i = 0; i < SLOT_NUM; i++) {
+            int idx = (start + i) % SLOT_NUM;
+            if (slots.get(idx) == null && slots.compareAndSet(idx, null, thread)) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    private static int findSlot(AtomicReferenceArray<Thread> slots, Thread thread) {
+        int start = (int) (thread.getId() % SLOT_NUM);
+        for (int i = 0; i < SLOT_NUM; i++) {
+            int idx = (start + i) % SLOT_NUM;
+            if (slots.get(idx) == thread) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    private static Throwable sampleStack() {
+        int rate = Config.lock_trace_sample_rate;
+        if (rate <= 0) {
+            return null;
+        }
+        if (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0) {
+            return null;
+        }
+        return new Exception("lock holder trace");
+    }
+
+    // Only register as a waiter if the lock seems not available. It is not accurate, but good enough.
+    private int addWaiter(String mode, long startNanos) {
+        boolean mayWait;
+        if (mode == MODE_READ) {
+            mayWait = (lock.isWriteLocked() && !lock.isWriteLockedByCurrentThread()) || lock.hasQueuedThreads();
+        } else {
+            mayWait = !lock.isWriteLockedByCurrentThread()
+                    && (lock.isWriteLocked() || lock.getReadLockCount() > 0 || lock.hasQueuedThreads());
+        }
+        if (!mayWait) {
+            return -1;
+        }
+        Thread thread = Thread.currentThread();
+        int slot = claimSlot(waiters, thread);
+        if (slot >= 0) {
+            waiterStartNanos.set(slot, startNanos);
+            waiterModes.set(slot, mode);
+        }
+        return slot;
+    }
+
+    private void removeWaiter(int slot) {
+        if (slot >= 0) {
+            waiterModes.set(slot, null);
+            waiters.set(slot, null);
+        }
+    }
+
+    public void readLock() {
+        long start = System.nanoTime();
+        int waiterSlot = addWaiter(MODE_READ, start);
+        lock.readLock().lock();
+        onReadLocked(start, waiterSlot);
+    }
+
+    private void onReadLocked(long start, int waiterSlot) {
+        long now = System.nanoTime();
+        removeWaiter(waiterSlot);
+        waitHistogram.update(now - start);
+        if (lock.getReadHoldCount() == 1) {
+            int slot = claimSlot(readers, Thread.currentThread());
+            if (slot >= 0) {
+                readerStartNanos.set(slot, now);
+                readerStacks.set(slot, sampleStack());
+            }
+        }
+    }
+
+    public void readUnlock() {
+        if (lock.getReadHoldCount() == 1) {
+            int slot = findSlot(readers, Thread.currentThread());
+            if (slot >= 0) {
+                holdHistogram.update(System.nanoTime() - readerStartNanos.get(slot));
+                readerStacks.set(slot, null);
+                readers.set(slot, null);
+            }
+        }
+        lock.readLock().unlock();
+    }
+
+    public void writeLock() {
+        long start = System.nanoTime();
+        int waiterSlot = addWaiter(MODE_WRITE, start);
+        lock.writeLock().lock();
+        onWriteLocked(start, waiterSlot);
+    }
+
+    public boolean tryWriteLock(long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        int waiterSlot = addWaiter(MODE_WRITE, start);
+        boolean locked = false;
+        try {
+            locked = lock.writeLock().tryLock(timeout, unit);
+        } finally {
+            if (locked) {
+                onWriteLocked(start, waiterSlot);
+            } else {
+                removeWaiter(waiterSlot);
+            }
+        }
+        return locked;
+    }
+
+    private void onWriteLocked(long start, int waiterSlot) {
+        long now = System.nanoTime();
+        removeWaiter(waiterSlot);
+        waitHistogram.update(now - start);
+        if (lock.getWriteHoldCount() == 1) {
+            writerStartNanos = now;
+            writerStack = sampleStack();
+        }
+    }
+
+    public void writeUnlock() {
+        if (lock.getWriteHoldCount() == 1) {
+            holdHistogram.update(System.nanoTime() - writerStartNanos);
+            writerStack = null;
+        }
+        lock.writeLock().unlock();
+    }
+
+    public boolean isWriteLockHeldByCurrentThread() {
+        return lock.isWriteLockedByCurrentThread();
+    }
+
+    public Thread getOwner() {
+        return lock.getOwner();
+    }
+
+    public int getReadLockCount() {
+        return lock.getReadLockCount();
+    }
+
+    public int getQueueLength() {
+        return lock.getQueueLength();
+    }
+
+    public LatencyHistogram getWaitHistogram() {
+        return waitHistogram;
+    }
+
+    public LatencyHistogram getHoldHistogram() {
+        return holdHistogram;
+    }
+
+    /*
+     * Return the current holders and waiters of this lock.
+     * This is only a best-effort snapshot, because the lock is not blocked while collecting.
+     */
+    public List<LockHolder> getHolders() {
+        List<LockHolder> holders = Lists.newArrayList();
+        long now = System.nanoTime();
+        Thread owner = lock.getOwner();
+        if (owner != null) {
+            holders.add(new LockHolder(MODE_WRITE, STATE_HOLD, owner,
+                    TimeUnit.NANOSECONDS.toMillis(now - writerStartNanos), writerStack));
+        }
+        for (int i = 0; i < SLOT_NUM; i++) {
+            Thread reader = readers.get(i);
+            if (reader != null) {
+                holders.add(new LockHolder(MODE_READ, STATE_HOLD, reader,
+                        TimeUnit.NANOSECONDS.toMillis(now - readerStartNanos.get(i)), readerStacks.get(i)));
+            }
+        }
+        for (int i = 0; i < SLOT_NUM; i++) {
+            Thread waiter = waiters.get(i);
+            String mode = waiterModes.get(i);
+            if (waiter != null && mode != null) {
+                holders.add(new LockHolder(mode, STATE_WAIT, waiter,
+                        TimeUnit.NANOSECONDS.toMillis(now - waiterStartNanos.get(i)), null));
+            }
+        }
+        return holders;
+    }
+}
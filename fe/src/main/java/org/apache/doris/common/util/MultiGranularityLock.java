@@ -0,0 +1,250 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The lock of a parent object (eg. Database) in a hierarchical locking scheme.
+ * Besides the shared (S) and exclusive (X) mode, it supports two intention modes:
+ *
+ *  IS: intention shared. the holder is going to read some children with their own read locks.
+ *  IX: intention exclusive. the holder is going to modify some children with their own write locks.
+ *
+ * Compatibility matrix:
+ *
+ *          IS    IX    S     X
+ *      IS  yes   yes   yes   no
+ *      IX  yes   yes   no    no
+ *      S   yes   no    yes   no
+ *      X   no    no    no    no
+ *
+ * Implementation:
+ *  IS, IX and S take the read lock of a MonitoredReadWriteLock, and X takes its write lock.
+ *  S and IX additionally pass a gate which admits either S holders or IX holders, but not both.
+ *  The gate gives the turn to the other mode once it has waiters, so neither of them starves.
+ *
+ * Reentrancy:
+ *  A thread holding X, IX or IS may acquire S, which is then treated as IS, because it already owns
+ *  (the locks of the children of) the parent object, and waiting for the gate would deadlock.
+ *  A thread holding X may acquire IX, which is treated as IS.
+ *  A thread holding S, IX or IS must not acquire X, and a thread holding S must not acquire IX,
+ *  like upgrading a read lock to a write lock. An IllegalStateException is thrown for these cases.
+ */
+public class MultiGranularityLock {
+
+    private static class HoldCount {
+        int intentionRead = 0;
+        int intentionWrite = 0;
+        int read = 0;
+        // acquisitions of S and IX which are treated as IS, see comments of this class
+        int degradedRead = 0;
+        int degradedIntentionWrite = 0;
+
+        boolean holdAny() {
+            return intentionRead > 0 || intentionWrite > 0 || read > 0
+                    || degradedRead > 0 || degradedIntentionWrite > 0;
+        }
+    }
+
+    private final MonitoredReadWriteLock rwLock = new MonitoredReadWriteLock();
+
+    private final ThreadLocal<HoldCount> holdCounts = new ThreadLocal<HoldCount>() {
+        @Override
+        protected HoldCount initialValue() {
+            return new HoldCount();
+        }
+    };
+
+    // the gate between S and IX. all fields are guarded by 'gate'
+    private final Object gate = new Object();
+    private int readHolders = 0;
+    private int intentionWriteHolders = 0;
+    private int readWaiters = 0;
+    private int intentionWriteWaiters = 0;
+    private boolean preferRead = false;
+
+    public MultiGranularityLock() {
+    }
+
+    public MonitoredReadWriteLock getReadWriteLock() {
+        return rwLock;
+    }
+
+    // IS
+    public void intentionReadLock() {
+        rwLock.readLock();
+        holdCounts.get().intentionRead++;
+    }
+
+    public void intentionReadUnlock() {
+        HoldCount holdCount = holdCounts.get();
+        Preconditions.checkState(holdCount.intentionRead > 0, "intention read lock is not held");
+        holdCount.intentionRead--;
+        rwLock.readUnlock();
+    }
+
+    // IX
+    public void intentionWriteLock() {
+        HoldCount holdCount = holdCounts.get();
+        Preconditions.checkState(holdCount.read == 0, "can not acquire intention write lock with read lock held");
+        rwLock.readLock();
+        if (rwLock.isWriteLockHeldByCurrentThread()) {
+            holdCount.degradedIntentionWrite++;
+            return;
+        }
+        if (holdCount.intentionWrite == 0) {
+            enterGate(false);
+        }
+        holdCount.intentionWrite++;
+    }
+
+    public void intentionWriteUnlock() {
+        HoldCount holdCount = holdCounts.get();
+        if (holdCount.degradedIntentionWrite > 0) {
+            holdCount.degradedIntentionWrite--;
+        } else {
+            Preconditions.checkState(holdCount.intentionWrite > 0, "intention write lock is not held");
+            if (--holdCount.intentionWrite == 0) {
+                leaveGate(false);
+            }
+        }
+        rwLock.readUnlock();
+    }
+
+    // S
+    public void readLock() {
+        HoldCount holdCount = holdCounts.get();
+        rwLock.readLock();
+        if (rwLock.isWriteLockHeldByCurrentThread() || holdCount.intentionWrite > 0
+                || holdCount.degradedIntentionWrite > 0 || holdCount.intentionRead > 0) {
+            holdCount.degradedRead++;
+            return;
+        }
+        if (holdCount.read == 0) {
+            enterGate(true);
+        }
+        holdCount.read++;
+    }
+
+    public void readUnlock() {
+        HoldCount holdCount = holdCounts.get();
+        if (holdCount.degradedRead > 0) {
+            holdCount.degradedRead--;
+        } else {
+            Preconditions.checkState(holdCount.read > 0, "read lock is not held");
+            if (--holdCount.read == 0) {
+                leaveGate(true);
+            }
+        }
+        rwLock.readUnlock();
+    }
+
+    // X
+    public void writeLock() {
+        checkWriteLockable();
+        rwLock.writeLock();
+    }
+
+    public boolean tryWriteLock(long timeout, TimeUnit unit) throws InterruptedException {
+        checkWriteLockable();
+        return rwLock.tryWriteLock(timeout, unit);
+    }
+
+    private void checkWriteLockable() {
+        if (!rwLock.isWriteLockHeldByCurrentThread()) {
+            Preconditions.checkState(!holdCounts.get().holdAny(),
+                    "can not acquire write lock with read or intention lock held");
+        }
+    }
+
+    public void writeUnlock() {
+        rwLock.writeUnlock();
+    }
+
+    public boolean isWriteLockHeldByCurrentThread() {
+        return rwLock.isWriteLockHeldByCurrentThread();
+    }
+
+    // return true if current thread holds IX, or X which covers IX
+    public boolean isIntentionWriteLockHeldByCurrentThread() {
+        HoldCount holdCount = holdCounts.get();
+        return rwLock.isWriteLockHeldByCurrentThread() || holdCount.intentionWrite > 0
+                || holdCount.degradedIntentionWrite > 0;
+    }
+
+    private void enterGate(boolean read) {
+        boolean interrupted = false;
+        synchronized (gate) {
+            if (read) {
+                if (intentionWriteHolders > 0) {
+                    preferRead = true;
+                }
+                readWaiters++;
+                while (intentionWriteHolders > 0 || (intentionWriteWaiters > 0 && !preferRead)) {
+                    try {
+                        gate.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                readWaiters--;
+                readHolders++;
+                if (intentionWriteWaiters > 0) {
+                    preferRead = false;
+                }
+            } else {
+                if (readHolders > 0) {
+                    preferRead = false;
+                }
+                intentionWriteWaiters++;
+                while (readHolders > 0 || (readWaiters > 0 && preferRead)) {
+                    try {
+                        gate.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                intentionWriteWaiters--;
+                intentionWriteHolders++;
+                if (readWaiters > 0) {
+                    preferRead = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void leaveGate(boolean read) {
+        synchronized (gate) {
+            if (read) {
+                if (--readHolders == 0) {
+                    gate.notifyAll();
+                }
+            } else {
+                if (--intentionWriteHolders == 0) {
+                    gate.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -65,6 +65,8 @@ public class PropertyAnalyzer {
 
     public static final String PROPERTIES_COLUMN_SEPARATOR = "column_separator";
     public static final String PROPERTIES_LINE_DELIMITER = "line_delimiter";
+
+    public static final String PROPERTIES_COLOCATE_WITH = "colocate_with";
     
     public static DataProperty analyzeDataProperty(Map<String, String> properties, DataProperty oldDataProperty)
             throws AnalysisException {
@@ -341,4 +343,17 @@ public class PropertyAnalyzer {
 
         return returnAddr;
     }
+
+    public static String analyzeColocate(Map<String, String> properties) throws AnalysisException {
+        String colocateGroup = null;
+        if (properties != null && properties.containsKey(PROPERTIES_COLOCATE_WITH)) {
+            colocateGroup = properties.get(PROPERTIES_COLOCATE_WITH).trim();
+            if (colocateGroup.isEmpty()) {
+                throw new AnalysisException("Colocate group is set empty");
+            }
+            properties.remove(PROPERTIES_COLOCATE_WITH);
+        }
+
+        return colocateGroup;
+    }
 }
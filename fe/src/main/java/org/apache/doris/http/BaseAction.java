@@ -140,6 +140,16 @@ public abstract class BaseAction implements IAction {
 
     protected void writeFileResponse(BaseRequest request, BaseResponse response, HttpResponseStatus status,
             File resFile) {
+        writeFileResponse(request, response, status, resFile, 0, -1);
+    }
+
+    /*
+     * Write 'length' bytes of the file from 'offset' as response body.
+     * If length is negative, write until the end of file.
+     * Without SSL, the file is sent by zero-copy file region.
+     */
+    protected void writeFileResponse(BaseRequest request, BaseResponse response, HttpResponseStatus status,
+            File resFile, long offset, long length) {
         HttpResponse responseObj = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
 
         if (HttpHeaders.isKeepAlive(request.getRequest())) {
@@ -153,9 +163,11 @@ public abstract class BaseAction implements IAction {
         RandomAccessFile rafFile;
         try {
             rafFile = new RandomAccessFile(resFile, "r");
-            long fileLength = 0;
-            fileLength = rafFile.length();
-            response.updateHeader(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(fileLength));
+            long fileLength = rafFile.length();
+            if (length < 0 || offset + length > fileLength) {
+                length = Math.max(0, fileLength - offset);
+            }
+            response.updateHeader(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(length));
             writeCookies(response, responseObj);
             writeCustomHeaders(response, responseObj);
 
@@ -164,13 +176,13 @@ public abstract class BaseAction implements IAction {
 
             // Write file
             if (request.getContext().pipeline().get(SslHandler.class) == null) {
-                sendFileFuture = request.getContext().write(new DefaultFileRegion(rafFile.getChannel(), 0, fileLength),
+                sendFileFuture = request.getContext().write(new DefaultFileRegion(rafFile.getChannel(), offset, length),
                         request.getContext().newProgressivePromise());
                 // Write the end marker.
                 lastContentFuture = request.getContext().writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
             } else {
                 sendFileFuture = request.getContext().writeAndFlush(
-                        new HttpChunkedInput(new ChunkedFile(rafFile, 0, fileLength, 8192)),
+                        new HttpChunkedInput(new ChunkedFile(rafFile, offset, length, 8192)),
                         request.getContext().newProgressivePromise());
                 // HttpChunkedInput will write the end marker (LastHttpContent)
                 // for us.
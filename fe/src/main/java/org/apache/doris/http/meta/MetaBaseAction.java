@@ -25,11 +25,15 @@ import org.apache.doris.http.action.WebBaseAction;
 import org.apache.doris.master.MetaHelper;
 import org.apache.doris.system.Frontend;
 
+import com.google.common.base.Strings;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.io.IOException;
 
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
 
 public class MetaBaseAction extends WebBaseAction {
@@ -74,6 +78,14 @@ public class MetaBaseAction extends WebBaseAction {
         return true;
     }
 
+    /*
+     * A single byte range of the file can be requested by the 'Range' header, as 'bytes=start-end' or 'bytes=start-'.
+     * If so, the range is returned with status 206, and the CRC32 of the range is returned in header
+     * MetaHelper.X_IMAGE_CHECKSUM, so that the client can download a large file chunk by chunk, verify each chunk,
+     * and resume from the last verified chunk after failure.
+     * The range is ignored if the 'If-Range' header does not match the ETag of the file, which means the file
+     * has been changed since the client downloaded the previous chunks.
+     */
     protected void writeFileResponse(BaseRequest request, BaseResponse response, File file) {
         if (file == null || !file.exists()) {
             response.appendContent("File does not exist.");
@@ -82,11 +94,65 @@ public class MetaBaseAction extends WebBaseAction {
         }
 
         // add custom header
+        long fileLength = file.length();
+        String etag = MetaHelper.getETag(file);
         response.updateHeader(CONTENT_DISPOSITION, "attachment; filename=" + file.getName());
-        response.updateHeader(MetaHelper.X_IMAGE_SIZE, String.valueOf(file.length()));
+        response.updateHeader(MetaHelper.X_IMAGE_SIZE, String.valueOf(fileLength));
+        response.updateHeader(HttpHeaders.Names.ETAG, etag);
+        response.updateHeader(HttpHeaders.Names.ACCEPT_RANGES, HttpHeaders.Values.BYTES);
+
+        String range = request.getRequest().headers().get(HttpHeaders.Names.RANGE);
+        String ifRange = request.getRequest().headers().get(HttpHeaders.Names.IF_RANGE);
+        if (Strings.isNullOrEmpty(range) || fileLength == 0 || (ifRange != null && !ifRange.equals(etag))) {
+            writeFileResponse(request, response, HttpResponseStatus.OK, file);
+            return;
+        }
 
-        writeFileResponse(request, response, HttpResponseStatus.OK, file);
-        return;
+        long[] startAndEnd = parseRange(range, fileLength);
+        if (startAndEnd == null) {
+            LOG.warn("invalid range: {}, file: {}, length: {}", range, file.getName(), fileLength);
+            response.updateHeader(HttpHeaders.Names.CONTENT_RANGE, "bytes */" + fileLength);
+            writeResponse(request, response, HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        long start = startAndEnd[0];
+        long length = startAndEnd[1] - start + 1;
+        try {
+            long checksum = MetaHelper.checksum(file, start, length);
+            response.updateHeader(MetaHelper.X_IMAGE_CHECKSUM, String.valueOf(checksum));
+        } catch (IOException e) {
+            LOG.warn("failed to get checksum of file: {}", file.getName(), e);
+            writeResponse(request, response, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+            return;
+        }
+        response.updateHeader(HttpHeaders.Names.CONTENT_RANGE,
+                "bytes " + start + "-" + startAndEnd[1] + "/" + fileLength);
+        writeFileResponse(request, response, HttpResponseStatus.PARTIAL_CONTENT, file, start, length);
+    }
+
+    // return [start, end] of the range, or null if the range is invalid
+    private static long[] parseRange(String range, long fileLength) {
+        final String prefix = HttpHeaders.Values.BYTES + "=";
+        if (!range.startsWith(prefix)) {
+            return null;
+        }
+        String spec = range.substring(prefix.length()).trim();
+        int idx = spec.indexOf('-');
+        // suffix range 'bytes=-n' and multiple ranges are not supported
+        if (idx <= 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+        try {
+            long start = Long.parseLong(spec.substring(0, idx).trim());
+            String endStr = spec.substring(idx + 1).trim();
+            long end = endStr.isEmpty() ? fileLength - 1 : Math.min(Long.parseLong(endStr), fileLength - 1);
+            if (start < 0 || start > end) {
+                return null;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     private boolean isFromValidFe(BaseRequest request) {
@@ -25,6 +25,7 @@ import org.apache.doris.http.BaseRequest;
 import org.apache.doris.http.BaseResponse;
 import org.apache.doris.http.IllegalArgException;
 import org.apache.doris.master.MetaHelper;
+import org.apache.doris.metric.MetricRepo;
 import org.apache.doris.persist.MetaCleaner;
 import org.apache.doris.persist.Storage;
 import org.apache.doris.persist.StorageInfo;
@@ -39,7 +40,6 @@ import org.apache.logging.log4j.Logger;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.OutputStream;
 
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
@@ -181,9 +181,14 @@ public class MetaService {
 
             File dir = new File(Catalog.IMAGE_DIR);
             try {
-                OutputStream out = MetaHelper.getOutputStream(filename, dir);
-                MetaHelper.getRemoteFile(url, TIMEOUT_SECOND * 1000, out);
-                MetaHelper.complete(filename, dir);
+                long downloadStartTime = System.currentTimeMillis();
+                long bytes = MetaHelper.downloadFile(url, TIMEOUT_SECOND * 1000, filename, dir);
+                long downloadTime = System.currentTimeMillis() - downloadStartTime;
+                if (MetricRepo.isInit.get()) {
+                    MetricRepo.HISTO_IMAGE_DOWNLOAD_LATENCY.update(downloadTime);
+                    MetricRepo.COUNTER_IMAGE_DOWNLOAD_BYTES.increase(bytes);
+                }
+                LOG.info("downloaded {} from {} in {} ms. size: {} bytes", filename, machine, downloadTime, bytes);
                 writeResponse(request, response);
             } catch (FileNotFoundException e) {
                 LOG.warn("file not found. file: {}", filename, e);
@@ -40,13 +40,16 @@ public interface Journal {
     
     // Get the journal which id = journalId
     public JournalEntity read(long journalId);
+
+    // Check if the journal which id = journalId exists, without reading and deserializing it
+    public boolean hasJournal(long journalId);
     
     // Get all the journals whose id: fromKey <= id <= toKey
     // toKey = -1 means toKey = Long.Max_Value
     public JournalCursor read(long fromKey, long toKey);
     
-    // Write a journal and sync to disk
-    public void write(short op, Writable writable);
+    // Write a journal and sync to disk, return the journal id
+    public long write(short op, Writable writable);
     
     // Delete journals whose max id is less than deleteToJournalId
     public void deleteJournals(long deleteJournalToId);
@@ -43,6 +43,8 @@ import org.apache.doris.mysql.privilege.UserPropertyInfo;
 import org.apache.doris.persist.BackendIdsUpdateInfo;
 import org.apache.doris.persist.CloneInfo;
 import org.apache.doris.persist.ClusterInfo;
+import org.apache.doris.persist.ColocatePersistInfo;
+import org.apache.doris.persist.ColumnStatsInfo;
 import org.apache.doris.persist.ConsistencyCheckInfo;
 import org.apache.doris.persist.CreateTableInfo;
 import org.apache.doris.persist.DatabaseInfo;
@@ -209,6 +211,16 @@ public class JournalEntity implements Writable {
                 needRead = false;
                 break;
             }
+            case OperationType.OP_UPDATE_COLUMN_STATS: {
+                data = ColumnStatsInfo.read(in);
+                needRead = false;
+                break;
+            }
+            case OperationType.OP_COLOCATE_UPDATE_GROUP: {
+                data = ColocatePersistInfo.read(in);
+                needRead = false;
+                break;
+            }
             case OperationType.OP_FINISH_CONSISTENCY_CHECK: {
                 data = new ConsistencyCheckInfo();
                 break;
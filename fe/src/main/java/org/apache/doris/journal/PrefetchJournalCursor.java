@@ -0,0 +1,168 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.journal;
+
+import org.apache.doris.persist.OperationType;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * A JournalCursor which reads and deserializes journals of another cursor in a background thread,
+ * ahead of the caller applying them. At most 'capacity' journals are read ahead.
+ *
+ * Deserialization may depend on the meta version, which is changed by applying an OP_META_VERSION journal.
+ * So the background thread stops reading ahead after an OP_META_VERSION journal, until the caller asks for
+ * the next journal, which means the previous one has been applied.
+ *
+ * The underlying cursor is only accessed by the background thread, and closed by it when finished.
+ */
+public class PrefetchJournalCursor implements JournalCursor {
+    private static final Logger LOG = LogManager.getLogger(PrefetchJournalCursor.class);
+
+    private static final long POLL_INTERVAL_MS = 100;
+    // marks the end of journals
+    private static final JournalEntity END = new JournalEntity();
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadNum = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "journal-prefetcher-" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final JournalCursor cursor;
+    private final BlockingQueue<JournalEntity> queue;
+    private final Semaphore barrierReleased = new Semaphore(0);
+    private volatile boolean closed = false;
+    private volatile Throwable error = null;
+
+    // only accessed by the caller
+    private JournalEntity lastEntity = null;
+    private boolean finished = false;
+
+    public PrefetchJournalCursor(JournalCursor cursor, int capacity) {
+        this.cursor = cursor;
+        this.queue = new ArrayBlockingQueue<JournalEntity>(Math.max(1, capacity));
+        EXECUTOR.submit(new Runnable() {
+            @Override
+            public void run() {
+                prefetch();
+            }
+        });
+    }
+
+    private static boolean isBarrier(JournalEntity entity) {
+        return entity.getOpCode() == OperationType.OP_META_VERSION;
+    }
+
+    private void prefetch() {
+        try {
+            while (!closed) {
+                JournalEntity entity = cursor.next();
+                if (entity == null || !enqueue(entity)) {
+                    break;
+                }
+                if (isBarrier(entity)) {
+                    while (!closed) {
+                        if (barrierReleased.tryAcquire(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            LOG.warn("failed to prefetch journal", t);
+            error = t;
+        } finally {
+            cursor.close();
+            try {
+                enqueue(END);
+            } catch (InterruptedException e) {
+                LOG.warn("interrupted when finishing prefetching journal", e);
+            }
+        }
+    }
+
+    // return false if this cursor is closed
+    private boolean enqueue(JournalEntity entity) throws InterruptedException {
+        while (!closed) {
+            if (queue.offer(entity, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public JournalEntity next() {
+        if (finished) {
+            return null;
+        }
+        if (lastEntity != null && isBarrier(lastEntity)) {
+            barrierReleased.release();
+        }
+
+        JournalEntity entity = null;
+        boolean interrupted = false;
+        while (entity == null) {
+            try {
+                entity = queue.take();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (entity == END) {
+            finished = true;
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            } else if (error != null) {
+                throw new RuntimeException(error);
+            }
+            return null;
+        }
+        lastEntity = entity;
+        return entity;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        queue.clear();
+        barrierReleased.release();
+    }
+}
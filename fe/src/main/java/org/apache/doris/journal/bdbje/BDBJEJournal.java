@@ -18,20 +18,25 @@
 package org.apache.doris.journal.bdbje;
 
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Config;
 import org.apache.doris.common.Pair;
 import org.apache.doris.common.io.DataOutputBuffer;
 import org.apache.doris.common.io.Writable;
 import org.apache.doris.journal.Journal;
 import org.apache.doris.journal.JournalCursor;
 import org.apache.doris.journal.JournalEntity;
+import org.apache.doris.metric.MetricRepo;
 import org.apache.doris.persist.OperationType;
 
+import com.google.common.collect.Lists;
+
 import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
 import com.sleepycat.je.rep.InsufficientLogException;
 import com.sleepycat.je.rep.NetworkRestore;
 import com.sleepycat.je.rep.NetworkRestoreConfig;
@@ -47,6 +52,9 @@ import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
 /* 
@@ -60,6 +68,8 @@ public class BDBJEJournal implements Journal {
     public static final Logger LOG = LogManager.getLogger(BDBJEJournal.class);
     private static final int OUTPUT_BUFFER_INIT_SIZE = 128;
     private static final int RETRY_TIME = 3;
+    // the interval of listing the database names to find a new database in hasJournal()
+    private static final long LIST_DB_NAMES_INTERVAL_MS = 1000L;
     
     private String environmentPath = null;
     private String selfNodeName;
@@ -68,6 +78,15 @@ public class BDBJEJournal implements Journal {
     private BDBEnvironment bdbEnvironment = null;
     private Database currentJournalDB;
     private AtomicLong journalId = new AtomicLong(1);
+    // not null only if edit log group commit is enabled
+    private GroupCommitWriter groupCommitWriter = null;
+
+    // for hasJournal(): the max journal id known to exist, the database of the last checked journal,
+    // and the last time the database names were listed
+    private volatile long knownMaxJournalId = 0;
+    private Database lastCheckedDB = null;
+    private long lastCheckedDBName = -1;
+    private long lastListDBNamesTime = 0;
     
     public BDBJEJournal(String nodeName) {
         initBDBEnv(nodeName);
@@ -121,7 +140,7 @@ public class BDBJEJournal implements Journal {
     }
 
     @Override
-    public synchronized void write(short op, Writable writable) {
+    public long write(short op, Writable writable) {
         if (!Catalog.getInstance().canWrite() && op != OperationType.OP_META_VERSION
                 && op != OperationType.OP_ADD_FIRST_FRONTEND) {
             LOG.error("the canWrite flag has not set to true yet. can not write journal. will exit. op: {}", op);
@@ -132,13 +151,6 @@ public class BDBJEJournal implements Journal {
         entity.setOpCode(op);
         entity.setData(writable);
         
-        // id is the key
-        long id = journalId.getAndIncrement();
-        Long idLong = new Long(id);
-        DatabaseEntry theKey = new DatabaseEntry();
-        TupleBinding<Long> idBinding = TupleBinding.getPrimitiveBinding(Long.class);
-        idBinding.objectToEntry(idLong, theKey);
-        
         // entity is the value
         DataOutputBuffer buffer = new DataOutputBuffer(OUTPUT_BUFFER_INIT_SIZE);
         try {
@@ -147,7 +159,19 @@ public class BDBJEJournal implements Journal {
             e.printStackTrace();
         }
         DatabaseEntry theData = new DatabaseEntry(buffer.getData());
-        LOG.debug("opCode = {}, journal size = {}", op, theData.getSize()); 
+        LOG.debug("opCode = {}, journal size = {}", op, theData.getSize());
+
+        if (groupCommitWriter != null) {
+            return groupCommitWriter.submit(op, theData);
+        }
+        return writeOne(op, theData);
+    }
+
+    private synchronized long writeOne(short op, DatabaseEntry theData) {
+        // id is the key
+        long id = journalId.getAndIncrement();
+        DatabaseEntry theKey = idToKey(id);
+
         // Write the key value pair to bdb.
         boolean writeSuccessed = false;
         for (int i = 0; i < RETRY_TIME; i++) {
@@ -179,12 +203,75 @@ public class BDBJEJournal implements Journal {
                  */
                 journalId.set(id);
                 LOG.warn("master can not achieve quorum. write timestamp fail. but will not exit.");
-                return;
+                return -1;
             }
             LOG.error("write bdb failed. will exit. journalId:{}, bdb database Name:{}",
                       id, currentJournalDB.getDatabaseName());
             System.exit(-1);
         }
+        return id;
+    }
+
+    /*
+     * Write a batch of journals in one bdb transaction.
+     * Called by the group commit writer thread only. Holding the lock of this journal
+     * so that rollJournal() will never see a partially written batch.
+     * Return false if the batch can not be written, and the journal id is not advanced.
+     */
+    private synchronized boolean writeBatch(List<JournalTask> batch) {
+        long firstId = journalId.get();
+        for (int i = 0; i < RETRY_TIME; i++) {
+            Transaction txn = null;
+            try {
+                txn = bdbEnvironment.getReplicatedEnvironment().beginTransaction(null, null);
+                long id = firstId;
+                boolean allPut = true;
+                for (JournalTask task : batch) {
+                    if (currentJournalDB.put(txn, idToKey(id), task.data) != OperationStatus.SUCCESS) {
+                        allPut = false;
+                        break;
+                    }
+                    task.journalId = id;
+                    id++;
+                }
+                if (!allPut) {
+                    txn.abort();
+                    continue;
+                }
+                txn.commit();
+                journalId.set(id);
+                LOG.debug("master write journal batch [{}, {}) finished. db name {}",
+                          firstId, id, currentJournalDB.getDatabaseName());
+                return true;
+            } catch (DatabaseException e) {
+                LOG.error("catch an exception when writing batch to database. sleep and retry. first journal id {}",
+                          firstId, e);
+                if (txn != null) {
+                    try {
+                        txn.abort();
+                    } catch (DatabaseException e1) {
+                        LOG.warn("failed to abort journal batch transaction. first journal id {}", firstId, e1);
+                    }
+                }
+                try {
+                    Thread.sleep(5 * 1000);
+                } catch (InterruptedException e1) {
+                    e1.printStackTrace();
+                }
+            }
+        }
+
+        for (JournalTask task : batch) {
+            task.journalId = -1;
+        }
+        return false;
+    }
+
+    private static DatabaseEntry idToKey(long id) {
+        DatabaseEntry theKey = new DatabaseEntry();
+        TupleBinding<Long> idBinding = TupleBinding.getPrimitiveBinding(Long.class);
+        idBinding.objectToEntry(id, theKey);
+        return theKey;
     }
 
     @Override
@@ -239,6 +326,78 @@ public class BDBJEJournal implements Journal {
         return ret;
     }
 
+    /*
+     * Only look up the key, without fetching the data. It is much cheaper than getMaxJournalId(),
+     * which counts all records of the last database, so the replayer of non-master FE uses it
+     * to check if there are new journals.
+     *
+     * The max known journal id and the database of the last checked journal are cached, so
+     * the database names are only listed when the journal is not in the cached database, and
+     * the cached database is full or it has not been listed for a while, ie. a new database may
+     * have been created by rolling the journal.
+     */
+    @Override
+    public synchronized boolean hasJournal(long journalId) {
+        if (journalId <= knownMaxJournalId) {
+            return true;
+        }
+        if (lastCheckedDB != null && journalId >= lastCheckedDBName && containsJournal(lastCheckedDB, journalId)) {
+            knownMaxJournalId = journalId;
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        if (lastCheckedDB != null && journalId >= lastCheckedDBName
+                && journalId - lastCheckedDBName < Config.edit_log_roll_num
+                && now - lastListDBNamesTime < LIST_DB_NAMES_INTERVAL_MS) {
+            return false;
+        }
+        lastListDBNamesTime = now;
+        List<Long> dbNames = bdbEnvironment.getDatabaseNames();
+        if (dbNames == null) {
+            return false;
+        }
+        String dbName = null;
+        for (long db : dbNames) {
+            if (journalId >= db) {
+                dbName = Long.toString(db);
+            } else {
+                break;
+            }
+        }
+        if (dbName == null) {
+            return false;
+        }
+
+        Database database = bdbEnvironment.openDatabase(dbName);
+        if (database == null) {
+            return false;
+        }
+        lastCheckedDB = database;
+        lastCheckedDBName = Long.parseLong(dbName);
+        if (containsJournal(database, journalId)) {
+            knownMaxJournalId = journalId;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean containsJournal(Database database, long journalId) {
+        DatabaseEntry theKey = new DatabaseEntry();
+        TupleBinding<Long> myBinding = TupleBinding.getPrimitiveBinding(Long.class);
+        myBinding.objectToEntry(journalId, theKey);
+        DatabaseEntry theData = new DatabaseEntry();
+        theData.setPartial(0, 0, true);
+        try {
+            return database.get(null, theKey, theData, LockMode.READ_COMMITTED) == OperationStatus.SUCCESS;
+        } catch (Exception e) {
+            // the database may have been removed by the master after a checkpoint
+            LOG.warn("catch an exception when check journal {}", journalId, e);
+            lastCheckedDB = null;
+            return false;
+        }
+    }
+
     @Override
     public JournalCursor read(long fromKey, long toKey) {
         JournalCursor cursor = BDBJournalCursor.getJournalCursor(bdbEnvironment, fromKey, toKey);
@@ -339,6 +498,11 @@ public class BDBJEJournal implements Journal {
                 }
                 
                 journalId.set(getMaxJournalId() + 1);
+
+                if (Config.edit_log_group_commit && groupCommitWriter == null) {
+                    groupCommitWriter = new GroupCommitWriter();
+                    groupCommitWriter.start();
+                }
                 
                 break;
             } catch (InsufficientLogException insufficientLogEx) {
@@ -414,6 +578,99 @@ public class BDBJEJournal implements Journal {
         return bdbEnvironment.getDatabaseNames();
     }
     
+    private static class JournalTask {
+        private final short op;
+        private final DatabaseEntry data;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        // set by writer thread before the latch is counted down. -1 means write failed.
+        private volatile long journalId = -1;
+
+        public JournalTask(short op, DatabaseEntry data) {
+            this.op = op;
+            this.data = data;
+        }
+    }
+
+    /*
+     * Group commit writer.
+     * Callers of write() put their journals into the queue and wait.
+     * The writer thread takes all queued journals (at most *edit_log_group_commit_max_batch_size*),
+     * writes them in one bdb transaction, and then wakes up the callers with their journal ids.
+     * So concurrent callers share one replicated bdb commit instead of doing one each.
+     */
+    private class GroupCommitWriter extends Thread {
+        private final BlockingQueue<JournalTask> queue = new LinkedBlockingQueue<JournalTask>();
+
+        public GroupCommitWriter() {
+            super("edit-log-group-commit-writer");
+            setDaemon(true);
+        }
+
+        public long submit(short op, DatabaseEntry data) {
+            JournalTask task = new JournalTask(op, data);
+            try {
+                queue.put(task);
+            } catch (InterruptedException e) {
+                LOG.error("interrupted when submitting journal. will exit. op: {}", op, e);
+                System.exit(-1);
+            }
+
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    task.latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    // the journal is already queued, we have to wait until it is written.
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return task.journalId;
+        }
+
+        @Override
+        public void run() {
+            List<JournalTask> batch = Lists.newArrayList();
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    LOG.warn("group commit writer is interrupted. ignore it.", e);
+                    continue;
+                }
+                queue.drainTo(batch, Math.max(Config.edit_log_group_commit_max_batch_size, 1) - 1);
+
+                long start = System.currentTimeMillis();
+                boolean success = writeBatch(batch);
+                long cost = System.currentTimeMillis() - start;
+
+                if (!success) {
+                    for (JournalTask task : batch) {
+                        if (task.op != OperationType.OP_TIMESTAMP) {
+                            LOG.error("write bdb failed. will exit. batch size: {}, bdb database Name: {}",
+                                      batch.size(), currentJournalDB.getDatabaseName());
+                            System.exit(-1);
+                        }
+                    }
+                    // same as writeOne(), do not exit if we only fail to write timestamps.
+                    LOG.warn("master can not achieve quorum. write timestamp fail. but will not exit.");
+                } else if (MetricRepo.isInit.get()) {
+                    MetricRepo.COUNTER_EDIT_LOG_GROUP_COMMIT.increase(1L);
+                    MetricRepo.HISTO_EDIT_LOG_GROUP_COMMIT_BATCH_SIZE.update(batch.size());
+                    MetricRepo.HISTO_EDIT_LOG_GROUP_COMMIT_LATENCY.update(cost);
+                }
+
+                for (JournalTask task : batch) {
+                    task.latch.countDown();
+                }
+                batch.clear();
+            }
+        }
+    }
+
     public boolean isPortUsing(String host, int port) throws UnknownHostException {  
         boolean flag = false;  
         InetAddress theAddress = InetAddress.getByName(host);
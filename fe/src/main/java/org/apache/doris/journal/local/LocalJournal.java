@@ -118,6 +118,12 @@ public class LocalJournal implements Journal {
         return null;
     }
 
+    // the journals before the next id to write are in the edits files of this journal
+    @Override
+    public boolean hasJournal(long journalId) {
+        return journalId > 0 && journalId < this.journalId.get();
+    }
+
     @Override
     public JournalCursor read(long fromKey, long toKey) {
         JournalCursor cursor = LocalJournalCursor.getJournalCursor(imageDir, fromKey, toKey);
@@ -125,15 +131,16 @@ public class LocalJournal implements Journal {
     }
 
     @Override
-    public synchronized void write(short op, Writable writable) {
+    public synchronized long write(short op, Writable writable) {
         try {
             outputStream.write(op, writable);
             outputStream.setReadyToFlush();
             outputStream.flush();
-            journalId.incrementAndGet();
+            return journalId.getAndIncrement();
         } catch (IOException e) {
             LOG.error(e);
         }
+        return -1;
     }
 
     @Override
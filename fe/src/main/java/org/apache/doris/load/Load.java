@@ -68,6 +68,7 @@ import org.apache.doris.metric.MetricRepo;
 import org.apache.doris.mysql.privilege.PrivPredicate;
 import org.apache.doris.persist.ReplicaPersistInfo;
 import org.apache.doris.qe.ConnectContext;
+import org.apache.doris.qe.cache.ResultCache;
 import org.apache.doris.system.Backend;
 import org.apache.doris.task.AgentBatchTask;
 import org.apache.doris.task.AgentClient;
@@ -2349,6 +2350,7 @@ public class Load {
     private void updatePartitionVersion(Partition partition, long version, long versionHash, long jobId) {
         long partitionId = partition.getId();
         partition.updateCommitVersionAndVersionHash(version, versionHash);
+        ResultCache.getInstance().invalidate(partitionId);
         LOG.info("update partition version success. version: {}, version hash: {}, job id: {}, partition id: {}",
                  version, versionHash, jobId, partitionId);
     }
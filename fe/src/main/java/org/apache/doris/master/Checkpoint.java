@@ -36,6 +36,7 @@ import org.apache.doris.system.Frontend;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.management.ManagementFactory;
@@ -43,6 +44,7 @@ import java.lang.management.MemoryUsage;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Checkpoint daemon is running on master node. handle the checkpoint work for palo. 
@@ -99,24 +101,41 @@ public class Checkpoint extends Daemon {
             return;
         }
         
-        if (!checkMemoryEnoughToDoCheckpoint()) {
-            return;
-        }
-       
         long replayedJournalId = -1;
         // generate new image file
         LOG.info("begin to generate new image: image.{}", replayedJournalId);
         catalog = Catalog.getCheckpoint();
         catalog.setEditLog(editLog);
         try {
-            catalog.loadImage(imageDir);
+            /*
+             * Incremental checkpoint only loads the databases which are modified by journals since
+             * current image, and copies sections of other databases from current image.
+             */
+            Set<Long> dirtyDbIds = null;
+            if (Config.enable_incremental_checkpoint) {
+                dirtyDbIds = catalog.planIncrementalCheckpoint(imageDir, checkPointVersion);
+                if (dirtyDbIds != null) {
+                    LOG.info("do incremental checkpoint. {} databases are modified: {}", dirtyDbIds.size(), dirtyDbIds);
+                }
+            }
+
+            if (!checkMemoryEnoughToDoCheckpoint(dirtyDbIds)) {
+                return;
+            }
+
+            File baseImage = storage.getCurrentImageFile();
+            catalog.loadImage(imageDir, dirtyDbIds);
             catalog.replayJournal(checkPointVersion);
             if (catalog.getReplayedJournalId() != checkPointVersion) {
                 LOG.error("checkpoint version should be {}, actual replayed journal id is {}",
                           checkPointVersion, catalog.getReplayedJournalId());
                 return;
             }
-            catalog.saveImage();
+            if (dirtyDbIds == null) {
+                catalog.saveImage();
+            } else {
+                catalog.saveImage(baseImage, dirtyDbIds);
+            }
             replayedJournalId = catalog.getReplayedJournalId();
             if (MetricRepo.isInit.get()) {
                 MetricRepo.COUNTER_IMAGE_WRITE.increase(1L);
@@ -152,8 +171,14 @@ public class Checkpoint extends Daemon {
                 LOG.info("Put image:{}", url);
 
                 try {
+                    long pushStartTime = System.currentTimeMillis();
                     MetaHelper.getRemoteFile(url, PUT_TIMEOUT_SECOND * 1000, new NullOutputStream());
                     successPushed++;
+                    long pushTime = System.currentTimeMillis() - pushStartTime;
+                    if (MetricRepo.isInit.get()) {
+                        MetricRepo.HISTO_IMAGE_PUSH_LATENCY.update(pushTime);
+                    }
+                    LOG.info("pushed image.{} to {} in {} ms", replayedJournalId, host, pushTime);
                 } catch (IOException e) {
                     LOG.error("Exception when pushing image file. url = {}", url, e);
                 }
@@ -225,7 +250,10 @@ public class Checkpoint extends Daemon {
     
     }
     
-    private boolean checkMemoryEnoughToDoCheckpoint() {
+    /*
+     * If dbIds is not null, only these databases will be loaded by checkpoint.
+     */
+    private boolean checkMemoryEnoughToDoCheckpoint(Set<Long> dbIds) {
         List<String> dbNames = Catalog.getInstance().getDbNames();
         if (dbNames == null || dbNames.isEmpty()) {
             return true;
@@ -242,6 +270,9 @@ public class Checkpoint extends Daemon {
             if (db == null) {
                 continue;
             }
+            if (dbIds != null && !dbIds.contains(db.getId())) {
+                continue;
+            }
 
             db.readLock();
             try {
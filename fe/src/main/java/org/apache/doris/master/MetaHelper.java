@@ -18,21 +18,42 @@
 package org.apache.doris.master;
 
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Config;
 import org.apache.doris.common.io.IOUtils;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
 
 public class MetaHelper {
+    private static final Logger LOG = LogManager.getLogger(MetaHelper.class);
+
     private static final String PART_SUFFIX = ".part";
+    // ETag of the remote file being downloaded is saved in file 'filename + ETAG_SUFFIX + PART_SUFFIX'
+    public static final String ETAG_SUFFIX = ".etag";
     public static final String X_IMAGE_SIZE = "X-Image-Size";
+    // CRC32 of the requested range of file
+    public static final String X_IMAGE_CHECKSUM = "X-Image-Checksum";
     private static final int BUFFER_BYTES = 8 * 1024;
+    private static final int DOWNLOAD_BUFFER_BYTES = 64 * 1024;
+    private static final int CHECKSUM_BUFFER_BYTES = 1024 * 1024;
+    private static final int RETRY_INTERVAL_MS = 1000;
     private static final int CHECKPOINT_LIMIT_BYTES = 30 * 1024 * 1024;
 
     public static File getMasterImageDir() {
@@ -60,8 +81,8 @@ public class MetaHelper {
         return new FileOutputStream(file);
     }
 
-    // download file from remote node
-    public static void getRemoteFile(String urlStr, int timeout, OutputStream out)
+    // download file from remote node, and return the number of bytes downloaded
+    public static long getRemoteFile(String urlStr, int timeout, OutputStream out)
             throws IOException {
         URL url = new URL(urlStr);
         HttpURLConnection conn = null;
@@ -86,6 +107,7 @@ public class MetaHelper {
             if ((imageSize > 0) && (bytes != imageSize)) {
                 throw new IOException("Unexpected image size, expected: " + imageSize + ", actual: " + bytes);
             }
+            return bytes;
         } finally {
             if (conn != null) {
                 conn.disconnect();
@@ -96,4 +118,240 @@ public class MetaHelper {
         }
     }
 
+    /*
+     * The ETag of a local file, which changes if the file is replaced.
+     * An image file is never modified once it is completed, so length and last modified time are enough.
+     */
+    public static String getETag(File file) {
+        return "\"" + Long.toHexString(file.lastModified()) + "-" + Long.toHexString(file.length()) + "\"";
+    }
+
+    // CRC32 of 'length' bytes of the file from 'offset'
+    public static long checksum(File file, long offset, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(CHECKSUM_BUFFER_BYTES, length)));
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int n = channel.read(buffer, position);
+                if (n < 0) {
+                    throw new EOFException("reach the end of " + file.getName() + " at " + position);
+                }
+                position += n;
+                buffer.flip();
+                crc.update(buffer);
+            }
+        } finally {
+            raf.close();
+        }
+        return crc.getValue();
+    }
+
+    private static class DownloadState {
+        final File etagFile;
+        final RandomAccessFile raf;
+        // length of the verified part
+        long offset = 0;
+        // length of the remote file, -1 if unknown
+        long fileLength = -1;
+        String etag = null;
+        // bytes downloaded in this download
+        long downloaded = 0;
+
+        DownloadState(File etagFile, RandomAccessFile raf) {
+            this.etagFile = etagFile;
+            this.raf = raf;
+        }
+
+        // discard the downloaded part
+        void reset() {
+            offset = 0;
+            fileLength = -1;
+            etag = null;
+            etagFile.delete();
+        }
+    }
+
+    /*
+     * Download a file from remote node to 'dir/filename'. The remote node serves the file by
+     * MetaBaseAction.writeFileResponse().
+     *
+     * The file is downloaded chunk by chunk by http range requests, and each chunk is verified by its checksum.
+     * A chunk is retried for at most Config.image_download_max_retry_times times. If it still fails, the
+     * downloaded part is kept, and next download of the same file resumes from it, as long as the remote file
+     * is not changed, which is checked by the ETag of remote file.
+     * If the remote node does not support range request, the whole file is downloaded at once.
+     *
+     * Return the number of bytes downloaded by this call.
+     */
+    public static long downloadFile(String urlStr, int timeout, String filename, File dir) throws IOException {
+        URL url = new URL(urlStr);
+        File partFile = new File(dir, filename + PART_SUFFIX);
+        File etagFile = new File(dir, filename + ETAG_SUFFIX + PART_SUFFIX);
+        String savedEtag = null;
+        if (partFile.exists() && etagFile.exists()) {
+            savedEtag = new String(Files.readAllBytes(etagFile.toPath()), StandardCharsets.UTF_8);
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(partFile, "rw");
+        DownloadState state = new DownloadState(etagFile, raf);
+        try {
+            if (savedEtag != null && raf.length() > 0) {
+                state.etag = savedEtag;
+                state.offset = raf.length();
+                LOG.info("resume downloading {} from offset {}", filename, state.offset);
+            }
+
+            int failedTimes = 0;
+            while (state.fileLength < 0 || state.offset < state.fileLength) {
+                // discard the unverified data of last failed chunk
+                raf.setLength(state.offset);
+                try {
+                    downloadChunk(url, timeout, state);
+                    failedTimes = 0;
+                } catch (IOException e) {
+                    if (++failedTimes > Config.image_download_max_retry_times) {
+                        throw e;
+                    }
+                    LOG.warn("failed to download {} from offset {}. retry times: {}",
+                             filename, state.offset, failedTimes, e);
+                    try {
+                        Thread.sleep(RETRY_INTERVAL_MS);
+                    } catch (InterruptedException ie) {
+                        throw new IOException("interrupted when downloading " + filename, ie);
+                    }
+                }
+            }
+        } finally {
+            raf.close();
+        }
+
+        etagFile.delete();
+        complete(filename, dir);
+        return state.downloaded;
+    }
+
+    private static void downloadChunk(URL url, int timeout, DownloadState state) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        try {
+            conn.setConnectTimeout(timeout);
+            conn.setReadTimeout(timeout);
+            long end = state.offset + Config.image_download_chunk_size_bytes - 1;
+            conn.setRequestProperty("Range", "bytes=" + state.offset + "-" + end);
+            if (state.etag != null) {
+                conn.setRequestProperty("If-Range", state.etag);
+            }
+
+            int code = conn.getResponseCode();
+            if (code == HttpURLConnection.HTTP_PARTIAL) {
+                long[] range = parseContentRange(conn.getHeaderField("Content-Range"));
+                if (range[0] != state.offset) {
+                    throw new IOException("unexpected range start: " + range[0] + ", expected: " + state.offset);
+                }
+                String checksumStr = conn.getHeaderField(X_IMAGE_CHECKSUM);
+                if (checksumStr == null) {
+                    throw new IOException("missing checksum of range " + range[0] + "-" + range[1]);
+                }
+                if (state.etag == null) {
+                    String etag = conn.getHeaderField("ETag");
+                    if (etag != null) {
+                        Files.write(state.etagFile.toPath(), etag.getBytes(StandardCharsets.UTF_8));
+                    }
+                    state.etag = etag;
+                }
+
+                long length = range[1] - range[0] + 1;
+                long checksum = receive(conn, state.raf, state.offset, length);
+                if (checksum != Long.parseLong(checksumStr)) {
+                    throw new IOException("checksum mismatch of range " + range[0] + "-" + range[1]
+                            + ": " + checksum + " vs. " + checksumStr);
+                }
+                state.offset += length;
+                state.downloaded += length;
+                state.fileLength = range[2];
+            } else if (code == HttpURLConnection.HTTP_OK) {
+                if (state.etag != null && conn.getHeaderField("ETag") != null) {
+                    // If-Range does not match. download from the beginning by range requests
+                    LOG.info("remote file {} is changed since last download, download it again", url);
+                    state.reset();
+                    return;
+                }
+                // range request is not supported by remote node, or the file is empty
+                state.reset();
+                state.raf.setLength(0);
+                receive(conn, state.raf, 0, -1);
+                long bytes = state.raf.getFilePointer();
+                String imageSizeStr = conn.getHeaderField(X_IMAGE_SIZE);
+                if (imageSizeStr != null && bytes != Long.parseLong(imageSizeStr)) {
+                    throw new IOException("Unexpected image size, expected: " + imageSizeStr + ", actual: " + bytes);
+                }
+                state.offset = bytes;
+                state.downloaded += bytes;
+                state.fileLength = bytes;
+            } else if (code == 416 && state.offset > 0) {
+                // requested range not satisfiable. the part is longer than remote file, which must be changed.
+                LOG.info("remote file {} is shorter than downloaded part, download it again", url);
+                state.reset();
+            } else {
+                throw new IOException("unexpected response code " + code + " from " + url);
+            }
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    // read the response body into file from 'offset', and return the CRC32 of the body.
+    // if length is negative, read until the end of body.
+    private static long receive(HttpURLConnection conn, RandomAccessFile raf, long offset, long length)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[DOWNLOAD_BUFFER_BYTES];
+        long total = 0;
+        InputStream in = conn.getInputStream();
+        try {
+            raf.seek(offset);
+            while (length < 0 || total < length) {
+                int toRead = length < 0 ? buf.length : (int) Math.min(buf.length, length - total);
+                int n = in.read(buf, 0, toRead);
+                if (n < 0) {
+                    break;
+                }
+                raf.write(buf, 0, n);
+                crc.update(buf, 0, n);
+                total += n;
+            }
+        } finally {
+            in.close();
+        }
+        if (length >= 0 && total != length) {
+            throw new EOFException("unexpected end of response, expected " + length + " bytes, received " + total);
+        }
+        return crc.getValue();
+    }
+
+    // parse 'bytes start-end/total'
+    private static long[] parseContentRange(String contentRange) throws IOException {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            throw new IOException("invalid content range: " + contentRange);
+        }
+        try {
+            String spec = contentRange.substring("bytes ".length()).trim();
+            int dash = spec.indexOf('-');
+            int slash = spec.indexOf('/');
+            long start = Long.parseLong(spec.substring(0, dash));
+            long end = Long.parseLong(spec.substring(dash + 1, slash));
+            long total = Long.parseLong(spec.substring(slash + 1));
+            if (start > end || end >= total) {
+                throw new IOException("invalid content range: " + contentRange);
+            }
+            return new long[] { start, end, total };
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IOException("invalid content range: " + contentRange, e);
+        }
+    }
 }
@@ -27,6 +27,8 @@ import org.apache.doris.load.LoadJob.JobState;
 import org.apache.doris.monitor.jvm.JvmService;
 import org.apache.doris.monitor.jvm.JvmStats;
 import org.apache.doris.persist.EditLog;
+import org.apache.doris.persist.ImageCompression;
+import org.apache.doris.qe.cache.ResultCache;
 import org.apache.doris.service.ExecuteEnv;
 import org.apache.doris.system.Backend;
 import org.apache.doris.system.SystemInfoService;
@@ -56,9 +58,18 @@ public final class MetricRepo {
     public static PaloLongCounterMetric COUNTER_LOAD_FINISHED;
     public static PaloLongCounterMetric COUNTER_EDIT_LOG_WRITE;
     public static PaloLongCounterMetric COUNTER_EDIT_LOG_READ;
+    public static PaloLongCounterMetric COUNTER_EDIT_LOG_GROUP_COMMIT;
     public static PaloLongCounterMetric COUNTER_IMAGE_WRITE;
     public static PaloLongCounterMetric COUNTER_IMAGE_PUSH;
+    public static PaloLongCounterMetric COUNTER_IMAGE_DOWNLOAD_BYTES;
+    public static PaloLongCounterMetric COUNTER_RESULT_CACHE_HIT;
+    public static PaloLongCounterMetric COUNTER_RESULT_CACHE_MISS;
+    public static PaloLongCounterMetric COUNTER_RESULT_CACHE_EVICT;
     public static Histogram HISTO_QUERY_LATENCY;
+    public static Histogram HISTO_EDIT_LOG_GROUP_COMMIT_BATCH_SIZE;
+    public static Histogram HISTO_EDIT_LOG_GROUP_COMMIT_LATENCY;
+    public static Histogram HISTO_IMAGE_PUSH_LATENCY;
+    public static Histogram HISTO_IMAGE_DOWNLOAD_LATENCY;
 
     public static synchronized void init() {
         if (isInit.get()) {
@@ -141,6 +152,26 @@ public final class MetricRepo {
         };
         PALO_METRIC_REGISTER.addPaloMetrics(maxJournalId);
 
+        // image compression
+        PaloGaugeMetric<Double> imageCompressionRatio = (PaloGaugeMetric<Double>) new PaloGaugeMetric<Double>(
+                "image_compression_ratio", "uncompressed size / file size of the last image saved by this frontend") {
+            @Override
+            public Double getValue() {
+                return ImageCompression.getLastCompressionRatio();
+            }
+        };
+        PALO_METRIC_REGISTER.addPaloMetrics(imageCompressionRatio);
+
+        // result cache
+        PaloGaugeMetric<Long> resultCacheBytes = (PaloGaugeMetric<Long>) new PaloGaugeMetric<Long>(
+                "result_cache_bytes", "total bytes of query results cached in this frontend") {
+            @Override
+            public Long getValue() {
+                return ResultCache.getInstance().getTotalBytes();
+            }
+        };
+        PALO_METRIC_REGISTER.addPaloMetrics(resultCacheBytes);
+
         // 2. counter
         COUNTER_REQUEST_ALL = new PaloLongCounterMetric("request_total", "total request");
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_REQUEST_ALL);
@@ -156,14 +187,36 @@ public final class MetricRepo {
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_EDIT_LOG_WRITE);
         COUNTER_EDIT_LOG_READ = new PaloLongCounterMetric("edit_log_read", "counter of edit log read from bdbje");
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_EDIT_LOG_READ);
+        COUNTER_EDIT_LOG_GROUP_COMMIT = new PaloLongCounterMetric("edit_log_group_commit",
+                "counter of edit log batches committed into bdbje in group commit mode");
+        PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_EDIT_LOG_GROUP_COMMIT);
         COUNTER_IMAGE_WRITE = new PaloLongCounterMetric("image_write", "counter of image generated");
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_IMAGE_WRITE);
         COUNTER_IMAGE_PUSH = new PaloLongCounterMetric("image_push",
                 "counter of image succeeded in pushing to other frontends");
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_IMAGE_PUSH);
+        COUNTER_IMAGE_DOWNLOAD_BYTES = new PaloLongCounterMetric("image_download_bytes",
+                "bytes of image downloaded from master");
+        PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_IMAGE_DOWNLOAD_BYTES);
+        COUNTER_RESULT_CACHE_HIT = new PaloLongCounterMetric("result_cache_hit",
+                "counter of queries answered by result cache");
+        PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_RESULT_CACHE_HIT);
+        COUNTER_RESULT_CACHE_MISS = new PaloLongCounterMetric("result_cache_miss",
+                "counter of cacheable queries not found in result cache");
+        PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_RESULT_CACHE_MISS);
+        COUNTER_RESULT_CACHE_EVICT = new PaloLongCounterMetric("result_cache_evict",
+                "counter of query results evicted from result cache");
+        PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_RESULT_CACHE_EVICT);
 
         // 3. histogram
         HISTO_QUERY_LATENCY = METRIC_REGISTER.histogram(MetricRegistry.name("query", "latency", "ms"));
+        HISTO_EDIT_LOG_GROUP_COMMIT_BATCH_SIZE = METRIC_REGISTER.histogram(
+                MetricRegistry.name("edit_log", "group_commit", "batch_size"));
+        HISTO_EDIT_LOG_GROUP_COMMIT_LATENCY = METRIC_REGISTER.histogram(
+                MetricRegistry.name("edit_log", "group_commit", "latency", "ms"));
+        HISTO_IMAGE_PUSH_LATENCY = METRIC_REGISTER.histogram(MetricRegistry.name("image", "push", "latency", "ms"));
+        HISTO_IMAGE_DOWNLOAD_LATENCY = METRIC_REGISTER.histogram(
+                MetricRegistry.name("image", "download", "latency", "ms"));
 
         isInit.set(true);
         ;
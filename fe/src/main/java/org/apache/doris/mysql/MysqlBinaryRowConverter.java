@@ -0,0 +1,224 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.mysql;
+
+import org.apache.doris.catalog.PrimitiveType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Convert result row of text protocol, which is sent by backend, to result row of binary protocol,
+// which is the response of COM_STMT_EXECUTE.
+// http://dev.mysql.com/doc/internals/en/binary-protocol-resultset-row.html
+public class MysqlBinaryRowConverter {
+    private static final int NULL_VALUE = 251;
+    // the first 2 bits of null bitmap are reserved
+    private static final int NULL_BITMAP_OFFSET = 2;
+
+    private final MysqlColType[] types;
+    private final byte[][] values;
+    private final MysqlSerializer serializer = MysqlSerializer.newInstance();
+    // numbers in date and time value
+    private final long[] numbers = new long[7];
+
+    public MysqlBinaryRowConverter(List<PrimitiveType> types) {
+        this.types = new MysqlColType[types.size()];
+        for (int i = 0; i < types.size(); i++) {
+            this.types[i] = types.get(i).toMysqlType();
+        }
+        this.values = new byte[types.size()][];
+    }
+
+    public ByteBuffer convert(ByteBuffer textRow) {
+        byte[] nullBitmap = new byte[(types.length + 7 + NULL_BITMAP_OFFSET) / 8];
+        for (int i = 0; i < types.length; i++) {
+            if ((textRow.get(textRow.position()) & 0xFF) == NULL_VALUE) {
+                textRow.get();
+                values[i] = null;
+                int bit = i + NULL_BITMAP_OFFSET;
+                nullBitmap[bit / 8] |= 1 << (bit % 8);
+            } else {
+                values[i] = MysqlProto.readLenEncodedString(textRow);
+            }
+        }
+
+        serializer.reset();
+        // packet header
+        serializer.writeInt1(0x00);
+        serializer.writeBytes(nullBitmap);
+        for (int i = 0; i < types.length; i++) {
+            if (values[i] != null) {
+                writeValue(types[i], values[i]);
+            }
+        }
+        return serializer.toByteBuffer();
+    }
+
+    private void writeValue(MysqlColType type, byte[] value) {
+        switch (type) {
+            case MYSQL_TYPE_TINY:
+                serializer.writeInt1((int) parseLong(value));
+                break;
+            case MYSQL_TYPE_SHORT:
+            case MYSQL_TYPE_YEAR:
+                serializer.writeInt2((int) parseLong(value));
+                break;
+            case MYSQL_TYPE_LONG:
+            case MYSQL_TYPE_INT24:
+                serializer.writeInt4((int) parseLong(value));
+                break;
+            case MYSQL_TYPE_LONGLONG:
+                serializer.writeInt8(parseLong(value));
+                break;
+            case MYSQL_TYPE_FLOAT:
+                serializer.writeInt4(Float.floatToIntBits((float) parseDouble(value)));
+                break;
+            case MYSQL_TYPE_DOUBLE:
+                serializer.writeInt8(Double.doubleToLongBits(parseDouble(value)));
+                break;
+            case MYSQL_TYPE_DATE:
+            case MYSQL_TYPE_DATETIME:
+            case MYSQL_TYPE_TIMESTAMP:
+                writeDatetime(value);
+                break;
+            case MYSQL_TYPE_TIME:
+                writeTime(value);
+                break;
+            default:
+                // decimal and string types are sent as length encoded string, as text protocol does
+                serializer.writeVInt(value.length);
+                serializer.writeBytes(value);
+                break;
+        }
+    }
+
+    private static long parseLong(byte[] value) {
+        String str = new String(value, StandardCharsets.UTF_8);
+        // boolean may be sent as literal
+        if (str.equalsIgnoreCase("true")) {
+            return 1;
+        } else if (str.equalsIgnoreCase("false")) {
+            return 0;
+        }
+        return Long.parseLong(str);
+    }
+
+    private static double parseDouble(byte[] value) {
+        String str = new String(value, StandardCharsets.UTF_8);
+        if (str.equalsIgnoreCase("inf") || str.equalsIgnoreCase("+inf")) {
+            return Double.POSITIVE_INFINITY;
+        } else if (str.equalsIgnoreCase("-inf")) {
+            return Double.NEGATIVE_INFINITY;
+        } else if (str.equalsIgnoreCase("nan")) {
+            return Double.NaN;
+        }
+        return Double.parseDouble(str);
+    }
+
+    // Split value into numbers separated by non-digit characters, such as "2019-01-01 10:00:00.123".
+    // The number at fractionIndex is the fraction of second, which is converted to microsecond.
+    private void parseNumbers(byte[] value, int offset, int fractionIndex) {
+        int count = 0;
+        int digits = 0;
+        long number = 0;
+        for (int i = offset; i <= value.length && count < numbers.length; i++) {
+            if (i < value.length && value[i] >= '0' && value[i] <= '9') {
+                number = number * 10 + (value[i] - '0');
+                digits++;
+            } else if (digits > 0) {
+                if (count == fractionIndex) {
+                    // fraction of second
+                    for (; digits < 6; digits++) {
+                        number *= 10;
+                    }
+                    for (; digits > 6; digits--) {
+                        number /= 10;
+                    }
+                }
+                numbers[count++] = number;
+                number = 0;
+                digits = 0;
+            }
+        }
+        for (int i = count; i < numbers.length; i++) {
+            numbers[i] = 0;
+        }
+    }
+
+    // year, month, day, hour, minute, second, microsecond
+    private void writeDatetime(byte[] value) {
+        parseNumbers(value, 0, 6);
+        int length;
+        if (numbers[6] != 0) {
+            length = 11;
+        } else if (numbers[3] != 0 || numbers[4] != 0 || numbers[5] != 0) {
+            length = 7;
+        } else if (numbers[0] != 0 || numbers[1] != 0 || numbers[2] != 0) {
+            length = 4;
+        } else {
+            length = 0;
+        }
+
+        serializer.writeInt1(length);
+        if (length >= 4) {
+            serializer.writeInt2((int) numbers[0]);
+            serializer.writeInt1((int) numbers[1]);
+            serializer.writeInt1((int) numbers[2]);
+        }
+        if (length >= 7) {
+            serializer.writeInt1((int) numbers[3]);
+            serializer.writeInt1((int) numbers[4]);
+            serializer.writeInt1((int) numbers[5]);
+        }
+        if (length == 11) {
+            serializer.writeInt4((int) numbers[6]);
+        }
+    }
+
+    // is negative, days, hour, minute, second, microsecond. hour of text may be larger than 24.
+    private void writeTime(byte[] value) {
+        boolean isNegative = value.length > 0 && value[0] == '-';
+        parseNumbers(value, isNegative ? 1 : 0, 3);
+        long hour = numbers[0];
+        long minute = numbers[1];
+        long second = numbers[2];
+        long microsecond = numbers[3];
+
+        int length;
+        if (microsecond != 0) {
+            length = 12;
+        } else if (hour != 0 || minute != 0 || second != 0) {
+            length = 8;
+        } else {
+            length = 0;
+        }
+
+        serializer.writeInt1(length);
+        if (length >= 8) {
+            serializer.writeInt1(isNegative ? 1 : 0);
+            serializer.writeInt4((int) (hour / 24));
+            serializer.writeInt1((int) (hour % 24));
+            serializer.writeInt1((int) minute);
+            serializer.writeInt1((int) second);
+        }
+        if (length == 12) {
+            serializer.writeInt4((int) microsecond);
+        }
+    }
+}
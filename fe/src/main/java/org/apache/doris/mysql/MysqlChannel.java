@@ -17,13 +17,20 @@
 
 package org.apache.doris.mysql;
 
+import com.google.common.collect.Lists;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.List;
 
 /**
  * This class used to read/write MySQL logical packet.
@@ -36,6 +43,8 @@ public class MysqlChannel {
     private static final int MAX_PHYSICAL_PACKET_LENGTH = 0xffffff - 1;
     // MySQL packet header length
     private static final int PACKET_HEADER_LEN = 4;
+    // max number of send buffers held by a channel, whose packets are sent together by one gathering write
+    private static final int MAX_SEND_BUFFER_NUM = 8;
     // logger for this class
     private static final Logger LOG = LogManager.getLogger(MysqlChannel.class);
     // next sequence id to receive or send
@@ -46,7 +55,19 @@ public class MysqlChannel {
     private ByteBuffer headerByteBuffer = ByteBuffer.allocate(PACKET_HEADER_LEN);
     // default packet byte buffer for most packet
     private ByteBuffer defaultBuffer = ByteBuffer.allocate(16 * 1024);
+    // acquired from MysqlSendBufferPool when there is something to send, and released after flushed.
+    // sendBuffer is the last one of sendBuffers, which packets are put to.
+    private List<ByteBuffer> sendBuffers = Lists.newArrayList();
     private ByteBuffer sendBuffer;
+    // the channel is in non-blocking mode, and packets are read by readPacketNonBlocking()
+    private boolean isNonBlocking;
+    // used to wait for the non-blocking channel to be writable, opened on the first partial write
+    // and kept until the channel is closed
+    private Selector writeSelector;
+    // logical packet being read by readPacketNonBlocking()
+    private ByteBuffer nonBlockingPacket;
+    // length of the physical packet being read by readPacketNonBlocking(), -1 if its header is being read
+    private int nonBlockingPacketLen = -1;
     // for log and show
     private String remoteHostPortString;
     private String remoteIp;
@@ -55,7 +76,6 @@ public class MysqlChannel {
     public MysqlChannel(SocketChannel channel) {
         this.sequenceId = 0;
         this.channel = channel;
-        this.sendBuffer = ByteBuffer.allocate(2 * 1024 * 1024);
         this.isSend = false;
         this.remoteHostPortString = "";
         this.remoteIp = "";
@@ -110,6 +130,15 @@ public class MysqlChannel {
         } catch (IOException e) {
             LOG.warn("Close channel exception, ignore.");
         }
+        synchronized (this) {
+            if (writeSelector != null) {
+                try {
+                    writeSelector.close();
+                } catch (IOException e) {
+                    LOG.warn("Close selector exception, ignore.");
+                }
+            }
+        }
     }
 
     private int readAll(ByteBuffer dstBuf) throws IOException {
@@ -178,7 +207,85 @@ public class MysqlChannel {
         return result;
     }
 
+    /*
+     * Switch the channel to non-blocking mode, in which packets are read by readPacketNonBlocking(),
+     * and sending a packet waits until the channel is writable.
+     */
+    public void setNonBlocking() throws IOException {
+        channel.configureBlocking(false);
+        isNonBlocking = true;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /*
+     * Read one logical mysql protocol packet from the non-blocking channel without waiting.
+     * Return null if the packet is not complete yet, and the read part is kept for the next call.
+     * Throw IOException if the channel is closed by remote or a bad packet is received.
+     */
+    public ByteBuffer readPacketNonBlocking() throws IOException {
+        if (nonBlockingPacket == null) {
+            nonBlockingPacket = defaultBuffer;
+            nonBlockingPacket.clear();
+        }
+        while (true) {
+            if (nonBlockingPacketLen < 0) {
+                if (channel.read(headerByteBuffer) < 0) {
+                    throw new IOException("Remote closed the channel.");
+                }
+                if (headerByteBuffer.hasRemaining()) {
+                    return null;
+                }
+                headerByteBuffer.clear();
+                if (packetId() != sequenceId) {
+                    LOG.warn("receive packet sequence id[" + packetId() + "] want to get[" + sequenceId + "]");
+                    throw new IOException("Bad packet sequence.");
+                }
+                nonBlockingPacketLen = packetLen();
+                if ((nonBlockingPacket.capacity() - nonBlockingPacket.position()) < nonBlockingPacketLen) {
+                    // same as fetchOnePacket()
+                    ByteBuffer tmp;
+                    if (nonBlockingPacketLen < MAX_PHYSICAL_PACKET_LENGTH) {
+                        tmp = ByteBuffer.allocate(nonBlockingPacketLen + nonBlockingPacket.position());
+                    } else {
+                        tmp = ByteBuffer.allocate(2 * nonBlockingPacketLen + nonBlockingPacket.position());
+                    }
+                    tmp.put(nonBlockingPacket.array(), 0, nonBlockingPacket.position());
+                    nonBlockingPacket = tmp;
+                }
+                nonBlockingPacket.limit(nonBlockingPacket.position() + nonBlockingPacketLen);
+            }
+
+            if (nonBlockingPacket.hasRemaining() && channel.read(nonBlockingPacket) < 0) {
+                throw new IOException("Remote closed the channel.");
+            }
+            if (nonBlockingPacket.hasRemaining()) {
+                return null;
+            }
+            accSequenceId();
+            boolean isLastPacket = nonBlockingPacketLen != MAX_PHYSICAL_PACKET_LENGTH;
+            nonBlockingPacketLen = -1;
+            if (isLastPacket) {
+                ByteBuffer result = nonBlockingPacket;
+                result.flip();
+                nonBlockingPacket = null;
+                return result;
+            }
+        }
+    }
+
     private void realNetSend(ByteBuffer buffer) throws IOException {
+        if (isNonBlocking) {
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    waitWritable();
+                }
+            }
+            isSend = true;
+            return;
+        }
         long bufLen = buffer.remaining();
         long writeLen = channel.write(buffer);
         if (bufLen != writeLen) {
@@ -189,25 +296,97 @@ public class MysqlChannel {
         isSend = true;
     }
 
+    // Gathering write of the buffers, which costs one system call in most cases.
+    private void realNetSend(ByteBuffer[] buffers) throws IOException {
+        int offset = 0;
+        while (offset < buffers.length) {
+            long writeLen = channel.write(buffers, offset, buffers.length - offset);
+            while (offset < buffers.length && !buffers[offset].hasRemaining()) {
+                offset++;
+            }
+            if (writeLen == 0 && offset < buffers.length) {
+                if (!isNonBlocking) {
+                    throw new IOException("Write mysql packet failed, nothing is written.");
+                }
+                waitWritable();
+            }
+        }
+        isSend = true;
+    }
+
+    // the selector may be closed by close() in other threads, eg. the timeout checker
+    private synchronized Selector getWriteSelector() throws IOException {
+        if (writeSelector == null) {
+            Selector selector = Selector.open();
+            try {
+                channel.register(selector, SelectionKey.OP_WRITE);
+            } catch (IOException e) {
+                selector.close();
+                throw e;
+            }
+            writeSelector = selector;
+        }
+        return writeSelector;
+    }
+
+    // Wait until the non-blocking channel is writable, or closed by the timeout checker.
+    private void waitWritable() throws IOException {
+        Selector selector = getWriteSelector();
+        try {
+            while (selector.select(1000) == 0) {
+                if (!channel.isOpen()) {
+                    throw new ClosedChannelException();
+                }
+            }
+            selector.selectedKeys().clear();
+        } catch (ClosedSelectorException e) {
+            throw new ClosedChannelException();
+        }
+    }
+
     public void flush() throws IOException {
-        if (null == sendBuffer || sendBuffer.position() == 0) {
+        if (null == sendBuffer) {
             // Nothing to send
             return;
         }
-        sendBuffer.flip();
-        realNetSend(sendBuffer);
-        sendBuffer.clear();
-        isSend = true;
+        try {
+            for (ByteBuffer buffer : sendBuffers) {
+                buffer.flip();
+            }
+            if (sendBuffers.size() == 1) {
+                if (sendBuffer.hasRemaining()) {
+                    realNetSend(sendBuffer);
+                }
+            } else {
+                realNetSend(sendBuffers.toArray(new ByteBuffer[sendBuffers.size()]));
+            }
+        } finally {
+            releaseSendBuffers();
+        }
     }
 
-    private void writeHeader(int length) throws IOException {
-        if (null == sendBuffer) {
+    // Make sendBuffer have at least length bytes free, flush the buffered packets if too many buffers are held.
+    private void acquireSendBuffer(int length) throws IOException {
+        if (null != sendBuffer && sendBuffer.remaining() >= length) {
             return;
         }
-        long leftLength = sendBuffer.capacity() - sendBuffer.position();
-        if (leftLength < 4) {
+        if (sendBuffers.size() >= MAX_SEND_BUFFER_NUM) {
             flush();
         }
+        sendBuffer = MysqlSendBufferPool.acquire();
+        sendBuffers.add(sendBuffer);
+    }
+
+    private void releaseSendBuffers() {
+        for (ByteBuffer buffer : sendBuffers) {
+            MysqlSendBufferPool.release(buffer);
+        }
+        sendBuffers.clear();
+        sendBuffer = null;
+    }
+
+    private void writeHeader(int length) throws IOException {
+        acquireSendBuffer(PACKET_HEADER_LEN);
 
         long newLen = length;
         for (int i = 0; i < 3; ++i) {
@@ -218,21 +397,15 @@ public class MysqlChannel {
     }
 
     private void writeBuffer(ByteBuffer buffer) throws IOException {
-        if (null == sendBuffer) {
-            return;
-        }
-        long leftLength = sendBuffer.capacity() - sendBuffer.position();
-        // If too long for buffer, send buffered data.
-        if (leftLength < buffer.remaining()) {
+        // Send this buffer if large enough
+        if (buffer.remaining() > MysqlSendBufferPool.BUFFER_SIZE) {
             // Flush data in buffer.
             flush();
-        }
-        // Send this buffer if large enough
-        if (buffer.remaining() > sendBuffer.capacity()) {
             realNetSend(buffer);
             return;
         }
         // Put it to
+        acquireSendBuffer(buffer.remaining());
         sendBuffer.put(buffer);
     }
 
@@ -260,9 +433,7 @@ public class MysqlChannel {
     // Call this function before send query before
     public void reset() {
         isSend = false;
-        if (null != sendBuffer) {
-            sendBuffer.clear();
-        }
+        releaseSendBuffers();
     }
 
     public boolean isSend() {
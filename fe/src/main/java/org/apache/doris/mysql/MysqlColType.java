@@ -17,6 +17,11 @@
 
 package org.apache.doris.mysql;
 
+import com.google.common.collect.Maps;
+
+import java.util.EnumSet;
+import java.util.Map;
+
 // MySQL column type
 // TYPE codes are defined in the file 'mysql/include/mysql_com.h' enum enum_field_types
 // which is also demostrated in 
@@ -53,6 +58,14 @@ public enum MysqlColType {
     MYSQL_TYPE_STRING(254, "STRING"),
     MYSQL_TYPE_GEOMETRY(255, "GEOMETRY");
 
+    private static Map<Integer, MysqlColType> codeMap = Maps.newHashMap();
+    static {
+        EnumSet<MysqlColType> enumSet = EnumSet.allOf(MysqlColType.class);
+        for (MysqlColType type : enumSet) {
+            codeMap.put(type.code, type);
+        }
+    }
+
     private MysqlColType(int code, String desc) {
         this.code = code;
         this.desc = desc;
@@ -66,6 +79,10 @@ public enum MysqlColType {
         return code;
     }
 
+    public static MysqlColType fromCode(int code) {
+        return codeMap.get(code);
+    }
+
     @Override
     public String toString() {
         return desc;
@@ -0,0 +1,73 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.mysql;
+
+import org.apache.doris.common.Config;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Pool of the send buffers of MysqlChannel.
+ * A channel only holds send buffers while it is sending packets, so idle connections cost no send buffer.
+ * The buffers are direct, so they are written to socket without being copied to a temporary direct buffer.
+ * At most Config.mysql_send_buffer_pool_size direct buffers are allocated, and they are always given back to
+ * the pool, so the direct memory is never left to GC. When all of them are in use, heap buffers are used instead.
+ */
+public class MysqlSendBufferPool {
+    public static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+    // size of freeBuffers, which is O(n) for ConcurrentLinkedQueue
+    private static final AtomicInteger freeBufferNum = new AtomicInteger(0);
+    // number of direct buffers allocated, which are free or held by channels
+    private static final AtomicInteger directBufferNum = new AtomicInteger(0);
+
+    public static ByteBuffer acquire() {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer != null) {
+            freeBufferNum.decrementAndGet();
+            return buffer;
+        }
+        if (directBufferNum.incrementAndGet() <= Config.mysql_send_buffer_pool_size) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        directBufferNum.decrementAndGet();
+        return ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    public static void release(ByteBuffer buffer) {
+        // heap buffers are left to GC
+        if (!buffer.isDirect()) {
+            return;
+        }
+        buffer.clear();
+        freeBuffers.offer(buffer);
+        freeBufferNum.incrementAndGet();
+    }
+
+    public static int getFreeBufferNum() {
+        return freeBufferNum.get();
+    }
+
+    public static int getDirectBufferNum() {
+        return directBufferNum.get();
+    }
+}
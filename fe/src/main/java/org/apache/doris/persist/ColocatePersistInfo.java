@@ -0,0 +1,101 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.persist;
+
+import org.apache.doris.common.io.Text;
+import org.apache.doris.common.io.Writable;
+
+import com.google.common.collect.Lists;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+// The backends of bucket seqs and the stability of a colocation group, changed by CloneChecker.
+public class ColocatePersistInfo implements Writable {
+    private String group;
+    private List<List<Long>> backendsPerBucketSeq = Lists.newArrayList();
+    private boolean isStable;
+
+    public ColocatePersistInfo() {
+        // for persist
+    }
+
+    public ColocatePersistInfo(String group, List<List<Long>> backendsPerBucketSeq, boolean isStable) {
+        this.group = group;
+        this.backendsPerBucketSeq = backendsPerBucketSeq;
+        this.isStable = isStable;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public List<List<Long>> getBackendsPerBucketSeq() {
+        return backendsPerBucketSeq;
+    }
+
+    public boolean isStable() {
+        return isStable;
+    }
+
+    public static void writeBackendsPerBucketSeq(DataOutput out, List<List<Long>> backendsPerBucketSeq)
+            throws IOException {
+        out.writeInt(backendsPerBucketSeq.size());
+        for (List<Long> backendIds : backendsPerBucketSeq) {
+            out.writeInt(backendIds.size());
+            for (Long backendId : backendIds) {
+                out.writeLong(backendId);
+            }
+        }
+    }
+
+    public static List<List<Long>> readBackendsPerBucketSeq(DataInput in) throws IOException {
+        int bucketNum = in.readInt();
+        List<List<Long>> backendsPerBucketSeq = Lists.newArrayListWithCapacity(bucketNum);
+        for (int i = 0; i < bucketNum; i++) {
+            int replicationNum = in.readInt();
+            List<Long> backendIds = Lists.newArrayListWithCapacity(replicationNum);
+            for (int j = 0; j < replicationNum; j++) {
+                backendIds.add(in.readLong());
+            }
+            backendsPerBucketSeq.add(backendIds);
+        }
+        return backendsPerBucketSeq;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        Text.writeString(out, group);
+        writeBackendsPerBucketSeq(out, backendsPerBucketSeq);
+        out.writeBoolean(isStable);
+    }
+
+    public void readFields(DataInput in) throws IOException {
+        group = Text.readString(in);
+        backendsPerBucketSeq = readBackendsPerBucketSeq(in);
+        isStable = in.readBoolean();
+    }
+
+    public static ColocatePersistInfo read(DataInput in) throws IOException {
+        ColocatePersistInfo info = new ColocatePersistInfo();
+        info.readFields(in);
+        return info;
+    }
+}
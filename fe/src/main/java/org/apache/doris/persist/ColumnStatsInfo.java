@@ -0,0 +1,85 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.persist;
+
+import org.apache.doris.catalog.PartitionColumnStats;
+import org.apache.doris.common.io.Writable;
+
+import com.google.common.collect.Maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+// Column statistics of the partitions of a table collected by one analysis.
+public class ColumnStatsInfo implements Writable {
+    private long dbId;
+    private long tableId;
+    // partition id -> stats
+    private Map<Long, PartitionColumnStats> partitionStats = Maps.newHashMap();
+
+    public ColumnStatsInfo() {
+        // for persist
+    }
+
+    public ColumnStatsInfo(long dbId, long tableId, Map<Long, PartitionColumnStats> partitionStats) {
+        this.dbId = dbId;
+        this.tableId = tableId;
+        this.partitionStats = partitionStats;
+    }
+
+    public long getDbId() {
+        return dbId;
+    }
+
+    public long getTableId() {
+        return tableId;
+    }
+
+    public Map<Long, PartitionColumnStats> getPartitionStats() {
+        return partitionStats;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(dbId);
+        out.writeLong(tableId);
+        out.writeInt(partitionStats.size());
+        for (Map.Entry<Long, PartitionColumnStats> entry : partitionStats.entrySet()) {
+            out.writeLong(entry.getKey());
+            entry.getValue().write(out);
+        }
+    }
+
+    public void readFields(DataInput in) throws IOException {
+        dbId = in.readLong();
+        tableId = in.readLong();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            long partitionId = in.readLong();
+            partitionStats.put(partitionId, PartitionColumnStats.read(in));
+        }
+    }
+
+    public static ColumnStatsInfo read(DataInput in) throws IOException {
+        ColumnStatsInfo info = new ColumnStatsInfo();
+        info.readFields(in);
+        return info;
+    }
+}
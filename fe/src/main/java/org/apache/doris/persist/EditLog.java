@@ -63,6 +63,7 @@ import org.apache.logging.log4j.Logger;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 
 /**
  * EditLog maintains a log of the memory modifications.
@@ -79,11 +80,14 @@ public class EditLog {
     private long totalTimeTransactions;
 
     private Journal journal;
+    // true if journal writes are group committed by BDBJEJournal
+    private boolean groupCommit = false;
 
     public EditLog(String nodeName) {
         String journalType = Config.edit_log_type;
         if (journalType.equalsIgnoreCase("bdb")) {
             journal = new BDBJEJournal(nodeName);
+            groupCommit = Config.edit_log_group_commit;
         } else if (journalType.equalsIgnoreCase("local")) {
             journal = new LocalJournal(Catalog.IMAGE_DIR);
             Catalog.getInstance().setIsMaster(true);
@@ -102,6 +106,10 @@ public class EditLog {
         return journal.read(fromId, toId);
     }
 
+    public boolean hasJournal(long journalId) {
+        return journal.hasJournal(journalId);
+    }
+
     public long getFinalizedJournalId() {
         return journal.getFinalizedJournalId();
     }
@@ -316,6 +324,16 @@ public class EditLog {
                     catalog.getSchemaChangeHandler().replayCancel(job, catalog);
                     break;
                 }
+                case OperationType.OP_UPDATE_COLUMN_STATS: {
+                    ColumnStatsInfo info = (ColumnStatsInfo) journal.getData();
+                    catalog.getColumnStatsMgr().replayUpdateColumnStats(info);
+                    break;
+                }
+                case OperationType.OP_COLOCATE_UPDATE_GROUP: {
+                    ColocatePersistInfo info = (ColocatePersistInfo) journal.getData();
+                    catalog.getColocateTableIndex().replayUpdateGroup(info);
+                    break;
+                }
                 case OperationType.OP_FINISH_CONSISTENCY_CHECK: {
                     ConsistencyCheckInfo info = (ConsistencyCheckInfo) journal.getData();
                     catalog.getConsistencyChecker().replayFinishConsistencyCheck(info, catalog);
@@ -611,6 +629,55 @@ public class EditLog {
         }
     }
 
+    /**
+     * Collect ids of the databases which will be modified when replaying this journal.
+     * Return false if the journal may modify databases (or other meta) in a way which can not be
+     * determined by the journal itself, eg. DDL. Used by incremental checkpoint, which only loads
+     * and saves the databases modified by journals, so this MUST be conservative.
+     */
+    public static boolean collectModifiedDbIds(JournalEntity journal, Set<Long> dbIds) {
+        switch (journal.getOpCode()) {
+            case OperationType.OP_SAVE_NEXTID:
+            case OperationType.OP_SAVE_TRANSACTION_ID:
+            case OperationType.OP_TIMESTAMP:
+            case OperationType.OP_MASTER_INFO_CHANGE:
+            case OperationType.OP_BACKEND_STATE_CHANGE:
+            case OperationType.OP_COLOCATE_UPDATE_GROUP:
+                // no database is modified
+                return true;
+            case OperationType.OP_UPSERT_TRANSACTION_STATE:
+            case OperationType.OP_DELETE_TRANSACTION_STATE:
+                dbIds.add(((TransactionState) journal.getData()).getDbId());
+                return true;
+            case OperationType.OP_ADD_REPLICA:
+            case OperationType.OP_DELETE_REPLICA:
+                dbIds.add(((ReplicaPersistInfo) journal.getData()).getDbId());
+                return true;
+            case OperationType.OP_FINISH_CONSISTENCY_CHECK:
+                dbIds.add(((ConsistencyCheckInfo) journal.getData()).getDbId());
+                return true;
+            case OperationType.OP_UPDATE_COLUMN_STATS:
+                dbIds.add(((ColumnStatsInfo) journal.getData()).getDbId());
+                return true;
+            case OperationType.OP_MODIFY_PARTITION:
+                dbIds.add(((ModifyPartitionInfo) journal.getData()).getDbId());
+                return true;
+            case OperationType.OP_LOAD_START:
+            case OperationType.OP_LOAD_ETL:
+            case OperationType.OP_LOAD_LOADING:
+            case OperationType.OP_LOAD_QUORUM:
+            case OperationType.OP_LOAD_DONE:
+            case OperationType.OP_LOAD_CANCEL:
+                dbIds.add(((LoadJob) journal.getData()).getDbId());
+                return true;
+            case OperationType.OP_FINISH_SYNC_DELETE:
+                dbIds.add(((DeleteInfo) journal.getData()).getDbId());
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Shutdown the file store.
      */
@@ -638,7 +705,18 @@ public class EditLog {
     /**
      * Write an operation to the edit log. Do not sync to persistent store yet.
      */
-    private synchronized void logEdit(short op, Writable writable) {
+    private void logEdit(short op, Writable writable) {
+        if (groupCommit) {
+            // journal writes are batched by the journal itself, so callers must not be serialized here.
+            doLogEdit(op, writable);
+        } else {
+            synchronized (this) {
+                doLogEdit(op, writable);
+            }
+        }
+    }
+
+    private void doLogEdit(short op, Writable writable) {
         if (this.getNumEditStreams() == 0) {
             LOG.error("Fatal Error : no editLog stream");
             throw new Error("Fatal Error : no editLog stream");
@@ -646,30 +724,33 @@ public class EditLog {
 
         long start = System.currentTimeMillis();
 
+        long journalId = -1;
         try {
-            journal.write(op, writable);
+            journalId = journal.write(op, writable);
         } catch (Exception e) {
             LOG.error("Fatal Error : write stream Exception", e);
             Runtime.getRuntime().exit(-1);
         }
 
-        // get a new transactionId
-        txId++;
-
-        // update statistics
         long end = System.currentTimeMillis();
-        numTransactions++;
-        totalTimeTransactions += (end - start);
+        synchronized (this) {
+            // get a new transactionId
+            txId++;
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("nextId = {}, numTransactions = {}, totalTimeTransactions = {}, op = {}",
-                      txId, numTransactions, totalTimeTransactions, op);
-        }
+            // update statistics
+            numTransactions++;
+            totalTimeTransactions += (end - start);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("nextId = {}, numTransactions = {}, totalTimeTransactions = {}, op = {}, journal id = {}",
+                          txId, numTransactions, totalTimeTransactions, op, journalId);
+            }
 
-        if (txId == Config.edit_log_roll_num) {
-            LOG.info("txId is equal to edit_log_roll_num {}, will roll edit.", txId);
-            rollEditLog();
-            txId = 0;
+            if (txId == Config.edit_log_roll_num) {
+                LOG.info("txId is equal to edit_log_roll_num {}, will roll edit.", txId);
+                rollEditLog();
+                txId = 0;
+            }
         }
 
         if (MetricRepo.isInit.get()) {
@@ -820,6 +901,14 @@ public class EditLog {
         logEdit(OperationType.OP_FINISH_CONSISTENCY_CHECK, info);
     }
 
+    public void logUpdateColumnStats(ColumnStatsInfo info) {
+        logEdit(OperationType.OP_UPDATE_COLUMN_STATS, info);
+    }
+
+    public void logColocateUpdateGroup(ColocatePersistInfo info) {
+        logEdit(OperationType.OP_COLOCATE_UPDATE_GROUP, info);
+    }
+
     public void logAddBackend(Backend be) {
         logEdit(OperationType.OP_ADD_BACKEND, be);
     }
@@ -0,0 +1,109 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.persist;
+
+import org.apache.doris.common.Config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xerial.snappy.SnappyFramedInputStream;
+import org.xerial.snappy.SnappyFramedOutputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/*
+ * Compression of image files.
+ *
+ * Image data is compressed in the snappy framing format, which splits the stream into blocks of
+ * at most 64KB, and each block is compressed and checksummed (crc32c of uncompressed data) independently.
+ * So both compression and decompression are streaming, and never hold the whole image in memory.
+ *
+ * A legacy image is compressed as a whole, and a sectioned image is compressed section by section
+ * (see SectionedImageWriter), so that sections can still be located and loaded independently.
+ */
+public class ImageCompression {
+    private static final Logger LOG = LogManager.getLogger(ImageCompression.class);
+
+    public static final String NONE = "none";
+    public static final String SNAPPY = "snappy";
+
+    // stream identifier chunk which every snappy framed stream begins with
+    private static final byte[] SNAPPY_STREAM_HEADER = new byte[] {
+            (byte) 0xff, 0x06, 0x00, 0x00, 0x73, 0x4e, 0x61, 0x50, 0x70, 0x59 };
+
+    // uncompressed size / compressed size of the last saved image
+    private static volatile double lastCompressionRatio = 1.0;
+
+    public static boolean isCompressionEnabled() {
+        if (Config.image_compression.equalsIgnoreCase(SNAPPY)) {
+            return true;
+        }
+        if (!Config.image_compression.equalsIgnoreCase(NONE)) {
+            LOG.warn("unknown image compression: {}, image will not be compressed", Config.image_compression);
+        }
+        return false;
+    }
+
+    // The returned stream must be closed to write out the last block, and closing it closes 'out'.
+    public static OutputStream compress(OutputStream out) throws IOException {
+        return new SnappyFramedOutputStream(out);
+    }
+
+    // Closing the returned stream closes 'in'.
+    public static InputStream decompress(InputStream in) throws IOException {
+        return new SnappyFramedInputStream(in);
+    }
+
+    /*
+     * Return true if the file is a compressed legacy image.
+     * An uncompressed legacy image begins with the meta version, and a sectioned image begins with its magic,
+     * neither of which can be mistaken for the snappy stream header.
+     */
+    public static boolean isCompressedLegacyImage(File imageFile) throws IOException {
+        if (imageFile.length() < SNAPPY_STREAM_HEADER.length) {
+            return false;
+        }
+        RandomAccessFile raf = new RandomAccessFile(imageFile, "r");
+        try {
+            byte[] header = new byte[SNAPPY_STREAM_HEADER.length];
+            raf.readFully(header);
+            return Arrays.equals(header, SNAPPY_STREAM_HEADER);
+        } finally {
+            raf.close();
+        }
+    }
+
+    public static void onImageSaved(File imageFile, long rawBytes) {
+        long storedBytes = imageFile.length();
+        if (rawBytes <= 0 || storedBytes <= 0) {
+            return;
+        }
+        lastCompressionRatio = (double) rawBytes / storedBytes;
+        LOG.info("image {} is saved. raw size: {} bytes, file size: {} bytes, compression ratio: {}",
+                 imageFile.getName(), rawBytes, storedBytes, String.format("%.2f", lastCompressionRatio));
+    }
+
+    public static double getLastCompressionRatio() {
+        return lastCompressionRatio;
+    }
+}
@@ -17,6 +17,8 @@
 
 package org.apache.doris.persist;
 
+import org.apache.doris.master.MetaHelper;
+
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
@@ -54,6 +56,10 @@ public class MetaCleaner {
                     if (filename.endsWith(".part")) {
                         filename = filename.substring(0, filename.length() - ".part".length());
                     }
+                    // ETag of the image being downloaded, see MetaHelper.downloadFile()
+                    if (filename.endsWith(MetaHelper.ETAG_SUFFIX)) {
+                        filename = filename.substring(0, filename.length() - MetaHelper.ETAG_SUFFIX.length());
+                    }
                     long version = Long.parseLong(filename.substring(filename.lastIndexOf('.') + 1));
 
                     if (version < imageDeleteVersion) {
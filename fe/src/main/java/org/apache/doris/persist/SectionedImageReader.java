@@ -0,0 +1,291 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.persist;
+
+import org.apache.doris.common.io.Text;
+import org.apache.doris.persist.SectionedImageWriter.SectionEntry;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/*
+ * Reader of the sectioned image file written by SectionedImageWriter.
+ *
+ * Sections are read by positional reads of the file channel, so that different sections
+ * can be read by different threads concurrently.
+ * The checksum of a section is verified when the section stream is closed.
+ * Sections of a compressed image are decompressed when reading.
+ */
+public class SectionedImageReader implements Closeable {
+    private static final int MAGIC_LENGTH = SectionedImageWriter.MAGIC.length;
+    // footer offset and tail magic
+    private static final int TAIL_LENGTH = 8 + MAGIC_LENGTH;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int bufferSize;
+    private boolean compressed = false;
+    private final List<SectionEntry> sections = Lists.newArrayList();
+    private final Map<String, SectionEntry> nameToSection = Maps.newHashMap();
+
+    public SectionedImageReader(File imageFile, int bufferSize) throws IOException {
+        this.file = new RandomAccessFile(imageFile, "r");
+        this.channel = file.getChannel();
+        this.bufferSize = bufferSize;
+        try {
+            readFooter();
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public static boolean isSectionedImage(File imageFile) throws IOException {
+        if (imageFile.length() < MAGIC_LENGTH + TAIL_LENGTH) {
+            return false;
+        }
+        RandomAccessFile raf = new RandomAccessFile(imageFile, "r");
+        try {
+            byte[] magic = new byte[MAGIC_LENGTH];
+            raf.readFully(magic);
+            return Arrays.equals(magic, SectionedImageWriter.MAGIC)
+                    || Arrays.equals(magic, SectionedImageWriter.MAGIC_COMPRESSED);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void readFooter() throws IOException {
+        long fileLength = channel.size();
+        if (fileLength < MAGIC_LENGTH + TAIL_LENGTH) {
+            throw new IOException("invalid sectioned image, file length: " + fileLength);
+        }
+
+        ByteBuffer tail = ByteBuffer.allocate(TAIL_LENGTH);
+        readFully(tail, fileLength - TAIL_LENGTH);
+        tail.flip();
+        long footerOffset = tail.getLong();
+        byte[] magic = new byte[MAGIC_LENGTH];
+        tail.get(magic);
+        if (Arrays.equals(magic, SectionedImageWriter.MAGIC_COMPRESSED)) {
+            compressed = true;
+        } else if (!Arrays.equals(magic, SectionedImageWriter.MAGIC)) {
+            throw new IOException("invalid sectioned image, tail magic mismatch. image may be incomplete");
+        }
+        ByteBuffer head = ByteBuffer.allocate(MAGIC_LENGTH);
+        readFully(head, 0);
+        if (!Arrays.equals(head.array(), magic)) {
+            throw new IOException("invalid sectioned image, head magic does not match tail magic");
+        }
+        if (footerOffset < MAGIC_LENGTH || footerOffset > fileLength - TAIL_LENGTH) {
+            throw new IOException("invalid sectioned image, footer offset: " + footerOffset);
+        }
+
+        ByteBuffer footer = ByteBuffer.allocate((int) (fileLength - TAIL_LENGTH - footerOffset));
+        readFully(footer, footerOffset);
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(footer.array()));
+        int count = dis.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = Text.readString(dis);
+            long offset = dis.readLong();
+            long length = dis.readLong();
+            long crc = dis.readLong();
+            long rawLength = compressed ? dis.readLong() : length;
+            if (offset < MAGIC_LENGTH || offset + length > footerOffset) {
+                throw new IOException("invalid section " + name + ", offset: " + offset + ", length: " + length);
+            }
+            SectionEntry entry = new SectionEntry(name, offset, length, crc, rawLength);
+            sections.add(entry);
+            nameToSection.put(name, entry);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            position += n;
+        }
+    }
+
+    // return all sections in the order they were written
+    public List<SectionEntry> getSections() {
+        return sections;
+    }
+
+    public boolean hasSection(String name) {
+        return nameToSection.containsKey(name);
+    }
+
+    public SectionEntry getSection(String name) throws IOException {
+        SectionEntry entry = nameToSection.get(name);
+        if (entry == null) {
+            throw new IOException("section " + name + " does not exist in image");
+        }
+        return entry;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /*
+     * Open a section for reading. It is safe to open and read different sections in different threads.
+     * The returned stream must be closed after the section is read, which checks that the whole section
+     * is consumed and its checksum is matched.
+     */
+    public DataInputStream openSection(String name) throws IOException {
+        SectionInputStream in = new SectionInputStream(getSection(name));
+        if (!compressed) {
+            return new DataInputStream(in);
+        }
+        return new DataInputStream(new DecompressedSectionInputStream(name, ImageCompression.decompress(in)));
+    }
+
+    // Same as openSection(), but the data of a compressed section is not decompressed.
+    public DataInputStream openRawSection(String name) throws IOException {
+        return new DataInputStream(new SectionInputStream(getSection(name)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    // check that all the decompressed data is consumed when closing
+    private static class DecompressedSectionInputStream extends FilterInputStream {
+        private final String name;
+        private boolean closed = false;
+
+        public DecompressedSectionInputStream(String name, InputStream in) {
+            super(in);
+            this.name = name;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (in.read() != -1) {
+                    throw new IOException("section " + name + " is not fully read");
+                }
+            } finally {
+                // check the checksum of compressed data
+                in.close();
+            }
+        }
+    }
+
+    private class SectionInputStream extends InputStream {
+        private final SectionEntry entry;
+        private final ByteBuffer buffer;
+        private final CRC32 crc = new CRC32();
+        // file position of the next byte to be read into buffer
+        private long position;
+        private final long end;
+        private boolean closed = false;
+
+        public SectionInputStream(SectionEntry entry) {
+            this.entry = entry;
+            this.position = entry.offset;
+            this.end = entry.offset + entry.length;
+            this.buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(bufferSize, entry.length)));
+            this.buffer.flip();
+        }
+
+        // return false if reach the end of section
+        private boolean fill() throws IOException {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+            if (position >= end) {
+                return false;
+            }
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            readFully(buffer, position);
+            buffer.flip();
+            position += buffer.remaining();
+            crc.update(buffer.array(), 0, buffer.limit());
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, buffer.remaining() + (end - position));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (buffer.hasRemaining() || position < end) {
+                throw new IOException("section " + entry.name + " is not fully read. "
+                        + (buffer.remaining() + end - position) + " bytes left");
+            }
+            if (crc.getValue() != entry.crc) {
+                throw new IOException("section " + entry.name + " checksum mismatch: "
+                        + crc.getValue() + " vs. " + entry.crc);
+            }
+        }
+    }
+}
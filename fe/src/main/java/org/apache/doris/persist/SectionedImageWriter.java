@@ -0,0 +1,265 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.persist;
+
+import org.apache.doris.common.io.Text;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.io.CountingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/*
+ * Writer of the sectioned image file.
+ *
+ * The image file is split into named sections. Each section is checksummed independently,
+ * and the offset table of all sections is written in the footer, so that sections can be
+ * located and loaded independently (and in parallel) by SectionedImageReader.
+ *
+ * File layout:
+ *
+ *  | MAGIC | section 1 | section 2 | ... | footer | footer offset (long) | MAGIC |
+ *
+ *  footer: section count (int), and for each section:
+ *          name (Text), offset (long), length (long), crc32 (long), [raw length (long), only if compressed]
+ *
+ * The legacy image file begins with the meta version (an int), so it will never begin with MAGIC.
+ *
+ * If compressed, the file begins and ends with MAGIC_COMPRESSED instead, and the data of each section
+ * is compressed independently (see ImageCompression). Offset, length and crc32 of a section are
+ * all about the compressed data, so that a section can be copied to another compressed image as is.
+ */
+public class SectionedImageWriter implements Closeable {
+    public static final byte[] MAGIC = "PALOIMG2".getBytes(StandardCharsets.US_ASCII);
+    public static final byte[] MAGIC_COMPRESSED = "PALOIMGS".getBytes(StandardCharsets.US_ASCII);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    public static class SectionEntry {
+        public final String name;
+        public final long offset;
+        public final long length;
+        public final long crc;
+        // length before compression. same as length if not compressed
+        public final long rawLength;
+
+        public SectionEntry(String name, long offset, long length, long crc, long rawLength) {
+            this.name = name;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+            this.rawLength = rawLength;
+        }
+    }
+
+    private final PositionOutputStream out;
+    private final boolean compressed;
+    private final List<SectionEntry> sections = Lists.newArrayList();
+
+    // current writing section
+    private String curName = null;
+    private long curOffset = -1;
+    private CRC32 curCrc = null;
+    private CountingOutputStream curRawOut = null;
+    private DataOutputStream curOut = null;
+
+    private boolean finished = false;
+
+    public SectionedImageWriter(File file, int bufferSize) throws IOException {
+        this(file, bufferSize, false);
+    }
+
+    public SectionedImageWriter(File file, int bufferSize, boolean compressed) throws IOException {
+        this.compressed = compressed;
+        out = new PositionOutputStream(new BufferedOutputStream(new FileOutputStream(file), bufferSize));
+        out.write(getMagic());
+    }
+
+    private byte[] getMagic() {
+        return compressed ? MAGIC_COMPRESSED : MAGIC;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /*
+     * Begin to write a new section. The returned stream is valid until endSection() is called,
+     * and should not be closed by caller.
+     */
+    public DataOutputStream beginSection(String name) throws IOException {
+        return beginSection(name, compressed);
+    }
+
+    // if 'compress' is false, the data written to the returned stream is saved as is,
+    // either because the image is not compressed, or because the data is already compressed.
+    private DataOutputStream beginSection(String name, boolean compress) throws IOException {
+        Preconditions.checkState(curName == null, "section " + curName + " is not ended");
+        Preconditions.checkState(!finished);
+        curName = name;
+        curOffset = out.getPosition();
+        curCrc = new CRC32();
+        OutputStream sectionOut = new CheckedOutputStream(new UnclosableOutputStream(out), curCrc);
+        if (compress) {
+            sectionOut = ImageCompression.compress(sectionOut);
+        }
+        curRawOut = new CountingOutputStream(sectionOut);
+        curOut = new DataOutputStream(curRawOut);
+        return curOut;
+    }
+
+    public void endSection() throws IOException {
+        endSection(-1);
+    }
+
+    // if rawLength is negative, it is the number of bytes written to the section stream
+    private void endSection(long rawLength) throws IOException {
+        Preconditions.checkState(curName != null, "no section to end");
+        // write out the last compressed block. the file stream is not closed.
+        curOut.close();
+        if (rawLength < 0) {
+            rawLength = curRawOut.getCount();
+        }
+        sections.add(new SectionEntry(curName, curOffset, out.getPosition() - curOffset, curCrc.getValue(),
+                rawLength));
+        curName = null;
+        curRawOut = null;
+        curOut = null;
+        curCrc = null;
+    }
+
+    /*
+     * Copy a section from another sectioned image.
+     * If both images are compressed or both are not, the section is copied byte-for-byte,
+     * otherwise it is decompressed or compressed when copying.
+     * The checksum of the source section is verified when copying.
+     */
+    public void copySection(SectionedImageReader reader, String name) throws IOException {
+        boolean asIs = reader.isCompressed() == compressed;
+        DataOutputStream dos = beginSection(name, compressed && !asIs);
+        DataInputStream dis = asIs ? reader.openRawSection(name) : reader.openSection(name);
+        try {
+            byte[] buf = new byte[COPY_BUFFER_SIZE];
+            int n;
+            while ((n = dis.read(buf)) != -1) {
+                dos.write(buf, 0, n);
+            }
+        } finally {
+            dis.close();
+        }
+        endSection(reader.getSection(name).rawLength);
+    }
+
+    public List<SectionEntry> getSections() {
+        return sections;
+    }
+
+    // total length of all sections before compression
+    public long getRawLength() {
+        long rawLength = 0;
+        for (SectionEntry entry : sections) {
+            rawLength += entry.rawLength;
+        }
+        return rawLength;
+    }
+
+    /*
+     * Write the footer. Must be called after all sections are written.
+     */
+    public void finish() throws IOException {
+        Preconditions.checkState(curName == null, "section " + curName + " is not ended");
+        long footerOffset = out.getPosition();
+        DataOutputStream dos = new DataOutputStream(new UnclosableOutputStream(out));
+        dos.writeInt(sections.size());
+        for (SectionEntry entry : sections) {
+            Text.writeString(dos, entry.name);
+            dos.writeLong(entry.offset);
+            dos.writeLong(entry.length);
+            dos.writeLong(entry.crc);
+            if (compressed) {
+                dos.writeLong(entry.rawLength);
+            }
+        }
+        dos.writeLong(footerOffset);
+        dos.write(getMagic());
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // Count the bytes written to the underlying stream
+    private static class PositionOutputStream extends FilterOutputStream {
+        private long position = 0;
+
+        public PositionOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+    }
+
+    // The section stream should neither close nor flush the buffered file stream.
+    // The file stream is flushed only when the whole image is written.
+    private static class UnclosableOutputStream extends FilterOutputStream {
+        public UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
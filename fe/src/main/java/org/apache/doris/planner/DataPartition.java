@@ -59,7 +59,8 @@ public class DataPartition {
         Preconditions.checkNotNull(exprs);
         Preconditions.checkState(!exprs.isEmpty());
         Preconditions.checkState(
-          type == TPartitionType.HASH_PARTITIONED || type == TPartitionType.RANGE_PARTITIONED);
+          type == TPartitionType.HASH_PARTITIONED || type == TPartitionType.RANGE_PARTITIONED
+                  || type == TPartitionType.BUCKET_SHUFFLE_HASH_PARTITIONED);
         this.type = type;
         this.partitionExprs = ImmutableList.copyOf(exprs);
     }
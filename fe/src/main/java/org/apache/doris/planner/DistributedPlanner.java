@@ -22,8 +22,16 @@ import org.apache.doris.analysis.Expr;
 import org.apache.doris.analysis.InsertStmt;
 import org.apache.doris.analysis.JoinOperator;
 import org.apache.doris.analysis.QueryStmt;
+import org.apache.doris.analysis.SlotRef;
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.ColocateTableIndex;
+import org.apache.doris.catalog.Column;
+import org.apache.doris.catalog.DistributionInfo.DistributionInfoType;
+import org.apache.doris.catalog.HashDistributionInfo;
+import org.apache.doris.catalog.OlapTable;
 import org.apache.doris.catalog.Table;
 import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.Config;
 import org.apache.doris.common.UserException;
 import org.apache.doris.common.Pair;
 import org.apache.doris.thrift.TPartitionType;
@@ -188,7 +196,7 @@ public class DistributedPlanner {
         } else if (root instanceof HashJoinNode) {
             Preconditions.checkState(childFragments.size() == 2);
             result = createHashJoinFragment((HashJoinNode) root, childFragments.get(1),
-                    childFragments.get(0), perNodeMemLimit);
+                    childFragments.get(0), perNodeMemLimit, fragments);
         } else if (root instanceof CrossJoinNode) {
             result = createCrossJoinFragment((CrossJoinNode) root, childFragments.get(1),
                     childFragments.get(0));
@@ -274,8 +282,37 @@ public class DistributedPlanner {
      * don't create a broadcast join if we already anticipate that this will exceed the query's memory budget.
      */
     private PlanFragment createHashJoinFragment(HashJoinNode node, PlanFragment rightChildFragment,
-                                                PlanFragment leftChildFragment, long perNodeMemLimit)
+                                                PlanFragment leftChildFragment, long perNodeMemLimit,
+                                                ArrayList<PlanFragment> fragments)
             throws UserException {
+        if (!node.getInnerRef().isBroadcastJoin() && !node.getInnerRef().isPartitionJoin()) {
+            if (canColocateJoin(node, leftChildFragment, rightChildFragment)) {
+                node.setDistributionMode(HashJoinNode.DistributionMode.COLOCATE);
+                // the right child is scanned in the same instances as the left child,
+                // and the rightChildFragment is not needed any more
+                node.setChild(0, leftChildFragment.getPlanRoot());
+                node.setChild(1, rightChildFragment.getPlanRoot());
+                leftChildFragment.setPlanRoot(node);
+                fragments.remove(rightChildFragment);
+                setPushDown(node);
+                return leftChildFragment;
+            }
+
+            List<Expr> rhsBucketExprs = getBucketShuffleExprs(node, leftChildFragment);
+            if (rhsBucketExprs != null) {
+                node.setDistributionMode(HashJoinNode.DistributionMode.BUCKET_SHUFFLE);
+                // the output of the rightChildFragment is sent to the instances of leftChildFragment
+                // which scan the buckets of its rows
+                node.setChild(0, leftChildFragment.getPlanRoot());
+                connectChildFragment(node, 1, leftChildFragment, rightChildFragment);
+                leftChildFragment.setPlanRoot(node);
+                rightChildFragment.setOutputPartition(
+                        new DataPartition(TPartitionType.BUCKET_SHUFFLE_HASH_PARTITIONED, rhsBucketExprs));
+                setPushDown(node);
+                return leftChildFragment;
+            }
+        }
+
         // broadcast: send the rightChildFragment's output to each node executing
         // the leftChildFragment; the cost across all nodes is proportional to the
         // total amount of data sent
@@ -339,14 +376,7 @@ public class DistributedPlanner {
             node.setChild(0, leftChildFragment.getPlanRoot());
             connectChildFragment(node, 1, leftChildFragment, rightChildFragment);
             leftChildFragment.setPlanRoot(node);
-
-            if (!node.getJoinOp().isOuterJoin() && !node.getJoinOp().isSemiAntiJoin()) {
-                node.setIsPushDown(true);
-            }
-            // semi-join, only left semi join can pushDown
-            if (node.getJoinOp().isLeftSemiJoin()) {
-                node.setIsPushDown(true);
-            }
+            setPushDown(node);
             return leftChildFragment;
         } else {
             node.setDistributionMode(HashJoinNode.DistributionMode.PARTITIONED);
@@ -395,6 +425,144 @@ public class DistributedPlanner {
         }
     }
 
+    // Push down the join exprs to the left child if every row of the left child is joined with the whole hash table.
+    private void setPushDown(HashJoinNode node) {
+        if (!node.getJoinOp().isOuterJoin() && !node.getJoinOp().isSemiAntiJoin()) {
+            node.setIsPushDown(true);
+        }
+        // semi-join, only left semi join can pushDown
+        if (node.getJoinOp().isLeftSemiJoin()) {
+            node.setIsPushDown(true);
+        }
+    }
+
+    /*
+     * Return the scan of olap table in the fragment whose instances decide the distribution of rows of the plan
+     * root, ie. the scan reached by walking down the left children of joins and selects. Return null if there
+     * is none, or the fragment is not a random partitioned scan fragment.
+     */
+    private OlapScanNode getBucketedScanNode(PlanFragment fragment) {
+        if (fragment.getDataPartition().getType() != TPartitionType.RANDOM) {
+            return null;
+        }
+        PlanNode node = fragment.getPlanRoot();
+        while (node instanceof HashJoinNode || node instanceof CrossJoinNode || node instanceof SelectNode) {
+            node = node.getChild(0);
+        }
+        if (!(node instanceof OlapScanNode)) {
+            return null;
+        }
+        OlapScanNode scanNode = (OlapScanNode) node;
+        if (scanNode.getOlapTable().getDefaultDistributionInfo().getType() != DistributionInfoType.HASH
+                || scanNode.getBucketNum() <= 0) {
+            return null;
+        }
+        return scanNode;
+    }
+
+    private static List<Column> getDistributionColumns(OlapScanNode scanNode) {
+        return ((HashDistributionInfo) scanNode.getOlapTable().getDefaultDistributionInfo()).getDistributionColumns();
+    }
+
+    // Return true if the expr is a slot of the column of the table scanned by the scan node.
+    private static boolean isColumnOfScan(Expr expr, OlapScanNode scanNode, Column column) {
+        SlotRef slotRef = expr.unwrapSlotRef();
+        return slotRef != null && slotRef.getDesc() != null && slotRef.getDesc().getColumn() != null
+                && slotRef.getDesc().getParent().getId().equals(scanNode.getTupleIds().get(0))
+                && slotRef.getDesc().getColumn().getName().equalsIgnoreCase(column.getName());
+    }
+
+    /*
+     * Return the exprs of the right child which are joined with the distribution columns of the scan in the
+     * left child, in the order of the columns, null if the join is not on all of the columns.
+     */
+    private List<Expr> getRhsExprsOnDistributionColumns(HashJoinNode node, OlapScanNode leftScanNode) {
+        List<Expr> rhsExprs = Lists.newArrayList();
+        for (Column column : getDistributionColumns(leftScanNode)) {
+            Expr rhsExpr = null;
+            for (Pair<Expr, Expr> pair : node.getEqJoinConjuncts()) {
+                if (isColumnOfScan(pair.first, leftScanNode, column)) {
+                    rhsExpr = pair.second;
+                    break;
+                }
+            }
+            if (rhsExpr == null) {
+                return null;
+            }
+            rhsExprs.add(rhsExpr);
+        }
+        return rhsExprs;
+    }
+
+    /*
+     * The join is planned as a colocate join if the children are scans of olap tables in the same stable
+     * colocation group, and the join is on all the distribution columns of them. Rows with the same values of
+     * distribution columns are in the tablets of the same bucket seq of both tables, which are on the same
+     * backends, so the join is done locally by the instances scanning the buckets.
+     */
+    private boolean canColocateJoin(HashJoinNode node, PlanFragment leftChildFragment,
+                                    PlanFragment rightChildFragment) {
+        if (Config.disable_colocate_join || !(rightChildFragment.getPlanRoot() instanceof OlapScanNode)) {
+            return false;
+        }
+        OlapScanNode leftScanNode = getBucketedScanNode(leftChildFragment);
+        OlapScanNode rightScanNode = getBucketedScanNode(rightChildFragment);
+        if (leftScanNode == null || rightScanNode != rightChildFragment.getPlanRoot()) {
+            return false;
+        }
+        OlapTable leftTable = leftScanNode.getOlapTable();
+        OlapTable rightTable = rightScanNode.getOlapTable();
+        ColocateTableIndex colocateIndex = Catalog.getCurrentColocateIndex();
+        if (!colocateIndex.isSameGroup(leftTable.getId(), rightTable.getId())
+                || colocateIndex.isGroupUnstable(colocateIndex.getGroup(leftTable.getId()))) {
+            return false;
+        }
+
+        // the distribution columns of the left table should be joined with the distribution columns
+        // of the right table in the same order
+        List<Expr> rhsExprs = getRhsExprsOnDistributionColumns(node, leftScanNode);
+        if (rhsExprs == null) {
+            return false;
+        }
+        List<Column> rightDistributionColumns = getDistributionColumns(rightScanNode);
+        for (int i = 0; i < rhsExprs.size(); i++) {
+            if (!isColumnOfScan(rhsExprs.get(i), rightScanNode, rightDistributionColumns.get(i))) {
+                return false;
+            }
+        }
+        return OlapScanNode.getCommonBackendsPerBucket(Lists.newArrayList(leftScanNode, rightScanNode)) != null;
+    }
+
+    /*
+     * Return the exprs of the right child to shuffle its rows to the buckets of the scan of the olap table in
+     * the left child, null if the join can not be planned as a bucket shuffle join. The join should be on all
+     * the distribution columns of the table, and the exprs of the right child should have the same types as
+     * the columns, so the rows are hashed to the same buckets as the rows of the table.
+     */
+    private List<Expr> getBucketShuffleExprs(HashJoinNode node, PlanFragment leftChildFragment) {
+        if (!Config.enable_bucket_shuffle_join) {
+            return null;
+        }
+        OlapScanNode leftScanNode = getBucketedScanNode(leftChildFragment);
+        if (leftScanNode == null) {
+            return null;
+        }
+        List<Expr> rhsExprs = getRhsExprsOnDistributionColumns(node, leftScanNode);
+        if (rhsExprs == null) {
+            return null;
+        }
+        List<Column> distributionColumns = getDistributionColumns(leftScanNode);
+        for (int i = 0; i < rhsExprs.size(); i++) {
+            if (rhsExprs.get(i).getType().getPrimitiveType() != distributionColumns.get(i).getDataType()) {
+                return null;
+            }
+        }
+        if (OlapScanNode.getCommonBackendsPerBucket(Lists.newArrayList(leftScanNode)) == null) {
+            return null;
+        }
+        return Expr.cloneList(rhsExprs, null);
+    }
+
     /**
      * Modifies the leftChildFragment to execute a cross join. The right child input is provided by an ExchangeNode,
      * which is the destination of the rightChildFragment's output.
@@ -39,7 +39,6 @@ import org.apache.doris.analysis.TupleDescriptor;
 import org.apache.doris.catalog.Catalog;
 import org.apache.doris.catalog.EsTable;
 import org.apache.doris.catalog.PartitionInfo;
-import org.apache.doris.catalog.PartitionKey;
 import org.apache.doris.catalog.RangePartitionInfo;
 import org.apache.doris.common.AnalysisException;
 import org.apache.doris.common.UserException;
@@ -72,7 +71,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Range;
 import com.google.common.collect.Sets;
 
 public class EsScanNode extends ScanNode {
@@ -244,9 +242,8 @@ public class EsScanNode extends ScanNode {
         switch (partitionInfo.getType()) {
         case RANGE: {
             RangePartitionInfo rangePartitionInfo = (RangePartitionInfo) partitionInfo;
-            Map<Long, Range<PartitionKey>> keyRangeById = rangePartitionInfo.getIdToRange();
-            partitionPruner = new RangePartitionPruner(keyRangeById, rangePartitionInfo.getPartitionColumns(),
-                    columnFilters);
+            partitionPruner = new RangePartitionPruner(rangePartitionInfo.getPartitionIndex(),
+                    rangePartitionInfo.getPartitionColumns(), columnFilters);
             return partitionPruner.prune();
         }
         case UNPARTITIONED: {
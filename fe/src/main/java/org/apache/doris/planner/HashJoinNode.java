@@ -58,6 +58,8 @@ public class HashJoinNode extends PlanNode {
     private  List<Expr> otherJoinConjuncts;
     private boolean isPushDown;
     private DistributionMode distrMode;
+    // filters built from the build side, see RuntimeFilterGenerator
+    private List<RuntimeFilter> runtimeFilters = Lists.newArrayList();
 
     public HashJoinNode(PlanNodeId id, PlanNode outer, PlanNode inner, TableRef innerRef,
                         List<Pair<Expr, Expr>> eqJoinConjuncts, List<Expr> otherJoinConjuncts) {
@@ -111,6 +113,11 @@ public class HashJoinNode extends PlanNode {
         this.distrMode = distrMode;
     }
 
+    // Return true if the join is done by the instances scanning the buckets of the olap table on the left side.
+    public boolean isBucketJoin() {
+        return distrMode == DistributionMode.COLOCATE || distrMode == DistributionMode.BUCKET_SHUFFLE;
+    }
+
     @Override
     public void init(Analyzer analyzer) throws UserException {
         assignConjuncts(analyzer);
@@ -241,6 +248,19 @@ public class HashJoinNode extends PlanNode {
         this.isPushDown = isPushDown;
     }
 
+    public boolean isPushDown() {
+        return isPushDown;
+    }
+
+    public List<RuntimeFilter> getRuntimeFilters() {
+        return runtimeFilters;
+    }
+
+    // The local filters are only applied if the join is pushed down, see DistributedPlanner.setPushDown().
+    public void addRuntimeFilter(RuntimeFilter filter) {
+        runtimeFilters.add(filter);
+    }
+
     @Override
     protected void toThrift(TPlanNode msg) {
         msg.node_type = TPlanNodeType.HASH_JOIN_NODE;
@@ -255,6 +275,9 @@ public class HashJoinNode extends PlanNode {
             msg.hash_join_node.addToOther_join_conjuncts(e.treeToThrift());
         }
         msg.hash_join_node.setIs_push_down(isPushDown);
+        for (RuntimeFilter filter : runtimeFilters) {
+            msg.hash_join_node.addToRuntime_filters(filter.toThrift());
+        }
     }
 
     @Override
@@ -277,6 +300,13 @@ public class HashJoinNode extends PlanNode {
             output.append(detailPrefix + "other predicates: ").append(
               getExplainString(conjuncts) + "\n");
         }
+        if (!runtimeFilters.isEmpty()) {
+            output.append(detailPrefix + "runtime filters: ");
+            for (int i = 0; i < runtimeFilters.size(); i++) {
+                output.append(i > 0 ? ", " : "").append(runtimeFilters.get(i).getExplainString(true, null));
+            }
+            output.append("\n");
+        }
         return output.toString();
     }
 
@@ -285,10 +315,14 @@ public class HashJoinNode extends PlanNode {
         return Math.max(children.get(0).getNumInstances(), children.get(1).getNumInstances());
     }
 
-    enum DistributionMode {
+    public enum DistributionMode {
         NONE("NONE"),
         BROADCAST("BROADCAST"),
-        PARTITIONED("PARTITIONED");
+        PARTITIONED("PARTITIONED"),
+        // the left and right children are scans of tables in the same colocation group, joined locally
+        COLOCATE("COLOCATE"),
+        // the right child is shuffled to the buckets of the scan of the olap table on the left side
+        BUCKET_SHUFFLE("BUCKET_SHUFFLE");
 
         private final String description;
 
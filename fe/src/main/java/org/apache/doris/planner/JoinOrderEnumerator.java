@@ -0,0 +1,294 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.planner;
+
+import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.SlotRef;
+import org.apache.doris.analysis.TupleId;
+import org.apache.doris.catalog.ColumnStats;
+import org.apache.doris.common.AnalysisException;
+
+import com.google.common.collect.Lists;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+
+/*
+ * Choose the order of a sequence of inner joins, which are planned as a left-deep tree of joins in which
+ * the right child of every join, ie. the build side of hash table, is a single relation.
+ *
+ * The cost of a join is the rows of its probe side plus the rows of its build side weighted by
+ * BUILD_COST_FACTOR. The output of a join is the probe side of the next one, so the cost of a plan also
+ * grows with its intermediate results. The cheapest order is found by dynamic programming over the
+ * subsets of relations if there are at most MAX_DP_RELATIONS relations, otherwise by trying every relation
+ * as the leftmost one and greedily joining the relation with the least cost plus output rows after it.
+ * The greedy search only joins a relation without equal join conjuncts to the joined ones, ie. a cross join,
+ * if there is no other relation.
+ *
+ * The rows of a relation are estimated by the row counts of replicas of olap tables and the selectivity of
+ * the conjuncts of scans. The rows of the join of two inputs are estimated as
+ *   rows(left) * rows(right) / NDV
+ * in which NDV is the max NDV of the columns in the equal join conjuncts between them, as in HashJoinNode.
+ * If NDV of the columns is unknown, the join is assumed to be a join of foreign key and primary key.
+ */
+public class JoinOrderEnumerator {
+    private static final Logger LOG = LogManager.getLogger(JoinOrderEnumerator.class);
+
+    public static final int MAX_DP_RELATIONS = 10;
+
+    // building a hash table is several times more expensive than probing it, its memory is limited,
+    // and it is built on every backend of the probe side if the build side is broadcast
+    private static final double BUILD_COST_FACTOR = 4.0;
+    // selectivity of a conjunct of which the selectivity is unknown, same as Expr.DEFAULT_SELECTIVITY
+    private static final double DEFAULT_SELECTIVITY = 0.1;
+
+    private final Analyzer analyzer;
+
+    public JoinOrderEnumerator(Analyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    /*
+     * Return the cheapest order of joining the plans of relations, as the indexes of them.
+     * Return null if the rows of some relation can not be estimated.
+     */
+    public List<Integer> enumerate(List<PlanNode> relations) throws AnalysisException {
+        int num = relations.size();
+        double[] rows = new double[num];
+        for (int i = 0; i < num; i++) {
+            rows[i] = estimateCardinality(relations.get(i));
+            if (rows[i] < 0) {
+                LOG.debug("unknown cardinality of {}, keep the join order", relations.get(i).getId());
+                return null;
+            }
+        }
+        double[][] selectivities = new double[num][num];
+        for (int i = 0; i < num; i++) {
+            selectivities[i][i] = 1.0;
+            for (int j = i + 1; j < num; j++) {
+                double selectivity = estimateJoinSelectivity(relations.get(i), relations.get(j), rows[i], rows[j]);
+                selectivities[i][j] = selectivity;
+                selectivities[j][i] = selectivity;
+            }
+        }
+        return findCheapestOrder(rows, selectivities);
+    }
+
+    /*
+     * Estimate the output rows of a plan before it is finalized, -1 if unknown.
+     * Scans of olap tables are estimated by row counts of replicas, and the other nodes
+     * which are not estimated yet are estimated by their children.
+     */
+    private long estimateCardinality(PlanNode node) throws AnalysisException {
+        long rows;
+        if (node instanceof OlapScanNode) {
+            rows = ((OlapScanNode) node).estimateCardinality();
+            if (rows < 0) {
+                return -1;
+            }
+            double selectivity = 1.0;
+            for (Expr conjunct : node.getConjuncts()) {
+                selectivity *= conjunct.getSelectivity() >= 0 ? conjunct.getSelectivity() : DEFAULT_SELECTIVITY;
+            }
+            rows = Math.round(rows * selectivity);
+        } else if (node.getCardinality() >= 0) {
+            rows = node.getCardinality();
+        } else if (node.getChildren().isEmpty()) {
+            return -1;
+        } else {
+            // eg. the aggregation or the join in an inline view: as many as the largest child
+            rows = 0;
+            for (PlanNode child : node.getChildren()) {
+                long childRows = estimateCardinality(child);
+                if (childRows < 0) {
+                    return -1;
+                }
+                rows = node instanceof UnionNode ? rows + childRows : Math.max(rows, childRows);
+            }
+        }
+        if (node.hasLimit()) {
+            rows = Math.min(rows, node.getLimit());
+        }
+        return rows;
+    }
+
+    // Return 1.0 if there is no equal join conjunct between the two relations.
+    private double estimateJoinSelectivity(PlanNode left, PlanNode right, double leftRows, double rightRows) {
+        List<TupleId> lhsIds = left.getTblRefIds();
+        List<TupleId> rhsIds = right.getTblRefIds();
+        List<Expr> candidates = analyzer.getEqJoinConjuncts(lhsIds, rhsIds);
+        if (candidates == null) {
+            return 1.0;
+        }
+        boolean isJoined = false;
+        long maxNumDistinct = 0;
+        for (Expr e : candidates) {
+            if (e.getChild(0).isConstant() || e.getChild(1).isConstant()) {
+                continue;
+            }
+            if (!(e.getChild(0).isBoundByTupleIds(lhsIds) && e.getChild(1).isBoundByTupleIds(rhsIds))
+                    && !(e.getChild(0).isBoundByTupleIds(rhsIds) && e.getChild(1).isBoundByTupleIds(lhsIds))) {
+                continue;
+            }
+            isJoined = true;
+            maxNumDistinct = Math.max(maxNumDistinct, getNumDistinctValues(e.getChild(0)));
+            maxNumDistinct = Math.max(maxNumDistinct, getNumDistinctValues(e.getChild(1)));
+        }
+        if (!isJoined) {
+            return 1.0;
+        }
+        if (maxNumDistinct <= 0) {
+            // join of foreign key and primary key, whose output is as many as the foreign key side
+            maxNumDistinct = (long) Math.min(leftRows, rightRows);
+        }
+        return 1.0 / Math.max(maxNumDistinct, 1);
+    }
+
+    private static long getNumDistinctValues(Expr expr) {
+        SlotRef slotRef = expr.unwrapSlotRef();
+        if (slotRef == null || slotRef.getDesc() == null) {
+            return -1;
+        }
+        ColumnStats stats = slotRef.getDesc().getStats();
+        return stats.hasNumDistinctValues() ? stats.getNumDistinctValues() : -1;
+    }
+
+    /*
+     * Return the cheapest order of the relations with the given rows, in which selectivities[i][j] is the
+     * selectivity of the equal join conjuncts between relation i and j, 1.0 if there is none.
+     */
+    static List<Integer> findCheapestOrder(double[] rows, double[][] selectivities) {
+        if (rows.length <= MAX_DP_RELATIONS) {
+            return findCheapestOrderByDp(rows, selectivities);
+        }
+        return findCheapestOrderGreedily(rows, selectivities);
+    }
+
+    // Rows of joining relation 'right' to the set of relations 'left'.
+    private static double estimateJoinRows(double leftRows, int left, double rightRows, int right,
+                                           double[][] selectivities) {
+        double selectivity = 1.0;
+        for (int i = 0; i < selectivities.length; i++) {
+            if ((left & (1 << i)) != 0) {
+                selectivity = Math.min(selectivity, selectivities[i][right]);
+            }
+        }
+        return leftRows * rightRows * selectivity;
+    }
+
+    private static double estimateJoinCost(double leftRows, double rightRows) {
+        return leftRows + rightRows * BUILD_COST_FACTOR;
+    }
+
+    private static List<Integer> findCheapestOrderByDp(double[] rows, double[][] selectivities) {
+        int num = rows.length;
+        int numSets = 1 << num;
+        // the cheapest left-deep plan of every subset of relations
+        double[] costs = new double[numSets];
+        double[] outputRows = new double[numSets];
+        // the last joined relation of the cheapest plan
+        int[] lastRelations = new int[numSets];
+        for (int set = 1; set < numSets; set++) {
+            if (Integer.bitCount(set) == 1) {
+                int relation = Integer.numberOfTrailingZeros(set);
+                costs[set] = 0;
+                outputRows[set] = rows[relation];
+                lastRelations[set] = relation;
+                continue;
+            }
+            costs[set] = Double.MAX_VALUE;
+            for (int relation = 0; relation < num; relation++) {
+                if ((set & (1 << relation)) == 0) {
+                    continue;
+                }
+                int left = set & ~(1 << relation);
+                double joinRows = estimateJoinRows(outputRows[left], left, rows[relation], relation, selectivities);
+                double cost = costs[left] + estimateJoinCost(outputRows[left], rows[relation]);
+                if (cost < costs[set]) {
+                    costs[set] = cost;
+                    outputRows[set] = joinRows;
+                    lastRelations[set] = relation;
+                }
+            }
+        }
+
+        List<Integer> order = Lists.newArrayList();
+        int set = numSets - 1;
+        while (set != 0) {
+            order.add(0, lastRelations[set]);
+            set &= ~(1 << lastRelations[set]);
+        }
+        return order;
+    }
+
+    private static List<Integer> findCheapestOrderGreedily(double[] rows, double[][] selectivities) {
+        int num = rows.length;
+        List<Integer> bestOrder = null;
+        double bestCost = Double.MAX_VALUE;
+        for (int first = 0; first < num; first++) {
+            List<Integer> order = Lists.newArrayList(first);
+            boolean[] isJoined = new boolean[num];
+            isJoined[first] = true;
+            double cost = 0;
+            double leftRows = rows[first];
+            while (order.size() < num) {
+                int next = -1;
+                boolean isNextConnected = false;
+                double nextRank = Double.MAX_VALUE;
+                double nextCost = 0;
+                double nextRows = 0;
+                for (int relation = 0; relation < num; relation++) {
+                    if (isJoined[relation]) {
+                        continue;
+                    }
+                    double selectivity = 1.0;
+                    for (int joined : order) {
+                        selectivity = Math.min(selectivity, selectivities[joined][relation]);
+                    }
+                    boolean isConnected = selectivity < 1.0;
+                    if (isNextConnected && !isConnected) {
+                        continue;
+                    }
+                    double joinRows = leftRows * rows[relation] * selectivity;
+                    double joinCost = estimateJoinCost(leftRows, rows[relation]);
+                    // the output of the join is the probe side of the next one
+                    double rank = joinRows + joinCost;
+                    if ((isConnected && !isNextConnected) || rank < nextRank) {
+                        next = relation;
+                        isNextConnected = isConnected;
+                        nextRank = rank;
+                        nextCost = joinCost;
+                        nextRows = joinRows;
+                    }
+                }
+                order.add(next);
+                isJoined[next] = true;
+                cost += nextCost;
+                leftRows = nextRows;
+            }
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestOrder = order;
+            }
+        }
+        return bestOrder;
+    }
+}
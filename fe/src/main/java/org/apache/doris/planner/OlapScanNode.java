@@ -21,6 +21,7 @@ import org.apache.doris.analysis.Analyzer;
 import org.apache.doris.analysis.BaseTableRef;
 import org.apache.doris.analysis.Expr;
 import org.apache.doris.analysis.InPredicate;
+import org.apache.doris.analysis.IntLiteral;
 import org.apache.doris.analysis.SlotDescriptor;
 import org.apache.doris.analysis.TupleDescriptor;
 import org.apache.doris.catalog.Catalog;
@@ -33,17 +34,21 @@ import org.apache.doris.catalog.OlapTable;
 import org.apache.doris.catalog.Partition;
 import org.apache.doris.catalog.PartitionInfo;
 import org.apache.doris.catalog.PartitionKey;
+import org.apache.doris.catalog.PartitionType;
 import org.apache.doris.catalog.RangePartitionInfo;
 import org.apache.doris.catalog.Replica;
 import org.apache.doris.catalog.Tablet;
+import org.apache.doris.catalog.Type;
 import org.apache.doris.common.AnalysisException;
 import org.apache.doris.common.Config;
 import org.apache.doris.common.ErrorCode;
 import org.apache.doris.common.ErrorReport;
+import org.apache.doris.common.Pair;
 import org.apache.doris.common.UserException;
 import org.apache.doris.service.FrontendOptions;
 import org.apache.doris.system.Backend;
 import org.apache.doris.thrift.TExplainLevel;
+import org.apache.doris.thrift.TKeyRange;
 import org.apache.doris.thrift.TNetworkAddress;
 import org.apache.doris.thrift.TOlapScanNode;
 import org.apache.doris.thrift.TPaloScanRange;
@@ -57,6 +62,7 @@ import org.apache.doris.thrift.TScanRangeLocations;
 import com.google.common.base.Objects;
 import com.google.common.base.Objects.ToStringHelper;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Range;
@@ -70,6 +76,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -94,10 +101,22 @@ public class OlapScanNode extends ScanNode {
     private long selectedIndexId = -1;
     private int selectedPartitionNum = 0;
     private long totalBytes = 0;
+    // partition id -> (committed version, committed version hash) of the scanned partitions
+    private Map<Long, Pair<Long, Long>> scannedPartitionVersions = Maps.newHashMap();
 
     boolean isFinalized = false;
 
     private HashSet<Long> scanBackendIds = new HashSet<>();
+    // bucket seq -> scan ranges of the tablets of the bucket seq in all the selected partitions,
+    // the bucket seq of a tablet is its position in the tablets of its index
+    private ArrayListMultimap<Integer, TScanRangeLocations> bucketSeqToLocations = ArrayListMultimap.create();
+    // bucket nums of the selected partitions
+    private Set<Integer> bucketNums = Sets.newHashSet();
+    // partition id -> scan ranges of the partition
+    private ArrayListMultimap<Long, TPaloScanRange> partitionToScanRanges = ArrayListMultimap.create();
+    private boolean hasPartitionColumnRanges = false;
+    // runtime filters applied to this scan, see RuntimeFilterGenerator
+    private List<RuntimeFilter> runtimeFilters = Lists.newArrayList();
 
     /**
      * Constructs node to scan given data files of table 'tbl'.
@@ -125,6 +144,155 @@ public class OlapScanNode extends ScanNode {
         this.canTurnOnPreAggr = canChangePreAggr;
     }
 
+    public OlapTable getOlapTable() {
+        return olapTable;
+    }
+
+    // the versions are the ones in scan ranges, which may be older than current versions of partitions
+    public Map<Long, Pair<Long, Long>> getScannedPartitionVersions() {
+        return scannedPartitionVersions;
+    }
+
+    public ArrayListMultimap<Integer, TScanRangeLocations> getBucketSeqToLocations() {
+        return bucketSeqToLocations;
+    }
+
+    /*
+     * Return the ids of backends which have replicas of all the scan ranges of each bucket seq of the scan nodes,
+     * null if there is no such backend for some bucket seq. The scan ranges of a bucket seq should be scanned by
+     * one instance if the scan nodes are in a fragment which joins rows of the same buckets.
+     */
+    public static Map<Integer, Set<Long>> getCommonBackendsPerBucket(List<OlapScanNode> scanNodes) {
+        Map<Integer, Set<Long>> bucketSeqToBackendIds = Maps.newHashMap();
+        for (OlapScanNode scanNode : scanNodes) {
+            for (Map.Entry<Integer, TScanRangeLocations> entry : scanNode.bucketSeqToLocations.entries()) {
+                Set<Long> backendIds = Sets.newHashSet();
+                for (TScanRangeLocation location : entry.getValue().getLocations()) {
+                    backendIds.add(location.getBackend_id());
+                }
+                Set<Long> commonBackendIds = bucketSeqToBackendIds.get(entry.getKey());
+                if (commonBackendIds == null) {
+                    bucketSeqToBackendIds.put(entry.getKey(), backendIds);
+                } else {
+                    commonBackendIds.retainAll(backendIds);
+                }
+            }
+        }
+        for (Set<Long> backendIds : bucketSeqToBackendIds.values()) {
+            if (backendIds.isEmpty()) {
+                return null;
+            }
+        }
+        return bucketSeqToBackendIds;
+    }
+
+    public List<RuntimeFilter> getRuntimeFilters() {
+        return runtimeFilters;
+    }
+
+    public void addRuntimeFilter(RuntimeFilter filter) {
+        runtimeFilters.add(filter);
+    }
+
+    /*
+     * Set the range of the partition column in the scan ranges if the column is the only partition column, so
+     * backends drop the scan ranges of the partitions whose ranges do not intersect with the values of the
+     * predicates on the column, including the runtime filters pushed down to the scan. Backends only support
+     * integer columns.
+     */
+    public void addPartitionColumnRanges(Column column) {
+        if (column == null || hasPartitionColumnRanges
+                || olapTable.getPartitionInfo().getType() != PartitionType.RANGE) {
+            return;
+        }
+        RangePartitionInfo partitionInfo = (RangePartitionInfo) olapTable.getPartitionInfo();
+        List<Column> partitionColumns = partitionInfo.getPartitionColumns();
+        if (partitionColumns.size() != 1 || !partitionColumns.get(0).getName().equalsIgnoreCase(column.getName())
+                || !column.getDataType().isIntegerType()) {
+            return;
+        }
+        for (Map.Entry<Long, Collection<TPaloScanRange>> entry : partitionToScanRanges.asMap().entrySet()) {
+            Range<PartitionKey> range = partitionInfo.getRange(entry.getKey());
+            if (range == null) {
+                continue;
+            }
+            TKeyRange keyRange = new TKeyRange();
+            keyRange.setBegin_key(range.lowerEndpoint().getKeys().get(0).getLongValue());
+            // the upper bound is exclusive unless it is MAXVALUE, which is the max value of the column type
+            if (range.upperEndpoint().isMaxValue()) {
+                keyRange.setEnd_key(IntLiteral.createMaxValue(Type.fromPrimitiveType(column.getDataType()))
+                        .getLongValue());
+            } else {
+                keyRange.setEnd_key(range.upperEndpoint().getKeys().get(0).getLongValue() - 1);
+            }
+            keyRange.setColumn_type(column.getDataType().toThrift());
+            keyRange.setColumn_name(column.getName());
+            for (TPaloScanRange scanRange : entry.getValue()) {
+                scanRange.addToPartition_column_ranges(keyRange);
+            }
+        }
+        hasPartitionColumnRanges = true;
+    }
+
+    // Return the bucket num of the selected partitions, -1 if they have different bucket nums.
+    public int getBucketNum() {
+        if (bucketNums.size() != 1) {
+            return bucketNums.isEmpty() ? 0 : -1;
+        }
+        return bucketNums.iterator().next();
+    }
+
+    /*
+     * Estimate the rows of the partitions left after partition pruning, before scan ranges are computed.
+     * The rows are the row counts of replicas of base index, or the row counts collected by ANALYZE TABLE
+     * if replicas are not reported yet. Conjuncts are not considered.
+     */
+    public long estimateCardinality() throws AnalysisException {
+        Collection<Long> partitionIds = partitionPrune(olapTable.getPartitionInfo());
+        if (partitionIds == null) {
+            partitionIds = new ArrayList<Long>();
+            for (Partition partition : olapTable.getPartitions()) {
+                partitionIds.add(partition.getId());
+            }
+        }
+        long rows = 0;
+        for (Long partitionId : partitionIds) {
+            Partition partition = olapTable.getPartition(partitionId);
+            long partitionRows = partition.getBaseIndex().getRowCount();
+            if (partitionRows <= 0 && partition.getColumnStats() != null) {
+                partitionRows = partition.getColumnStats().getRowCount();
+            }
+            rows += partitionRows;
+        }
+        return rows;
+    }
+
+    /*
+     * Scan at most num of the selected tablets, which are chosen evenly. Used to collect statistics by sampling.
+     * Return the number of the selected tablets before sampling.
+     */
+    public int sampleTablets(int num) {
+        int tabletNum = result.size();
+        if (num <= 0 || tabletNum <= num) {
+            return tabletNum;
+        }
+        List<TScanRangeLocations> sampled = Lists.newArrayListWithCapacity(num);
+        for (int i = 0; i < num; i++) {
+            sampled.add(result.get((int) ((long) i * tabletNum / num)));
+        }
+        result = sampled;
+        Set<TScanRangeLocations> sampledSet = Sets.newIdentityHashSet();
+        sampledSet.addAll(sampled);
+        Iterator<Map.Entry<Integer, TScanRangeLocations>> iter = bucketSeqToLocations.entries().iterator();
+        while (iter.hasNext()) {
+            if (!sampledSet.contains(iter.next().getValue())) {
+                iter.remove();
+            }
+        }
+        selectedTabletsNum = num;
+        return tabletNum;
+    }
+
     @Override
     protected String debugString() {
         ToStringHelper helper = Objects.toStringHelper(this);
@@ -354,9 +522,8 @@ public class OlapScanNode extends ScanNode {
             case RANGE: {
                 BaseTableRef ref = (BaseTableRef) desc.getRef();
                 RangePartitionInfo rangePartitionInfo = (RangePartitionInfo) partitionInfo;
-                Map<Long, Range<PartitionKey>> keyRangeById = null;
                 if (ref.getPartitions() != null) {
-                    keyRangeById = Maps.newHashMap();
+                    Map<Long, Range<PartitionKey>> keyRangeById = Maps.newHashMap();
                     for (String partName : ref.getPartitions()) {
                         Partition part = olapTable.getPartition(partName);
                         if (part == null) {
@@ -364,12 +531,14 @@ public class OlapScanNode extends ScanNode {
                         }
                         keyRangeById.put(part.getId(), rangePartitionInfo.getRange(part.getId()));
                     }
+                    partitionPruner = new RangePartitionPruner(keyRangeById,
+                                                               rangePartitionInfo.getPartitionColumns(),
+                                                               columnFilters);
                 } else {
-                    keyRangeById = rangePartitionInfo.getIdToRange();
+                    partitionPruner = new RangePartitionPruner(rangePartitionInfo.getPartitionIndex(),
+                                                               rangePartitionInfo.getPartitionColumns(),
+                                                               columnFilters);
                 }
-                partitionPruner = new RangePartitionPruner(keyRangeById,
-                                                           rangePartitionInfo.getPartitionColumns(),
-                                                           columnFilters);
                 return partitionPruner.prune();
             }
             case UNPARTITIONED: {
@@ -415,6 +584,13 @@ public class OlapScanNode extends ScanNode {
         long committedVersionHash = partition.getCommittedVersionHash();
         String committedVersionStr = String.valueOf(committedVersion);
         String committedVersionHashStr = String.valueOf(partition.getCommittedVersionHash());
+        scannedPartitionVersions.put(partition.getId(), Pair.create(committedVersion, committedVersionHash));
+        bucketNums.add(partition.getDistributionInfo().getBucketNum());
+        Map<Long, Integer> tabletIdToBucketSeq = Maps.newHashMap();
+        List<Long> tabletIdsInOrder = index.getTabletIdsInOrder();
+        for (int i = 0; i < tabletIdsInOrder.size(); i++) {
+            tabletIdToBucketSeq.put(tabletIdsInOrder.get(i), i);
+        }
 
         for (Tablet tablet : tablets) {
             long tabletId = tablet.getId();
@@ -480,6 +656,8 @@ public class OlapScanNode extends ScanNode {
             scanRange.setPalo_scan_range(paloRange);
             scanRangeLocations.setScan_range(scanRange);
             result.add(scanRangeLocations);
+            bucketSeqToLocations.put(tabletIdToBucketSeq.get(tabletId), scanRangeLocations);
+            partitionToScanRanges.put(partition.getId(), paloRange);
         }
     }
 
@@ -636,6 +814,14 @@ public class OlapScanNode extends ScanNode {
                 "numNodes=%s", numNodes));
         output.append("\n");
 
+        if (!runtimeFilters.isEmpty()) {
+            output.append(prefix).append("runtime filters: ");
+            for (int i = 0; i < runtimeFilters.size(); i++) {
+                output.append(i > 0 ? ", " : "").append(runtimeFilters.get(i).getExplainString(false, this));
+            }
+            output.append("\n");
+        }
+
         return output.toString();
     }
 
@@ -663,6 +849,9 @@ public class OlapScanNode extends ScanNode {
         if (null != sortColumn) {
             msg.olap_scan_node.setSort_column(sortColumn);
         }
+        for (RuntimeFilter filter : runtimeFilters) {
+            msg.addToRuntime_filters(filter.toThrift());
+        }
     }
 
     // export some tablets
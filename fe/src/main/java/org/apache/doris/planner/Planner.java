@@ -177,6 +177,7 @@ public class Planner {
         }
 
         PlanFragment rootFragment = fragments.get(fragments.size() - 1);
+        RuntimeFilterGenerator.generateRuntimeFilters(analyzer, rootFragment.getPlanRoot());
         if (statment instanceof InsertStmt) {
             InsertStmt insertStmt = (InsertStmt) statment;
             rootFragment = distributedPlanner.createInsertFragment(rootFragment, insertStmt, fragments);
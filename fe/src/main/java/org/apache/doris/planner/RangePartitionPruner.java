@@ -22,15 +22,14 @@ import org.apache.doris.analysis.LiteralExpr;
 import org.apache.doris.analysis.NullLiteral;
 import org.apache.doris.catalog.Column;
 import org.apache.doris.catalog.PartitionKey;
+import org.apache.doris.catalog.RangePartitionIndex;
 import org.apache.doris.catalog.Type;
 import org.apache.doris.common.AnalysisException;
 
 import com.google.common.collect.BoundType;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Range;
-import com.google.common.collect.RangeMap;
 import com.google.common.collect.Sets;
-import com.google.common.collect.TreeRangeMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -43,19 +42,26 @@ import java.util.Set;
 public class RangePartitionPruner implements PartitionPruner {
     private static final Logger LOG = LogManager.getLogger(RangePartitionPruner.class);
 
-    private Map<Long, Range<PartitionKey>> partitionRangeMap;
+    private RangePartitionIndex partitionIndex;
     private List<Column> partitionColumns;
     private Map<String, PartitionColumnFilter> partitionColumnFilters;
 
     public RangePartitionPruner(Map<Long, Range<PartitionKey>> rangeMap,
                                 List<Column> columns,
                                 Map<String, PartitionColumnFilter> filters) {
-        partitionRangeMap = rangeMap;
+        this(RangePartitionIndex.create(rangeMap), columns, filters);
+    }
+
+    // the index is usually the one cached in RangePartitionInfo, to avoid sorting partitions for every query
+    public RangePartitionPruner(RangePartitionIndex index,
+                                List<Column> columns,
+                                Map<String, PartitionColumnFilter> filters) {
+        partitionIndex = index;
         partitionColumns = columns;
         partitionColumnFilters = filters;
     }
 
-    private Collection<Long> prune(RangeMap<PartitionKey, Long> rangeMap,
+    private Collection<Long> prune(RangePartitionIndex index,
                                    int columnId,
                                    PartitionKey minKey,
                                    PartitionKey maxKey,
@@ -65,7 +71,7 @@ public class RangePartitionPruner implements PartitionPruner {
         // the last column in partition Key
         if (columnId == partitionColumns.size()) {
             try {
-                return Lists.newArrayList(rangeMap.subRangeMap(Range.closed(minKey, maxKey)).asMapOfRanges().values());
+                return index.getIntersected(Range.closed(minKey, maxKey));
             } catch (IllegalArgumentException e) {
                 return Lists.newArrayList();
             }
@@ -80,8 +86,7 @@ public class RangePartitionPruner implements PartitionPruner {
                     keyColumn.getDataType());
             Collection<Long> result = null;
             try {
-                result = Lists.newArrayList(
-                        rangeMap.subRangeMap(Range.closed(minKey, maxKey)).asMapOfRanges().values());
+                result = index.getIntersected(Range.closed(minKey, maxKey));
             } catch (IllegalArgumentException e) {
                 result = Lists.newArrayList();
             }
@@ -104,7 +109,7 @@ public class RangePartitionPruner implements PartitionPruner {
                     minKey.pushColumn(filter.lowerBound, keyColumn.getDataType());
                     maxKey.pushColumn(filter.upperBound, keyColumn.getDataType());
                 }
-                Collection<Long> result = prune(rangeMap, columnId + 1, minKey, maxKey, complex);
+                Collection<Long> result = prune(index, columnId + 1, minKey, maxKey, complex);
                 minKey.popColumn();
                 maxKey.popColumn();
                 return result;
@@ -146,8 +151,7 @@ public class RangePartitionPruner implements PartitionPruner {
 
             Collection<Long> result = null;
             try {
-                result = Lists.newArrayList(rangeMap.subRangeMap(
-                            Range.range(minKey, lowerType, maxKey, upperType)).asMapOfRanges().values());
+                result = index.getIntersected(Range.range(minKey, lowerType, maxKey, upperType));
             } catch (IllegalArgumentException e) {
                 result = Lists.newArrayList();
             }
@@ -167,7 +171,7 @@ public class RangePartitionPruner implements PartitionPruner {
             LiteralExpr expr = (LiteralExpr) inPredicate.getChild(i);
             minKey.pushColumn(expr, keyColumn.getDataType());
             maxKey.pushColumn(expr, keyColumn.getDataType());
-            Collection<Long> subList = prune(rangeMap, columnId + 1, minKey, maxKey, newComplex);
+            Collection<Long> subList = prune(index, columnId + 1, minKey, maxKey, newComplex);
             for (long partId : subList) {
                 resultSet.add(partId);
             }
@@ -181,11 +185,6 @@ public class RangePartitionPruner implements PartitionPruner {
     public Collection<Long> prune() throws AnalysisException {
         PartitionKey minKey = new PartitionKey();
         PartitionKey maxKey = new PartitionKey();
-        // Map to RangeMapTree
-        RangeMap<PartitionKey, Long> rangeMap = TreeRangeMap.create();
-        for (Map.Entry<Long, Range<PartitionKey>> entry : partitionRangeMap.entrySet()) {
-            rangeMap.put(entry.getValue(), entry.getKey());
-        }
-        return prune(rangeMap, 0, minKey, maxKey, 1);
+        return prune(partitionIndex, 0, minKey, maxKey, 1);
     }
 }
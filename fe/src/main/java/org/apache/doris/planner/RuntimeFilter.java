@@ -0,0 +1,172 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.planner;
+
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.thrift.TRuntimeFilterDesc;
+import org.apache.doris.thrift.TRuntimeFilterType;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/*
+ * A filter built from the values of the build side expr of an equal join conjunct of a hash join, after the
+ * hash table is built. It is applied to the probe side expr of the conjunct by the scan nodes on the probe
+ * side, so rows which can not be joined are filtered out before they are read and sent.
+ *
+ * A target in the same fragment as the join is local, the filter is pushed down to it by the join directly.
+ * Otherwise the target is remote, the filters built by the instances of the join are sent to the instance
+ * merging runtime filters, which sends the merged filter to the instances of the target. If the join is not
+ * a broadcast join, each instance of the join only builds the filter of its part of the build side, so all
+ * of them have to be merged.
+ */
+public class RuntimeFilter {
+    private final RuntimeFilterId id;
+    private final HashJoinNode builderNode;
+    private final TRuntimeFilterType type;
+    // the build side expr of the equal join conjunct
+    private final Expr srcExpr;
+    // index of the conjunct in the equal join conjuncts of the join
+    private final int exprOrder;
+    private final List<RuntimeFilterTarget> targets = Lists.newArrayList();
+
+    // for IN filters
+    private int maxInNum = -1;
+    // for BLOOM filters
+    private long bloomFilterSizeBytes = -1;
+
+    public static class RuntimeFilterTarget {
+        public final OlapScanNode node;
+        // the probe side expr, which is bound by the tuple of the scan node
+        public final Expr expr;
+        public final boolean isLocal;
+
+        public RuntimeFilterTarget(OlapScanNode node, Expr expr, boolean isLocal) {
+            this.node = node;
+            this.expr = expr;
+            this.isLocal = isLocal;
+        }
+    }
+
+    public RuntimeFilter(RuntimeFilterId id, HashJoinNode builderNode, TRuntimeFilterType type,
+                         Expr srcExpr, int exprOrder) {
+        this.id = id;
+        this.builderNode = builderNode;
+        this.type = type;
+        this.srcExpr = srcExpr;
+        this.exprOrder = exprOrder;
+    }
+
+    public RuntimeFilterId getId() {
+        return id;
+    }
+
+    public HashJoinNode getBuilderNode() {
+        return builderNode;
+    }
+
+    public TRuntimeFilterType getType() {
+        return type;
+    }
+
+    public Expr getSrcExpr() {
+        return srcExpr;
+    }
+
+    public int getExprOrder() {
+        return exprOrder;
+    }
+
+    public List<RuntimeFilterTarget> getTargets() {
+        return targets;
+    }
+
+    public void addTarget(RuntimeFilterTarget target) {
+        targets.add(target);
+    }
+
+    public void setMaxInNum(int maxInNum) {
+        this.maxInNum = maxInNum;
+    }
+
+    public void setBloomFilterSizeBytes(long bloomFilterSizeBytes) {
+        this.bloomFilterSizeBytes = bloomFilterSizeBytes;
+    }
+
+    // Return true if every instance of the join builds the whole filter.
+    public boolean isBroadcastJoin() {
+        HashJoinNode.DistributionMode distrMode = builderNode.getDistributionMode();
+        return distrMode == HashJoinNode.DistributionMode.BROADCAST || distrMode == HashJoinNode.DistributionMode.NONE;
+    }
+
+    public boolean hasLocalTargets() {
+        for (RuntimeFilterTarget target : targets) {
+            if (target.isLocal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasRemoteTargets() {
+        for (RuntimeFilterTarget target : targets) {
+            if (!target.isLocal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public TRuntimeFilterDesc toThrift() {
+        TRuntimeFilterDesc tFilter = new TRuntimeFilterDesc();
+        tFilter.setFilter_id(id.asInt());
+        tFilter.setType(type);
+        tFilter.setSrc_expr(srcExpr.treeToThrift());
+        tFilter.setExpr_order(exprOrder);
+        for (RuntimeFilterTarget target : targets) {
+            tFilter.putToPlan_id_to_target_expr(target.node.getId().asInt(), target.expr.treeToThrift());
+        }
+        tFilter.setIs_broadcast_join(isBroadcastJoin());
+        tFilter.setHas_local_targets(hasLocalTargets());
+        tFilter.setHas_remote_targets(hasRemoteTargets());
+        if (maxInNum >= 0) {
+            tFilter.setMax_in_num(maxInNum);
+        }
+        if (bloomFilterSizeBytes > 0) {
+            tFilter.setBloom_filter_size_bytes(bloomFilterSizeBytes);
+        }
+        return tFilter;
+    }
+
+    // eg. "RF000[in] <- `b`.`k1`" for the join, "RF000[in] -> `a`.`k1`" for the target
+    public String getExplainString(boolean isBuildNode, OlapScanNode targetNode) {
+        StringBuilder output = new StringBuilder();
+        output.append(id).append("[").append(type.toString().toLowerCase()).append("]");
+        if (isBuildNode) {
+            output.append(" <- ").append(srcExpr.toSql());
+        } else {
+            for (RuntimeFilterTarget target : targets) {
+                if (target.node == targetNode) {
+                    output.append(" -> ").append(target.expr.toSql());
+                }
+            }
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,250 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.planner;
+
+import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.JoinOperator;
+import org.apache.doris.analysis.SlotRef;
+import org.apache.doris.analysis.TupleId;
+import org.apache.doris.catalog.ColumnStats;
+import org.apache.doris.catalog.PrimitiveType;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.IdGenerator;
+import org.apache.doris.common.Pair;
+import org.apache.doris.qe.SessionVariable;
+import org.apache.doris.thrift.TRuntimeFilterType;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+
+/*
+ * Generate runtime filters of hash joins after the plan is distributed into fragments, see RuntimeFilter.
+ *
+ * A filter is generated for an equal join conjunct "<probe expr> = <build expr>" of a join whose output rows
+ * all match some rows of the build side, ie. the probe rows which match no build rows are dropped, if the
+ * probe expr is a slot of the tuple of an olap scan on the probe side. The scan is found by going down the
+ * nodes which materialize the tuple, and only the nodes which pass the rows of the tuple through are crossed,
+ * ie. joins, selects and exchanges without limit.
+ *
+ * If the join is a colocate or bucket shuffle join, each instance only builds the hash table of the buckets
+ * it scans, so its filter can only be applied locally to the scan of the buckets, ie. the leftmost scan.
+ *
+ * The types of filters and the number of them are limited by session variables. Backends only apply the local
+ * IN and MIN_MAX filters of pushed down joins for now, so only these filters count towards the max number, the
+ * others are planned and shown in explain but cost nothing at runtime. The probe exprs of pushed down joins
+ * without local IN filters, eg. the exprs which are not slots, still get the IN predicates which backends push
+ * down for small hash tables.
+ */
+public final class RuntimeFilterGenerator {
+    private static final Logger LOG = LogManager.getLogger(RuntimeFilterGenerator.class);
+
+    // bits of a bloom filter per value, which makes the false positive rate about 1%
+    private static final int BLOOM_FILTER_BITS_PER_VALUE = 10;
+
+    private final IdGenerator<RuntimeFilterId> filterIdGenerator = RuntimeFilterId.createGenerator();
+    private final SessionVariable sessionVariable;
+    private final List<TRuntimeFilterType> filterTypes;
+    private int numFilters = 0;
+
+    private RuntimeFilterGenerator(SessionVariable sessionVariable, List<TRuntimeFilterType> filterTypes) {
+        this.sessionVariable = sessionVariable;
+        this.filterTypes = filterTypes;
+    }
+
+    public static void generateRuntimeFilters(Analyzer analyzer, PlanNode plan) throws AnalysisException {
+        if (analyzer.getContext() == null) {
+            return;
+        }
+        SessionVariable sessionVariable = analyzer.getContext().getSessionVariable();
+        List<TRuntimeFilterType> filterTypes = parseFilterTypes(sessionVariable.getRuntimeFilterType());
+        if (filterTypes.isEmpty() || sessionVariable.getRuntimeFiltersMaxNum() <= 0) {
+            return;
+        }
+        new RuntimeFilterGenerator(sessionVariable, filterTypes).generateFilters(plan);
+    }
+
+    // Parse the types separated by comma, eg. "IN,MIN_MAX".
+    static List<TRuntimeFilterType> parseFilterTypes(String str) throws AnalysisException {
+        List<TRuntimeFilterType> filterTypes = Lists.newArrayList();
+        if (Strings.isNullOrEmpty(str)) {
+            return filterTypes;
+        }
+        for (String typeStr : str.split(",")) {
+            typeStr = typeStr.trim();
+            if (typeStr.isEmpty()) {
+                continue;
+            }
+            TRuntimeFilterType type = null;
+            for (TRuntimeFilterType t : TRuntimeFilterType.values()) {
+                if (t.name().equalsIgnoreCase(typeStr)) {
+                    type = t;
+                }
+            }
+            if (type == null) {
+                throw new AnalysisException("Unknown runtime filter type: " + typeStr);
+            }
+            if (!filterTypes.contains(type)) {
+                filterTypes.add(type);
+            }
+        }
+        return filterTypes;
+    }
+
+    private void generateFilters(PlanNode node) {
+        if (node instanceof HashJoinNode) {
+            generateFilters((HashJoinNode) node);
+        }
+        // children of exchange nodes are the roots of other fragments
+        for (PlanNode child : node.getChildren()) {
+            generateFilters(child);
+        }
+    }
+
+    private void generateFilters(HashJoinNode joinNode) {
+        if (!canFilterProbeSide(joinNode.getJoinOp())) {
+            return;
+        }
+        List<Pair<Expr, Expr>> eqJoinConjuncts = joinNode.getEqJoinConjuncts();
+        for (int i = 0; i < eqJoinConjuncts.size(); i++) {
+            Expr probeExpr = eqJoinConjuncts.get(i).first;
+            Expr buildExpr = eqJoinConjuncts.get(i).second;
+            if (!(probeExpr instanceof SlotRef) || ((SlotRef) probeExpr).getDesc() == null
+                    || probeExpr.getType().getPrimitiveType() != buildExpr.getType().getPrimitiveType()) {
+                continue;
+            }
+            SlotRef slotRef = (SlotRef) probeExpr;
+            OlapScanNode scanNode = findTargetScanNode(joinNode.getChild(0), slotRef.getDesc().getParent().getId());
+            if (scanNode == null) {
+                continue;
+            }
+            boolean isLocal = scanNode.getFragment() == joinNode.getFragment();
+            if (isLocal && joinNode.isBucketJoin() && scanNode != getLeftmostScanNode(joinNode)) {
+                continue;
+            }
+
+            for (TRuntimeFilterType type : filterTypes) {
+                if (numFilters >= sessionVariable.getRuntimeFiltersMaxNum()) {
+                    return;
+                }
+                if (!isSupportedType(type, probeExpr.getType().getPrimitiveType())) {
+                    continue;
+                }
+                long buildCardinality = joinNode.getChild(1).getCardinality();
+                if (type == TRuntimeFilterType.IN && buildCardinality > sessionVariable.getRuntimeFilterMaxInNum()) {
+                    continue;
+                }
+
+                RuntimeFilter filter = new RuntimeFilter(filterIdGenerator.getNextId(), joinNode, type, buildExpr, i);
+                filter.addTarget(new RuntimeFilter.RuntimeFilterTarget(scanNode, probeExpr, isLocal));
+                if (type == TRuntimeFilterType.IN) {
+                    filter.setMaxInNum(sessionVariable.getRuntimeFilterMaxInNum());
+                } else if (type == TRuntimeFilterType.BLOOM) {
+                    filter.setBloomFilterSizeBytes(estimateBloomFilterSize(buildExpr, buildCardinality));
+                }
+                joinNode.addRuntimeFilter(filter);
+                scanNode.addRuntimeFilter(filter);
+                // the scan ranges of partitions can be pruned by the filters on the partition column
+                scanNode.addPartitionColumnRanges(slotRef.getDesc().getColumn());
+                if (isLocal && joinNode.isPushDown() && type != TRuntimeFilterType.BLOOM) {
+                    numFilters++;
+                }
+                LOG.debug("generate runtime filter {} of join {} on scan {}",
+                          filter.getId(), joinNode.getId(), scanNode.getId());
+            }
+        }
+    }
+
+    /*
+     * Return true if the join drops the probe rows which match no build rows, and its probe side may be opened
+     * after the hash table is built, ie. the join types pushed down by DistributedPlanner. Right outer, right semi
+     * and right anti joins also drop such rows, but they are not pushed down.
+     */
+    private static boolean canFilterProbeSide(JoinOperator joinOp) {
+        return joinOp == JoinOperator.INNER_JOIN || joinOp == JoinOperator.LEFT_SEMI_JOIN;
+    }
+
+    private static boolean isSupportedType(TRuntimeFilterType filterType, PrimitiveType type) {
+        if (filterType == TRuntimeFilterType.MIN_MAX) {
+            return type.isIntegerType() || type.isDateType();
+        }
+        return type.isNumericType() || type.isDateType() || type == PrimitiveType.CHAR
+                || type == PrimitiveType.VARCHAR;
+    }
+
+    // Return the olap scan materializing the tuple, null if the rows of the tuple can not be filtered by it.
+    private static OlapScanNode findTargetScanNode(PlanNode node, TupleId tupleId) {
+        if (node.hasLimit() || !node.getTupleIds().contains(tupleId)) {
+            return null;
+        }
+        if (node instanceof OlapScanNode) {
+            return (OlapScanNode) node;
+        }
+        if (!(node instanceof HashJoinNode || node instanceof CrossJoinNode
+                || node instanceof SelectNode || node instanceof ExchangeNode)) {
+            return null;
+        }
+        for (PlanNode child : node.getChildren()) {
+            if (child.getTupleIds().contains(tupleId)) {
+                return findTargetScanNode(child, tupleId);
+            }
+        }
+        return null;
+    }
+
+    // the scan of the buckets of a colocate or bucket shuffle join
+    private static OlapScanNode getLeftmostScanNode(HashJoinNode joinNode) {
+        PlanNode node = joinNode.getChild(0);
+        while (node instanceof HashJoinNode || node instanceof CrossJoinNode || node instanceof SelectNode) {
+            node = node.getChild(0);
+        }
+        return node instanceof OlapScanNode ? (OlapScanNode) node : null;
+    }
+
+    // Estimate the size by the number of distinct values of the build side, between the min and max size.
+    private long estimateBloomFilterSize(Expr buildExpr, long buildCardinality) {
+        long numValues = buildCardinality;
+        SlotRef slotRef = buildExpr.unwrapSlotRef();
+        if (slotRef != null && slotRef.getDesc() != null) {
+            ColumnStats stats = slotRef.getDesc().getStats();
+            if (stats.hasNumDistinctValues() && (numValues < 0 || stats.getNumDistinctValues() < numValues)) {
+                numValues = stats.getNumDistinctValues();
+            }
+        }
+        if (numValues < 0) {
+            return sessionVariable.getRuntimeBloomFilterSize();
+        }
+        return getBloomFilterSize(numValues, sessionVariable.getRuntimeBloomFilterMinSize(),
+                                  sessionVariable.getRuntimeBloomFilterMaxSize());
+    }
+
+    // the smallest power of 2 bytes holding the bits of the values, between the min and max size
+    static long getBloomFilterSize(long numValues, long minSize, long maxSize) {
+        long bytes = Math.max(numValues * BLOOM_FILTER_BITS_PER_VALUE / 8, 1L);
+        long size = Long.highestOneBit(bytes);
+        if (size < bytes) {
+            size <<= 1;
+        }
+        return Math.max(Math.min(size, maxSize), minSize);
+    }
+}
@@ -654,10 +654,16 @@ public class SingleNodePlanner {
             rowTuples.addAll(tblRef.getMaterializedTupleIds());
         }
         
+        // plans of the table refs which are created to reorder joins
+        Map<TableRef, PlanNode> tblRefPlans = reorderJoins(selectStmt, analyzer);
+
         // create left-deep sequence of binary hash joins; assign node ids as we go along
         TableRef tblRef = selectStmt.getTableRefs().get(0);
-        materializeTableResultForCrossJoinOrCountStar(tblRef, analyzer);
-        PlanNode root = createTableRefNode(analyzer, tblRef);
+        PlanNode root = tblRefPlans.get(tblRef);
+        if (root == null) {
+            materializeTableResultForCrossJoinOrCountStar(tblRef, analyzer);
+            root = createTableRefNode(analyzer, tblRef);
+        }
         // to change the inner contains analytic function
         // selectStmt.seondSubstituteInlineViewExprs(analyzer.getChangeResSmap());
 
@@ -678,7 +684,7 @@ public class SingleNodePlanner {
         for (int i = 1; i < selectStmt.getTableRefs().size(); ++i) {
             TableRef outerRef = selectStmt.getTableRefs().get(i - 1);
             TableRef innerRef = selectStmt.getTableRefs().get(i);
-            root = createJoinNode(analyzer, root, outerRef, innerRef);
+            root = createJoinNode(analyzer, root, tblRefPlans.get(innerRef), outerRef, innerRef);
             // Have the build side of a join copy data to a compact representation
             // in the tuple buffer.
             root.getChildren().get(1).setCompactData(true);
@@ -1043,6 +1049,10 @@ public class SingleNodePlanner {
      */
     public void migrateConjunctsToInlineView(Analyzer analyzer,
                                              InlineViewRef inlineViewRef) throws AnalysisException {
+        if (canMigrateConjuncts(inlineViewRef)) {
+            // migrate the predicates inferred from the equal join conjuncts of the view too
+            analyzer.registerInferredPredicates(inlineViewRef.getId());
+        }
         List<Expr> unassignedConjuncts = analyzer.getUnassignedConjuncts(inlineViewRef.getId().asList(), true);
         if (!canMigrateConjuncts(inlineViewRef)) {
             // mark (fully resolve) slots referenced by unassigned conjuncts as
@@ -1140,6 +1150,8 @@ public class SingleNodePlanner {
                 break;
         }
         if (scanNode instanceof OlapScanNode || scanNode instanceof EsScanNode) {
+            // the inferred predicates prune the partitions and buckets too
+            analyzer.registerInferredPredicates(tblRef.getId());
             Map<String, PartitionColumnFilter> columnFilters = Maps.newHashMap();
             List<Expr> conjuncts = analyzer.getUnassignedConjuncts(scanNode);
             for (Column column : tblRef.getTable().getBaseSchema()) {
@@ -1223,14 +1235,18 @@ public class SingleNodePlanner {
     /**
      * Creates a new node to join outer with inner. Collects and assigns join conjunct
      * as well as regular conjuncts. Calls init() on the new join node.
+     * The plan of inner is created from innerRef if it is null.
      * Throws if the JoinNode.init() fails.
      */
-    private PlanNode createJoinNode(Analyzer analyzer, PlanNode outer, TableRef outerRef, TableRef innerRef)
+    private PlanNode createJoinNode(Analyzer analyzer, PlanNode outer, PlanNode inner,
+                                    TableRef outerRef, TableRef innerRef)
             throws UserException, AnalysisException {
-        materializeTableResultForCrossJoinOrCountStar(innerRef, analyzer);
-        // the rows coming from the build node only need to have space for the tuple
-        // materialized by that node
-        PlanNode inner = createTableRefNode(analyzer, innerRef);
+        if (inner == null) {
+            materializeTableResultForCrossJoinOrCountStar(innerRef, analyzer);
+            // the rows coming from the build node only need to have space for the tuple
+            // materialized by that node
+            inner = createTableRefNode(analyzer, innerRef);
+        }
 
         List<Pair<Expr, Expr>> eqJoinConjuncts = Lists.newArrayList();
         List<Expr> eqJoinPredicates = Lists.newArrayList();
@@ -1277,6 +1293,57 @@ public class SingleNodePlanner {
         return result;
     }
 
+    /**
+     * Reorder the leading inner joins of selectStmt by their estimated cost if enabled by session variable,
+     * see JoinOrderEnumerator. The table refs from the first outer, semi, anti or cross join, or the join
+     * with hints, keep their order, as well as the table refs in FROM clause if the rows of some of them
+     * can not be estimated.
+     * Return the plans of the table refs which are created to estimate their rows.
+     */
+    private Map<TableRef, PlanNode> reorderJoins(SelectStmt selectStmt, Analyzer analyzer)
+            throws UserException, AnalysisException {
+        Map<TableRef, PlanNode> tblRefPlans = Maps.newIdentityHashMap();
+        if (analyzer.getContext() == null
+                || !analyzer.getContext().getSessionVariable().isEnableCostBasedJoinReorder()) {
+            return tblRefPlans;
+        }
+        List<TableRef> tblRefs = selectStmt.getTableRefs();
+        int num = 1;
+        while (num < tblRefs.size() && isReorderable(tblRefs.get(num))) {
+            num++;
+        }
+        if (num < 2) {
+            return tblRefPlans;
+        }
+
+        List<PlanNode> plans = Lists.newArrayList();
+        for (int i = 0; i < num; i++) {
+            TableRef tblRef = tblRefs.get(i);
+            materializeTableResultForCrossJoinOrCountStar(tblRef, analyzer);
+            PlanNode plan = createTableRefNode(analyzer, tblRef);
+            tblRefPlans.put(tblRef, plan);
+            plans.add(plan);
+        }
+        List<Integer> order = new JoinOrderEnumerator(analyzer).enumerate(plans);
+        if (order == null) {
+            return tblRefPlans;
+        }
+        List<TableRef> reordered = Lists.newArrayList();
+        for (int idx : order) {
+            reordered.add(tblRefs.get(idx));
+        }
+        for (int i = 0; i < num; i++) {
+            tblRefs.set(i, reordered.get(i));
+        }
+        LOG.debug("join order after reorder: {}", reordered);
+        return tblRefPlans;
+    }
+
+    private boolean isReorderable(TableRef tblRef) {
+        return tblRef.getJoinOp() == JoinOperator.INNER_JOIN && !tblRef.isBroadcastJoin()
+                && !tblRef.isPartitionJoin() && !tblRef.isCorrelated();
+    }
+
     /**
      * Create a tree of PlanNodes for the given tblRef, which can be a BaseTableRef,
      * CollectionTableRef or an InlineViewRef.
@@ -0,0 +1,158 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Load of backends seen by the coordinators of this frontend, which is used to choose replicas to scan
+ * when the session variable replica_selection_policy is load_aware.
+ *
+ * The load of a backend is the number of fragment instances running on it, and the EWMA of the execution time
+ * of the instances which scan tablets on it. The load score of a backend is the EWMA multiplied by
+ * (1 + number of running instances), so a backend which is slow or busy gets fewer tablets of a query.
+ *
+ * The execution time of an instance is from sending it to the backend until the backend reports it done, so it
+ * is the time of that backend only. Backends report successful instances only if the profile of the query is
+ * needed, so without profiles the EWMA of all backends is unknown, and the scores only compare the numbers of
+ * running instances.
+ *
+ * Only the coordinators of load aware queries report their instances, and each reported instance must be
+ * finished exactly once, see Coordinator.BackendExecState.finishLoad().
+ */
+public class BackendLoadTracker {
+    // weight of the latest execution time in EWMA
+    private static final double ALPHA = 0.2;
+
+    private static final BackendLoadTracker INSTANCE = new BackendLoadTracker();
+
+    // backend id -> load
+    private final ConcurrentMap<Long, BackendLoad> backendLoads = Maps.newConcurrentMap();
+
+    private static class BackendLoad {
+        private final AtomicInteger runningInstanceNum = new AtomicInteger(0);
+        // bits of the EWMA of execution time in ms,
+        // -1 if no instance which scans tablets is finished on the backend
+        private final AtomicLong execTimeEwmaMsBits = new AtomicLong(Double.doubleToLongBits(-1));
+
+        private double getExecTimeEwmaMs() {
+            return Double.longBitsToDouble(execTimeEwmaMsBits.get());
+        }
+
+        private void updateExecTime(long execTimeMs) {
+            while (true) {
+                long bits = execTimeEwmaMsBits.get();
+                double ewma = Double.longBitsToDouble(bits);
+                double newEwma = ewma < 0 ? execTimeMs : ALPHA * execTimeMs + (1 - ALPHA) * ewma;
+                if (execTimeEwmaMsBits.compareAndSet(bits, Double.doubleToLongBits(newEwma))) {
+                    return;
+                }
+            }
+        }
+
+        // the number is never negative, in case the loads are cleared while instances are running
+        private void decreaseRunningInstanceNum() {
+            while (true) {
+                int num = runningInstanceNum.get();
+                if (num <= 0 || runningInstanceNum.compareAndSet(num, num - 1)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public static BackendLoadTracker getInstance() {
+        return INSTANCE;
+    }
+
+    private BackendLoad getOrCreateLoad(long backendId) {
+        BackendLoad load = backendLoads.get(backendId);
+        if (load == null) {
+            BackendLoad newLoad = new BackendLoad();
+            load = backendLoads.putIfAbsent(backendId, newLoad);
+            if (load == null) {
+                load = newLoad;
+            }
+        }
+        return load;
+    }
+
+    // Called when a fragment instance is sent to a backend.
+    public void instanceStarted(long backendId) {
+        getOrCreateLoad(backendId).runningInstanceNum.incrementAndGet();
+    }
+
+    /*
+     * Called when a fragment instance is done or cancelled.
+     * execTimeMs is -1 if the execution time should not be counted, eg. the instance does not scan tablets,
+     * because its execution time depends on other backends, or it fails, or it is not reported done by the
+     * backend, so only the time of the whole query is known, which is the same for all its backends.
+     */
+    public void instanceFinished(long backendId, long execTimeMs) {
+        BackendLoad load = getOrCreateLoad(backendId);
+        load.decreaseRunningInstanceNum();
+        if (execTimeMs >= 0) {
+            load.updateExecTime(execTimeMs);
+        }
+    }
+
+    /*
+     * Return the load scores of backends, which are compared with each other only.
+     * A backend which is not in the result has no known load, and its score should be got by getDefaultScore().
+     */
+    public Map<Long, Double> getLoadScores() {
+        double defaultExecTimeMs = getAverageExecTimeMs();
+        Map<Long, Double> scores = Maps.newHashMap();
+        for (Map.Entry<Long, BackendLoad> entry : backendLoads.entrySet()) {
+            BackendLoad load = entry.getValue();
+            double execTimeMs = load.getExecTimeEwmaMs();
+            if (execTimeMs < 0) {
+                execTimeMs = defaultExecTimeMs;
+            }
+            scores.put(entry.getKey(), Math.max(execTimeMs, 1) * (1 + load.runningInstanceNum.get()));
+        }
+        return scores;
+    }
+
+    // score of a backend which runs nothing and has an average execution time
+    public double getDefaultScore() {
+        return Math.max(getAverageExecTimeMs(), 1);
+    }
+
+    private double getAverageExecTimeMs() {
+        double sum = 0;
+        int num = 0;
+        for (BackendLoad load : backendLoads.values()) {
+            double execTimeMs = load.getExecTimeEwmaMs();
+            if (execTimeMs >= 0) {
+                sum += execTimeMs;
+                num++;
+            }
+        }
+        return num == 0 ? 1 : sum / num;
+    }
+
+    public void clear() {
+        backendLoads.clear();
+    }
+}
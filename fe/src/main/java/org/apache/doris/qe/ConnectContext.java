@@ -27,12 +27,14 @@ import org.apache.doris.thrift.TResourceInfo;
 import org.apache.doris.thrift.TUniqueId;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.nio.channels.SocketChannel;
 import java.util.List;
+import java.util.Map;
 
 // When one client connect in, we create a connect context for it.
 // We store session information here. Meanwhile ConnectScheduler all
@@ -89,6 +91,10 @@ public class ConnectContext {
 
     private String remoteIP;
 
+    // Statements prepared by this connection, which are only accessed by the thread of this connection.
+    private Map<Integer, PreparedStatement> preparedStmts = Maps.newHashMap();
+    private int nextPreparedStmtId = 1;
+
     public static ConnectContext get() {
         return threadLocalInfo.get();
     }
@@ -245,10 +251,31 @@ public class ConnectContext {
         this.executor = executor;
     }
 
+    public int getNextPreparedStmtId() {
+        return nextPreparedStmtId++;
+    }
+
+    public void addPreparedStmt(PreparedStatement preparedStmt) {
+        preparedStmts.put(preparedStmt.getId(), preparedStmt);
+    }
+
+    public PreparedStatement getPreparedStmt(int id) {
+        return preparedStmts.get(id);
+    }
+
+    public void removePreparedStmt(int id) {
+        preparedStmts.remove(id);
+    }
+
+    public int getPreparedStmtNum() {
+        return preparedStmts.size();
+    }
+
     public void cleanup() {
         mysqlChannel.close();
         threadLocalInfo.remove();
         returnRows = 0;
+        preparedStmts.clear();
     }
 
     public boolean isKilled() {
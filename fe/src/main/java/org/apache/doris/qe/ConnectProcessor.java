@@ -17,20 +17,34 @@
 
 package org.apache.doris.qe;
 
+import org.apache.doris.analysis.DateLiteral;
+import org.apache.doris.analysis.DecimalLiteral;
+import org.apache.doris.analysis.FloatLiteral;
+import org.apache.doris.analysis.IntLiteral;
+import org.apache.doris.analysis.LargeIntLiteral;
+import org.apache.doris.analysis.LiteralExpr;
+import org.apache.doris.analysis.NullLiteral;
 import org.apache.doris.analysis.StatementBase;
+import org.apache.doris.analysis.StringLiteral;
 import org.apache.doris.catalog.Catalog;
 import org.apache.doris.catalog.Column;
 import org.apache.doris.catalog.Database;
+import org.apache.doris.catalog.PrimitiveType;
 import org.apache.doris.catalog.Table;
+import org.apache.doris.catalog.Type;
 import org.apache.doris.cluster.ClusterNamespace;
+import org.apache.doris.common.AnalysisException;
 import org.apache.doris.common.AuditLog;
 import org.apache.doris.common.Config;
 import org.apache.doris.common.DdlException;
 import org.apache.doris.common.ErrorCode;
 import org.apache.doris.common.ErrorReport;
+import org.apache.doris.common.UserException;
 import org.apache.doris.metric.MetricRepo;
 import org.apache.doris.mysql.MysqlChannel;
+import org.apache.doris.mysql.MysqlColType;
 import org.apache.doris.mysql.MysqlCommand;
+import org.apache.doris.mysql.MysqlEofPacket;
 import org.apache.doris.mysql.MysqlPacket;
 import org.apache.doris.mysql.MysqlProto;
 import org.apache.doris.mysql.MysqlSerializer;
@@ -38,6 +52,8 @@ import org.apache.doris.thrift.TMasterOpRequest;
 import org.apache.doris.thrift.TMasterOpResult;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.UnsignedLongs;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -130,6 +146,13 @@ public class ConnectProcessor {
         }
     }
 
+    private void resetAuditBuilder() {
+        ctx.getAuditBuilder().reset();
+        ctx.getAuditBuilder().put("client", ctx.getMysqlChannel().getRemoteHostPortString());
+        ctx.getAuditBuilder().put("user", ctx.getQualifiedUser());
+        ctx.getAuditBuilder().put("db", ctx.getDatabase());
+    }
+
     // process COM_QUERY statement,
     // 只有在与请求客户端交互出现问题时候才抛出异常
     private void handleQuery() {
@@ -149,10 +172,7 @@ public class ConnectProcessor {
             ctx.getState().setError("Unsupported character set(UTF-8)");
             return;
         }
-        ctx.getAuditBuilder().reset();
-        ctx.getAuditBuilder().put("client", ctx.getMysqlChannel().getRemoteHostPortString());
-        ctx.getAuditBuilder().put("user", ctx.getQualifiedUser());
-        ctx.getAuditBuilder().put("db", ctx.getDatabase());
+        resetAuditBuilder();
 
         // execute this query.
         try {
@@ -180,6 +200,287 @@ public class ConnectProcessor {
         auditAfterExec(stmt.replace("\n", " \\n"), executor.getParsedStmt());
     }
 
+    // COM_STMT_PREPARE: parse and analyze the statement, then send the statement id, parameters and result columns.
+    private void handleStmtPrepare() throws IOException {
+        String stmt = null;
+        try {
+            stmt = new String(MysqlProto.readEofString(packetBuf), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // impossible
+            LOG.error("UTF8 is not supported in this environment.");
+            ctx.getState().setError("Unsupported character set(UTF-8)");
+            return;
+        }
+        if (ctx.getPreparedStmtNum() >= Config.max_prepared_stmt_per_conn) {
+            ctx.getState().setError("Too many prepared statements, the max number is "
+                    + Config.max_prepared_stmt_per_conn);
+            return;
+        }
+
+        PreparedStatement preparedStmt = new PreparedStatement(ctx.getNextPreparedStmtId(), stmt);
+        try {
+            new StmtExecutor(ctx, preparedStmt).prepare();
+        } catch (UserException e) {
+            LOG.debug("Prepare statement failed. stmt: {}", stmt, e);
+            ctx.getState().setError(e.getMessage());
+            return;
+        } catch (Throwable e) {
+            LOG.warn("Prepare statement failed because unknown reason: ", e);
+            ctx.getState().setError("Unexpected exception: " + e.getMessage());
+            return;
+        }
+        ctx.addPreparedStmt(preparedStmt);
+
+        MysqlSerializer serializer = ctx.getSerializer();
+        MysqlChannel channel = ctx.getMysqlChannel();
+        List<String> colLabels = preparedStmt.getColLabels();
+        serializer.reset();
+        // status OK
+        serializer.writeInt1(0x00);
+        serializer.writeInt4(preparedStmt.getId());
+        serializer.writeInt2(colLabels.size());
+        serializer.writeInt2(preparedStmt.getParamNum());
+        // reserved
+        serializer.writeInt1(0x00);
+        // warning count
+        serializer.writeInt2(0);
+        channel.sendOnePacket(serializer.toByteBuffer());
+
+        // types of parameters are unknown until they are bound
+        if (preparedStmt.getParamNum() > 0) {
+            for (int i = 0; i < preparedStmt.getParamNum(); i++) {
+                serializer.reset();
+                serializer.writeField("?", PrimitiveType.VARCHAR);
+                channel.sendOnePacket(serializer.toByteBuffer());
+            }
+            sendEof();
+        }
+        if (!colLabels.isEmpty()) {
+            for (int i = 0; i < colLabels.size(); i++) {
+                serializer.reset();
+                serializer.writeField(colLabels.get(i), preparedStmt.getColTypes().get(i));
+                channel.sendOnePacket(serializer.toByteBuffer());
+            }
+            sendEof();
+        }
+        channel.flush();
+        ctx.getState().setNoop();
+    }
+
+    private void sendEof() throws IOException {
+        MysqlSerializer serializer = ctx.getSerializer();
+        serializer.reset();
+        new MysqlEofPacket(ctx.getState()).writeTo(serializer);
+        ctx.getMysqlChannel().sendOnePacket(serializer.toByteBuffer());
+    }
+
+    // COM_STMT_EXECUTE: bind the parameters to the prepared statement, and execute it.
+    // The result set is sent in binary protocol.
+    private void handleStmtExecute() {
+        MetricRepo.COUNTER_REQUEST_ALL.increase(1L);
+        int stmtId = MysqlProto.readInt4(packetBuf);
+        PreparedStatement preparedStmt = ctx.getPreparedStmt(stmtId);
+        if (preparedStmt == null) {
+            ctx.getState().setError("Unknown prepared statement(" + stmtId + ")");
+            return;
+        }
+        // flags and iteration count. cursor is not supported.
+        MysqlProto.readInt1(packetBuf);
+        MysqlProto.readInt4(packetBuf);
+        List<LiteralExpr> params = null;
+        try {
+            params = readParams(preparedStmt);
+        } catch (AnalysisException e) {
+            ctx.getState().setError(e.getMessage());
+            return;
+        }
+        resetAuditBuilder();
+
+        try {
+            if (preparedStmt.isSchemaChanged(ctx.getCatalog())) {
+                LOG.info("schema of tables is changed, prepare statement {} again", stmtId);
+                new StmtExecutor(ctx, preparedStmt).prepare();
+            }
+            preparedStmt.bind(params);
+            executor = new StmtExecutor(ctx, preparedStmt);
+            ctx.setExecutor(executor);
+            executor.execute();
+            ctx.getState().setQuery(true);
+        } catch (UserException e) {
+            LOG.debug("Execute prepared statement failed. stmt: {}", preparedStmt.getOriginStmt(), e);
+            ctx.getState().setError(e.getMessage());
+        } catch (IOException e) {
+            // Client failed.
+            LOG.warn("Process one query failed because IOException: ", e);
+            ctx.getState().setError("Palo process failed");
+        } catch (Throwable e) {
+            // Catch all throwable.
+            // If reach here, maybe palo bug.
+            LOG.warn("Process one query failed because unknown reason: ", e);
+            ctx.getState().setError("Unexpected exception: " + e.getMessage());
+        }
+
+        auditAfterExec(preparedStmt.getOriginStmt().replace("\n", " \\n"),
+                       executor == null ? null : executor.getParsedStmt());
+    }
+
+    // Read parameters of COM_STMT_EXECUTE, which are null bitmap, new-params-bound flag, types and values.
+    private List<LiteralExpr> readParams(PreparedStatement preparedStmt) throws AnalysisException {
+        int paramNum = preparedStmt.getParamNum();
+        List<LiteralExpr> params = Lists.newArrayListWithCapacity(paramNum);
+        if (paramNum == 0) {
+            return params;
+        }
+
+        byte[] nullBitmap = MysqlProto.readFixedString(packetBuf, (paramNum + 7) / 8);
+        // types are sent by the first execution, or when they are changed
+        if (MysqlProto.readInt1(packetBuf) == 1) {
+            int[] paramTypes = new int[paramNum];
+            for (int i = 0; i < paramNum; i++) {
+                paramTypes[i] = MysqlProto.readInt2(packetBuf);
+            }
+            preparedStmt.setParamTypes(paramTypes);
+        }
+        int[] paramTypes = preparedStmt.getParamTypes();
+        if (paramTypes == null) {
+            throw new AnalysisException("Types of parameters are not sent");
+        }
+
+        for (int i = 0; i < paramNum; i++) {
+            if ((nullBitmap[i / 8] & (1 << (i % 8))) != 0) {
+                params.add(new NullLiteral());
+            } else {
+                params.add(readParam(paramTypes[i]));
+            }
+        }
+        return params;
+    }
+
+    // Read one parameter value. The low byte of type is the mysql column type, and the high bit is unsigned flag.
+    private LiteralExpr readParam(int type) throws AnalysisException {
+        boolean isUnsigned = (type & 0x8000) != 0;
+        MysqlColType colType = MysqlColType.fromCode(type & 0xFF);
+        if (colType == null) {
+            throw new AnalysisException("Unsupported parameter type(" + (type & 0xFF) + ")");
+        }
+
+        switch (colType) {
+            case MYSQL_TYPE_NULL:
+                return new NullLiteral();
+            case MYSQL_TYPE_TINY: {
+                byte value = MysqlProto.readByte(packetBuf);
+                return new IntLiteral(isUnsigned ? value & 0xFF : value);
+            }
+            case MYSQL_TYPE_SHORT:
+            case MYSQL_TYPE_YEAR: {
+                int value = MysqlProto.readInt2(packetBuf);
+                return new IntLiteral(isUnsigned ? value : (short) value);
+            }
+            case MYSQL_TYPE_LONG:
+            case MYSQL_TYPE_INT24: {
+                int value = MysqlProto.readInt4(packetBuf);
+                return new IntLiteral(isUnsigned ? value & 0xFFFFFFFFL : value);
+            }
+            case MYSQL_TYPE_LONGLONG: {
+                long value = MysqlProto.readInt8(packetBuf);
+                if (isUnsigned && value < 0) {
+                    return new LargeIntLiteral(UnsignedLongs.toString(value));
+                }
+                return new IntLiteral(value);
+            }
+            case MYSQL_TYPE_FLOAT:
+                return new FloatLiteral((double) Float.intBitsToFloat(MysqlProto.readInt4(packetBuf)));
+            case MYSQL_TYPE_DOUBLE:
+                return new FloatLiteral(Double.longBitsToDouble(MysqlProto.readInt8(packetBuf)));
+            case MYSQL_TYPE_DATE:
+            case MYSQL_TYPE_DATETIME:
+            case MYSQL_TYPE_TIMESTAMP:
+                return readDatetimeParam(colType == MysqlColType.MYSQL_TYPE_DATE);
+            case MYSQL_TYPE_TIME:
+                return readTimeParam();
+            case MYSQL_TYPE_DECIMAL:
+            case MYSQL_TYPE_NEWDECIMAL:
+                return new DecimalLiteral(readStringParam());
+            default:
+                // string types
+                return new StringLiteral(readStringParam());
+        }
+    }
+
+    private String readStringParam() throws AnalysisException {
+        try {
+            return new String(MysqlProto.readLenEncodedString(packetBuf), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // impossible
+            throw new AnalysisException("Unsupported character set(UTF-8)");
+        }
+    }
+
+    // length, year, month, day, hour, minute, second and microsecond, which is ignored
+    private LiteralExpr readDatetimeParam(boolean isDate) throws AnalysisException {
+        int length = MysqlProto.readInt1(packetBuf);
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        if (length >= 4) {
+            year = MysqlProto.readInt2(packetBuf);
+            month = MysqlProto.readInt1(packetBuf);
+            day = MysqlProto.readInt1(packetBuf);
+        }
+        if (length >= 7) {
+            hour = MysqlProto.readInt1(packetBuf);
+            minute = MysqlProto.readInt1(packetBuf);
+            second = MysqlProto.readInt1(packetBuf);
+        }
+        if (length >= 11) {
+            MysqlProto.readInt4(packetBuf);
+        }
+        if (isDate) {
+            return new DateLiteral(String.format("%04d-%02d-%02d", year, month, day), Type.DATE);
+        }
+        return new DateLiteral(String.format("%04d-%02d-%02d %02d:%02d:%02d", year, month, day, hour, minute, second),
+                               Type.DATETIME);
+    }
+
+    // length, is negative, days, hour, minute, second and microsecond, which is ignored
+    private LiteralExpr readTimeParam() {
+        int length = MysqlProto.readInt1(packetBuf);
+        boolean isNegative = false;
+        long hour = 0;
+        int minute = 0;
+        int second = 0;
+        if (length >= 8) {
+            isNegative = MysqlProto.readInt1(packetBuf) == 1;
+            hour = MysqlProto.readInt4(packetBuf) * 24L;
+            hour += MysqlProto.readInt1(packetBuf);
+            minute = MysqlProto.readInt1(packetBuf);
+            second = MysqlProto.readInt1(packetBuf);
+        }
+        if (length >= 12) {
+            MysqlProto.readInt4(packetBuf);
+        }
+        return new StringLiteral(String.format("%s%02d:%02d:%02d", isNegative ? "-" : "", hour, minute, second));
+    }
+
+    // COM_STMT_CLOSE: deallocate the prepared statement. No response is sent.
+    private void handleStmtClose() {
+        ctx.removePreparedStmt(MysqlProto.readInt4(packetBuf));
+        ctx.getState().setNoop();
+    }
+
+    // COM_STMT_RESET: there is neither cursor nor long data of prepared statement to reset, just check it.
+    private void handleStmtReset() {
+        int stmtId = MysqlProto.readInt4(packetBuf);
+        if (ctx.getPreparedStmt(stmtId) == null) {
+            ctx.getState().setError("Unknown prepared statement(" + stmtId + ")");
+            return;
+        }
+        ctx.getState().setOk();
+    }
+
     // Get the column definitions of a table
     private void handleFieldList() throws IOException {
         // Already get command code.
@@ -257,6 +558,19 @@ public class ConnectProcessor {
             case COM_PING:
                 handlePing();
                 break;
+            case COM_STMT_PREPARE:
+                handleStmtPrepare();
+                break;
+            case COM_STMT_EXECUTE:
+                handleStmtExecute();
+                ctx.setStartTime();
+                break;
+            case COM_STMT_CLOSE:
+                handleStmtClose();
+                break;
+            case COM_STMT_RESET:
+                handleStmtReset();
+                break;
             default:
                 ctx.getState().setError("Unsupported command(" + command + ")");
                 LOG.warn("Unsupported command(" + command + ")");
@@ -358,17 +672,14 @@ public class ConnectProcessor {
 
     // 处理一个MySQL请求，接收，处理，返回
     public void processOnce() throws IOException {
-        // set status of query to OK.
-        ctx.getState().reset();
-        executor = null;
-
         // reset sequence id of MySQL protocol
         final MysqlChannel channel = ctx.getMysqlChannel();
         channel.setSequenceId(0);
         // read packet from channel
+        ByteBuffer packet;
         try {
-            packetBuf = channel.fetchOnePacket();
-            if (packetBuf == null) {
+            packet = channel.fetchOnePacket();
+            if (packet == null) {
                 LOG.warn("Null packet received from network. remote: {}", channel.getRemoteHostPortString());
                 throw new IOException("Error happened when receiving packet.");
             }
@@ -378,6 +689,16 @@ public class ConnectProcessor {
             return;
         }
 
+        processOnce(packet);
+    }
+
+    // Process a request which is already received, used when packets are read by ConnectSelector.
+    public void processOnce(ByteBuffer packet) throws IOException {
+        // set status of query to OK.
+        ctx.getState().reset();
+        executor = null;
+        packetBuf = packet;
+
         // dispatch
         dispatch();
         // finalize
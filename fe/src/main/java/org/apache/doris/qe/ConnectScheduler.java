@@ -18,6 +18,7 @@
 package org.apache.doris.qe;
 
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Config;
 import org.apache.doris.mysql.MysqlProto;
 import org.apache.doris.mysql.privilege.PrivPredicate;
 
@@ -27,12 +28,17 @@ import com.google.common.collect.Maps;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 // 查询请求的调度器
@@ -45,7 +51,9 @@ public class ConnectScheduler {
     private AtomicInteger nextConnectionId;
     private Map<Long, ConnectContext> connectionMap = Maps.newHashMap();
     private Map<String, AtomicInteger> connByUser = Maps.newHashMap();
-    private ExecutorService executor = Executors.newCachedThreadPool();
+    private ExecutorService executor;
+    // not null if Config.mysql_service_nio_enabled, see ConnectSelector
+    private ConnectSelector selector;
 
     // Use a thread to check whether connection is timeout. Because
     // 1. If use a scheduler, the task maybe a huge number when query is messy.
@@ -57,6 +65,32 @@ public class ConnectScheduler {
         this.maxConnections = maxConnections;
         numberConnection = 0;
         nextConnectionId = new AtomicInteger(0);
+        if (Config.mysql_service_nio_enabled) {
+            // threads are only used by authenticating and processing commands, so the pool is bounded
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(Config.max_mysql_service_task_threads_num,
+                    Config.max_mysql_service_task_threads_num, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger threadId = new AtomicInteger(0);
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "MySQL Protocol Worker-" + threadId.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+            try {
+                selector = new ConnectSelector(this, executor);
+                selector.start();
+            } catch (IOException e) {
+                LOG.warn("Open selector failed, use a thread for each connection.", e);
+                selector = null;
+            }
+        } else {
+            executor = Executors.newCachedThreadPool();
+        }
         checkTimer = new Timer("ConnectScheduler Check Timer", true);
         checkTimer.scheduleAtFixedRate(new TimeoutChecker(), 0, 1000);
     }
@@ -81,7 +115,8 @@ public class ConnectScheduler {
             return false;
         }
         context.setConnectionId(nextConnectionId.getAndAdd(1));
-        if (executor.submit(new LoopHandler(context)) == null) {
+        Runnable handler = selector == null ? new LoopHandler(context) : new NegotiateHandler(context);
+        if (executor.submit(handler) == null) {
             LOG.warn("Submit one thread failed.");
             return false;
         }
@@ -178,4 +213,46 @@ public class ConnectScheduler {
             }
         }
     }
+
+    // Authenticate a connection, and add it to selector to read its commands.
+    private class NegotiateHandler implements Runnable {
+        ConnectContext context;
+
+        NegotiateHandler(ConnectContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public void run() {
+            boolean added = false;
+            try {
+                context.setThreadLocalInfo();
+                context.setConnectScheduler(ConnectScheduler.this);
+                // authenticate check failed.
+                if (!MysqlProto.negotiate(context)) {
+                    return;
+                }
+
+                if (registerConnection(context)) {
+                    MysqlProto.sendResponsePacket(context);
+                } else {
+                    context.getState().setError("Reach limit of connections");
+                    MysqlProto.sendResponsePacket(context);
+                    return;
+                }
+
+                context.setStartTime();
+                selector.add(context);
+                added = true;
+            } catch (Exception e) {
+                LOG.warn("connect processor exception because ", e);
+            } finally {
+                if (!added) {
+                    unregisterConnection(context);
+                    context.cleanup();
+                }
+                ConnectContext.remove();
+            }
+        }
+    }
 }
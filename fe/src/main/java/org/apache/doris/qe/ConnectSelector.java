@@ -0,0 +1,216 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import org.apache.doris.mysql.MysqlChannel;
+
+import com.google.common.collect.Sets;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Selector of the connections between commands, used when Config.mysql_service_nio_enabled is true.
+ *
+ * A connection is added after it is authenticated. Its channel is switched to non-blocking mode, and the packets
+ * of a command are read by the selector thread. Once a command is received, the connection is removed from
+ * the selector, and the command is processed in the worker pool. After that, the connection is added back to
+ * read the next command. So an idle connection costs no thread.
+ */
+public class ConnectSelector implements Runnable {
+    private static final Logger LOG = LogManager.getLogger(ConnectSelector.class);
+    // interval to check the connections closed by timeout checker or kill
+    private static final long CHECK_INTERVAL_MS = 1000;
+
+    private final ConnectScheduler scheduler;
+    private final ExecutorService executor;
+    private final Selector selector;
+    // connections to be added to selector, which are added by other threads
+    private final Queue<Connection> pendingConnections = new ConcurrentLinkedQueue<Connection>();
+    // all connections in selector, only accessed by selector thread
+    private final Set<Connection> connections = Sets.newHashSet();
+    private long lastCheckTime = 0;
+
+    private static class Connection {
+        private final ConnectContext context;
+        private final ConnectProcessor processor;
+        private SelectionKey key;
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+
+        public Connection(ConnectContext context) {
+            this.context = context;
+            this.processor = new ConnectProcessor(context);
+        }
+    }
+
+    public ConnectSelector(ConnectScheduler scheduler, ExecutorService executor) throws IOException {
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.selector = Selector.open();
+    }
+
+    public void start() {
+        Thread thread = new Thread(this, "MySQL Protocol Selector");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Add an authenticated connection to read its commands.
+    public void add(ConnectContext context) throws IOException {
+        context.getMysqlChannel().setNonBlocking();
+        addPending(new Connection(context));
+    }
+
+    private void addPending(Connection connection) {
+        // ready to read the next command
+        connection.context.getMysqlChannel().setSequenceId(0);
+        pendingConnections.add(connection);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                selector.select(CHECK_INTERVAL_MS);
+                addPendingConnections();
+
+                Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+                while (iter.hasNext()) {
+                    SelectionKey key = iter.next();
+                    iter.remove();
+                    Connection connection = (Connection) key.attachment();
+                    if (!key.isValid()) {
+                        finish(connection);
+                    } else if (key.isReadable()) {
+                        readCommand(connection);
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastCheckTime >= CHECK_INTERVAL_MS) {
+                    removeClosedConnections();
+                    lastCheckTime = now;
+                }
+            } catch (Throwable e) {
+                LOG.warn("MySQL protocol selector encounter exception.", e);
+            }
+        }
+    }
+
+    private void addPendingConnections() {
+        Connection connection;
+        while ((connection = pendingConnections.poll()) != null) {
+            try {
+                if (connection.key == null) {
+                    connection.key = connection.context.getMysqlChannel().getChannel().register(
+                            selector, SelectionKey.OP_READ, connection);
+                    connections.add(connection);
+                } else {
+                    connection.key.interestOps(SelectionKey.OP_READ);
+                }
+            } catch (Exception e) {
+                // the channel is closed, or the key is cancelled
+                LOG.debug("add connection to selector failed.", e);
+                finish(connection);
+            }
+        }
+    }
+
+    private void readCommand(final Connection connection) {
+        final MysqlChannel channel = connection.context.getMysqlChannel();
+        final ByteBuffer packet;
+        try {
+            packet = channel.readPacketNonBlocking();
+        } catch (IOException e) {
+            LOG.info("Receive packet failed, remote may close the channel. remote: {}, reason: {}",
+                    channel.getRemoteHostPortString(), e.getMessage());
+            finish(connection);
+            return;
+        }
+        if (packet == null) {
+            return;
+        }
+
+        // stop reading until the command is processed
+        connection.key.interestOps(0);
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    processCommand(connection, packet);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Submit command of connection {} failed.", connection.context.getConnectionId(), e);
+            finish(connection);
+        }
+    }
+
+    private void processCommand(Connection connection, ByteBuffer packet) {
+        ConnectContext context = connection.context;
+        try {
+            context.setThreadLocalInfo();
+            connection.processor.processOnce(packet);
+        } catch (Exception e) {
+            LOG.warn("Exception happened in one seesion(" + context + ").", e);
+            context.setKilled();
+        } finally {
+            ConnectContext.remove();
+        }
+
+        if (context.isKilled()) {
+            finish(connection);
+        } else {
+            addPending(connection);
+        }
+    }
+
+    // remove the connections closed by other threads, whose keys are cancelled without any event
+    private void removeClosedConnections() {
+        Iterator<Connection> iter = connections.iterator();
+        while (iter.hasNext()) {
+            Connection connection = iter.next();
+            if (connection.finished.get()) {
+                iter.remove();
+            } else if (!connection.context.getMysqlChannel().getChannel().isOpen()) {
+                iter.remove();
+                finish(connection);
+            }
+        }
+    }
+
+    private void finish(Connection connection) {
+        if (connection.finished.compareAndSet(false, true)) {
+            scheduler.unregisterConnection(connection.context);
+            connection.context.cleanup();
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.doris.planner.DataPartition;
 import org.apache.doris.planner.DataSink;
 import org.apache.doris.planner.DataStreamSink;
 import org.apache.doris.planner.ExchangeNode;
+import org.apache.doris.planner.HashJoinNode;
 import org.apache.doris.planner.MysqlScanNode;
 import org.apache.doris.planner.OlapScanNode;
 import org.apache.doris.planner.PlanFragment;
@@ -39,6 +40,7 @@ import org.apache.doris.planner.PlanNode;
 import org.apache.doris.planner.PlanNodeId;
 import org.apache.doris.planner.Planner;
 import org.apache.doris.planner.ResultSink;
+import org.apache.doris.planner.RuntimeFilter;
 import org.apache.doris.planner.ScanNode;
 import org.apache.doris.planner.UnionNode;
 import org.apache.doris.rpc.BackendServiceProxy;
@@ -54,6 +56,7 @@ import org.apache.doris.thrift.TExecPlanFragmentParams;
 import org.apache.doris.thrift.TNetworkAddress;
 import org.apache.doris.thrift.TPaloScanRange;
 import org.apache.doris.thrift.TPartitionType;
+import org.apache.doris.thrift.TPlanFragment;
 import org.apache.doris.thrift.TPlanFragmentDestination;
 import org.apache.doris.thrift.TPlanFragmentExecParams;
 import org.apache.doris.thrift.TQueryGlobals;
@@ -62,6 +65,8 @@ import org.apache.doris.thrift.TQueryType;
 import org.apache.doris.thrift.TReportExecStatusParams;
 import org.apache.doris.thrift.TResourceInfo;
 import org.apache.doris.thrift.TResultBatch;
+import org.apache.doris.thrift.TRuntimeFilterParams;
+import org.apache.doris.thrift.TRuntimeFilterTargetParams;
 import org.apache.doris.thrift.TScanRange;
 import org.apache.doris.thrift.TScanRangeLocation;
 import org.apache.doris.thrift.TScanRangeLocations;
@@ -70,6 +75,7 @@ import org.apache.doris.thrift.TStatusCode;
 import org.apache.doris.thrift.TTabletCommitInfo;
 import org.apache.doris.thrift.TUniqueId;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
@@ -80,12 +86,14 @@ import com.google.common.collect.Sets;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.thrift.TException;
+import org.apache.thrift.TSerializer;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -169,6 +177,14 @@ public class Coordinator {
 
     private List<TTabletCommitInfo> commitInfos = Lists.newArrayList();
 
+    // the instance merging the runtime filters with remote targets, set in assignRuntimeFilterParams()
+    private TUniqueId runtimeFilterMergeInstanceId;
+    private TNetworkAddress runtimeFilterMergeAddr;
+    // filter id -> the instances applying the merged filter
+    private Map<Integer, List<TRuntimeFilterTargetParams>> ridToTargetParams = Maps.newHashMap();
+    // filter id -> the number of filters built by the instances of the join
+    private Map<Integer, Integer> ridToBuilderNum = Maps.newHashMap();
+
     // Input parameter
     private TUniqueId queryId;
     private TResourceInfo tResourceInfo;
@@ -177,6 +193,8 @@ public class Coordinator {
     private String clusterName;
     // paralle execute
     private final TUniqueId nextInstanceId;
+    // if true, prefer replicas on less loaded backends, and balance scan ranges of all scan nodes among backends
+    private boolean isLoadAwareReplicaSelection = false;
 
     // Used for query
     public Coordinator(ConnectContext context, Analyzer analyzer, Planner planner) {
@@ -192,6 +210,7 @@ public class Coordinator {
                 context.getSessionVariable().getResourceGroup());
         this.needReport = context.getSessionVariable().isReportSucc();
         this.clusterName = context.getClusterName();
+        this.isLoadAwareReplicaSelection = context.getSessionVariable().isLoadAwareReplicaSelection();
         this.nextInstanceId = new TUniqueId();
         nextInstanceId.setHi(queryId.hi);
         nextInstanceId.setLo(queryId.lo + 1);
@@ -353,6 +372,7 @@ public class Coordinator {
             LOG.debug("debug: in Coordinator::exec. fragment: {}", fragments.get(0).toThrift());
         }
 
+        long scheduleStartTime = System.currentTimeMillis();
         // prepare information
         prepare();
         // compute Fragment Instance
@@ -365,6 +385,7 @@ public class Coordinator {
             computeFragmentExecParamsForParallelExec();   
             validate();
         }
+        assignRuntimeFilterParams();
 
         traceInstance();
 
@@ -383,6 +404,8 @@ public class Coordinator {
             deltaUrls = Lists.newArrayList();
             loadCounters = Maps.newHashMap();
         }
+        long dispatchStartTime = System.currentTimeMillis();
+        queryProfile.addInfoString("Schedule Time", DebugUtil.getPrettyStringMs(dispatchStartTime - scheduleStartTime));
 
         // to keep things simple, make async Cancel() calls wait until plan fragment
         // execution has been initiated, otherwise we might try to cancel fragment
@@ -392,77 +415,119 @@ public class Coordinator {
         try {
             // execute all instances from up to bottom
             int backendId = 0;
-            int profileFragmentId = 0;
-            for (PlanFragment fragment : fragments) {
-                FragmentExecParams params = fragmentExecParamsMap.get(fragment.getFragmentId());
-                
-                // set up exec states
-                int instanceNum = params.instanceExecParams.size();
-                Preconditions.checkState(instanceNum > 0);
-                List<TExecPlanFragmentParams> tParams = params.toThrift(backendId);
+            List<String> waveTimes = Lists.newArrayList();
+            for (List<PlanFragment> wave : getDispatchWaves()) {
+                long waveStartTime = System.currentTimeMillis();
                 List<Pair<BackendExecState, Future<PExecPlanFragmentResult>>> futures = Lists.newArrayList();
-                int instanceId = 0;
-                for (TExecPlanFragmentParams tParam : tParams) {
-                    // TODO: pool of pre-formatted BackendExecStates?
-                    BackendExecState execState =
-                            new BackendExecState(fragment.getFragmentId(), instanceId++,
-                                    profileFragmentId, tParam, this.addressToBackendID);
-                    backendExecStates.add(execState);
-                    backendExecStateMap.put(tParam.params.getFragment_instance_id(), execState);
-
-                    futures.add(Pair.create(execState, execState.execRemoteFragmentAsync()));
-
-                    backendId++;
-                }
-
-                for (Pair<BackendExecState, Future<PExecPlanFragmentResult>> pair : futures) {
-                    TStatusCode code = TStatusCode.INTERNAL_ERROR;
-                    String errMsg = null;
-                    try {
-                        PExecPlanFragmentResult result = pair.second.get(Config.remote_fragment_exec_timeout_ms,
-                                                                         TimeUnit.MILLISECONDS);
-                        code = TStatusCode.findByValue(result.status.code);
-                        if (result.status.msgs != null && !result.status.msgs.isEmpty()) {
-                            errMsg = result.status.msgs.get(0);
-                        }
-                    } catch (ExecutionException e) {
-                        LOG.warn("catch a execute exception", e);
-                        code = TStatusCode.THRIFT_RPC_ERROR;
-                    } catch (InterruptedException e) {
-                        LOG.warn("catch a interrupt exception", e);
-                        code = TStatusCode.INTERNAL_ERROR;
-                    } catch (TimeoutException e) {
-                        LOG.warn("catch a timeout exception", e);
-                        code = TStatusCode.TIMEOUT;
-                    }
-
-                    if (code != TStatusCode.OK) {
-                        if (errMsg == null) {
-                            errMsg = "exec rpc error. backend id: " + pair.first.systemBackendId;
-                        }
-                        queryStatus.setStatus(errMsg);
-                        LOG.warn("exec plan fragment failed, errmsg={}, fragmentId={}, backend={}:{}",
-                                 errMsg, fragment.getFragmentId(),
-                                 pair.first.address.hostname, pair.first.address.port);
-                        cancelInternal();
-                        switch (code) {
-                            case TIMEOUT:
-                                throw new UserException("query timeout. backend id: " + pair.first.systemBackendId);
-                            case THRIFT_RPC_ERROR:
-                                SimpleScheduler.updateBlacklistBackends(pair.first.systemBackendId);
-                                throw new RpcException("rpc failed. backend id: " + pair.first.systemBackendId);
-                            default:
-                                throw new UserException(errMsg);
-                        }
+                for (PlanFragment fragment : wave) {
+                    FragmentExecParams params = fragmentExecParamsMap.get(fragment.getFragmentId());
+                    int profileFragmentId = fragments.indexOf(fragment);
+
+                    // set up exec states
+                    int instanceNum = params.instanceExecParams.size();
+                    Preconditions.checkState(instanceNum > 0);
+                    List<TExecPlanFragmentParams> tParams = params.toThrift(backendId);
+                    int instanceId = 0;
+                    for (TExecPlanFragmentParams tParam : tParams) {
+                        // TODO: pool of pre-formatted BackendExecStates?
+                        BackendExecState execState =
+                                new BackendExecState(fragment.getFragmentId(), instanceId++,
+                                        profileFragmentId, tParam, this.addressToBackendID);
+                        backendExecStates.add(execState);
+                        backendExecStateMap.put(tParam.params.getFragment_instance_id(), execState);
+
+                        futures.add(Pair.create(execState, execState.execRemoteFragmentAsync()));
+
+                        backendId++;
                     }
                 }
-                profileFragmentId += 1;
+                waitRemoteFragmentExec(futures);
+                waveTimes.add(DebugUtil.getPrettyStringMs(System.currentTimeMillis() - waveStartTime));
             }
+            queryProfile.addInfoString("Fragment Dispatch Time",
+                    DebugUtil.getPrettyStringMs(System.currentTimeMillis() - dispatchStartTime));
+            queryProfile.addInfoString("Fragment Dispatch Waves", Joiner.on(", ").join(waveTimes));
         } finally {
             unlock();
         }
     }
 
+    /*
+     * Group fragments to the waves in which they are sent to backends.
+     * A fragment must be sent after its destination fragment, otherwise the data it sends may arrive before
+     * the receiver is prepared. So each fragment is a wave if Config.enable_concurrent_fragment_dispatch is false.
+     * Otherwise the fragments at the same depth of the fragment tree are sent in one wave, because they never send
+     * data to each other, and the query waits for one round trip per level of the tree instead of per fragment.
+     */
+    private List<List<PlanFragment>> getDispatchWaves() {
+        List<List<PlanFragment>> waves = Lists.newArrayList();
+        if (!Config.enable_concurrent_fragment_dispatch) {
+            for (PlanFragment fragment : fragments) {
+                waves.add(Lists.newArrayList(fragment));
+            }
+            return waves;
+        }
+
+        for (PlanFragment fragment : fragments) {
+            int depth = 0;
+            for (PlanFragment dest = fragment.getDestFragment(); dest != null; dest = dest.getDestFragment()) {
+                depth++;
+            }
+            while (waves.size() <= depth) {
+                waves.add(Lists.<PlanFragment>newArrayList());
+            }
+            waves.get(depth).add(fragment);
+        }
+        return waves;
+    }
+
+    // Wait for the results of exec rpcs, which share one timeout. Cancel the query and throw if any of them failed.
+    private void waitRemoteFragmentExec(List<Pair<BackendExecState, Future<PExecPlanFragmentResult>>> futures)
+            throws UserException, RpcException {
+        long deadline = System.currentTimeMillis() + Config.remote_fragment_exec_timeout_ms;
+        for (Pair<BackendExecState, Future<PExecPlanFragmentResult>> pair : futures) {
+            TStatusCode code = TStatusCode.INTERNAL_ERROR;
+            String errMsg = null;
+            try {
+                long leftTimeMs = Math.max(deadline - System.currentTimeMillis(), 0);
+                PExecPlanFragmentResult result = pair.second.get(leftTimeMs, TimeUnit.MILLISECONDS);
+                code = TStatusCode.findByValue(result.status.code);
+                if (result.status.msgs != null && !result.status.msgs.isEmpty()) {
+                    errMsg = result.status.msgs.get(0);
+                }
+            } catch (ExecutionException e) {
+                LOG.warn("catch a execute exception", e);
+                code = TStatusCode.THRIFT_RPC_ERROR;
+            } catch (InterruptedException e) {
+                LOG.warn("catch a interrupt exception", e);
+                code = TStatusCode.INTERNAL_ERROR;
+            } catch (TimeoutException e) {
+                LOG.warn("catch a timeout exception", e);
+                code = TStatusCode.TIMEOUT;
+            }
+
+            if (code != TStatusCode.OK) {
+                if (errMsg == null) {
+                    errMsg = "exec rpc error. backend id: " + pair.first.systemBackendId;
+                }
+                queryStatus.setStatus(errMsg);
+                LOG.warn("exec plan fragment failed, errmsg={}, fragmentId={}, backend={}:{}",
+                         errMsg, pair.first.fragmentId,
+                         pair.first.address.hostname, pair.first.address.port);
+                cancelInternal();
+                switch (code) {
+                    case TIMEOUT:
+                        throw new UserException("query timeout. backend id: " + pair.first.systemBackendId);
+                    case THRIFT_RPC_ERROR:
+                        SimpleScheduler.updateBlacklistBackends(pair.first.systemBackendId);
+                        throw new RpcException("rpc failed. backend id: " + pair.first.systemBackendId);
+                    default:
+                        throw new UserException(errMsg);
+                }
+            }
+        }
+    }
+
     public List<String> getExportFiles() {
         return exportFiles;
     }
@@ -593,6 +658,8 @@ public class Coordinator {
 
         if (resultBatch == null) {
             this.returnedAllResults = true;
+            // the backends may not report the instances done, see finishLoads()
+            finishLoads();
 
             // if this query is a block query do not cancel.
             Long numLimitRows  = fragments.get(0).getPlanRoot().getLimit();
@@ -666,6 +733,7 @@ public class Coordinator {
                 }
 
                 backendExecState.hasCanceled = true;
+                backendExecState.finishLoad(false);
             } catch (Exception e) {
                 LOG.warn("catch a exception", e);
             } finally {
@@ -674,6 +742,19 @@ public class Coordinator {
         }
     }
 
+    /*
+     * Finish the loads of instances which are not reported done. Backends only report done instances if the
+     * profile is needed, so the instances are finished when all results are returned, and when the query is
+     * finished. The execution time is not counted here: the time of the query is the same for all its backends,
+     * and says nothing about which of them is slow. It is only counted from the report of the instance itself,
+     * see updateFragmentExecStatus().
+     */
+    public void finishLoads() {
+        for (BackendExecState backendExecState : backendExecStates) {
+            backendExecState.finishLoad(false);
+        }
+    }
+
     private void computeFragmentExecParams() throws Exception {
         // fill hosts field in fragmentExecParams
         computeFragmentHosts();
@@ -720,6 +801,11 @@ public class Coordinator {
                         params.instanceExecParams.size() + destParams.perExchNumSenders.get(exchId.asInt()));
             }
 
+            if (sink.getOutputPartition().getType() == TPartitionType.BUCKET_SHUFFLE_HASH_PARTITIONED) {
+                addBucketShuffleDestinations(params, destParams);
+                continue;
+            }
+
             // add destination host to this fragment's destination
             for (int j = 0; j < destParams.instanceExecParams.size(); ++j) {
                 TPlanFragmentDestination dest = new TPlanFragmentDestination();
@@ -731,6 +817,27 @@ public class Coordinator {
         }
     }
 
+    /*
+     * The destinations of a bucket shuffle sink are the instances scanning the buckets, one destination per
+     * bucket seq, so the sender sends a row to the destination at the bucket seq of the row. The rows of
+     * bucket seqs which are not scanned, eg. pruned, are sent to any instance.
+     */
+    private void addBucketShuffleDestinations(FragmentExecParams params, FragmentExecParams destParams)
+            throws Exception {
+        int bucketNum = destParams.bucketNum > 0 ? destParams.bucketNum : destParams.instanceExecParams.size();
+        for (int bucketSeq = 0; bucketSeq < bucketNum; bucketSeq++) {
+            FInstanceExecParam instanceParam = destParams.bucketSeqToInstance.get(bucketSeq);
+            if (instanceParam == null) {
+                instanceParam = destParams.instanceExecParams.get(bucketSeq % destParams.instanceExecParams.size());
+            }
+            TPlanFragmentDestination dest = new TPlanFragmentDestination();
+            dest.setFragment_instance_id(instanceParam.instanceId);
+            dest.setServer(toRpcHost(instanceParam.host));
+            dest.setBrpc_server(toBrpcHost(instanceParam.host));
+            params.destinations.add(dest);
+        }
+    }
+
     private TNetworkAddress toRpcHost(TNetworkAddress host) throws Exception {
         Backend backend = Catalog.getCurrentSystemInfo().getBackendWithBePort(
                 host.getHostname(), host.getPort());
@@ -753,6 +860,60 @@ public class Coordinator {
         return new TNetworkAddress(backend.getHost(), backend.getBrpcPort());
     }
 
+    /*
+     * The runtime filters with remote targets are sent to the first instance of the root fragment, which merges
+     * the filters built by the instances of the join and sends the merged filter to the instances of the targets.
+     */
+    private void assignRuntimeFilterParams() throws Exception {
+        for (PlanFragment fragment : fragments) {
+            FragmentExecParams builderParams = fragmentExecParamsMap.get(fragment.getFragmentId());
+            List<HashJoinNode> joinNodes = Lists.newArrayList();
+            collectHashJoinNodes(fragment.getPlanRoot(), joinNodes);
+            for (HashJoinNode joinNode : joinNodes) {
+                for (RuntimeFilter filter : joinNode.getRuntimeFilters()) {
+                    if (!filter.hasRemoteTargets()) {
+                        continue;
+                    }
+                    List<TRuntimeFilterTargetParams> targetParams = Lists.newArrayList();
+                    for (RuntimeFilter.RuntimeFilterTarget target : filter.getTargets()) {
+                        if (target.isLocal) {
+                            continue;
+                        }
+                        FragmentExecParams params = fragmentExecParamsMap.get(target.node.getFragmentId());
+                        for (FInstanceExecParam instanceParam : params.instanceExecParams) {
+                            targetParams.add(new TRuntimeFilterTargetParams(
+                                    instanceParam.instanceId, toBrpcHost(instanceParam.host)));
+                        }
+                    }
+                    int filterId = filter.getId().asInt();
+                    ridToTargetParams.put(filterId, targetParams);
+                    ridToBuilderNum.put(filterId,
+                                        filter.isBroadcastJoin() ? 1 : builderParams.instanceExecParams.size());
+                }
+            }
+        }
+        if (ridToTargetParams.isEmpty()) {
+            return;
+        }
+        FInstanceExecParam mergeInstance =
+                fragmentExecParamsMap.get(fragments.get(0).getFragmentId()).instanceExecParams.get(0);
+        runtimeFilterMergeInstanceId = mergeInstance.instanceId;
+        runtimeFilterMergeAddr = toBrpcHost(mergeInstance.host);
+    }
+
+    // the hash joins in the fragment of the node, children of exchange nodes are in other fragments
+    private void collectHashJoinNodes(PlanNode node, List<HashJoinNode> joinNodes) {
+        if (node instanceof ExchangeNode) {
+            return;
+        }
+        if (node instanceof HashJoinNode) {
+            joinNodes.add((HashJoinNode) node);
+        }
+        for (PlanNode child : node.getChildren()) {
+            collectHashJoinNodes(child, joinNodes);
+        }
+    }
+
     // estimate if this fragment contains UnionNode
     private boolean containsUnionNode(PlanNode node) {
         if (node instanceof UnionNode) {
@@ -834,6 +995,12 @@ public class Coordinator {
                     instanceParam.perNodeScanRanges.put(planNodeId, value.get(planNodeId));
                 }
                 params.instanceExecParams.add(instanceParam);
+                // one instance per host scans all the buckets assigned to the host
+                for (Map.Entry<Integer, TNetworkAddress> bucketEntry : params.bucketSeqToAddress.entrySet()) {
+                    if (bucketEntry.getValue().equals(key)) {
+                        params.bucketSeqToInstance.put(bucketEntry.getKey(), instanceParam);
+                    }
+                }
             }
 
             if (params.instanceExecParams.isEmpty()) {
@@ -863,21 +1030,26 @@ public class Coordinator {
             final FragmentExecParams srcParams = fragmentExecParamsMap.get(srcFragment.getFragmentId());
             final FragmentExecParams destParams = fragmentExecParamsMap.get(desFragmentId);
 
-            // populate src_params->destinations
-            for (int i = 0; i < destParams.instanceExecParams.size(); i++) {
-                TPlanFragmentDestination dest = new TPlanFragmentDestination();
-                dest.setFragment_instance_id(destParams.instanceExecParams.get(i).instanceId);
-                dest.setServer(toRpcHost(destParams.instanceExecParams.get(i).host));
-                dest.setBrpc_server(toBrpcHost(destParams.instanceExecParams.get(i).host));
-                srcParams.destinations.add(dest);
-            }
-
             final DataSink sinker = srcFragment.getSink();
             Preconditions.checkState(
                     sinker.getOutputPartition().getType() == TPartitionType.HASH_PARTITIONED
+                    || sinker.getOutputPartition().getType() == TPartitionType.BUCKET_SHUFFLE_HASH_PARTITIONED
                     || sinker.getOutputPartition().getType() == TPartitionType.UNPARTITIONED
                     || sinker.getOutputPartition().getType() == TPartitionType.RANDOM);
 
+            // populate src_params->destinations
+            if (sinker.getOutputPartition().getType() == TPartitionType.BUCKET_SHUFFLE_HASH_PARTITIONED) {
+                addBucketShuffleDestinations(srcParams, destParams);
+            } else {
+                for (int i = 0; i < destParams.instanceExecParams.size(); i++) {
+                    TPlanFragmentDestination dest = new TPlanFragmentDestination();
+                    dest.setFragment_instance_id(destParams.instanceExecParams.get(i).instanceId);
+                    dest.setServer(toRpcHost(destParams.instanceExecParams.get(i).host));
+                    dest.setBrpc_server(toBrpcHost(destParams.instanceExecParams.get(i).host));
+                    srcParams.destinations.add(dest);
+                }
+            }
+
             PlanNodeId exchId = sinker.getExchNodeId();
             Integer senderIdBase = destParams.perExchNumSenders.get(exchId);
             if (senderIdBase == null) {
@@ -925,7 +1097,10 @@ public class Coordinator {
         }
       
         PlanNode leftPlanNode = findLeftmostNode(fragment.getPlanRoot());
-        if (leftPlanNode instanceof MysqlScanNode 
+        if (!params.bucketSeqToAddress.isEmpty()) {
+            // case 2': leaf fragment with colocate or bucket shuffle joins
+            createBucketScanInstance(params);
+        } else if (leftPlanNode instanceof MysqlScanNode 
                 || leftPlanNode instanceof OlapScanNode) {
             // case 2: leaf fragment with leftmost scan
             // TODO: check that there's only one scan in this fragment
@@ -1034,6 +1209,44 @@ public class Coordinator {
         }
     }
     
+    // Evenly divide up the buckets assigned to each host between at most <dop> instances,
+    // the scan ranges of all the scan nodes of a bucket are scanned by one instance.
+    private void createBucketScanInstance(FragmentExecParams fragmentExecParams) {
+        int maxNumInstance = Math.max(queryOptions.mt_dop, 1);
+        Map<TNetworkAddress, List<Integer>> hostToBucketSeqs = Maps.newHashMap();
+        for (Map.Entry<Integer, TNetworkAddress> entry : fragmentExecParams.bucketSeqToAddress.entrySet()) {
+            List<Integer> bucketSeqs = hostToBucketSeqs.get(entry.getValue());
+            if (bucketSeqs == null) {
+                bucketSeqs = Lists.newArrayList();
+                hostToBucketSeqs.put(entry.getValue(), bucketSeqs);
+            }
+            bucketSeqs.add(entry.getKey());
+        }
+
+        int perFragmentInstanceIdx = 0;
+        for (Map.Entry<TNetworkAddress, List<Integer>> entry : hostToBucketSeqs.entrySet()) {
+            List<Integer> bucketSeqs = entry.getValue();
+            int numInstance = Math.min(maxNumInstance, bucketSeqs.size());
+            List<FInstanceExecParam> perHostInstanceExecParams = Lists.newArrayList();
+            for (int i = 0; i < numInstance; i++) {
+                FInstanceExecParam instanceParam = new FInstanceExecParam(getNextInstanceId(),
+                        entry.getKey(), perFragmentInstanceIdx++, fragmentExecParams);
+                fragmentExecParams.instanceExecParams.add(instanceParam);
+                perHostInstanceExecParams.add(instanceParam);
+            }
+            for (int i = 0; i < bucketSeqs.size(); i++) {
+                FInstanceExecParam instanceParam = perHostInstanceExecParams.get(i % numInstance);
+                int bucketSeq = bucketSeqs.get(i);
+                fragmentExecParams.bucketSeqToInstance.put(bucketSeq, instanceParam);
+                for (Map.Entry<Integer, List<TScanRangeParams>> nodeEntry
+                        : fragmentExecParams.bucketSeqToScanRanges.get(bucketSeq).entrySet()) {
+                    findOrInsert(instanceParam.perNodeScanRanges, nodeEntry.getKey(),
+                            new ArrayList<TScanRangeParams>()).addAll(nodeEntry.getValue());
+                }
+            }
+        }
+    }
+
     private void validate() {
         int numFragments = 0;
         for (PlanFragment fragment : fragments) {
@@ -1177,8 +1390,36 @@ public class Coordinator {
     // Populates scan_range_assignment_.
     // <fragment, <server, nodeId>>
     private void computeScanRangeAssignment() throws Exception {
+        // number of scan ranges assigned to each host, which are shared by all scan nodes if load aware
+        HashMap<TNetworkAddress, Long> assignedBytesPerHost = null;
+        Map<Long, Double> loadScores = null;
+        double defaultLoadScore = 1;
+        if (isLoadAwareReplicaSelection) {
+            assignedBytesPerHost = Maps.newHashMap();
+            loadScores = BackendLoadTracker.getInstance().getLoadScores();
+            defaultLoadScore = BackendLoadTracker.getInstance().getDefaultScore();
+        }
+
+        // the scan ranges of the same bucket seq of fragments with colocate or bucket shuffle joins
+        // are assigned to the same host
+        Set<Integer> bucketScanNodeIds = Sets.newHashSet();
+        for (PlanFragment fragment : fragments) {
+            List<OlapScanNode> bucketScanNodes = getBucketScanNodes(fragment);
+            if (bucketScanNodes == null) {
+                continue;
+            }
+            computeBucketScanRangeAssignment(fragmentExecParamsMap.get(fragment.getFragmentId()), bucketScanNodes,
+                    loadScores, defaultLoadScore);
+            for (OlapScanNode scanNode : bucketScanNodes) {
+                bucketScanNodeIds.add(scanNode.getId().asInt());
+            }
+        }
+
         // set scan ranges/locations for scan nodes
         for (ScanNode scanNode : scanNodes) {
+            if (bucketScanNodeIds.contains(scanNode.getId().asInt())) {
+                continue;
+            }
             // the parameters of getScanRangeLocations may ignore, It dosn't take effect
             List<TScanRangeLocations> locations = scanNode.getScanRangeLocations(0);
             if (locations == null) {
@@ -1188,30 +1429,150 @@ public class Coordinator {
 
             FragmentScanRangeAssignment assignment =
                     fragmentExecParamsMap.get(scanNode.getFragmentId()).scanRangeAssignment;
-            computeScanRangeAssignment(scanNode.getId(), locations, assignment);
+            if (assignedBytesPerHost == null) {
+                computeScanRangeAssignment(scanNode.getId(), locations, assignment,
+                        Maps.<TNetworkAddress, Long>newHashMap(), null, 1);
+            } else {
+                computeScanRangeAssignment(scanNode.getId(), locations, assignment,
+                        assignedBytesPerHost, loadScores, defaultLoadScore);
+            }
+        }
+    }
+
+    /*
+     * Return the scans of olap tables in the fragment if it has colocate or bucket shuffle joins, null if not.
+     * Nodes in the child fragments are not visited.
+     */
+    private List<OlapScanNode> getBucketScanNodes(PlanFragment fragment) {
+        List<OlapScanNode> scanNodes = Lists.newArrayList();
+        boolean hasBucketJoin = false;
+        List<PlanNode> nodes = Lists.newArrayList(fragment.getPlanRoot());
+        while (!nodes.isEmpty()) {
+            PlanNode node = nodes.remove(nodes.size() - 1);
+            if (node instanceof ExchangeNode) {
+                continue;
+            }
+            if (node instanceof HashJoinNode && ((HashJoinNode) node).isBucketJoin()) {
+                hasBucketJoin = true;
+            } else if (node instanceof OlapScanNode) {
+                scanNodes.add((OlapScanNode) node);
+            }
+            nodes.addAll(node.getChildren());
+        }
+        return hasBucketJoin ? scanNodes : null;
+    }
+
+    /*
+     * Assign the scan ranges of each bucket seq of the scan nodes to a backend which has replicas of all of them,
+     * preferring the backend with the fewest buckets assigned, weighted by its load score if not null.
+     */
+    private void computeBucketScanRangeAssignment(FragmentExecParams params, List<OlapScanNode> scanNodes,
+                                                  Map<Long, Double> loadScores, double defaultLoadScore)
+            throws Exception {
+        Map<Integer, Set<Long>> bucketSeqToBackendIds = OlapScanNode.getCommonBackendsPerBucket(scanNodes);
+        if (bucketSeqToBackendIds == null) {
+            throw new UserException("there is no backend which has all the replicas of a bucket");
+        }
+        PlanNode leftmostNode = findLeftmostNode(params.fragment.getPlanRoot());
+        params.bucketNum = leftmostNode instanceof OlapScanNode ? ((OlapScanNode) leftmostNode).getBucketNum() : -1;
+
+        Map<Long, Integer> backendToBucketNum = Maps.newHashMap();
+        for (Map.Entry<Integer, Set<Long>> entry : bucketSeqToBackendIds.entrySet()) {
+            int bucketSeq = entry.getKey();
+            Set<Long> backendIds = entry.getValue();
+
+            // the locations of the backends which have all the replicas of the bucket
+            TScanRangeLocations firstLocations = null;
+            for (OlapScanNode scanNode : scanNodes) {
+                List<TScanRangeLocations> bucketLocations = scanNode.getBucketSeqToLocations().get(bucketSeq);
+                if (!bucketLocations.isEmpty()) {
+                    firstLocations = bucketLocations.get(0);
+                    break;
+                }
+            }
+            List<TScanRangeLocation> candidates = Lists.newArrayList();
+            for (TScanRangeLocation location : firstLocations.getLocations()) {
+                if (backendIds.contains(location.backend_id)) {
+                    candidates.add(location);
+                }
+            }
+
+            double minCost = Double.MAX_VALUE;
+            long minBackendId = -1L;
+            for (TScanRangeLocation location : candidates) {
+                Integer bucketNum = backendToBucketNum.get(location.backend_id);
+                double cost = bucketNum == null ? 0 : bucketNum;
+                if (loadScores != null) {
+                    Double loadScore = loadScores.get(location.backend_id);
+                    cost = (cost + 1) * (loadScore == null ? defaultLoadScore : loadScore);
+                }
+                if (cost < minCost) {
+                    minCost = cost;
+                    minBackendId = location.backend_id;
+                }
+            }
+
+            Reference<Long> backendIdRef = new Reference<Long>();
+            TNetworkAddress execHostPort = SimpleScheduler.getHost(minBackendId, candidates, this.idToBackend,
+                    backendIdRef);
+            if (execHostPort == null) {
+                throw new UserException("there is no scanNode Backend");
+            }
+            this.addressToBackendID.put(execHostPort, backendIdRef.getRef());
+            Integer bucketNum = backendToBucketNum.get(backendIdRef.getRef());
+            backendToBucketNum.put(backendIdRef.getRef(), bucketNum == null ? 1 : bucketNum + 1);
+            params.bucketSeqToAddress.put(bucketSeq, execHostPort);
+
+            Map<Integer, List<TScanRangeParams>> scanRanges = findOrInsert(params.scanRangeAssignment, execHostPort,
+                    new HashMap<Integer, List<TScanRangeParams>>());
+            Map<Integer, List<TScanRangeParams>> bucketScanRanges = Maps.newHashMap();
+            params.bucketSeqToScanRanges.put(bucketSeq, bucketScanRanges);
+            for (OlapScanNode scanNode : scanNodes) {
+                for (TScanRangeLocations locations : scanNode.getBucketSeqToLocations().get(bucketSeq)) {
+                    TScanRangeParams scanRangeParams = new TScanRangeParams();
+                    scanRangeParams.scan_range = locations.scan_range;
+                    for (TScanRangeLocation location : locations.getLocations()) {
+                        if (location.backend_id == backendIdRef.getRef()) {
+                            scanRangeParams.setVolume_id(location.volume_id);
+                        }
+                    }
+                    findOrInsert(scanRanges, scanNode.getId().asInt(), new ArrayList<TScanRangeParams>())
+                            .add(scanRangeParams);
+                    findOrInsert(bucketScanRanges, scanNode.getId().asInt(), new ArrayList<TScanRangeParams>())
+                            .add(scanRangeParams);
+                }
+            }
         }
     }
 
     // Does a scan range assignment (returned in 'assignment') based on a list
     // of scan range locations for a particular node.
     // If exec_at_coord is true, all scan ranges will be assigned to the coord node.
+    // If loadScores is not null, the assigned bytes of a host are weighted by the load score of its backend.
     private void computeScanRangeAssignment(
             final PlanNodeId nodeId,
             final List<TScanRangeLocations> locations,
-            FragmentScanRangeAssignment assignment) throws Exception {
-        HashMap<TNetworkAddress, Long> assignedBytesPerHost = Maps.newHashMap();
+            FragmentScanRangeAssignment assignment,
+            HashMap<TNetworkAddress, Long> assignedBytesPerHost,
+            Map<Long, Double> loadScores,
+            double defaultLoadScore) throws Exception {
         for (TScanRangeLocations scanRangeLocations : locations) {
+            Long scanRangeLength = getScanRangeLength(scanRangeLocations.scan_range);
             // assign this scan range to the host w/ the fewest assigned bytes
-            Long minAssignedBytes = Long.MAX_VALUE;
+            double minCost = Double.MAX_VALUE;
             TScanRangeLocation minLocation = null;
             for (final TScanRangeLocation location : scanRangeLocations.getLocations()) {
                 Long assignedBytes = findOrInsert(assignedBytesPerHost, location.server, 0L);
-                if (assignedBytes < minAssignedBytes) {
-                    minAssignedBytes = assignedBytes;
+                double cost = assignedBytes;
+                if (loadScores != null) {
+                    Double loadScore = loadScores.get(location.backend_id);
+                    cost = (assignedBytes + scanRangeLength) * (loadScore == null ? defaultLoadScore : loadScore);
+                }
+                if (cost < minCost) {
+                    minCost = cost;
                     minLocation = location;
                 }
             }
-            Long scanRangeLength = getScanRangeLength(scanRangeLocations.scan_range);
             assignedBytesPerHost.put(minLocation.server,
                     assignedBytesPerHost.get(minLocation.server) + scanRangeLength);
 
@@ -1253,6 +1614,9 @@ public class Coordinator {
             execState.profile.update(params.profile);
             done = params.done;
             execState.done = params.done;
+            if (done) {
+                execState.finishLoad(execState.hasScanRanges() && new Status(params.status).ok());
+            }
         } finally {
             execState.unlock();
         }
@@ -1362,6 +1726,8 @@ public class Coordinator {
         private boolean initiated;
         private boolean done;
         private boolean hasCanceled;
+        // time when the instance is counted as a load of its backend, -1 if it is not counted or finished
+        private long loadStartTime = -1;
         private Lock lock = new ReentrantLock();
         private int profileFragmentId;
         RuntimeProfile profile;
@@ -1430,12 +1796,105 @@ public class Coordinator {
             }
             initiated = true;
             try {
-                return BackendServiceProxy.getInstance().execPlanFragmentAsync(brpcAddress, rpcParams);
+                byte[] serializedParams = fragmentExecParamsMap.get(fragmentId).serialize(rpcParams);
+                startLoad();
+                return BackendServiceProxy.getInstance().execPlanFragmentAsync(brpcAddress, serializedParams);
             } catch (RpcException e) {
+                finishLoad(false);
                 SimpleScheduler.updateBlacklistBackends(systemBackendId);
                 throw e;
             }
         }
+
+        public boolean hasScanRanges() {
+            return rpcParams.params.isSetPer_node_scan_ranges() && !rpcParams.params.per_node_scan_ranges.isEmpty();
+        }
+
+        // the instance is a load of the backend until it is finished, only tracked for load aware queries
+        private void startLoad() {
+            if (!isLoadAwareReplicaSelection || systemBackendId == null) {
+                return;
+            }
+            lock();
+            try {
+                loadStartTime = System.currentTimeMillis();
+                BackendLoadTracker.getInstance().instanceStarted(systemBackendId);
+            } finally {
+                unlock();
+            }
+        }
+
+        // The instance is done or cancelled, so it is not a load of the backend any more.
+        // Only the first call of a started instance is counted.
+        public void finishLoad(boolean countExecTime) {
+            lock();
+            try {
+                if (loadStartTime < 0) {
+                    return;
+                }
+                long execTimeMs = countExecTime ? System.currentTimeMillis() - loadStartTime : -1;
+                BackendLoadTracker.getInstance().instanceFinished(systemBackendId, execTimeMs);
+                loadStartTime = -1;
+            } finally {
+                unlock();
+            }
+        }
+    }
+
+    // fields of TExecPlanFragmentParams which are different among instances of a fragment,
+    // all other fields are same for the instances, see FragmentExecParams.toThrift()
+    static final Set<TExecPlanFragmentParams._Fields> INSTANCE_PARAMS_FIELDS = Collections.unmodifiableSet(
+            EnumSet.of(TExecPlanFragmentParams._Fields.PARAMS, TExecPlanFragmentParams._Fields.BACKEND_NUM));
+
+    // the required protocol_version is in both the common params and the instance params
+    private static TExecPlanFragmentParams copyParams(TExecPlanFragmentParams params, boolean instanceFields) {
+        TExecPlanFragmentParams result = new TExecPlanFragmentParams();
+        for (TExecPlanFragmentParams._Fields field : TExecPlanFragmentParams._Fields.values()) {
+            if (params.isSet(field) && (field == TExecPlanFragmentParams._Fields.PROTOCOL_VERSION
+                    || INSTANCE_PARAMS_FIELDS.contains(field) == instanceFields)) {
+                result.setFieldValue(field, params.getFieldValue(field));
+            }
+        }
+        return result;
+    }
+
+    static TExecPlanFragmentParams getCommonParams(TExecPlanFragmentParams params) {
+        return copyParams(params, false);
+    }
+
+    static TExecPlanFragmentParams getInstanceParams(TExecPlanFragmentParams params) {
+        return copyParams(params, true);
+    }
+
+    // the fields are usually shared by the instances, so they are compared by reference first
+    static boolean hasSameCommonParams(TExecPlanFragmentParams commonParams, TExecPlanFragmentParams params) {
+        for (TExecPlanFragmentParams._Fields field : TExecPlanFragmentParams._Fields.values()) {
+            if (INSTANCE_PARAMS_FIELDS.contains(field)) {
+                continue;
+            }
+            if (commonParams.isSet(field) != params.isSet(field)) {
+                return false;
+            }
+            Object value = params.getFieldValue(field);
+            Object commonValue = commonParams.getFieldValue(field);
+            if (value != commonValue && (value == null || !value.equals(commonValue))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * In binary protocol, a struct is a sequence of fields ended by a stop byte, and it is read field by field.
+     * So the serialized common params without its stop byte followed by the serialized instance params is
+     * read as the whole params.
+     */
+    static byte[] concatSerializedParams(byte[] serializedCommonParams, byte[] serializedInstanceParams) {
+        int commonLength = serializedCommonParams.length - 1;
+        byte[] result = new byte[commonLength + serializedInstanceParams.length];
+        System.arraycopy(serializedCommonParams, 0, result, 0, commonLength);
+        System.arraycopy(serializedInstanceParams, 0, result, commonLength, serializedInstanceParams.length);
+        return result;
     }
 
     // execution parameters for a single fragment,
@@ -1449,6 +1908,15 @@ public class Coordinator {
         public List<PlanFragmentId> inputFragments = Lists.newArrayList();
         public List<FInstanceExecParam> instanceExecParams = Lists.newArrayList();
         public FragmentScanRangeAssignment scanRangeAssignment = new FragmentScanRangeAssignment();
+        // for fragments with colocate or bucket shuffle joins: bucket num of the leftmost scan,
+        // host and scan ranges of each bucket seq, and the instance scanning each bucket seq
+        public int bucketNum = -1;
+        public Map<Integer, TNetworkAddress> bucketSeqToAddress = Maps.newHashMap();
+        public Map<Integer, Map<Integer, List<TScanRangeParams>>> bucketSeqToScanRanges = Maps.newHashMap();
+        public Map<Integer, FInstanceExecParam> bucketSeqToInstance = Maps.newHashMap();
+        // fields of TExecPlanFragmentParams which are same for all instances and their bytes, see serialize()
+        private TExecPlanFragmentParams commonParams;
+        private byte[] serializedCommonParams;
         
         public FragmentExecParams(PlanFragment fragment) {
             this.fragment = fragment;
@@ -1457,11 +1925,13 @@ public class Coordinator {
         List<TExecPlanFragmentParams> toThrift(int backendNum) {
             List<TExecPlanFragmentParams> paramsList = Lists.newArrayList();
 
+            // the plan is same for all instances
+            TPlanFragment tFragment = fragment.toThrift();
             for (int i = 0; i < instanceExecParams.size(); ++i) {
                 final FInstanceExecParam instanceExecParam = instanceExecParams.get(i);
                 TExecPlanFragmentParams params = new TExecPlanFragmentParams();
                 params.setProtocol_version(PaloInternalServiceVersion.V1);
-                params.setFragment(fragment.toThrift());
+                params.setFragment(tFragment);
                 params.setDesc_tbl(descTable);
                 params.setParams(new TPlanFragmentExecParams());
                 params.setResource_info(tResourceInfo);
@@ -1483,12 +1953,43 @@ public class Coordinator {
                 params.setBackend_num(backendNum++);
                 params.setQuery_globals(queryGlobals);
                 params.setQuery_options(queryOptions);
+                if (runtimeFilterMergeAddr != null) {
+                    TRuntimeFilterParams runtimeFilterParams = new TRuntimeFilterParams();
+                    runtimeFilterParams.setRuntime_filter_merge_addr(runtimeFilterMergeAddr);
+                    if (instanceExecParam.instanceId.equals(runtimeFilterMergeInstanceId)) {
+                        runtimeFilterParams.setRid_to_target_param(ridToTargetParams);
+                        runtimeFilterParams.setRuntime_filter_builder_num(ridToBuilderNum);
+                    }
+                    params.params.setRuntime_filter_params(runtimeFilterParams);
+                }
 
                 paramsList.add(params);
             }
             return paramsList;
         }
 
+        /*
+         * Serialize the params of an instance, which is one of the results of toThrift().
+         * The fields which are same for all instances, such as the plan and the descriptor table, are serialized
+         * only once, and the fields of each instance are appended to them, see concatSerializedParams().
+         * The params are serialized as a whole if its common fields are not the ones serialized before.
+         */
+        byte[] serialize(TExecPlanFragmentParams params) throws TException {
+            TSerializer serializer = new TSerializer();
+            byte[] serializedCommon;
+            synchronized (this) {
+                if (commonParams == null) {
+                    commonParams = getCommonParams(params);
+                    serializedCommonParams = serializer.serialize(commonParams);
+                }
+                if (!hasSameCommonParams(commonParams, params)) {
+                    return serializer.serialize(params);
+                }
+                serializedCommon = serializedCommonParams;
+            }
+            return concatSerializedParams(serializedCommon, serializer.serialize(getInstanceParams(params)));
+        }
+
         // Append range information
         // [tablet_id(version),tablet_id(version)]
         public void appendScanRange(StringBuilder sb, List<TScanRangeParams> params) {
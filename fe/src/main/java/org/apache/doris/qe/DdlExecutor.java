@@ -22,6 +22,7 @@ import org.apache.doris.analysis.AlterDatabaseQuotaStmt;
 import org.apache.doris.analysis.AlterDatabaseRename;
 import org.apache.doris.analysis.AlterSystemStmt;
 import org.apache.doris.analysis.AlterTableStmt;
+import org.apache.doris.analysis.AnalyzeStmt;
 import org.apache.doris.analysis.BackupStmt;
 import org.apache.doris.analysis.CancelAlterSystemStmt;
 import org.apache.doris.analysis.CancelAlterTableStmt;
@@ -149,6 +150,8 @@ public class DdlExecutor {
             catalog.getBackupHandler().createRepository((CreateRepositoryStmt) ddlStmt);
         } else if (ddlStmt instanceof DropRepositoryStmt) {
             catalog.getBackupHandler().dropRepository((DropRepositoryStmt) ddlStmt);
+        } else if (ddlStmt instanceof AnalyzeStmt) {
+            catalog.getColumnStatsMgr().analyze((AnalyzeStmt) ddlStmt);
         } else if (ddlStmt instanceof SyncStmt) {
             return;
         } else {
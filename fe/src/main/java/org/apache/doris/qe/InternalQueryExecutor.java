@@ -0,0 +1,142 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.QueryStmt;
+import org.apache.doris.analysis.SqlParser;
+import org.apache.doris.analysis.SqlScanner;
+import org.apache.doris.analysis.StatementBase;
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.Database;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.UserException;
+import org.apache.doris.mysql.MysqlProto;
+import org.apache.doris.mysql.privilege.PaloAuth;
+import org.apache.doris.planner.Planner;
+import org.apache.doris.service.FrontendOptions;
+import org.apache.doris.thrift.TResultBatch;
+import org.apache.doris.thrift.TUniqueId;
+
+import com.google.common.collect.Lists;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Executor of the queries issued by frontend itself, eg. the queries to collect column statistics.
+ * The query is executed by root in a context of its own, and its result rows are returned as text.
+ */
+public class InternalQueryExecutor {
+    private final String sql;
+    private final ConnectContext context;
+    private Analyzer analyzer;
+    private Planner planner;
+
+    public InternalQueryExecutor(Database db, String sql) {
+        this.sql = sql;
+        context = new ConnectContext(null);
+        context.setCatalog(Catalog.getInstance());
+        context.setCluster(db.getClusterName());
+        context.setDatabase(db.getFullName());
+        context.setQualifiedUser(PaloAuth.ROOT_USER);
+        context.setRemoteIP(FrontendOptions.getLocalHostAddress());
+        context.getState().reset();
+        UUID uuid = UUID.randomUUID();
+        context.setQueryId(new TUniqueId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+    }
+
+    /*
+     * Analyze and plan the query. It should be called with the tables in query read locked,
+     * and the returned planner can be adjusted before execute().
+     */
+    public Planner plan() throws UserException {
+        ConnectContext origin = ConnectContext.get();
+        context.setThreadLocalInfo();
+        try {
+            SqlParser parser = new SqlParser(new SqlScanner(new StringReader(sql)));
+            StatementBase stmt;
+            try {
+                stmt = (StatementBase) parser.parse().value;
+            } catch (Exception e) {
+                throw new AnalysisException("Failed to parse " + sql + ": " + e.getMessage());
+            }
+            if (!(stmt instanceof QueryStmt)) {
+                throw new AnalysisException("Not a query: " + sql);
+            }
+            analyzer = new Analyzer(context.getCatalog(), context);
+            stmt.analyze(analyzer);
+            planner = new Planner();
+            planner.plan(stmt, analyzer, context.getSessionVariable().toThrift());
+            return planner;
+        } finally {
+            restoreContext(origin);
+        }
+    }
+
+    // Execute the planned query, and return its rows. A NULL value is returned as null.
+    public List<List<String>> execute() throws Exception {
+        ConnectContext origin = ConnectContext.get();
+        context.setThreadLocalInfo();
+        Coordinator coord = new Coordinator(context, analyzer, planner);
+        QeProcessorImpl.INSTANCE.registerQuery(context.queryId(),
+                                               new QeProcessorImpl.QueryInfo(context, sql, coord));
+        try {
+            coord.exec();
+            List<List<String>> rows = Lists.newArrayList();
+            TResultBatch batch;
+            while ((batch = coord.getNext()) != null) {
+                for (ByteBuffer row : batch.getRows()) {
+                    rows.add(decodeRow(row));
+                }
+            }
+            return rows;
+        } catch (Exception e) {
+            coord.cancel();
+            throw e;
+        } finally {
+            QeProcessorImpl.INSTANCE.unregisterQuery(context.queryId());
+            restoreContext(origin);
+        }
+    }
+
+    private static void restoreContext(ConnectContext origin) {
+        if (origin != null) {
+            origin.setThreadLocalInfo();
+        } else {
+            ConnectContext.remove();
+        }
+    }
+
+    // Backends send rows in text protocol, in which a value is a length encoded string, or 0xfb for NULL.
+    private static List<String> decodeRow(ByteBuffer row) {
+        List<String> values = Lists.newArrayList();
+        while (row.hasRemaining()) {
+            if ((row.get(row.position()) & 0xFF) == 0xFB) {
+                row.get();
+                values.add(null);
+            } else {
+                values.add(new String(MysqlProto.readLenEncodedString(row), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+}
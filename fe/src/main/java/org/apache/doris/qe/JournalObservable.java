@@ -17,6 +17,7 @@
 
 package org.apache.doris.qe;
 
+import org.apache.doris.catalog.Catalog;
 import org.apache.doris.common.DdlException;
 
 import com.google.common.collect.Multiset;
@@ -47,12 +48,18 @@ public class JournalObservable {
         LOG.debug("JournalObservable deleteObserver=[{}], the size is {}", o, obs.size());
     }
 
+    public synchronized boolean hasObservers() {
+        return !obs.isEmpty();
+    }
+
     public void waitOn(Long expectedJournalVersion, int timeoutMs) throws DdlException {
         LOG.info("waiting for the observer to replay journal to {} with timeout: {} ms",
                  expectedJournalVersion, timeoutMs);
   
         JournalObserver observer = new JournalObserver(expectedJournalVersion);
         addObserver(observer);
+        // the replayer may be idle waiting, wake it up to replay the expected journal as soon as possible
+        Catalog.getInstance().wakeUpReplayer();
         try {
             observer.waitForReplay(timeoutMs);
         } finally {
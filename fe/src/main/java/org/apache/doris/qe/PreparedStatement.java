@@ -0,0 +1,381 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.LiteralExpr;
+import org.apache.doris.analysis.NullLiteral;
+import org.apache.doris.analysis.PlaceHolderExpr;
+import org.apache.doris.analysis.QueryStmt;
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.Database;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.Partition;
+import org.apache.doris.catalog.PrimitiveType;
+import org.apache.doris.catalog.Table;
+import org.apache.doris.catalog.Table.TableType;
+import org.apache.doris.catalog.TabletInvertedIndex;
+import org.apache.doris.common.Config;
+import org.apache.doris.common.Pair;
+import org.apache.doris.mysql.privilege.PrivPredicate;
+import org.apache.doris.planner.OlapScanNode;
+import org.apache.doris.planner.Planner;
+import org.apache.doris.planner.ScanNode;
+import org.apache.doris.thrift.TScanRangeLocation;
+import org.apache.doris.thrift.TScanRangeLocations;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * A statement prepared by COM_STMT_PREPARE, which lives until COM_STMT_CLOSE or the connection is closed.
+ *
+ * The statement is parsed only once. Each COM_STMT_EXECUTE binds the parameters and analyzes a clone of
+ * the parsed statement, so the parsing is saved. The result columns are analyzed when preparing, with all
+ * parameters bound to NULL, and the schema versions of the referenced tables are recorded at the same time.
+ * If the schema of any referenced table is changed later, the statement is prepared again before executing.
+ *
+ * The analyzed statements and plans of the most recently bound parameters are cached, see CachedPlan. A plan
+ * depends on the bound values because of partition pruning and tablet selection, so it is only reused when the
+ * same values are bound again, and when the scanned partitions and replicas are not changed.
+ */
+public class PreparedStatement {
+    private final int id;
+    private final String originStmt;
+
+    // parsed statement, which is never analyzed
+    private QueryStmt stmt;
+    private List<PlaceHolderExpr> placeHolders = Lists.newArrayList();
+    // mysql types of the parameters, which are only sent by the first COM_STMT_EXECUTE
+    private int[] paramTypes;
+
+    private List<String> colLabels = Lists.newArrayList();
+    private List<PrimitiveType> colTypes = Lists.newArrayList();
+    private List<TableVersion> tableVersions = Lists.newArrayList();
+    // bound sql -> cached plan, in access order
+    private final LinkedHashMap<String, CachedPlan> cachedPlans =
+            new LinkedHashMap<String, CachedPlan>(16, 0.75f, true);
+
+    private static class TableVersion {
+        private final long dbId;
+        private final long tableId;
+        private final int schemaVersion;
+
+        public TableVersion(long dbId, long tableId, int schemaVersion) {
+            this.dbId = dbId;
+            this.tableId = tableId;
+            this.schemaVersion = schemaVersion;
+        }
+    }
+
+    /*
+     * An analyzed statement and its plan. It is valid only if the session is not changed, the user still has
+     * the SELECT privilege of all referenced tables, and all scanned partitions have the same committed versions
+     * and all scan ranges have the same replicas as when planned.
+     * The schema versions of the tables are checked by isSchemaChanged() before any execution.
+     */
+    public static class CachedPlan {
+        private final QueryStmt stmt;
+        private final Analyzer analyzer;
+        private final Planner planner;
+        private final String database;
+        private final byte[] sessionVariables;
+
+        private CachedPlan(QueryStmt stmt, Analyzer analyzer, Planner planner, String database,
+                           byte[] sessionVariables) {
+            this.stmt = stmt;
+            this.analyzer = analyzer;
+            this.planner = planner;
+            this.database = database;
+            this.sessionVariables = sessionVariables;
+        }
+
+        public QueryStmt getStmt() {
+            return stmt;
+        }
+
+        public Analyzer getAnalyzer() {
+            return analyzer;
+        }
+
+        public Planner getPlanner() {
+            return planner;
+        }
+    }
+
+    public PreparedStatement(int id, String originStmt) {
+        this.id = id;
+        this.originStmt = originStmt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getOriginStmt() {
+        return originStmt;
+    }
+
+    public int getParamNum() {
+        return placeHolders.size();
+    }
+
+    public int[] getParamTypes() {
+        return paramTypes;
+    }
+
+    public void setParamTypes(int[] paramTypes) {
+        this.paramTypes = paramTypes;
+    }
+
+    public List<String> getColLabels() {
+        return colLabels;
+    }
+
+    public List<PrimitiveType> getColTypes() {
+        return colTypes;
+    }
+
+    // set the parsed statement. all parameters are bound to NULL, to analyze the result columns.
+    public void setStmt(QueryStmt stmt, List<PlaceHolderExpr> placeHolders) {
+        this.stmt = stmt;
+        this.placeHolders = placeHolders;
+        for (PlaceHolderExpr placeHolder : placeHolders) {
+            placeHolder.bind(new NullLiteral());
+        }
+        colLabels.clear();
+        colTypes.clear();
+        tableVersions.clear();
+        cachedPlans.clear();
+    }
+
+    public void setColumns(List<String> labels, List<Expr> exprs) {
+        colLabels = Lists.newArrayList(labels);
+        colTypes = Lists.newArrayListWithCapacity(exprs.size());
+        for (Expr expr : exprs) {
+            colTypes.add(expr.getType().getPrimitiveType());
+        }
+    }
+
+    // must be called with the table lock held
+    public void addTableVersion(Database db, Table table) {
+        int schemaVersion = 0;
+        if (table.getType() == TableType.OLAP) {
+            // id of the base index is the table id
+            schemaVersion = ((OlapTable) table).getSchemaVersionByIndexId(table.getId());
+        }
+        tableVersions.add(new TableVersion(db.getId(), table.getId(), schemaVersion));
+    }
+
+    // return true if any referenced table is dropped or its schema is changed, after the statement is prepared
+    public boolean isSchemaChanged(Catalog catalog) {
+        for (TableVersion version : tableVersions) {
+            Database db = catalog.getDb(version.dbId);
+            if (db == null) {
+                return true;
+            }
+            Table table = db.readLockTable(version.tableId);
+            try {
+                if (table == null) {
+                    return true;
+                }
+                if (table.getType() == TableType.OLAP
+                        && ((OlapTable) table).getSchemaVersionByIndexId(table.getId()) != version.schemaVersion) {
+                    return true;
+                }
+            } finally {
+                db.readUnlockTable(table);
+            }
+        }
+        return false;
+    }
+
+    public void bind(List<LiteralExpr> params) {
+        Preconditions.checkArgument(params.size() == placeHolders.size());
+        for (int i = 0; i < params.size(); i++) {
+            placeHolders.get(i).bind(params.get(i));
+        }
+    }
+
+    // return the statement with the bound values of parameters, which identifies the result of an execution
+    public String getBoundSql() {
+        StringBuilder sb = new StringBuilder(originStmt);
+        sb.append(" /* params:");
+        for (PlaceHolderExpr placeHolder : placeHolders) {
+            sb.append(' ').append(placeHolder.getValue().toSql());
+        }
+        sb.append(" */");
+        return sb.toString();
+    }
+
+    // return a new statement to analyze, in which parameters are replaced by the bound values
+    public QueryStmt getBoundStmt() {
+        return stmt.clone();
+    }
+
+    /*
+     * Cache the analyzed statement and plan of the bound parameters. Only plans of olap scans on the recorded
+     * tables are cached, whose partitions and replicas can be checked by getCachedPlan().
+     */
+    public void cachePlan(ConnectContext context, QueryStmt analyzedStmt, Analyzer analyzer, Planner planner) {
+        if (Config.max_cached_plans_per_prepared_stmt <= 0 || analyzedStmt.isExplain()) {
+            return;
+        }
+        for (ScanNode scanNode : planner.getScanNodes()) {
+            if (!(scanNode instanceof OlapScanNode)
+                    || getTableVersion(((OlapScanNode) scanNode).getOlapTable().getId()) == null) {
+                return;
+            }
+        }
+        byte[] sessionVariables = serializeSessionVariables(context);
+        if (sessionVariables == null) {
+            return;
+        }
+        cachedPlans.put(getBoundSql(), new CachedPlan(analyzedStmt, analyzer, planner, context.getDatabase(),
+                                                      sessionVariables));
+        Iterator<String> iter = cachedPlans.keySet().iterator();
+        while (cachedPlans.size() > Config.max_cached_plans_per_prepared_stmt && iter.hasNext()) {
+            iter.next();
+            iter.remove();
+        }
+    }
+
+    // Return the valid cached plan of the bound parameters, or null. An invalid plan is removed.
+    public CachedPlan getCachedPlan(ConnectContext context, Catalog catalog) {
+        String boundSql = getBoundSql();
+        CachedPlan plan = cachedPlans.get(boundSql);
+        if (plan == null) {
+            return null;
+        }
+        if (!isPlanValid(plan, context, catalog)) {
+            cachedPlans.remove(boundSql);
+            return null;
+        }
+        return plan;
+    }
+
+    public void clearCachedPlans() {
+        cachedPlans.clear();
+    }
+
+    public int getCachedPlanNum() {
+        return cachedPlans.size();
+    }
+
+    private boolean isPlanValid(CachedPlan plan, ConnectContext context, Catalog catalog) {
+        if (plan.database == null ? context.getDatabase() != null : !plan.database.equals(context.getDatabase())) {
+            return false;
+        }
+        if (!Arrays.equals(plan.sessionVariables, serializeSessionVariables(context))) {
+            return false;
+        }
+        // the privileges are checked when analyzing, which is skipped by reusing the plan
+        if (!hasSelectPriv(context, catalog)) {
+            return false;
+        }
+        for (ScanNode scanNode : plan.planner.getScanNodes()) {
+            OlapScanNode olapScanNode = (OlapScanNode) scanNode;
+            if (!isPartitionVersionsValid(olapScanNode, catalog)) {
+                return false;
+            }
+            TabletInvertedIndex invertedIndex = Catalog.getCurrentInvertedIndex();
+            for (TScanRangeLocations locations : olapScanNode.getScanRangeLocations(0)) {
+                long tabletId = locations.getScan_range().getPalo_scan_range().getTablet_id();
+                for (TScanRangeLocation location : locations.getLocations()) {
+                    if (invertedIndex.getReplica(tabletId, location.getBackend_id()) == null) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean hasSelectPriv(ConnectContext context, Catalog catalog) {
+        for (TableVersion version : tableVersions) {
+            Database db = catalog.getDb(version.dbId);
+            if (db == null) {
+                return false;
+            }
+            Table table = db.readLockTable(version.tableId);
+            try {
+                if (table == null || !catalog.getAuth().checkTblPriv(context, db.getFullName(), table.getName(),
+                                                                     PrivPredicate.SELECT)) {
+                    return false;
+                }
+            } finally {
+                db.readUnlockTable(table);
+            }
+        }
+        return true;
+    }
+
+    private boolean isPartitionVersionsValid(OlapScanNode scanNode, Catalog catalog) {
+        TableVersion version = getTableVersion(scanNode.getOlapTable().getId());
+        Database db = catalog.getDb(version.dbId);
+        if (db == null) {
+            return false;
+        }
+        Table table = db.readLockTable(version.tableId);
+        try {
+            if (!(table instanceof OlapTable)) {
+                return false;
+            }
+            for (Map.Entry<Long, Pair<Long, Long>> entry : scanNode.getScannedPartitionVersions().entrySet()) {
+                Partition partition = ((OlapTable) table).getPartition(entry.getKey());
+                if (partition == null || partition.getCommittedVersion() != entry.getValue().first
+                        || partition.getCommittedVersionHash() != entry.getValue().second) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            db.readUnlockTable(table);
+        }
+    }
+
+    private TableVersion getTableVersion(long tableId) {
+        for (TableVersion version : tableVersions) {
+            if (version.tableId == tableId) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    // the session variables affect the plan, eg. parallelism and join reorder
+    private static byte[] serializeSessionVariables(ConnectContext context) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            context.getSessionVariable().write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+}
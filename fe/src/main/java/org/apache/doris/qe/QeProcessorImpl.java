@@ -59,7 +59,10 @@ public final class QeProcessorImpl implements QeProcessor {
     @Override
     public void unregisterQuery(TUniqueId queryId) {
         LOG.info("deregister query id = " + queryId.toString());
-        coordinatorMap.remove(queryId);
+        QueryInfo info = coordinatorMap.remove(queryId);
+        if (info != null && info.getCoord() != null) {
+            info.getCoord().finishLoads();
+        }
     }
 
     @Override
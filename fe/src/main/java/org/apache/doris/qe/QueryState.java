@@ -56,6 +56,10 @@ public class QueryState {
         return stateType;
     }
 
+    public void setNoop() {
+        stateType = MysqlStateType.NOOP;
+    }
+
     public void setEof() {
         stateType = MysqlStateType.EOF;
     }
@@ -18,6 +18,7 @@
 package org.apache.doris.qe;
 
 import org.apache.doris.common.ClientPool;
+import org.apache.doris.common.Config;
 import org.apache.doris.common.UserException;
 import org.apache.doris.common.Status;
 import org.apache.doris.rpc.BackendServiceProxy;
@@ -50,6 +51,10 @@ public class ResultReceiver {
     private PUniqueId finstId;
     private Long backendId;
     private Thread currentThread;
+    // fetch request sent before the previous batch is returned, so the next batch is fetched while the previous
+    // one is sent to client. Backend returns the batches in the order of requests.
+    private PFetchDataRequest prefetchRequest;
+    private Future<PFetchDataResult> prefetchFuture;
 
     public ResultReceiver(TUniqueId tid, Long backendId, TNetworkAddress address, int timeoutMs) {
         this.finstId = new PUniqueId(tid);
@@ -65,10 +70,18 @@ public class ResultReceiver {
         
         try {
             while (!isDone && !isCancel) {
-                PFetchDataRequest request = new PFetchDataRequest(finstId);
-
                 currentThread = Thread.currentThread();
-                Future<PFetchDataResult> future = BackendServiceProxy.getInstance().fetchDataAsync(address, request);
+                PFetchDataRequest request;
+                Future<PFetchDataResult> future;
+                if (prefetchFuture != null) {
+                    request = prefetchRequest;
+                    future = prefetchFuture;
+                    prefetchRequest = null;
+                    prefetchFuture = null;
+                } else {
+                    request = new PFetchDataRequest(finstId);
+                    future = BackendServiceProxy.getInstance().fetchDataAsync(address, request);
+                }
                 PFetchDataResult pResult = null;
                 while (pResult == null) {
                     long currentTs = System.currentTimeMillis();
@@ -100,6 +113,9 @@ public class ResultReceiver {
     
                 packetIdx++;
                 isDone = pResult.eos;
+                if (!isDone && Config.enable_result_prefetch) {
+                    prefetch();
+                }
 
                 byte[] serialResult = request.getSerializedResult();
                 if (serialResult != null && serialResult.length > 0) {
@@ -137,6 +153,17 @@ public class ResultReceiver {
         return null;
     }
 
+    private void prefetch() {
+        PFetchDataRequest request = new PFetchDataRequest(finstId);
+        try {
+            prefetchFuture = BackendServiceProxy.getInstance().fetchDataAsync(address, request);
+            prefetchRequest = request;
+        } catch (RpcException e) {
+            // the batch got is still returned, and the error is reported by the next fetch
+            LOG.warn("prefetch result rpc exception, finstId={}", finstId, e);
+        }
+    }
+
     public void cancel() {
         isCancel = true;
         synchronized (this) {
@@ -67,6 +67,17 @@ public class SessionVariable implements Serializable, Writable {
     public static final String BATCH_SIZE = "batch_size";
     public static final String DISABLE_STREAMING_PREAGGREGATIONS = "disable_streaming_preaggregations";
     public static final String MT_DOP = "mt_dop";
+    public static final String REPLICA_SELECTION_POLICY = "replica_selection_policy";
+    // policies of choosing a replica of a tablet to scan
+    public static final String RANDOM_REPLICA_SELECTION = "random";
+    public static final String LOAD_AWARE_REPLICA_SELECTION = "load_aware";
+    public static final String ENABLE_COST_BASED_JOIN_REORDER = "enable_cost_based_join_reorder";
+    public static final String RUNTIME_FILTER_TYPE = "runtime_filter_type";
+    public static final String RUNTIME_FILTERS_MAX_NUM = "runtime_filters_max_num";
+    public static final String RUNTIME_FILTER_MAX_IN_NUM = "runtime_filter_max_in_num";
+    public static final String RUNTIME_BLOOM_FILTER_SIZE = "runtime_bloom_filter_size";
+    public static final String RUNTIME_BLOOM_FILTER_MIN_SIZE = "runtime_bloom_filter_min_size";
+    public static final String RUNTIME_BLOOM_FILTER_MAX_SIZE = "runtime_bloom_filter_max_size";
 
     // max memory used on every backend.
     @VariableMgr.VarAttr(name = EXEC_MEM_LIMIT)
@@ -174,6 +185,39 @@ public class SessionVariable implements Serializable, Writable {
     @VariableMgr.VarAttr(name = DISABLE_STREAMING_PREAGGREGATIONS)
     private boolean disableStreamPreaggregations = false; 
 
+    // random: choose replicas randomly.
+    // load_aware: prefer replicas on less loaded backends, see BackendLoadTracker.
+    @VariableMgr.VarAttr(name = REPLICA_SELECTION_POLICY)
+    private String replicaSelectionPolicy = RANDOM_REPLICA_SELECTION;
+
+    // order inner joins by estimated cost instead of the order in FROM clause, see JoinOrderEnumerator.
+    @VariableMgr.VarAttr(name = ENABLE_COST_BASED_JOIN_REORDER)
+    private boolean enableCostBasedJoinReorder = true;
+
+    // types of runtime filters built by hash joins, separated by comma: IN, MIN_MAX and BLOOM.
+    // empty to disable runtime filters, see RuntimeFilterGenerator.
+    @VariableMgr.VarAttr(name = RUNTIME_FILTER_TYPE)
+    private String runtimeFilterType = "IN,MIN_MAX";
+
+    // max number of runtime filters of a query
+    @VariableMgr.VarAttr(name = RUNTIME_FILTERS_MAX_NUM)
+    private int runtimeFiltersMaxNum = 10;
+
+    // an IN filter is not built if the build side has more values
+    @VariableMgr.VarAttr(name = RUNTIME_FILTER_MAX_IN_NUM)
+    private int runtimeFilterMaxInNum = 1024;
+
+    // size in bytes of a bloom filter if the number of values of the build side is unknown,
+    // otherwise the size is estimated by the number of values, between the min and max size.
+    @VariableMgr.VarAttr(name = RUNTIME_BLOOM_FILTER_SIZE)
+    private long runtimeBloomFilterSize = 2097152L;
+
+    @VariableMgr.VarAttr(name = RUNTIME_BLOOM_FILTER_MIN_SIZE)
+    private long runtimeBloomFilterMinSize = 1048576L;
+
+    @VariableMgr.VarAttr(name = RUNTIME_BLOOM_FILTER_MAX_SIZE)
+    private long runtimeBloomFilterMaxSize = 16777216L;
+
     public long getMaxExecMemByte() {
         return maxExecMemByte;
     }
@@ -405,6 +449,79 @@ public class SessionVariable implements Serializable, Writable {
     public void setMtDop(int mtDop) {
         this.mtDop = mtDop;
     }
+
+    public String getReplicaSelectionPolicy() {
+        return replicaSelectionPolicy;
+    }
+
+    public void setReplicaSelectionPolicy(String replicaSelectionPolicy) {
+        this.replicaSelectionPolicy = replicaSelectionPolicy;
+    }
+
+    public static boolean isValidReplicaSelectionPolicy(String policy) {
+        return RANDOM_REPLICA_SELECTION.equalsIgnoreCase(policy)
+                || LOAD_AWARE_REPLICA_SELECTION.equalsIgnoreCase(policy);
+    }
+
+    public boolean isLoadAwareReplicaSelection() {
+        return LOAD_AWARE_REPLICA_SELECTION.equalsIgnoreCase(replicaSelectionPolicy);
+    }
+
+    public boolean isEnableCostBasedJoinReorder() {
+        return enableCostBasedJoinReorder;
+    }
+
+    public void setEnableCostBasedJoinReorder(boolean enableCostBasedJoinReorder) {
+        this.enableCostBasedJoinReorder = enableCostBasedJoinReorder;
+    }
+
+    public String getRuntimeFilterType() {
+        return runtimeFilterType;
+    }
+
+    public void setRuntimeFilterType(String runtimeFilterType) {
+        this.runtimeFilterType = runtimeFilterType;
+    }
+
+    public int getRuntimeFiltersMaxNum() {
+        return runtimeFiltersMaxNum;
+    }
+
+    public void setRuntimeFiltersMaxNum(int runtimeFiltersMaxNum) {
+        this.runtimeFiltersMaxNum = runtimeFiltersMaxNum;
+    }
+
+    public int getRuntimeFilterMaxInNum() {
+        return runtimeFilterMaxInNum;
+    }
+
+    public void setRuntimeFilterMaxInNum(int runtimeFilterMaxInNum) {
+        this.runtimeFilterMaxInNum = runtimeFilterMaxInNum;
+    }
+
+    public long getRuntimeBloomFilterSize() {
+        return runtimeBloomFilterSize;
+    }
+
+    public void setRuntimeBloomFilterSize(long runtimeBloomFilterSize) {
+        this.runtimeBloomFilterSize = runtimeBloomFilterSize;
+    }
+
+    public long getRuntimeBloomFilterMinSize() {
+        return runtimeBloomFilterMinSize;
+    }
+
+    public void setRuntimeBloomFilterMinSize(long runtimeBloomFilterMinSize) {
+        this.runtimeBloomFilterMinSize = runtimeBloomFilterMinSize;
+    }
+
+    public long getRuntimeBloomFilterMaxSize() {
+        return runtimeBloomFilterMaxSize;
+    }
+
+    public void setRuntimeBloomFilterMaxSize(long runtimeBloomFilterMaxSize) {
+        this.runtimeBloomFilterMaxSize = runtimeBloomFilterMaxSize;
+    }
     
    // Serialize to thrift object 
     TQueryOptions toThrift() {
@@ -459,6 +576,14 @@ public class SessionVariable implements Serializable, Writable {
         out.writeInt(batchSize);
         out.writeBoolean(disableStreamPreaggregations); 
         out.writeInt(mtDop);
+        Text.writeString(out, replicaSelectionPolicy);
+        out.writeBoolean(enableCostBasedJoinReorder);
+        Text.writeString(out, runtimeFilterType);
+        out.writeInt(runtimeFiltersMaxNum);
+        out.writeInt(runtimeFilterMaxInNum);
+        out.writeLong(runtimeBloomFilterSize);
+        out.writeLong(runtimeBloomFilterMinSize);
+        out.writeLong(runtimeBloomFilterMaxSize);
     }
 
     @Override
@@ -497,5 +622,19 @@ public class SessionVariable implements Serializable, Writable {
             disableStreamPreaggregations = in.readBoolean();
             mtDop = in.readInt();
         }
+        if (Catalog.getCurrentCatalogJournalVersion() >= FeMetaVersion.VERSION_46) {
+            replicaSelectionPolicy = Text.readString(in);
+        }
+        if (Catalog.getCurrentCatalogJournalVersion() >= FeMetaVersion.VERSION_48) {
+            enableCostBasedJoinReorder = in.readBoolean();
+        }
+        if (Catalog.getCurrentCatalogJournalVersion() >= FeMetaVersion.VERSION_50) {
+            runtimeFilterType = Text.readString(in);
+            runtimeFiltersMaxNum = in.readInt();
+            runtimeFilterMaxInNum = in.readInt();
+            runtimeBloomFilterSize = in.readLong();
+            runtimeBloomFilterMinSize = in.readLong();
+            runtimeBloomFilterMaxSize = in.readLong();
+        }
     }
 }
@@ -17,6 +17,7 @@
 
 package org.apache.doris.qe;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -29,6 +30,7 @@ import org.apache.doris.analysis.ExportStmt;
 import org.apache.doris.analysis.Expr;
 import org.apache.doris.analysis.InsertStmt;
 import org.apache.doris.analysis.KillStmt;
+import org.apache.doris.analysis.PlaceHolderExpr;
 import org.apache.doris.analysis.QueryStmt;
 import org.apache.doris.analysis.RedirectStatus;
 import org.apache.doris.analysis.SelectStmt;
@@ -44,6 +46,9 @@ import org.apache.doris.catalog.Catalog;
 import org.apache.doris.catalog.Column;
 import org.apache.doris.catalog.ColumnType;
 import org.apache.doris.catalog.Database;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.PrimitiveType;
+import org.apache.doris.catalog.Table;
 import org.apache.doris.catalog.Table.TableType;
 import org.apache.doris.catalog.Type;
 import org.apache.doris.common.AnalysisException;
@@ -57,11 +62,14 @@ import org.apache.doris.common.util.DebugUtil;
 import org.apache.doris.common.util.ProfileManager;
 import org.apache.doris.common.util.RuntimeProfile;
 import org.apache.doris.common.util.TimeUtils;
+import org.apache.doris.mysql.MysqlBinaryRowConverter;
 import org.apache.doris.mysql.MysqlChannel;
 import org.apache.doris.mysql.MysqlEofPacket;
 import org.apache.doris.mysql.MysqlSerializer;
 import org.apache.doris.mysql.privilege.PrivPredicate;
 import org.apache.doris.planner.Planner;
+import org.apache.doris.qe.cache.PartitionResultCache;
+import org.apache.doris.qe.cache.ResultCache;
 import org.apache.doris.rewrite.ExprRewriter;
 import org.apache.doris.rpc.RpcException;
 import org.apache.doris.thrift.TExplainLevel;
@@ -77,6 +85,7 @@ import java.io.StringReader;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -102,6 +111,11 @@ public class StmtExecutor {
     private Planner planner;
     private boolean isProxy;
     private ShowResultSet proxyResultSet = null;
+    // not null if this is COM_STMT_PREPARE or COM_STMT_EXECUTE, whose result set is in binary protocol
+    private PreparedStatement preparedStmt = null;
+    private boolean isPrepare = false;
+    // not null if the result of query is split by partition and cached, see PartitionResultCache
+    private PartitionResultCache partitionCache = null;
 
     public StmtExecutor(ConnectContext context, String stmt, boolean isProxy) {
         this.context = context;
@@ -114,6 +128,11 @@ public class StmtExecutor {
         this(context, stmt, false);
     }
 
+    public StmtExecutor(ConnectContext context, PreparedStatement preparedStmt) {
+        this(context, preparedStmt.getOriginStmt(), false);
+        this.preparedStmt = preparedStmt;
+    }
+
     // At the end of query execution, we begin to add up profile
     public void initProfile(long beginTimeInNanoSecond) {
         profile = new RuntimeProfile("Query");
@@ -291,10 +310,60 @@ public class StmtExecutor {
             if (isRegisterQuery) {
                 QeProcessorImpl.INSTANCE.unregisterQuery(context.queryId());
             }
+            if (preparedStmt != null && context.getState().getStateType() == QueryState.MysqlStateType.ERR) {
+                // the cached plans may be the cause, eg. a backend is down
+                preparedStmt.clearCachedPlans();
+            }
+        }
+    }
+
+    // Parse and analyze the statement of COM_STMT_PREPARE, to get its parameters and result columns.
+    // Exception:
+    //  AnalysisException: the statement can not be prepared.
+    public void prepare() throws Exception {
+        Preconditions.checkNotNull(preparedStmt);
+        context.setStmtId(STMT_ID_GENERATOR.incrementAndGet());
+        List<PlaceHolderExpr> placeHolders = parse();
+        // the binary protocol is only used for result set of query
+        if (!(parsedStmt instanceof QueryStmt) || parsedStmt.isExplain()) {
+            throw new AnalysisException("Only query statement can be prepared");
+        }
+        preparedStmt.setStmt((QueryStmt) parsedStmt, placeHolders);
+
+        isPrepare = true;
+        try {
+            analyze();
+        } finally {
+            isPrepare = false;
+        }
+        if (isForwardToMaster()) {
+            throw new AnalysisException("Prepared statement is not supported when this frontend can not read");
+        }
+        preparedStmt.setColumns(parsedStmt.getColLabels(), parsedStmt.getResultExprs());
+    }
+
+    // Record the schema versions of the tables referenced by the prepared statement. Tables are locked.
+    private void addTableVersions(Map<String, Database> dbs, Map<String, Set<String>> tableNames) {
+        for (Map.Entry<String, Database> entry : dbs.entrySet()) {
+            Database db = entry.getValue();
+            Set<String> names = tableNames.get(entry.getKey());
+            if (names == null) {
+                continue;
+            }
+            for (String name : names) {
+                // names of WITH clause are not tables
+                Table table = db.getTable(name);
+                if (table != null) {
+                    preparedStmt.addTableVersion(db, table);
+                }
+            }
         }
     }
 
     private void forwardToMaster() throws Exception {
+        if (preparedStmt != null) {
+            throw new AnalysisException("Prepared statement is not supported when this frontend can not read");
+        }
         masterOpExecutor = new MasterOpExecutor(originStmt, context, redirectStatus);
         LOG.debug("need to transfer to Master. stmt: {}", context.getStmtId());
         masterOpExecutor.execute();
@@ -308,29 +377,77 @@ public class StmtExecutor {
         ProfileManager.getInstance().pushProfile(profile);
     }
 
-    // Lock all database before analyze
-    private void lock(Map<String, Database> dbs) {
-        if (dbs == null) {
-            return;
-        }
-        for (Database db : dbs.values()) {
-            db.readLock();
+    /*
+     * Lock all referenced tables before analyze. Databases are locked in order of name (dbs is a sorted map).
+     * Only the read locks of the referenced tables are acquired, with the intention read lock of database.
+     * But if a view is referenced, the whole database is read locked, because the tables referenced
+     * by the view are unknown until it is analyzed.
+     * Return the locked tables of each database, and null means the database is read locked.
+     */
+    private Map<String, List<Table>> lock(Map<String, Database> dbs, Map<String, Set<String>> tableNames) {
+        Map<String, List<Table>> lockedTables = Maps.newHashMap();
+        for (Map.Entry<String, Database> entry : dbs.entrySet()) {
+            Database db = entry.getValue();
+            Set<String> names = tableNames.get(entry.getKey());
+            List<Table> tables = null;
+            if (names != null && !names.isEmpty()) {
+                tables = db.readLockTablesByName(names);
+                for (Table table : tables) {
+                    if (table.getType() == TableType.VIEW) {
+                        db.readUnlockTables(tables);
+                        tables = null;
+                        break;
+                    }
+                }
+            }
+            if (tables == null) {
+                db.readLock();
+            }
+            lockedTables.put(entry.getKey(), tables);
         }
+        return lockedTables;
     }
 
-    // unLock all database after analyze
-    private void unLock(Map<String, Database> dbs) {
-        if (dbs == null) {
-            return;
+    /*
+     * Return "db.table" -> snapshot of all locked tables, or null if any of them is not an olap table,
+     * or the whole db is locked because of views.
+     */
+    private Map<String, Table> getTableSnapshots(Map<String, Database> dbs, Map<String, List<Table>> lockedTables) {
+        Map<String, Table> snapshots = Maps.newHashMap();
+        for (Map.Entry<String, Database> entry : dbs.entrySet()) {
+            Database db = entry.getValue();
+            List<Table> tables = lockedTables.get(entry.getKey());
+            if (tables == null) {
+                return null;
+            }
+            for (Table table : tables) {
+                if (table.getType() != TableType.OLAP) {
+                    return null;
+                }
+                OlapTable snapshot = ((OlapTable) table).getSnapshot(db);
+                if (snapshot == null) {
+                    return null;
+                }
+                snapshots.put(Analyzer.getSnapshotKey(db.getFullName(), table.getName()), snapshot);
+            }
         }
-        for (Database db : dbs.values()) {
-            db.readUnlock();
+        return snapshots;
+    }
+
+    // unLock all databases and tables after analyze
+    private void unLock(Map<String, Database> dbs, Map<String, List<Table>> lockedTables) {
+        for (Map.Entry<String, Database> entry : dbs.entrySet()) {
+            List<Table> tables = lockedTables.get(entry.getKey());
+            if (tables == null) {
+                entry.getValue().readUnlock();
+            } else {
+                entry.getValue().readUnlockTables(tables);
+            }
         }
     }
 
-    // Analyze one statement to structure in memory.
-    private void analyze() throws AnalysisException, UserException,
-                                               NotImplementedException {
+    // Parse origin statement, and return the parameter markers in it.
+    private List<PlaceHolderExpr> parse() throws AnalysisException {
         // Parse statement with parser generated by CUP&FLEX
         SqlScanner input = new SqlScanner(new StringReader(originStmt));
         SqlParser parser = new SqlParser(input);
@@ -356,6 +473,36 @@ public class StmtExecutor {
                      originStmt, context.getStmtId(), parser.getErrorMsg(originStmt), e);
             throw new AnalysisException("Unexpected exception: " + e.getMessage());
         }
+        return parser.placeHolders;
+    }
+
+    // Analyze one statement to structure in memory.
+    private void analyze() throws AnalysisException, UserException,
+                                               NotImplementedException {
+        if (preparedStmt == null) {
+            parse();
+        } else {
+            if (!isPrepare && partitionCache == null) {
+                // the plan of the same bound parameters may be reused, which is executed again like a retry
+                PreparedStatement.CachedPlan cachedPlan = preparedStmt.getCachedPlan(context, context.getCatalog());
+                if (cachedPlan != null) {
+                    parsedStmt = cachedPlan.getStmt();
+                    redirectStatus = parsedStmt.getRedirectStatus();
+                    if (!isForwardToMaster()) {
+                        analyzer = cachedPlan.getAnalyzer();
+                        planner = cachedPlan.getPlanner();
+                        return;
+                    }
+                }
+            }
+            // parameters have been bound by COM_STMT_EXECUTE, or bound to NULL when preparing
+            parsedStmt = preparedStmt.getBoundStmt();
+            redirectStatus = parsedStmt.getRedirectStatus();
+        }
+        if (partitionCache != null) {
+            // the results of other partitions are cached
+            partitionCache.restrictToMissedPartitions(parsedStmt);
+        }
 
         // yiguolei: insertstmt's grammer analysis will write editlog, so that we check if the stmt should be forward to master here
         // if the stmt should be forward to master, then just return here and the master will do analysis again
@@ -376,10 +523,11 @@ public class StmtExecutor {
                 || parsedStmt instanceof InsertStmt
                 || parsedStmt instanceof CreateTableAsSelectStmt) {
             Map<String, Database> dbs = Maps.newTreeMap();
+            Map<String, Set<String>> tableNames = Maps.newHashMap();
             QueryStmt queryStmt;
             if (parsedStmt instanceof QueryStmt) {
                 queryStmt = (QueryStmt) parsedStmt;
-                queryStmt.getDbs(analyzer, dbs);
+                queryStmt.getDbs(analyzer, dbs, tableNames);
             } else {
                 InsertStmt insertStmt;
                 if (parsedStmt instanceof InsertStmt) {
@@ -387,11 +535,26 @@ public class StmtExecutor {
                 } else {
                     insertStmt = ((CreateTableAsSelectStmt) parsedStmt).getInsertStmt();
                 }
-                insertStmt.getDbs(analyzer, dbs);
+                insertStmt.getDbs(analyzer, dbs, tableNames);
             }
 
-            lock(dbs);
+            Map<String, List<Table>> lockedTables = lock(dbs, tableNames);
+            boolean isLocked = true;
             try {
+                Map<String, Table> tableSnapshots = null;
+                if (parsedStmt instanceof QueryStmt && Config.enable_query_analysis_on_snapshot) {
+                    tableSnapshots = getTableSnapshots(dbs, lockedTables);
+                }
+                if (tableSnapshots != null) {
+                    // the query is analyzed and planned with the snapshots, so locks are not needed any more
+                    if (isPrepare) {
+                        addTableVersions(dbs, tableNames);
+                    }
+                    unLock(dbs, lockedTables);
+                    isLocked = false;
+                    analyzer.setTableSnapshots(tableSnapshots);
+                }
+
                 parsedStmt.analyze(analyzer);
                 if (parsedStmt instanceof QueryStmt || parsedStmt instanceof InsertStmt) {
                     boolean isExplain = parsedStmt.isExplain();
@@ -420,6 +583,9 @@ public class StmtExecutor {
 
                         // Re-analyze the stmt with a new analyzer.
                         analyzer = new Analyzer(context.getCatalog(), context);
+                        if (tableSnapshots != null) {
+                            analyzer.setTableSnapshots(tableSnapshots);
+                        }
 
                         // query re-analyze
                         parsedStmt.reset();
@@ -445,6 +611,14 @@ public class StmtExecutor {
                 }
                 // TODO(zc):
                 // Preconditions.checkState(!analyzer.hasUnassignedConjuncts());
+
+                if (isPrepare && isLocked) {
+                    addTableVersions(dbs, tableNames);
+                }
+                if (preparedStmt != null && !isPrepare && partitionCache == null
+                        && parsedStmt instanceof QueryStmt) {
+                    preparedStmt.cachePlan(context, (QueryStmt) parsedStmt, analyzer, planner);
+                }
             } catch (AnalysisException e) {
                 throw e;
             } catch (UserException e) {
@@ -453,7 +627,9 @@ public class StmtExecutor {
                 LOG.warn("Analyze failed because ", e);
                 throw new AnalysisException("Unexpected exception: " + e.getMessage());
             } finally {
-                unLock(dbs);
+                if (isLocked) {
+                    unLock(dbs, lockedTables);
+                }
             }
         } else {
             try {
@@ -529,6 +705,44 @@ public class StmtExecutor {
             handleExplainStmt(explainString);
             return;
         }
+
+        MysqlChannel channel = context.getMysqlChannel();
+        // backends always send rows in text protocol
+        MysqlBinaryRowConverter rowConverter = null;
+        if (preparedStmt != null) {
+            List<PrimitiveType> types = Lists.newArrayList();
+            for (Expr expr : queryStmt.getResultExprs()) {
+                types.add(expr.getType().getPrimitiveType());
+            }
+            rowConverter = new MysqlBinaryRowConverter(types);
+        }
+
+        String cacheSql = preparedStmt == null ? originStmt : preparedStmt.getBoundSql();
+        String cacheContext = ResultCache.createContext(context, analyzer.getReferencedViews());
+        if (Config.enable_partition_result_cache) {
+            queryStmt = lookupPartitionCache(cacheSql, cacheContext, queryStmt);
+            if (partitionCache != null && partitionCache.isAllHit()) {
+                sendFields(queryStmt.getColLabels(), queryStmt.getResultExprs());
+                sendCachedRows(partitionCache.finish(), rowConverter);
+                context.getState().setEof();
+                return;
+            }
+        }
+
+        ResultCache.Key cacheKey = null;
+        if (Config.enable_result_cache && partitionCache == null) {
+            cacheKey = ResultCache.createKey(cacheSql, cacheContext, planner.getScanNodes());
+        }
+        if (cacheKey != null) {
+            List<ByteBuffer> cachedRows = ResultCache.getInstance().get(cacheKey);
+            if (cachedRows != null) {
+                sendFields(queryStmt.getColLabels(), queryStmt.getResultExprs());
+                sendCachedRows(cachedRows, rowConverter);
+                context.getState().setEof();
+                return;
+            }
+        }
+
         coord = new Coordinator(context, analyzer, planner);
 
         QeProcessorImpl.INSTANCE.registerQuery(context.queryId(), 
@@ -542,7 +756,9 @@ public class StmtExecutor {
 
         // send result
         TResultBatch batch;
-        MysqlChannel channel = context.getMysqlChannel();
+        // rows to cache, which is given up once it is too large
+        List<ByteBuffer> rowsToCache = cacheKey == null ? null : Lists.<ByteBuffer>newArrayList();
+        long cacheBytes = 0;
         boolean isSendFields = false;
         while ((batch = coord.getNext()) != null) {
             if (!isSendFields) {
@@ -551,16 +767,68 @@ public class StmtExecutor {
             isSendFields = true;
 
             for (ByteBuffer row : batch.getRows()) {
-                channel.sendOnePacket(row);
+                if (rowsToCache != null) {
+                    // copy the row before sending, which consumes it
+                    ByteBuffer copy = ByteBuffer.allocate(row.remaining());
+                    copy.put(row.duplicate());
+                    copy.flip();
+                    rowsToCache.add(copy);
+                    cacheBytes += copy.capacity();
+                    if (cacheBytes > Config.result_cache_max_entry_size_bytes) {
+                        rowsToCache = null;
+                    }
+                }
+                if (partitionCache != null) {
+                    // rows of the cached partitions are merged in the order of partitions
+                    sendCachedRows(partitionCache.getRowsBefore(row), rowConverter);
+                }
+                channel.sendOnePacket(rowConverter == null ? row : rowConverter.convert(row));
             }
             context.updateReturnRows(batch.getRows().size());
         }
         if (!isSendFields) {
             sendFields(queryStmt.getColLabels(), queryStmt.getResultExprs());
         }
+        if (partitionCache != null) {
+            sendCachedRows(partitionCache.finish(), rowConverter);
+        }
+        if (rowsToCache != null) {
+            ResultCache.getInstance().put(cacheKey, rowsToCache, cacheBytes);
+        }
         context.getState().setEof();
     }
 
+    // Look up the results of the partitions scanned by query. If only some of them are found, the query is planned
+    // again to scan the other partitions, and the new query statement is returned.
+    private QueryStmt lookupPartitionCache(String sql, String cacheContext, QueryStmt queryStmt) throws Exception {
+        if (partitionCache != null) {
+            // retry of the query, which is planned to scan the missed partitions already
+            partitionCache.reset();
+            return queryStmt;
+        }
+        partitionCache = PartitionResultCache.create(sql, cacheContext, queryStmt, planner.getScanNodes());
+        if (partitionCache == null) {
+            return queryStmt;
+        }
+        partitionCache.lookup();
+        if (partitionCache.hasHit() && !partitionCache.isAllHit()) {
+            analyze();
+            partitionCache.setScanNodes(planner.getScanNodes());
+            return (QueryStmt) parsedStmt;
+        }
+        return queryStmt;
+    }
+
+    // cached rows are shared by queries, so only views of them are sent
+    private void sendCachedRows(List<ByteBuffer> rows, MysqlBinaryRowConverter rowConverter) throws IOException {
+        MysqlChannel channel = context.getMysqlChannel();
+        for (ByteBuffer row : rows) {
+            ByteBuffer view = row.duplicate();
+            channel.sendOnePacket(rowConverter == null ? view : rowConverter.convert(view));
+        }
+        context.updateReturnRows(rows.size());
+    }
+
     // Process a select statement.
     private void handleInsertStmt() throws Exception {
         // Every time set no send flag and clean all data in buffer
@@ -0,0 +1,354 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe.cache;
+
+import org.apache.doris.analysis.AggregateInfo;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.QueryStmt;
+import org.apache.doris.analysis.SelectStmt;
+import org.apache.doris.analysis.SlotRef;
+import org.apache.doris.analysis.SortInfo;
+import org.apache.doris.analysis.StatementBase;
+import org.apache.doris.analysis.TableRef;
+import org.apache.doris.catalog.Column;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.PartitionInfo;
+import org.apache.doris.catalog.PartitionKey;
+import org.apache.doris.catalog.PartitionType;
+import org.apache.doris.catalog.RangePartitionInfo;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.Config;
+import org.apache.doris.common.Pair;
+import org.apache.doris.mysql.MysqlProto;
+import org.apache.doris.planner.OlapScanNode;
+import org.apache.doris.planner.ScanNode;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Cache of query results split by partition, for aggregations grouped by the partition column of a range
+ * partitioned table, such as "select day, sum(pv) from t where day >= '2019-01-01' group by day order by day".
+ *
+ * Every group of such a query belongs to exactly one partition, so the result of the query is the union of the
+ * results of each scanned partition, whatever the aggregate functions are. The result of each partition is cached
+ * with the version of the partition in ResultCache. When the query is executed again, only the partitions whose
+ * results are not cached, usually the newest one which is being loaded, are scanned. Their rows are merged with
+ * the cached rows in the order of partition ranges, which is also the order of the result if it is ordered by
+ * the partition column.
+ *
+ * Usage:
+ *  1. create() after the query is planned. null is returned if the query can not be split by partition.
+ *  2. lookup() the results of scanned partitions. If some are found but not all, plan the query again with
+ *     restrictToMissedPartitions(), and call setScanNodes() with the new scan nodes.
+ *  3. send the rows returned by getRowsBefore() before each row of the query, and the rows returned by finish()
+ *     at last. finish() also caches the results of the scanned partitions.
+ */
+public class PartitionResultCache {
+    private static final Logger LOG = LogManager.getLogger(PartitionResultCache.class);
+    // length encoded NULL in result row
+    private static final int NULL_VALUE = 251;
+
+    private final String sql;
+    // see ResultCache.createContext()
+    private final String context;
+    private final OlapTable table;
+    private final List<Column> partitionColumns;
+    // index of the partition column in result row
+    private final int columnIndex;
+    // scanned partitions, in the order of results
+    private final List<Long> partitionIds = Lists.newArrayList();
+    private final List<Range<PartitionKey>> ranges = Lists.newArrayList();
+    private Map<Long, Pair<Long, Long>> versions;
+
+    // position in partitionIds -> cached rows of the partition
+    private final Map<Integer, List<ByteBuffer>> cachedRows = Maps.newHashMap();
+    // position in partitionIds -> rows of the partition got from backends, null if too large to cache
+    private final Map<Integer, List<ByteBuffer>> newRows = Maps.newHashMap();
+    private final Map<Integer, Long> newBytes = Maps.newHashMap();
+    // the cached rows of partitions before this position have been sent
+    private int sentPos = 0;
+    // position of the partition of last row
+    private int lastPos = -1;
+
+    private PartitionResultCache(String sql, String context, OlapTable table, List<Column> partitionColumns,
+                                 int columnIndex) {
+        this.sql = sql;
+        this.context = context;
+        this.table = table;
+        this.partitionColumns = partitionColumns;
+        this.columnIndex = columnIndex;
+    }
+
+    /*
+     * Return null if the result of the query can not be split by partition. The query must be an aggregation,
+     * without limit, of a single range partitioned olap table. It must be grouped by the partition column, which is
+     * in the select list, and can only be ordered by the partition column.
+     */
+    public static PartitionResultCache create(String sql, String context, QueryStmt queryStmt,
+                                              List<ScanNode> scanNodes) {
+        if (!(queryStmt instanceof SelectStmt) || queryStmt.hasWithClause() || queryStmt.hasLimit()
+                || queryStmt.hasOffset() || !ResultCache.isDeterministic(sql)) {
+            return null;
+        }
+        SelectStmt stmt = (SelectStmt) queryStmt;
+        if (stmt.getTableRefs().size() != 1 || stmt.hasAnalyticInfo()
+                || scanNodes.size() != 1 || !(scanNodes.get(0) instanceof OlapScanNode)) {
+            return null;
+        }
+        OlapScanNode scanNode = (OlapScanNode) scanNodes.get(0);
+        OlapTable table = scanNode.getOlapTable();
+        PartitionInfo partitionInfo = table.getPartitionInfo();
+        if (partitionInfo.getType() != PartitionType.RANGE
+                || ((RangePartitionInfo) partitionInfo).getPartitionColumns().size() != 1
+                || scanNode.getScannedPartitionVersions().isEmpty()) {
+            return null;
+        }
+        RangePartitionInfo rangePartitionInfo = (RangePartitionInfo) partitionInfo;
+        String columnName = rangePartitionInfo.getPartitionColumns().get(0).getName();
+
+        AggregateInfo aggInfo = stmt.getAggInfo();
+        if (aggInfo == null || !containsColumn(aggInfo.getGroupingExprs(), columnName)) {
+            return null;
+        }
+        List<Expr> selectExprs = stmt.getSelectListExprs();
+        if (selectExprs == null) {
+            return null;
+        }
+        int columnIndex = -1;
+        for (int i = 0; i < selectExprs.size(); i++) {
+            if (isColumn(selectExprs.get(i), columnName)) {
+                columnIndex = i;
+                break;
+            }
+        }
+        if (columnIndex == -1) {
+            return null;
+        }
+
+        boolean isAsc = true;
+        SortInfo sortInfo = stmt.getSortInfo();
+        if (sortInfo != null) {
+            if (sortInfo.getOrderingExprs().size() != 1
+                    || !sortInfo.getOrderingExprs().get(0).equals(stmt.getResultExprs().get(columnIndex))) {
+                return null;
+            }
+            isAsc = sortInfo.getIsAscOrder().get(0);
+            // null is in the first partition
+            if (sortInfo.getNullsFirst().get(0) != isAsc) {
+                return null;
+            }
+        }
+
+        PartitionResultCache cache = new PartitionResultCache(ResultCache.normalize(sql), context, table,
+                rangePartitionInfo.getPartitionColumns(), columnIndex);
+        cache.versions = scanNode.getScannedPartitionVersions();
+        for (Map.Entry<Long, Range<PartitionKey>> entry : rangePartitionInfo.getSortedRangeMap()) {
+            if (cache.versions.containsKey(entry.getKey())) {
+                cache.partitionIds.add(entry.getKey());
+                cache.ranges.add(entry.getValue());
+            }
+        }
+        if (!isAsc) {
+            Collections.reverse(cache.partitionIds);
+            Collections.reverse(cache.ranges);
+        }
+        return cache;
+    }
+
+    private static boolean isColumn(Expr expr, String columnName) {
+        return expr instanceof SlotRef && ((SlotRef) expr).getColumnName() != null
+                && ((SlotRef) expr).getColumnName().equalsIgnoreCase(columnName);
+    }
+
+    private static boolean containsColumn(List<Expr> exprs, String columnName) {
+        for (Expr expr : exprs) {
+            if (isColumn(expr, columnName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ResultCache.Key createKey(int pos) {
+        long partitionId = partitionIds.get(pos);
+        Pair<Long, Long> version = versions.get(partitionId);
+        Preconditions.checkNotNull(version);
+        // id of the base index is the table id
+        String keyVersions = "partition " + table.getId() + ":" + table.getSchemaVersionByIndexId(table.getId())
+                + ";" + partitionId + ":" + version.first + ":" + version.second + ";";
+        return new ResultCache.Key(sql, context, keyVersions, Lists.newArrayList(partitionId));
+    }
+
+    // look up the cached results of all scanned partitions
+    public void lookup() {
+        for (int i = 0; i < partitionIds.size(); i++) {
+            List<ByteBuffer> rows = ResultCache.getInstance().get(createKey(i));
+            if (rows != null) {
+                cachedRows.put(i, rows);
+            }
+        }
+    }
+
+    public boolean isAllHit() {
+        return cachedRows.size() == partitionIds.size();
+    }
+
+    public boolean hasHit() {
+        return !cachedRows.isEmpty();
+    }
+
+    // Only scan the partitions whose results are not cached. stmt is the statement to plan again, not analyzed yet.
+    public void restrictToMissedPartitions(StatementBase stmt) {
+        List<String> partitionNames = Lists.newArrayList();
+        for (int i = 0; i < partitionIds.size(); i++) {
+            if (!cachedRows.containsKey(i)) {
+                partitionNames.add(table.getPartition(partitionIds.get(i)).getName());
+            }
+        }
+        TableRef tableRef = ((SelectStmt) stmt).getTableRefs().get(0);
+        tableRef.setPartitions(partitionNames);
+    }
+
+    // scan nodes of the query planned again, whose versions are the ones of the newly scanned rows
+    public void setScanNodes(List<ScanNode> scanNodes) {
+        Preconditions.checkState(scanNodes.size() == 1 && scanNodes.get(0) instanceof OlapScanNode);
+        Map<Long, Pair<Long, Long>> newVersions = Maps.newHashMap(versions);
+        newVersions.putAll(((OlapScanNode) scanNodes.get(0)).getScannedPartitionVersions());
+        versions = newVersions;
+    }
+
+    /*
+     * Return the cached rows which should be sent before the row got from backends, in the order of partitions.
+     * The row is also kept, to be cached. It should be called before the row is sent, which consumes the row.
+     */
+    public List<ByteBuffer> getRowsBefore(ByteBuffer row) throws AnalysisException {
+        int pos = findPartition(row);
+        if (pos < 0) {
+            // should not happen, but rows are still sent
+            LOG.warn("partition of row is not found in query: {}", sql);
+            return Collections.emptyList();
+        }
+        List<ByteBuffer> rows = newRows.get(pos);
+        if (rows == null && !newBytes.containsKey(pos)) {
+            rows = Lists.newArrayList();
+            newRows.put(pos, rows);
+            newBytes.put(pos, 0L);
+        }
+        if (rows != null) {
+            ByteBuffer copy = ByteBuffer.allocate(row.remaining());
+            copy.put(row.duplicate());
+            copy.flip();
+            rows.add(copy);
+            long bytes = newBytes.get(pos) + copy.capacity();
+            newBytes.put(pos, bytes);
+            if (bytes > Config.result_cache_max_entry_size_bytes) {
+                newRows.put(pos, null);
+            }
+        }
+        return sendCachedRows(pos);
+    }
+
+    // forget the rows got from backends, to execute the query again
+    public void reset() {
+        newRows.clear();
+        newBytes.clear();
+        sentPos = 0;
+        lastPos = -1;
+    }
+
+    // Return the cached rows not sent yet, and cache the results of scanned partitions.
+    public List<ByteBuffer> finish() {
+        List<ByteBuffer> rows = sendCachedRows(partitionIds.size());
+        for (int i = 0; i < partitionIds.size(); i++) {
+            if (cachedRows.containsKey(i)) {
+                continue;
+            }
+            if (!newBytes.containsKey(i)) {
+                // no group in the partition
+                ResultCache.getInstance().put(createKey(i), Lists.<ByteBuffer>newArrayList(), 0);
+            } else if (newRows.get(i) != null) {
+                ResultCache.getInstance().put(createKey(i), newRows.get(i), newBytes.get(i));
+            }
+        }
+        return rows;
+    }
+
+    // return the cached rows of partitions before pos, which are not sent yet
+    private List<ByteBuffer> sendCachedRows(int pos) {
+        if (pos <= sentPos) {
+            return Collections.emptyList();
+        }
+        List<ByteBuffer> rows = Lists.newArrayList();
+        for (; sentPos < pos; sentPos++) {
+            List<ByteBuffer> partitionRows = cachedRows.get(sentPos);
+            if (partitionRows != null) {
+                rows.addAll(partitionRows);
+            }
+        }
+        return rows;
+    }
+
+    // return the position of the partition of the row, or -1 if not found
+    private int findPartition(ByteBuffer row) throws AnalysisException {
+        ByteBuffer buffer = row.duplicate();
+        for (int i = 0; i < columnIndex; i++) {
+            skipValue(buffer);
+        }
+        PartitionKey key;
+        if ((buffer.get(buffer.position()) & 0xFF) == NULL_VALUE) {
+            // null is in the partition with the min value
+            key = PartitionKey.createInfinityPartitionKey(partitionColumns, false);
+        } else {
+            String value = new String(MysqlProto.readLenEncodedString(buffer), StandardCharsets.UTF_8);
+            key = PartitionKey.createPartitionKey(Lists.newArrayList(value), partitionColumns);
+        }
+
+        // rows of the same partition are usually adjacent
+        if (lastPos >= 0 && ranges.get(lastPos).contains(key)) {
+            return lastPos;
+        }
+        for (int i = 0; i < ranges.size(); i++) {
+            if (ranges.get(i).contains(key)) {
+                lastPos = i;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void skipValue(ByteBuffer buffer) {
+        if ((buffer.get(buffer.position()) & 0xFF) == NULL_VALUE) {
+            buffer.get();
+        } else {
+            long length = MysqlProto.readVInt(buffer);
+            buffer.position(buffer.position() + (int) length);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe.cache;
+
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.View;
+import org.apache.doris.common.Config;
+import org.apache.doris.common.Pair;
+import org.apache.doris.metric.MetricRepo;
+import org.apache.doris.planner.OlapScanNode;
+import org.apache.doris.planner.ScanNode;
+import org.apache.doris.qe.ConnectContext;
+import org.apache.doris.qe.SessionVariable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/*
+ * Cache of query results, which are the rows sent by backends, in frontend.
+ *
+ * The key of a result is the normalized sql, the context the sql is resolved and evaluated in, ie. the current
+ * database, the session variables which change results and the definitions of the referenced views, and the
+ * versions of all partitions scanned by the query. So a cached result is never stale: once a newer version of a
+ * partition is visible, or a view is redefined, the planned query has a different key. The results of the old
+ * versions are useless then, and are removed by invalidate() to release memory at once.
+ * Only queries which only scan olap tables, and which have no nondeterministic function, are cached.
+ *
+ * Results are evicted in LRU order when the total size exceeds Config.result_cache_max_size_bytes.
+ */
+public class ResultCache {
+    private static final Logger LOG = LogManager.getLogger(ResultCache.class);
+
+    private static final ResultCache INSTANCE = new ResultCache();
+
+    // calls of the functions whose result depends on when or by whom the query is executed
+    private static final Pattern NONDETERMINISTIC_FUNCTION = Pattern.compile(
+            "\\b(now|curdate|curtime|current_date|current_time|current_timestamp|localtime|localtimestamp"
+                    + "|sysdate|utc_timestamp|unix_timestamp|rand|random|uuid|connection_id|current_user|user"
+                    + "|database|schema|sleep)\\s*\\(",
+            Pattern.CASE_INSENSITIVE);
+
+    // in access order, so the first one is the least recently used
+    private final LinkedHashMap<Key, Value> cache = new LinkedHashMap<Key, Value>(16, 0.75f, true);
+    // partition id -> keys of the results of the partition
+    private final Map<Long, Set<Key>> partitionIdToKeys = Maps.newHashMap();
+    private long totalBytes = 0;
+
+    public static class Key {
+        private final String sql;
+        // see createContext()
+        private final String context;
+        // (partition id, version, version hash) and (table id, schema version) of all scanned partitions and tables
+        private final String versions;
+        private final List<Long> partitionIds;
+
+        Key(String sql, String context, String versions, List<Long> partitionIds) {
+            this.sql = sql;
+            this.context = context;
+            this.versions = versions;
+            this.partitionIds = partitionIds;
+        }
+
+        public List<Long> getPartitionIds() {
+            return partitionIds;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return sql.equals(other.sql) && context.equals(other.context) && versions.equals(other.versions);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * sql.hashCode() + context.hashCode()) + versions.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return sql + " " + context + " " + versions;
+        }
+    }
+
+    private static class Value {
+        private final List<ByteBuffer> rows;
+        private final long bytes;
+
+        public Value(List<ByteBuffer> rows, long bytes) {
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+    }
+
+    public static ResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /*
+     * Return the context of the sql besides the scanned partitions, which decides the result too: the current
+     * database to resolve table names, the session variables which change the results of functions, and the
+     * definitions of the catalog views referenced by the query, which are got from the analyzer of the query.
+     */
+    public static String createContext(ConnectContext context, Collection<View> views) {
+        SessionVariable sessionVariable = context.getSessionVariable();
+        StringBuilder sb = new StringBuilder();
+        sb.append("db=").append(context.getDatabase());
+        sb.append(";time_zone=").append(sessionVariable.getTimeZone());
+        sb.append(";sql_mode=").append(sessionVariable.getSqlMode());
+        for (View view : views) {
+            // a view recreated with the same definition has a new id, which only costs a cache miss
+            sb.append(";view ").append(view.getId()).append('=').append(view.getInlineViewDef());
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Create the cache key of a planned query. Return null if the result of the query can not be cached.
+     * The versions are the ones used by scan nodes, so they must be got after the query is planned.
+     */
+    public static Key createKey(String sql, String context, List<ScanNode> scanNodes) {
+        if (scanNodes.isEmpty() || !isDeterministic(sql)) {
+            return null;
+        }
+
+        Map<Long, Pair<Long, Long>> partitionVersions = Maps.newTreeMap();
+        Map<Long, Integer> schemaVersions = Maps.newTreeMap();
+        for (ScanNode scanNode : scanNodes) {
+            if (!(scanNode instanceof OlapScanNode)) {
+                return null;
+            }
+            OlapScanNode olapScanNode = (OlapScanNode) scanNode;
+            OlapTable table = olapScanNode.getOlapTable();
+            // id of the base index is the table id
+            schemaVersions.put(table.getId(), table.getSchemaVersionByIndexId(table.getId()));
+            partitionVersions.putAll(olapScanNode.getScannedPartitionVersions());
+        }
+
+        StringBuilder versions = new StringBuilder();
+        for (Map.Entry<Long, Integer> entry : schemaVersions.entrySet()) {
+            versions.append(entry.getKey()).append(':').append(entry.getValue()).append(';');
+        }
+        for (Map.Entry<Long, Pair<Long, Long>> entry : partitionVersions.entrySet()) {
+            versions.append(entry.getKey()).append(':').append(entry.getValue().first)
+                    .append(':').append(entry.getValue().second).append(';');
+        }
+        return new Key(normalize(sql), context, versions.toString(),
+                       Lists.newArrayList(partitionVersions.keySet()));
+    }
+
+    // return false if the sql contains any nondeterministic function, whose result can not be cached
+    static boolean isDeterministic(String sql) {
+        return !NONDETERMINISTIC_FUNCTION.matcher(sql).find();
+    }
+
+    // Trim the sql and collapse whitespaces, except the ones in quotes. The trailing ';'s are removed.
+    public static String normalize(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean isSpace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                sb.append(c);
+                if (c == '\\' && i + 1 < sql.length()) {
+                    sb.append(sql.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (Character.isWhitespace(c)) {
+                isSpace = true;
+            } else {
+                if (isSpace && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                isSpace = false;
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                }
+                sb.append(c);
+            }
+        }
+        int length = sb.length();
+        while (length > 0 && (sb.charAt(length - 1) == ';' || sb.charAt(length - 1) == ' ')) {
+            length--;
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    // Return the cached rows, or null if not found. The returned rows should not be modified.
+    public List<ByteBuffer> get(Key key) {
+        Value value;
+        synchronized (this) {
+            value = cache.get(key);
+        }
+        if (MetricRepo.isInit.get()) {
+            if (value == null) {
+                MetricRepo.COUNTER_RESULT_CACHE_MISS.increase(1L);
+            } else {
+                MetricRepo.COUNTER_RESULT_CACHE_HIT.increase(1L);
+            }
+        }
+        return value == null ? null : value.rows;
+    }
+
+    // Cache the rows of a finished query. bytes is the total size of rows.
+    public void put(Key key, List<ByteBuffer> rows, long bytes) {
+        if (bytes > Config.result_cache_max_entry_size_bytes) {
+            return;
+        }
+        int evictNum = 0;
+        synchronized (this) {
+            Value old = cache.put(key, new Value(Collections.unmodifiableList(rows), bytes));
+            if (old != null) {
+                totalBytes -= old.bytes;
+            }
+            totalBytes += bytes;
+            for (Long partitionId : key.partitionIds) {
+                Set<Key> keys = partitionIdToKeys.get(partitionId);
+                if (keys == null) {
+                    keys = Sets.newHashSet();
+                    partitionIdToKeys.put(partitionId, keys);
+                }
+                keys.add(key);
+            }
+
+            Iterator<Map.Entry<Key, Value>> iter = cache.entrySet().iterator();
+            while (totalBytes > Config.result_cache_max_size_bytes && iter.hasNext()) {
+                Map.Entry<Key, Value> eldest = iter.next();
+                iter.remove();
+                removeFromPartitions(eldest.getKey());
+                totalBytes -= eldest.getValue().bytes;
+                evictNum++;
+            }
+        }
+        if (evictNum > 0 && MetricRepo.isInit.get()) {
+            MetricRepo.COUNTER_RESULT_CACHE_EVICT.increase((long) evictNum);
+        }
+    }
+
+    // Remove the results of the partition, because a newer version of it is visible.
+    public synchronized void invalidate(long partitionId) {
+        Set<Key> keys = partitionIdToKeys.remove(partitionId);
+        if (keys == null) {
+            return;
+        }
+        for (Key key : keys) {
+            Value value = cache.remove(key);
+            if (value != null) {
+                totalBytes -= value.bytes;
+                removeFromPartitions(key);
+            }
+        }
+        LOG.debug("invalidate {} cached results of partition {}", keys.size(), partitionId);
+    }
+
+    private void removeFromPartitions(Key key) {
+        for (Long partitionId : key.partitionIds) {
+            Set<Key> keys = partitionIdToKeys.get(partitionId);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    partitionIdToKeys.remove(partitionId);
+                }
+            }
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        partitionIdToKeys.clear();
+        totalBytes = 0;
+    }
+}
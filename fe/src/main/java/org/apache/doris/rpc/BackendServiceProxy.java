@@ -77,6 +77,19 @@ public class BackendServiceProxy {
             throws TException, RpcException {
         final PExecPlanFragmentRequest pRequest = new PExecPlanFragmentRequest();
         pRequest.setRequest(tRequest);
+        return execPlanFragmentAsync(address, pRequest);
+    }
+
+    // the request is a serialized TExecPlanFragmentParams, for callers which reuse parts of serialized requests
+    public Future<PExecPlanFragmentResult> execPlanFragmentAsync(
+            TNetworkAddress address, byte[] serializedRequest) throws RpcException {
+        final PExecPlanFragmentRequest pRequest = new PExecPlanFragmentRequest();
+        pRequest.setSerializedRequest(serializedRequest);
+        return execPlanFragmentAsync(address, pRequest);
+    }
+
+    private Future<PExecPlanFragmentResult> execPlanFragmentAsync(
+            TNetworkAddress address, PExecPlanFragmentRequest pRequest) throws RpcException {
         try {
             final PBackendService service = getProxy(address);
             return service.execPlanFragmentAsync(pRequest);
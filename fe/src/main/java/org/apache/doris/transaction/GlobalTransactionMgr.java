@@ -35,10 +35,12 @@ import org.apache.doris.common.Config;
 import org.apache.doris.common.FeNameFormat;
 import org.apache.doris.common.MetaNotFoundException;
 import org.apache.doris.common.UserException;
+import org.apache.doris.common.util.MonitoredReadWriteLock;
 import org.apache.doris.common.util.TimeUtils;
 import org.apache.doris.common.util.Util;
 import org.apache.doris.load.Load;
 import org.apache.doris.persist.EditLog;
+import org.apache.doris.qe.cache.ResultCache;
 import org.apache.doris.task.AgentTaskQueue;
 import org.apache.doris.task.PublishVersionTask;
 import org.apache.doris.thrift.TTaskType;
@@ -62,7 +64,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 /**
@@ -78,7 +79,7 @@ public class GlobalTransactionMgr {
 
     // the lock is used to control the access to transaction states
     // no other locks should be inside this lock
-    private ReentrantReadWriteLock transactionLock = new ReentrantReadWriteLock(true);
+    private MonitoredReadWriteLock transactionLock = new MonitoredReadWriteLock();
     private EditLog editLog;
 
     // transactionId -> TransactionState
@@ -182,7 +183,8 @@ public class GlobalTransactionMgr {
      * @throws MetaNotFoundException
      * @throws TransactionCommitFailedException
      * @note it is necessary to optimize the `lock` mechanism and `lock` scope resulting from wait lock long time
-     * @note callers should get db.write lock before call this api
+     * @note callers should get db.write lock, or the write locks of all involved tables
+     *       (see Database.writeLockTables()) before call this api
      */
     public void commitTransaction(long dbId, long transactionId, List<TabletCommitInfo> tabletCommitInfos) throws MetaNotFoundException, TransactionCommitFailedException {
         
@@ -353,11 +355,20 @@ public class GlobalTransactionMgr {
     public boolean commitAndPublishTransaction(Database db, long transactionId,
                                             List<TabletCommitInfo> tabletCommitInfos, long timeoutMillis)
             throws MetaNotFoundException, TransactionCommitFailedException {
-        db.writeLock();
+        // only lock the tables involved in this load
+        Set<Long> tableIds = Sets.newHashSet();
+        TabletInvertedIndex tabletInvertedIndex = catalog.getTabletInvertedIndex();
+        for (TabletCommitInfo tabletCommitInfo : tabletCommitInfos) {
+            long tableId = tabletInvertedIndex.getTableId(tabletCommitInfo.getTabletId());
+            if (tableId != TabletInvertedIndex.NOT_EXIST_VALUE) {
+                tableIds.add(tableId);
+            }
+        }
+        List<Table> tables = db.writeLockTables(tableIds);
         try {
             commitTransaction(db.getId(), transactionId, tabletCommitInfos);
         } finally {
-            db.writeUnlock();
+            db.writeUnlockTables(tables);
         }
 
         TransactionState transactionState = idToTransactionState.get(transactionId);
@@ -447,7 +458,7 @@ public class GlobalTransactionMgr {
             if (null == db) {
                 continue;
             }
-            db.readLock();
+            List<Table> tables = db.readLockTables(transactionState.getIdToTableCommitInfos().keySet());
             writeLock();
             try {
                 for (TableCommitInfo tableCommitInfo : transactionState.getIdToTableCommitInfos().values()) {
@@ -477,7 +488,7 @@ public class GlobalTransactionMgr {
                 }
             } finally {
                 writeUnlock();
-                db.readUnlock();
+                db.readUnlockTables(tables);
             }
         }
         return readyPublishTransactionState;
@@ -515,7 +526,7 @@ public class GlobalTransactionMgr {
                 writeUnlock();
             }
         }
-        db.writeLock();
+        List<Table> tables = db.writeLockTables(transactionState.getIdToTableCommitInfos().keySet());
         try {
             boolean hasError = false;
             for (TableCommitInfo tableCommitInfo : transactionState.getIdToTableCommitInfos().values()) {
@@ -624,7 +635,7 @@ public class GlobalTransactionMgr {
             }
             updateCatalogAfterVisible(transactionState, db);
         } finally {
-            db.writeUnlock();
+            db.writeUnlockTables(tables);
         }
         LOG.info("finish transaction {} successfully", transactionState);
         return;
@@ -757,19 +768,23 @@ public class GlobalTransactionMgr {
     }
 
     private void readLock() {
-        this.transactionLock.readLock().lock();
+        this.transactionLock.readLock();
     }
 
     private void readUnlock() {
-        this.transactionLock.readLock().unlock();
+        this.transactionLock.readUnlock();
     }
 
     private void writeLock() {
-        this.transactionLock.writeLock().lock();
+        this.transactionLock.writeLock();
     }
 
     private void writeUnlock() {
-        this.transactionLock.writeLock().unlock();
+        this.transactionLock.writeUnlock();
+    }
+
+    public MonitoredReadWriteLock getLock() {
+        return transactionLock;
     }
 
     // for add/update/delete TransactionState
@@ -975,6 +990,8 @@ public class GlobalTransactionMgr {
                 long version = partitionCommitInfo.getVersion();
                 long versionHash = partitionCommitInfo.getVersionHash();
                 partition.updateCommitVersionAndVersionHash(version, versionHash);
+                // results of the old version will never be hit again
+                ResultCache.getInstance().invalidate(partition.getId());
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("transaction state {} set partition's version to [{}] and version hash to [{}]", 
                             transactionState, version, versionHash);
@@ -1074,35 +1091,38 @@ public class GlobalTransactionMgr {
 
     public List<List<Comparable>> getTableTransInfo(long tid, Database db) throws AnalysisException {
         List<List<Comparable>> tableInfos = new ArrayList<List<Comparable>>();
+        // db lock should be acquired before the transaction lock, so copy the table ids first
+        List<Long> tableIds;
         readLock();
         try {
             TransactionState transactionState = idToTransactionState.get(tid);
             if (null == transactionState) {
                 throw new AnalysisException("Transaction[" + tid + "] does not exist.");
             }
-            db.readLock();
-            try {
-                for (long tableId : transactionState.getIdToTableCommitInfos().keySet()) {
-                    List<Comparable> tableInfo = new ArrayList<Comparable>();
-                    Table table = db.getTable(tableId);
-                    if (null == table) {
-                        throw new AnalysisException("Table[" + tableId + "] does not exist.");
-                    }
-                    int partitionNum = 1;
-                    if (table.getType() == Table.TableType.OLAP) {
-                        OlapTable olapTable = (OlapTable) table;
-                        tableInfo.add(table.getId());
-                        tableInfo.add(table.getName());
-                        tableInfo.add(partitionNum);
-                        tableInfo.add(olapTable.getState());
-                        tableInfos.add(tableInfo);
-                    }
+            tableIds = Lists.newArrayList(transactionState.getIdToTableCommitInfos().keySet());
+        } finally {
+            readUnlock();
+        }
+        db.readLock();
+        try {
+            for (long tableId : tableIds) {
+                List<Comparable> tableInfo = new ArrayList<Comparable>();
+                Table table = db.getTable(tableId);
+                if (null == table) {
+                    throw new AnalysisException("Table[" + tableId + "] does not exist.");
+                }
+                int partitionNum = 1;
+                if (table.getType() == Table.TableType.OLAP) {
+                    OlapTable olapTable = (OlapTable) table;
+                    tableInfo.add(table.getId());
+                    tableInfo.add(table.getName());
+                    tableInfo.add(partitionNum);
+                    tableInfo.add(olapTable.getState());
+                    tableInfos.add(tableInfo);
                 }
-            } finally {
-                db.readUnlock();
             }
         } finally {
-            readUnlock();
+            db.readUnlock();
         }
         return tableInfos;
     }
@@ -1110,6 +1130,8 @@ public class GlobalTransactionMgr {
     public List<List<Comparable>> getPartitionTransInfo(long tid, Database db, OlapTable olapTable)
             throws AnalysisException {
         List<List<Comparable>> partitionInfos = new ArrayList<List<Comparable>>();
+        // db lock should be acquired before the transaction lock, so copy the commit infos first
+        Map<Long, PartitionCommitInfo> idToPartitionCommitInfo;
         readLock();
         try {
             TransactionState transactionState = idToTransactionState.get(tid);
@@ -1117,27 +1139,27 @@ public class GlobalTransactionMgr {
                 throw new AnalysisException("Transaction[" + tid + "] does not exist.");
             }
             TableCommitInfo tableCommitInfo = transactionState.getIdToTableCommitInfos().get(olapTable.getId());
-            db.readLock();
-            try {
-                Map<Long, PartitionCommitInfo> idToPartitionCommitInfo = tableCommitInfo.getIdToPartitionCommitInfo();
-                for (long partitionId : idToPartitionCommitInfo.keySet()) {
-                    Partition partition = olapTable.getPartition(partitionId);
-                    List<Comparable> partitionInfo = new ArrayList<Comparable>();
-                    String partitionName = partition.getName();
-                    partitionInfo.add(partitionId);
-                    partitionInfo.add(partitionName);
-                    PartitionCommitInfo partitionCommitInfo = idToPartitionCommitInfo.get(partitionId);
-                    partitionInfo.add(partitionCommitInfo.getVersion());
-                    partitionInfo.add(partitionCommitInfo.getVersionHash());
-                    partitionInfo.add(partition.getState());
-                    partitionInfos.add(partitionInfo);
-                }
-            } finally {
-                db.readUnlock();
-            }
+            idToPartitionCommitInfo = Maps.newHashMap(tableCommitInfo.getIdToPartitionCommitInfo());
         } finally {
             readUnlock();
         }
+        db.readLock();
+        try {
+            for (long partitionId : idToPartitionCommitInfo.keySet()) {
+                Partition partition = olapTable.getPartition(partitionId);
+                List<Comparable> partitionInfo = new ArrayList<Comparable>();
+                String partitionName = partition.getName();
+                partitionInfo.add(partitionId);
+                partitionInfo.add(partitionName);
+                PartitionCommitInfo partitionCommitInfo = idToPartitionCommitInfo.get(partitionId);
+                partitionInfo.add(partitionCommitInfo.getVersion());
+                partitionInfo.add(partitionCommitInfo.getVersionHash());
+                partitionInfo.add(partition.getState());
+                partitionInfos.add(partitionInfo);
+            }
+        } finally {
+            db.readUnlock();
+        }
         return partitionInfos;
     }
     
@@ -0,0 +1,79 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.analysis;
+
+import org.apache.doris.common.AnalysisException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+public class PlaceHolderExprTest {
+
+    private SqlParser parse(String sql) throws Exception {
+        SqlParser parser = new SqlParser(new SqlScanner(new StringReader(sql)));
+        parser.parse();
+        return parser;
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        SqlParser parser = parse("SELECT k1 FROM db.tbl WHERE k1 = ? AND k2 IN (?, ?) LIMIT 10");
+        Assert.assertEquals(3, parser.placeHolders.size());
+        for (PlaceHolderExpr placeHolder : parser.placeHolders) {
+            Assert.assertNull(placeHolder.getValue());
+        }
+
+        parser = parse("SELECT k1, ? FROM db.tbl WHERE k2 > ? + 1");
+        Assert.assertEquals(2, parser.placeHolders.size());
+
+        parser = parse("SELECT '?' FROM db.tbl WHERE k1 = 1");
+        Assert.assertTrue(parser.placeHolders.isEmpty());
+    }
+
+    @Test
+    public void testBind() throws Exception {
+        SqlParser parser = new SqlParser(new SqlScanner(new StringReader("SELECT k1 FROM db.tbl WHERE k1 = ?")));
+        QueryStmt stmt = (QueryStmt) parser.parse().value;
+        PlaceHolderExpr placeHolder = parser.placeHolders.get(0);
+        Assert.assertEquals("?", placeHolder.toSql());
+
+        // clones of an unbound placeholder share its binding
+        Expr unboundClone = placeHolder.clone();
+        Assert.assertTrue(unboundClone instanceof PlaceHolderExpr);
+        placeHolder.bind(new IntLiteral(10));
+        Assert.assertEquals("10", ((PlaceHolderExpr) unboundClone).getValue().toSql());
+
+        // a clone of a bound placeholder is the clone of its value
+        Expr boundClone = placeHolder.clone();
+        Assert.assertTrue(boundClone instanceof IntLiteral);
+        Assert.assertEquals(10, ((IntLiteral) boundClone).getLongValue());
+        Assert.assertTrue(stmt.clone().toSql().contains("= 10"));
+
+        placeHolder.bind(new StringLiteral("abc"));
+        Assert.assertTrue(boundClone instanceof IntLiteral);
+        Assert.assertTrue(stmt.clone().toSql().contains("= 'abc'"));
+        Assert.assertTrue(stmt.toSql().contains("= ?"));
+    }
+
+    @Test(expected = AnalysisException.class)
+    public void testAnalyzeUnbound() throws Exception {
+        new PlaceHolderExpr().analyze(AccessTestUtil.fetchAdminAnalyzer(false));
+    }
+}
@@ -67,6 +67,21 @@ public class SetVarTest {
         Assert.assertEquals("DEFAULT times = 100", var.toString());
     }
 
+    @Test
+    public void testReplicaSelectionPolicy() throws UserException, AnalysisException {
+        SetVar var = new SetVar(SetType.DEFAULT, "replica_selection_policy", new StringLiteral("LOAD_AWARE"));
+        var.analyze(analyzer);
+        var = new SetVar(SetType.DEFAULT, "replica_selection_policy", new StringLiteral("random"));
+        var.analyze(analyzer);
+    }
+
+    @Test(expected = AnalysisException.class)
+    public void testUnknownReplicaSelectionPolicy() throws UserException, AnalysisException {
+        SetVar var = new SetVar(SetType.DEFAULT, "replica_selection_policy", new StringLiteral("load-aware"));
+        var.analyze(analyzer);
+        Assert.fail("No exception throws.");
+    }
+
     @Test(expected = AnalysisException.class)
     public void testNoVariable() throws UserException, AnalysisException {
         SetVar var = new SetVar(SetType.DEFAULT, "", new StringLiteral("utf-8"));
@@ -0,0 +1,141 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import org.apache.doris.persist.ColocatePersistInfo;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.List;
+
+public class ColocateTableIndexTest {
+
+    private static List<List<Long>> createBackendsPerBucketSeq(long... backendIds) {
+        List<List<Long>> backendsPerBucketSeq = Lists.newArrayList();
+        for (int i = 0; i < backendIds.length; i += 2) {
+            backendsPerBucketSeq.add(Lists.newArrayList(backendIds[i], backendIds[i + 1]));
+        }
+        return backendsPerBucketSeq;
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        ColocateTableIndex index = new ColocateTableIndex();
+        String group = ColocateTableIndex.getFullGroupName(1L, "g1");
+        index.addTableToGroup(1L, 10L, group, createBackendsPerBucketSeq(100L, 101L, 101L, 102L));
+        // the backends of an existing group are not changed by the later tables
+        index.addTableToGroup(1L, 11L, group, createBackendsPerBucketSeq(103L, 104L, 104L, 105L));
+        index.addTableToGroup(1L, 12L, ColocateTableIndex.getFullGroupName(1L, "g2"),
+                              createBackendsPerBucketSeq(100L, 101L));
+
+        Assert.assertTrue(index.isGroupExist(group));
+        Assert.assertEquals(1L, index.getDbIdOfGroup(group));
+        Assert.assertEquals(createBackendsPerBucketSeq(100L, 101L, 101L, 102L), index.getBackendsPerBucketSeq(group));
+        Assert.assertEquals(Lists.newArrayList(10L, 11L), index.getTableIdsInGroup(group));
+        Assert.assertTrue(index.isSameGroup(10L, 11L));
+        Assert.assertFalse(index.isSameGroup(10L, 12L));
+        Assert.assertFalse(index.isSameGroup(10L, 13L));
+        Assert.assertFalse(index.isColocateTable(13L));
+        Assert.assertEquals(2, index.getAllGroups().size());
+
+        // the returned backends are a copy
+        index.getBackendsPerBucketSeq(group).get(0).set(0, 200L);
+        Assert.assertEquals(100L, (long) index.getBackendsPerBucketSeq(group).get(0).get(0));
+
+        index.removeTable(10L);
+        Assert.assertFalse(index.isColocateTable(10L));
+        Assert.assertTrue(index.isGroupExist(group));
+        index.removeTable(11L);
+        Assert.assertFalse(index.isGroupExist(group));
+        Assert.assertNull(index.getBackendsPerBucketSeq(group));
+        Assert.assertEquals(-1L, index.getDbIdOfGroup(group));
+        Assert.assertEquals(1, index.getAllGroups().size());
+    }
+
+    @Test
+    public void testUpdateGroup() {
+        ColocateTableIndex index = new ColocateTableIndex();
+        String group = ColocateTableIndex.getFullGroupName(1L, "g1");
+        index.addTableToGroup(1L, 10L, group, createBackendsPerBucketSeq(100L, 101L));
+        Assert.assertFalse(index.isGroupUnstable(group));
+
+        index.updateGroup(new ColocatePersistInfo(group, createBackendsPerBucketSeq(100L, 102L), false));
+        Assert.assertTrue(index.isGroupUnstable(group));
+        Assert.assertEquals(createBackendsPerBucketSeq(100L, 102L), index.getBackendsPerBucketSeq(group));
+
+        index.updateGroup(new ColocatePersistInfo(group, createBackendsPerBucketSeq(100L, 102L), true));
+        Assert.assertFalse(index.isGroupUnstable(group));
+
+        // update of a removed group is ignored
+        index.removeTable(10L);
+        index.updateGroup(new ColocatePersistInfo(group, createBackendsPerBucketSeq(100L, 102L), false));
+        Assert.assertFalse(index.isGroupExist(group));
+        Assert.assertFalse(index.isGroupUnstable(group));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        File file = new File("./colocateTableIndex");
+        file.createNewFile();
+        DataOutputStream dos = new DataOutputStream(new FileOutputStream(file));
+
+        ColocateTableIndex index = new ColocateTableIndex();
+        String group1 = ColocateTableIndex.getFullGroupName(1L, "g1");
+        String group2 = ColocateTableIndex.getFullGroupName(2L, "g1");
+        index.addTableToGroup(1L, 10L, group1, createBackendsPerBucketSeq(100L, 101L, 101L, 102L));
+        index.addTableToGroup(1L, 11L, group1, null);
+        index.addTableToGroup(2L, 20L, group2, createBackendsPerBucketSeq(100L, 102L));
+        index.updateGroup(new ColocatePersistInfo(group2, createBackendsPerBucketSeq(100L, 103L), false));
+        index.write(dos);
+
+        ColocatePersistInfo info = new ColocatePersistInfo(group1, createBackendsPerBucketSeq(103L, 101L), true);
+        info.write(dos);
+
+        dos.flush();
+        dos.close();
+
+        DataInputStream dis = new DataInputStream(new FileInputStream(file));
+        ColocateTableIndex rIndex = new ColocateTableIndex();
+        rIndex.readFields(dis);
+        Assert.assertEquals(index.getAllGroups(), rIndex.getAllGroups());
+        Assert.assertEquals(Lists.newArrayList(10L, 11L), rIndex.getTableIdsInGroup(group1));
+        Assert.assertTrue(rIndex.isSameGroup(10L, 11L));
+        Assert.assertEquals(group2, rIndex.getGroup(20L));
+        Assert.assertEquals(2L, rIndex.getDbIdOfGroup(group2));
+        Assert.assertFalse(rIndex.isGroupUnstable(group1));
+        Assert.assertTrue(rIndex.isGroupUnstable(group2));
+        Assert.assertEquals(index.getBackendsPerBucketSeq(group1), rIndex.getBackendsPerBucketSeq(group1));
+        Assert.assertEquals(createBackendsPerBucketSeq(100L, 103L), rIndex.getBackendsPerBucketSeq(group2));
+
+        ColocatePersistInfo rInfo = ColocatePersistInfo.read(dis);
+        Assert.assertEquals(group1, rInfo.getGroup());
+        Assert.assertEquals(info.getBackendsPerBucketSeq(), rInfo.getBackendsPerBucketSeq());
+        Assert.assertTrue(rInfo.isStable());
+
+        dis.close();
+        file.delete();
+    }
+}
@@ -0,0 +1,101 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+
+public class ColumnStatsMgrTest {
+
+    private static ColumnStats createStats(PrimitiveType type, long ndv, long numNulls, String min, String max) {
+        ColumnStats stats = new ColumnStats(type);
+        stats.setNumDistinctValues(ndv);
+        stats.setNumNulls(numNulls);
+        stats.setMinValue(min);
+        stats.setMaxValue(max);
+        return stats;
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        PartitionColumnStats stats = new PartitionColumnStats(2L, 123L, 1000L, 1L);
+        stats.putColumnStats("k1", createStats(PrimitiveType.INT, 100L, 10L, "-5", "300"));
+        stats.putColumnStats("k2", createStats(PrimitiveType.VARCHAR, 20L, 0L, null, null));
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        stats.write(dos);
+        dos.flush();
+
+        PartitionColumnStats read = PartitionColumnStats.read(
+                new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+        Assert.assertEquals(2L, read.getVersion());
+        Assert.assertEquals(123L, read.getVersionHash());
+        Assert.assertEquals(1000L, read.getRowCount());
+        Assert.assertEquals(2, read.getColumnStats().size());
+        Assert.assertEquals(stats.getColumnStats("k1"), read.getColumnStats("k1"));
+        Assert.assertEquals("-5", read.getColumnStats("k1").getMinValue());
+        Assert.assertNull(read.getColumnStats("k2").getMaxValue());
+    }
+
+    @Test
+    public void testMergeColumnStats() {
+        Column k1 = new Column("k1", PrimitiveType.INT);
+
+        PartitionColumnStats p1 = new PartitionColumnStats(2L, 0L, 1000L, 1L);
+        p1.putColumnStats("k1", createStats(PrimitiveType.INT, 100L, 10L, "-5", "90"));
+        PartitionColumnStats p2 = new PartitionColumnStats(2L, 0L, 500L, 1L);
+        p2.putColumnStats("k1", createStats(PrimitiveType.INT, 200L, 0L, "10", "300"));
+        // column is added after p3 is analyzed
+        PartitionColumnStats p3 = new PartitionColumnStats(2L, 0L, 500L, 1L);
+        List<PartitionColumnStats> partitionStats = Lists.newArrayList(p1, p2, p3);
+
+        ColumnStats stats = ColumnStatsMgr.mergeColumnStats(k1, partitionStats, false);
+        Assert.assertEquals(200L, stats.getNumDistinctValues());
+        Assert.assertEquals(10L, stats.getNumNulls());
+        // compared as numbers, not as strings
+        Assert.assertEquals("-5", stats.getMinValue());
+        Assert.assertEquals("300", stats.getMaxValue());
+
+        stats = ColumnStatsMgr.mergeColumnStats(k1, partitionStats, true);
+        Assert.assertEquals(300L, stats.getNumDistinctValues());
+
+        Assert.assertNull(ColumnStatsMgr.mergeColumnStats(new Column("k2", PrimitiveType.INT),
+                                                          partitionStats, false));
+    }
+
+    @Test
+    public void testScaleNdv() {
+        // not sampled
+        Assert.assertEquals(100L, ColumnStatsMgr.scaleNdv(100L, 1000L, 1.0, true));
+        // low cardinality values are assumed to appear in all tablets
+        Assert.assertEquals(100L, ColumnStatsMgr.scaleNdv(100L, 1000L, 4.0, false));
+        // mostly distinct values
+        Assert.assertEquals(3800L, ColumnStatsMgr.scaleNdv(950L, 1000L, 4.0, false));
+        // distribution column
+        Assert.assertEquals(400L, ColumnStatsMgr.scaleNdv(100L, 1000L, 4.0, true));
+    }
+}
@@ -17,17 +17,23 @@
 
 package org.apache.doris.catalog;
 
+import org.apache.doris.catalog.MaterializedIndex.IndexState;
+import org.apache.doris.catalog.Replica.ReplicaState;
 import org.apache.doris.catalog.Table.TableType;
 import org.apache.doris.common.FeConstants;
 import org.apache.doris.common.io.FastByteArrayOutputStream;
 import org.apache.doris.common.util.UnitTestUtil;
 
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import mockit.NonStrictExpectations;
 import mockit.internal.startup.Startup;
@@ -73,4 +79,192 @@ public class OlapTableTest {
         
     }
 
+    private static void mockJournalVersion() {
+        new NonStrictExpectations(Catalog.class) {
+            {
+                Catalog.getCurrentCatalogJournalVersion();
+                minTimes = 0;
+                result = FeConstants.meta_version;
+            }
+        };
+    }
+
+    // add a partition of one tablet with 3 replicas of version 2
+    private static Partition addPartition(OlapTable table, long partitionId, long indexId, long tabletId) {
+        MaterializedIndex index = new MaterializedIndex(indexId, IndexState.NORMAL);
+        Tablet tablet = new Tablet(tabletId);
+        index.addTablet(tablet, new TabletMeta(1, table.getId(), partitionId, indexId, 0));
+        for (int i = 0; i < 3; i++) {
+            tablet.addReplica(new Replica(tabletId * 10 + i, 10 + i, ReplicaState.NORMAL, 2, 0));
+        }
+        Partition partition = new Partition(partitionId, "p" + partitionId, index, new RandomDistributionInfo(1));
+        partition.updateCommitVersionAndVersionHash(2, 0);
+        table.addPartition(partition);
+        return partition;
+    }
+
+    // publish a new version of the partition
+    private static void publish(Partition partition, long version) {
+        partition.updateCommitVersionAndVersionHash(version, 0);
+        for (Tablet tablet : partition.getBaseIndex().getTablets()) {
+            for (Replica replica : tablet.getReplicas()) {
+                replica.updateInfo(version, 0, 0, 0);
+            }
+        }
+    }
+
+    private static OlapTable getSnapshot(Database db, OlapTable table) {
+        List<Table> tables = db.readLockTables(Lists.newArrayList(table.getId()));
+        try {
+            return table.getSnapshot(db);
+        } finally {
+            db.readUnlockTables(tables);
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        mockJournalVersion();
+        Database db = UnitTestUtil.createDb(1, 2, 3, 4, 5, 6, 7, 8);
+        OlapTable table = (OlapTable) db.getTable(2);
+        Partition p1 = addPartition(table, 11, 4, 12);
+        Partition p2 = addPartition(table, 21, 4, 22);
+
+        OlapTable snapshot = getSnapshot(db, table);
+        Assert.assertNotNull(snapshot);
+        Assert.assertNotSame(table, snapshot);
+        Assert.assertEquals(table.getId(), snapshot.getId());
+        Assert.assertEquals(3, snapshot.getPartitions().size());
+        // shared until the table is modified
+        Assert.assertSame(snapshot, getSnapshot(db, table));
+
+        // nothing of the table is changed with the db lock, eg. a tablet report of other tables
+        db.writeLock();
+        db.writeUnlock();
+        Assert.assertSame(snapshot, getSnapshot(db, table));
+        table.writeLock();
+        table.writeUnlock();
+        Assert.assertSame(snapshot, getSnapshot(db, table));
+
+        // a load of p2, only p2 is copied again
+        List<Table> tables = db.writeLockTables(Lists.newArrayList(table.getId()));
+        publish(p2, 3);
+        db.writeUnlockTables(tables);
+        OlapTable newSnapshot = getSnapshot(db, table);
+        Assert.assertNotSame(snapshot, newSnapshot);
+        Assert.assertSame(snapshot.getPartition(p1.getId()), newSnapshot.getPartition(p1.getId()));
+        Assert.assertNotSame(snapshot.getPartition(p2.getId()), newSnapshot.getPartition(p2.getId()));
+        Assert.assertEquals(3, newSnapshot.getPartition(p2.getId()).getCommittedVersion());
+        // the old snapshot is not changed
+        Assert.assertEquals(2, snapshot.getPartition(p2.getId()).getCommittedVersion());
+
+        // tables may be modified with only the db lock held, eg. a replica is cloned
+        db.writeLock();
+        p1.getBaseIndex().getTablets().get(0).getReplicas().get(0).setState(ReplicaState.CLONE);
+        db.writeUnlock();
+        snapshot = newSnapshot;
+        newSnapshot = getSnapshot(db, table);
+        Assert.assertNotSame(snapshot, newSnapshot);
+        Assert.assertNotSame(snapshot.getPartition(p1.getId()), newSnapshot.getPartition(p1.getId()));
+        Assert.assertSame(snapshot.getPartition(p2.getId()), newSnapshot.getPartition(p2.getId()));
+        Tablet tablet = newSnapshot.getPartition(p1.getId()).getBaseIndex().getTablets().get(0);
+        Assert.assertEquals(ReplicaState.CLONE, tablet.getReplicas().get(0).getState());
+
+        // the schema is changed, partitions are still shared
+        db.writeLock();
+        table.setIndexSchemaInfo(4L, UnitTestUtil.TABLE_NAME, table.getBaseSchema(), 1, UnitTestUtil.SCHEMA_HASH, (short) 1);
+        db.writeUnlock();
+        snapshot = newSnapshot;
+        newSnapshot = getSnapshot(db, table);
+        Assert.assertNotSame(snapshot, newSnapshot);
+        Assert.assertEquals(0, snapshot.getSchemaVersionByIndexId(4L));
+        Assert.assertEquals(1, newSnapshot.getSchemaVersionByIndexId(4L));
+        for (Partition partition : table.getPartitions()) {
+            Assert.assertSame(snapshot.getPartition(partition.getId()), newSnapshot.getPartition(partition.getId()));
+        }
+
+    }
+
+    @Test
+    public void testSnapshotConcurrentInvalidation() throws InterruptedException {
+        mockJournalVersion();
+        final Database db = UnitTestUtil.createDb(1, 2, 3, 4, 5, 6, 7, 8);
+        final OlapTable table = (OlapTable) db.getTable(2);
+        final Partition p1 = addPartition(table, 11, 4, 12);
+        final Partition p2 = addPartition(table, 21, 4, 22);
+        final int loadNum = 200;
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        // loads publish new versions of p2, and the db is locked by other changes in between
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int version = 3; version < 3 + loadNum; version++) {
+                    List<Table> tables = db.writeLockTables(Lists.newArrayList(table.getId()));
+                    try {
+                        publish(p2, version);
+                    } finally {
+                        db.writeUnlockTables(tables);
+                    }
+                    db.writeLock();
+                    db.writeUnlock();
+                }
+            }
+        });
+
+        // every query sees a snapshot of the version when it holds the lock, which is never changed later
+        List<Thread> queries = Lists.newArrayList();
+        for (int i = 0; i < 4; i++) {
+            queries.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        OlapTable lastSnapshot = null;
+                        long lastVersion = 0;
+                        for (int j = 0; j < loadNum; j++) {
+                            List<Table> tables = db.readLockTables(Lists.newArrayList(table.getId()));
+                            OlapTable snapshot;
+                            long version;
+                            try {
+                                version = p2.getCommittedVersion();
+                                snapshot = table.getSnapshot(db);
+                            } finally {
+                                db.readUnlockTables(tables);
+                            }
+                            Partition partition = snapshot.getPartition(p2.getId());
+                            Assert.assertEquals(version, partition.getCommittedVersion());
+                            for (Replica replica : partition.getBaseIndex().getTablets().get(0).getReplicas()) {
+                                Assert.assertEquals(version, replica.getVersion());
+                            }
+                            Assert.assertEquals(2, snapshot.getPartition(p1.getId()).getCommittedVersion());
+                            if (lastSnapshot != null) {
+                                Assert.assertEquals(lastVersion,
+                                        lastSnapshot.getPartition(p2.getId()).getCommittedVersion());
+                                // unchanged partitions are always shared
+                                Assert.assertSame(lastSnapshot.getPartition(p1.getId()),
+                                                  snapshot.getPartition(p1.getId()));
+                            }
+                            lastSnapshot = snapshot;
+                            lastVersion = version;
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            }));
+        }
+
+        loader.start();
+        for (Thread query : queries) {
+            query.start();
+        }
+        loader.join();
+        for (Thread query : queries) {
+            query.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        Assert.assertEquals(2 + loadNum, getSnapshot(db, table).getPartition(p2.getId()).getCommittedVersion());
+    }
 }
@@ -0,0 +1,105 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import org.apache.doris.common.AnalysisException;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.TreeRangeMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class RangePartitionIndexTest {
+    private List<Column> partitionColumns;
+    private Map<Long, Range<PartitionKey>> idToRange;
+    private RangeMap<PartitionKey, Long> rangeMap;
+
+    private PartitionKey key(int k1, int k2) throws AnalysisException {
+        return PartitionKey.createPartitionKey(Lists.newArrayList(String.valueOf(k1), String.valueOf(k2)),
+                                               partitionColumns);
+    }
+
+    @Before
+    public void setUp() throws AnalysisException {
+        partitionColumns = Lists.newArrayList(new Column("k1", PrimitiveType.INT), new Column("k2", PrimitiveType.INT));
+        idToRange = Maps.newHashMap();
+        rangeMap = TreeRangeMap.create();
+        // [(0, 0), (0, 50)), [(0, 50), (1, 0)), [(1, 0), (1, 50)) ... with a hole at partition 5
+        for (int i = 0; i < 20; i++) {
+            if (i == 5) {
+                continue;
+            }
+            Range<PartitionKey> range = Range.closedOpen(key(i / 2, i % 2 * 50), key((i + 1) / 2, (i + 1) % 2 * 50));
+            idToRange.put((long) i, range);
+            rangeMap.put(range, (long) i);
+        }
+        // the first partition, whose lower bound is the minimum value
+        Range<PartitionKey> first = Range.closedOpen(PartitionKey.createInfinityPartitionKey(partitionColumns, false),
+                                                     key(0, 0));
+        idToRange.put(100L, first);
+        rangeMap.put(first, 100L);
+    }
+
+    @Test
+    public void testGetIntersected() throws AnalysisException {
+        RangePartitionIndex index = RangePartitionIndex.create(idToRange);
+        Assert.assertEquals(20, index.size());
+
+        Assert.assertEquals(Lists.newArrayList(2L), index.getIntersected(Range.closed(key(1, 0), key(1, 0))));
+        Assert.assertEquals(Lists.newArrayList(2L, 3L), index.getIntersected(Range.closed(key(1, 0), key(1, 50))));
+        Assert.assertEquals(Lists.newArrayList(2L), index.getIntersected(Range.closedOpen(key(1, 0), key(1, 50))));
+        // in the hole
+        Assert.assertTrue(index.getIntersected(Range.closed(key(2, 60), key(2, 70))).isEmpty());
+        Assert.assertEquals(Lists.newArrayList(100L, 0L), index.getIntersected(Range.atMost(key(0, 10))));
+        Assert.assertEquals(Lists.newArrayList(18L, 19L), index.getIntersected(Range.atLeast(key(9, 0))));
+        Assert.assertTrue(index.getIntersected(Range.atLeast(key(10, 0))).isEmpty());
+    }
+
+    @Test
+    public void testSameAsRangeMap() throws AnalysisException {
+        RangePartitionIndex index = RangePartitionIndex.create(idToRange);
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            PartitionKey lower = key(random.nextInt(12) - 1, random.nextInt(100));
+            PartitionKey upper = key(random.nextInt(12) - 1, random.nextInt(100));
+            if (lower.compareTo(upper) > 0) {
+                PartitionKey tmp = lower;
+                lower = upper;
+                upper = tmp;
+            }
+            BoundType lowerType = random.nextBoolean() ? BoundType.OPEN : BoundType.CLOSED;
+            BoundType upperType = random.nextBoolean() ? BoundType.OPEN : BoundType.CLOSED;
+            if (lower.compareTo(upper) == 0 && (lowerType == BoundType.OPEN || upperType == BoundType.OPEN)) {
+                continue;
+            }
+            Range<PartitionKey> range = Range.range(lower, lowerType, upper, upperType);
+            List<Long> expected = Lists.newArrayList(rangeMap.subRangeMap(range).asMapOfRanges().values());
+            Assert.assertEquals(range.toString(), expected, index.getIntersected(range));
+        }
+    }
+}
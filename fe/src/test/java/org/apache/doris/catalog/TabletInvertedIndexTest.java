@@ -0,0 +1,123 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import org.apache.doris.catalog.Replica.ReplicaState;
+
+import com.google.common.collect.Sets;
+
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.easymock.PowerMock;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.List;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore("org.apache.log4j.*")
+@PrepareForTest({ Catalog.class })
+public class TabletInvertedIndexTest {
+
+    private TabletInvertedIndex invertedIndex;
+
+    @Before
+    public void setUp() {
+        PowerMock.mockStatic(Catalog.class);
+        EasyMock.expect(Catalog.isCheckpointThread()).andReturn(false).anyTimes();
+        PowerMock.replay(Catalog.class);
+
+        invertedIndex = new TabletInvertedIndex();
+        // 100 tablets, each has 3 replicas on backend 1~3
+        for (long tabletId = 1; tabletId <= 100; tabletId++) {
+            invertedIndex.addTablet(tabletId, new TabletMeta(10, 20, 30, 40, 1));
+            for (long backendId = 1; backendId <= 3; backendId++) {
+                invertedIndex.addReplica(tabletId, newReplica(tabletId * 10 + backendId, backendId));
+            }
+        }
+    }
+
+    private Replica newReplica(long replicaId, long backendId) {
+        return new Replica(replicaId, backendId, 1L, 0L, 0L, 0L, ReplicaState.NORMAL, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testGet() {
+        Assert.assertEquals(10, invertedIndex.getDbId(1));
+        Assert.assertEquals(20, invertedIndex.getTableId(1));
+        Assert.assertEquals(30, invertedIndex.getPartitionId(1));
+        Assert.assertEquals(40, invertedIndex.getIndexId(1));
+        Assert.assertEquals(1, invertedIndex.getEffectiveSchemaHash(1));
+        Assert.assertEquals(TabletInvertedIndex.NOT_EXIST_VALUE, invertedIndex.getDbId(101));
+        Assert.assertNull(invertedIndex.getTabletMeta(101));
+
+        Assert.assertEquals(Long.valueOf(5), invertedIndex.getTabletIdByReplica(52));
+        Assert.assertNull(invertedIndex.getTabletIdByReplica(54));
+        Assert.assertEquals(30, invertedIndex.getTabletMetaByReplica(52).getPartitionId());
+        Assert.assertEquals(300, invertedIndex.getReplicaToTabletMap().size());
+
+        Assert.assertEquals(52, invertedIndex.getReplica(5, 2).getId());
+        Assert.assertNull(invertedIndex.getReplica(5, 4));
+        Assert.assertEquals(3, invertedIndex.getReplicasByTabletId(5).size());
+        Assert.assertEquals(Sets.newHashSet(1L, 2L, 3L), invertedIndex.getTabletBackends(5));
+
+        Assert.assertEquals(100, invertedIndex.getTabletNumByBackendId(2));
+        Assert.assertEquals(0, invertedIndex.getTabletNumByBackendId(4));
+        List<Long> tabletIds = invertedIndex.getTabletIdsByBackendId(2);
+        Assert.assertEquals(100, tabletIds.size());
+        Assert.assertTrue(tabletIds.contains(100L));
+    }
+
+    @Test
+    public void testAddAndDelete() {
+        // replace the replica on the same backend
+        invertedIndex.addReplica(5, newReplica(1000, 2));
+        Assert.assertEquals(1000, invertedIndex.getReplica(5, 2).getId());
+        Assert.assertEquals(3, invertedIndex.getReplicasByTabletId(5).size());
+        Assert.assertEquals(100, invertedIndex.getTabletNumByBackendId(2));
+
+        invertedIndex.deleteReplica(5, 2);
+        Assert.assertNull(invertedIndex.getReplica(5, 2));
+        Assert.assertNull(invertedIndex.getTabletIdByReplica(1000));
+        Assert.assertEquals(Sets.newHashSet(1L, 3L), invertedIndex.getTabletBackends(5));
+        Assert.assertEquals(99, invertedIndex.getTabletNumByBackendId(2));
+        Assert.assertEquals(51, invertedIndex.getReplica(5, 1).getId());
+        Assert.assertEquals(53, invertedIndex.getReplica(5, 3).getId());
+
+        invertedIndex.deleteReplica(5, 1);
+        invertedIndex.deleteReplica(5, 3);
+        Assert.assertNull(invertedIndex.getReplicasByTabletId(5));
+        Assert.assertEquals(10, invertedIndex.getDbId(5));
+
+        invertedIndex.deleteTablet(6);
+        Assert.assertEquals(TabletInvertedIndex.NOT_EXIST_VALUE, invertedIndex.getDbId(6));
+        Assert.assertNull(invertedIndex.getTabletIdByReplica(61));
+        Assert.assertEquals(98, invertedIndex.getTabletNumByBackendId(1));
+        Assert.assertFalse(invertedIndex.getTabletIdsByBackendId(1).contains(6L));
+
+        for (long tabletId = 1; tabletId <= 100; tabletId++) {
+            invertedIndex.deleteTablet(tabletId);
+        }
+        Assert.assertEquals(0, invertedIndex.getTabletNumByBackendId(1));
+        Assert.assertTrue(invertedIndex.getReplicaToTabletMap().isEmpty());
+    }
+}
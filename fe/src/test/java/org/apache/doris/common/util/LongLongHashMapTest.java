@@ -0,0 +1,80 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class LongLongHashMapTest {
+
+    @Test
+    public void testZeroKey() {
+        LongLongHashMap map = new LongLongHashMap(-1L);
+        Assert.assertEquals(-1L, map.get(0L));
+        Assert.assertEquals(-1L, map.put(0L, 10L));
+        Assert.assertEquals(10L, map.put(0L, 20L));
+        Assert.assertTrue(map.containsKey(0L));
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals(1, map.keys().length);
+        Assert.assertEquals(20L, map.remove(0L));
+        Assert.assertEquals(-1L, map.remove(0L));
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testRandomOperations() {
+        LongLongHashMap map = new LongLongHashMap(16, -1L);
+        Map<Long, Long> expected = Maps.newHashMap();
+        Random random = new Random(4321);
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(5000) - 100;
+            if (random.nextInt(3) == 0) {
+                Long old = expected.remove(key);
+                Assert.assertEquals(old == null ? -1L : old, map.remove(key));
+            } else {
+                long value = random.nextInt(Integer.MAX_VALUE);
+                Long old = expected.put(key, value);
+                Assert.assertEquals(old == null ? -1L : old, map.put(key, value));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+
+        for (long key = -100; key < 4900; key++) {
+            Long value = expected.get(key);
+            Assert.assertEquals(value == null ? -1L : value, map.get(key));
+            Assert.assertEquals(value != null, map.containsKey(key));
+        }
+
+        Set<Long> keys = Sets.newHashSet();
+        for (long key : map.keys()) {
+            keys.add(key);
+        }
+        Assert.assertEquals(expected.keySet(), keys);
+
+        map.clear();
+        Assert.assertEquals(0, map.size());
+        Assert.assertEquals(-1L, map.get(1L));
+    }
+}
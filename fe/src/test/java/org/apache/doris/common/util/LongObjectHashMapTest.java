@@ -0,0 +1,93 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testBasic() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<String>();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.put(1L, "a"));
+        Assert.assertNull(map.put(0L, "zero"));
+        Assert.assertNull(map.put(-1L, "minus"));
+        Assert.assertEquals("a", map.put(1L, "b"));
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals("b", map.get(1L));
+        Assert.assertEquals("zero", map.get(0L));
+        Assert.assertEquals("minus", map.get(-1L));
+        Assert.assertNull(map.get(2L));
+        Assert.assertTrue(map.containsKey(0L));
+
+        Assert.assertEquals("zero", map.remove(0L));
+        Assert.assertNull(map.remove(0L));
+        Assert.assertFalse(map.containsKey(0L));
+        Assert.assertEquals(2, map.size());
+
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get(1L));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<Long>();
+        Map<Long, Long> expected = Maps.newHashMap();
+        Random random = new Random(1234);
+        for (int i = 0; i < 200000; i++) {
+            // small key range, so that there are many collisions and removals
+            long key = random.nextInt(5000) * 1024L;
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                long value = random.nextLong();
+                Assert.assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+
+        for (long key = 0; key < 5000 * 1024L; key += 1024L) {
+            Assert.assertEquals(expected.get(key), map.get(key));
+        }
+
+        Set<Long> keys = Sets.newHashSet();
+        for (long key : map.keys()) {
+            keys.add(key);
+        }
+        Assert.assertEquals(expected.keySet(), keys);
+        Assert.assertEquals(expected.size(), map.values().size());
+
+        int count = 0;
+        LongObjectHashMap<Long>.EntryIterator iter = map.iterator();
+        while (iter.next()) {
+            Assert.assertEquals(expected.get(iter.key()), iter.value());
+            count++;
+        }
+        Assert.assertEquals(expected.size(), count);
+    }
+}
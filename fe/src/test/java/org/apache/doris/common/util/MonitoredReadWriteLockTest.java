@@ -0,0 +1,145 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import org.apache.doris.common.Config;
+import org.apache.doris.common.util.MonitoredReadWriteLock.LockHolder;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class MonitoredReadWriteLockTest {
+
+    @After
+    public void tearDown() {
+        Config.lock_trace_sample_rate = 0;
+    }
+
+    @Test
+    public void testHolders() throws InterruptedException {
+        Config.lock_trace_sample_rate = 1;
+        MonitoredReadWriteLock lock = new MonitoredReadWriteLock();
+        lock.readLock();
+        // reentrant acquisition is not recorded again
+        lock.readLock();
+        List<LockHolder> holders = lock.getHolders();
+        Assert.assertEquals(1, holders.size());
+        Assert.assertEquals(MonitoredReadWriteLock.MODE_READ, holders.get(0).mode);
+        Assert.assertEquals(MonitoredReadWriteLock.STATE_HOLD, holders.get(0).state);
+        Assert.assertEquals(Thread.currentThread(), holders.get(0).thread);
+        Assert.assertNotNull(holders.get(0).stack);
+        lock.readUnlock();
+        Assert.assertEquals(1, lock.getHolders().size());
+        lock.readUnlock();
+        Assert.assertTrue(lock.getHolders().isEmpty());
+        Assert.assertEquals(2, lock.getWaitHistogram().getCount());
+        Assert.assertEquals(1, lock.getHoldHistogram().getCount());
+
+        Config.lock_trace_sample_rate = 0;
+        lock.writeLock();
+        holders = lock.getHolders();
+        Assert.assertEquals(1, holders.size());
+        Assert.assertEquals(MonitoredReadWriteLock.MODE_WRITE, holders.get(0).mode);
+        Assert.assertNull(holders.get(0).stack);
+        Assert.assertTrue(lock.isWriteLockHeldByCurrentThread());
+        lock.writeUnlock();
+        Assert.assertFalse(lock.isWriteLockHeldByCurrentThread());
+        Assert.assertTrue(lock.getHolders().isEmpty());
+        Assert.assertEquals(2, lock.getHoldHistogram().getCount());
+    }
+
+    @Test
+    public void testWaiter() throws InterruptedException {
+        final MonitoredReadWriteLock lock = new MonitoredReadWriteLock();
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.writeLock();
+                try {
+                    locked.countDown();
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                } finally {
+                    lock.writeUnlock();
+                }
+            }
+        });
+        holder.start();
+        locked.await();
+
+        Assert.assertFalse(lock.tryWriteLock(10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, lock.getHolders().size());
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.readLock();
+                lock.readUnlock();
+            }
+        });
+        reader.start();
+        while (lock.getQueueLength() == 0) {
+            Thread.sleep(1);
+        }
+
+        boolean foundWaiter = false;
+        for (LockHolder lockHolder : lock.getHolders()) {
+            if (lockHolder.state.equals(MonitoredReadWriteLock.STATE_WAIT)) {
+                Assert.assertEquals(reader, lockHolder.thread);
+                Assert.assertEquals(MonitoredReadWriteLock.MODE_READ, lockHolder.mode);
+                foundWaiter = true;
+            } else {
+                Assert.assertEquals(holder, lockHolder.thread);
+                Assert.assertEquals(MonitoredReadWriteLock.MODE_WRITE, lockHolder.mode);
+            }
+        }
+        Assert.assertTrue(foundWaiter);
+
+        release.countDown();
+        holder.join();
+        reader.join();
+        Assert.assertTrue(lock.getHolders().isEmpty());
+        Assert.assertTrue(lock.tryWriteLock(10, TimeUnit.MILLISECONDS));
+        lock.writeUnlock();
+    }
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getPercentileMs(0.99), 0.0001);
+        for (int i = 1; i <= 100; i++) {
+            histogram.update(i * 1000000L);
+        }
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(50.5, histogram.getMeanMs(), 0.0001);
+        Assert.assertEquals(100, histogram.getMaxMs(), 0.0001);
+        // 50 ms falls into bucket [32.768, 65.536) ms
+        Assert.assertEquals(65.536, histogram.getPercentileMs(0.5), 0.0001);
+        Assert.assertEquals(100, histogram.getPercentileMs(0.99), 0.0001);
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+    }
+}
@@ -0,0 +1,176 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MultiGranularityLockTest {
+    private static final int IS = 0;
+    private static final int IX = 1;
+    private static final int S = 2;
+    private static final int X = 3;
+
+    private MultiGranularityLock lock = new MultiGranularityLock();
+
+    private void lock(int mode) {
+        switch (mode) {
+            case IS:
+                lock.intentionReadLock();
+                break;
+            case IX:
+                lock.intentionWriteLock();
+                break;
+            case S:
+                lock.readLock();
+                break;
+            default:
+                lock.writeLock();
+                break;
+        }
+    }
+
+    private void unlock(int mode) {
+        switch (mode) {
+            case IS:
+                lock.intentionReadUnlock();
+                break;
+            case IX:
+                lock.intentionWriteUnlock();
+                break;
+            case S:
+                lock.readUnlock();
+                break;
+            default:
+                lock.writeUnlock();
+                break;
+        }
+    }
+
+    // start a thread which locks and then unlocks in the given mode
+    private Thread lockInOtherThread(final int mode) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock(mode);
+                unlock(mode);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static boolean isFinished(Thread thread) throws InterruptedException {
+        thread.join(200);
+        return !thread.isAlive();
+    }
+
+    @Test
+    public void testCompatibility() throws InterruptedException {
+        boolean[][] compatible = {
+                // IS     IX     S      X
+                { true,  true,  true,  false }, // IS
+                { true,  true,  false, false }, // IX
+                { true,  false, true,  false }, // S
+                { false, false, false, false }, // X
+        };
+        for (int held = IS; held <= X; held++) {
+            for (int requested = IS; requested <= X; requested++) {
+                lock(held);
+                Thread thread = lockInOtherThread(requested);
+                Assert.assertEquals("held: " + held + ", requested: " + requested,
+                        compatible[held][requested], isFinished(thread));
+                unlock(held);
+                thread.join();
+            }
+        }
+    }
+
+    @Test
+    public void testReentrant() {
+        // S and IX under X
+        lock.writeLock();
+        lock.intentionWriteLock();
+        lock.readLock();
+        Assert.assertTrue(lock.isIntentionWriteLockHeldByCurrentThread());
+        lock.readUnlock();
+        lock.intentionWriteUnlock();
+        lock.writeUnlock();
+        Assert.assertFalse(lock.isWriteLockHeldByCurrentThread());
+        Assert.assertFalse(lock.isIntentionWriteLockHeldByCurrentThread());
+
+        // S under IX
+        lock.intentionWriteLock();
+        lock.intentionWriteLock();
+        lock.readLock();
+        lock.readUnlock();
+        lock.intentionWriteUnlock();
+        Assert.assertTrue(lock.isIntentionWriteLockHeldByCurrentThread());
+        lock.intentionWriteUnlock();
+        Assert.assertFalse(lock.isIntentionWriteLockHeldByCurrentThread());
+
+        // S under IS
+        lock.intentionReadLock();
+        lock.readLock();
+        lock.readUnlock();
+        lock.intentionReadUnlock();
+        Assert.assertEquals(0, lock.getReadWriteLock().getReadLockCount());
+    }
+
+    @Test
+    public void testUpgrade() {
+        lock.readLock();
+        try {
+            lock.intentionWriteLock();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            lock.writeLock();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        lock.readUnlock();
+
+        lock.intentionReadLock();
+        try {
+            lock.writeLock();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        lock.intentionReadUnlock();
+        Assert.assertEquals(0, lock.getReadWriteLock().getReadLockCount());
+    }
+
+    @Test
+    public void testNoStarvation() throws InterruptedException {
+        lock.intentionWriteLock();
+        Thread reader = lockInOtherThread(S);
+        Assert.assertFalse(isFinished(reader));
+        // the waiting reader gets the turn before the new intention writer
+        Thread writer = lockInOtherThread(IX);
+        Assert.assertFalse(isFinished(writer));
+        lock.intentionWriteUnlock();
+        reader.join();
+        writer.join();
+        Assert.assertEquals(0, lock.getReadWriteLock().getReadLockCount());
+    }
+}
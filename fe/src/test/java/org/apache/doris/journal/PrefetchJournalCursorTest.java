@@ -0,0 +1,146 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.journal;
+
+import org.apache.doris.persist.OperationType;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PrefetchJournalCursorTest {
+
+    // a cursor over the given op codes, which records how many journals have been read
+    private static class ListCursor implements JournalCursor {
+        private final List<Short> opCodes;
+        private final AtomicInteger readNum = new AtomicInteger(0);
+        private volatile boolean closed = false;
+        private final RuntimeException error;
+
+        public ListCursor(List<Short> opCodes, RuntimeException error) {
+            this.opCodes = opCodes;
+            this.error = error;
+        }
+
+        @Override
+        public JournalEntity next() {
+            int idx = readNum.get();
+            if (idx >= opCodes.size()) {
+                if (error != null) {
+                    throw error;
+                }
+                return null;
+            }
+            JournalEntity entity = new JournalEntity();
+            entity.setOpCode(opCodes.get(idx));
+            readNum.incrementAndGet();
+            return entity;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static void waitFor(AtomicInteger value, int expected) throws InterruptedException {
+        for (int i = 0; i < 100 && value.get() < expected; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testOrder() throws InterruptedException {
+        List<Short> opCodes = Lists.newArrayList();
+        for (short i = 0; i < 100; i++) {
+            opCodes.add(OperationType.OP_TIMESTAMP);
+        }
+        ListCursor underlying = new ListCursor(opCodes, null);
+        PrefetchJournalCursor cursor = new PrefetchJournalCursor(underlying, 10);
+        // read ahead at most 10 journals, and 1 more is blocked in enqueueing
+        waitFor(underlying.readNum, 11);
+        Thread.sleep(50);
+        Assert.assertEquals(11, underlying.readNum.get());
+
+        int num = 0;
+        while (cursor.next() != null) {
+            num++;
+        }
+        Assert.assertEquals(100, num);
+        Assert.assertNull(cursor.next());
+        cursor.close();
+        Assert.assertTrue(underlying.closed);
+    }
+
+    @Test
+    public void testMetaVersionBarrier() throws InterruptedException {
+        List<Short> opCodes = Lists.newArrayList(OperationType.OP_TIMESTAMP, OperationType.OP_META_VERSION,
+                OperationType.OP_TIMESTAMP, OperationType.OP_TIMESTAMP);
+        ListCursor underlying = new ListCursor(opCodes, null);
+        PrefetchJournalCursor cursor = new PrefetchJournalCursor(underlying, 10);
+        waitFor(underlying.readNum, 2);
+        Thread.sleep(50);
+        // stop reading ahead after the meta version journal
+        Assert.assertEquals(2, underlying.readNum.get());
+        Assert.assertEquals(OperationType.OP_TIMESTAMP, cursor.next().getOpCode());
+        Assert.assertEquals(OperationType.OP_META_VERSION, cursor.next().getOpCode());
+        Thread.sleep(50);
+        Assert.assertEquals(2, underlying.readNum.get());
+        // the meta version journal is applied
+        Assert.assertEquals(OperationType.OP_TIMESTAMP, cursor.next().getOpCode());
+        Assert.assertEquals(OperationType.OP_TIMESTAMP, cursor.next().getOpCode());
+        Assert.assertNull(cursor.next());
+        cursor.close();
+    }
+
+    @Test
+    public void testError() {
+        List<Short> opCodes = Lists.newArrayList(OperationType.OP_TIMESTAMP);
+        ListCursor underlying = new ListCursor(opCodes, new IllegalStateException("read failed"));
+        PrefetchJournalCursor cursor = new PrefetchJournalCursor(underlying, 10);
+        Assert.assertNotNull(cursor.next());
+        try {
+            cursor.next();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("read failed", e.getMessage());
+        }
+        cursor.close();
+    }
+
+    @Test
+    public void testCloseEarly() throws InterruptedException {
+        List<Short> opCodes = Lists.newArrayList();
+        for (short i = 0; i < 100; i++) {
+            opCodes.add(OperationType.OP_TIMESTAMP);
+        }
+        ListCursor underlying = new ListCursor(opCodes, null);
+        PrefetchJournalCursor cursor = new PrefetchJournalCursor(underlying, 10);
+        Assert.assertNotNull(cursor.next());
+        cursor.close();
+        for (int i = 0; i < 100 && !underlying.closed; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(underlying.closed);
+        Assert.assertTrue(underlying.readNum.get() < 100);
+    }
+}
@@ -0,0 +1,187 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.master;
+
+import org.apache.doris.common.Config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+public class MetaHelperTest {
+    private static final int FILE_SIZE = 100 * 1024 + 17;
+
+    private File dir;
+    private byte[] content;
+    private String etag = "\"image-1\"";
+    private HttpServer server;
+    private String url;
+    private long oldChunkSize;
+
+    // the server breaks the connection after sending half of the n-th range response
+    private AtomicInteger breakAtRequest = new AtomicInteger(-1);
+    private AtomicInteger rangeRequestNum = new AtomicInteger(0);
+    private boolean supportRange = true;
+
+    // serve 'content' like MetaBaseAction.writeFileResponse()
+    private class FileHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            exchange.getResponseHeaders().add(MetaHelper.X_IMAGE_SIZE, String.valueOf(content.length));
+            if (supportRange) {
+                exchange.getResponseHeaders().add("ETag", etag);
+            }
+            if (!supportRange || range == null || (ifRange != null && !ifRange.equals(etag))) {
+                exchange.sendResponseHeaders(200, content.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(content);
+                out.close();
+                return;
+            }
+
+            String[] startAndEnd = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(startAndEnd[0]);
+            int end = Math.min(Integer.parseInt(startAndEnd[1]), content.length - 1);
+            if (start > end) {
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(content, start, end - start + 1);
+            exchange.getResponseHeaders().add(MetaHelper.X_IMAGE_CHECKSUM, String.valueOf(crc.getValue()));
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            exchange.sendResponseHeaders(206, end - start + 1);
+            OutputStream out = exchange.getResponseBody();
+            if (rangeRequestNum.getAndIncrement() == breakAtRequest.get()) {
+                out.write(content, start, (end - start + 1) / 2);
+                out.flush();
+                exchange.close();
+                return;
+            }
+            out.write(content, start, end - start + 1);
+            out.close();
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("metaHelperTest").toFile();
+        content = new byte[FILE_SIZE];
+        new Random(0).nextBytes(content);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/image", new FileHandler());
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/image?version=1";
+        oldChunkSize = Config.image_download_chunk_size_bytes;
+        Config.image_download_chunk_size_bytes = 16 * 1024;
+    }
+
+    @After
+    public void tearDown() {
+        Config.image_download_chunk_size_bytes = oldChunkSize;
+        server.stop(0);
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    private void checkDownloaded() throws IOException {
+        File file = new File(dir, "image.1");
+        Assert.assertTrue(Arrays.equals(content, Files.readAllBytes(file.toPath())));
+        // only the image is left
+        Assert.assertEquals(1, dir.listFiles().length);
+    }
+
+    @Test
+    public void testDownloadByChunks() throws IOException {
+        Assert.assertEquals(FILE_SIZE, MetaHelper.downloadFile(url, 1000, "image.1", dir));
+        checkDownloaded();
+        Assert.assertEquals(7, rangeRequestNum.get());
+    }
+
+    @Test
+    public void testRetryBrokenChunk() throws IOException {
+        breakAtRequest.set(2);
+        Assert.assertEquals(FILE_SIZE, MetaHelper.downloadFile(url, 1000, "image.1", dir));
+        checkDownloaded();
+        // the broken chunk is downloaded again
+        Assert.assertEquals(8, rangeRequestNum.get());
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        // a part downloaded before
+        int downloaded = 40000;
+        RandomAccessFile raf = new RandomAccessFile(new File(dir, "image.1.part"), "rw");
+        raf.write(content, 0, downloaded);
+        raf.close();
+        Files.write(new File(dir, "image.1" + MetaHelper.ETAG_SUFFIX + ".part").toPath(), etag.getBytes("UTF-8"));
+
+        Assert.assertEquals(FILE_SIZE - downloaded, MetaHelper.downloadFile(url, 1000, "image.1", dir));
+        checkDownloaded();
+        Assert.assertEquals(4, rangeRequestNum.get());
+    }
+
+    @Test
+    public void testResumeChangedFile() throws IOException {
+        // the part was downloaded from a different file
+        RandomAccessFile raf = new RandomAccessFile(new File(dir, "image.1.part"), "rw");
+        raf.write(new byte[40000]);
+        raf.close();
+        Files.write(new File(dir, "image.1" + MetaHelper.ETAG_SUFFIX + ".part").toPath(), "\"old\"".getBytes("UTF-8"));
+
+        Assert.assertEquals(FILE_SIZE, MetaHelper.downloadFile(url, 1000, "image.1", dir));
+        checkDownloaded();
+    }
+
+    @Test
+    public void testRangeNotSupported() throws IOException {
+        supportRange = false;
+        Assert.assertEquals(FILE_SIZE, MetaHelper.downloadFile(url, 1000, "image.1", dir));
+        checkDownloaded();
+    }
+
+    @Test
+    public void testChecksum() throws IOException {
+        File file = new File(dir, "file");
+        Files.write(file.toPath(), content);
+        CRC32 crc = new CRC32();
+        crc.update(content, 1000, 50000);
+        Assert.assertEquals(crc.getValue(), MetaHelper.checksum(file, 1000, 50000));
+    }
+}
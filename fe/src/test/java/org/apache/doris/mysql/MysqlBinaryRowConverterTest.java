@@ -0,0 +1,117 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.mysql;
+
+import org.apache.doris.catalog.PrimitiveType;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class MysqlBinaryRowConverterTest {
+
+    private static ByteBuffer textRow(String... values) {
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        for (String value : values) {
+            if (value == null) {
+                serializer.writeNull();
+            } else {
+                serializer.writeLenEncodedString(value);
+            }
+        }
+        return serializer.toByteBuffer();
+    }
+
+    @Test
+    public void testNumber() {
+        MysqlBinaryRowConverter converter = new MysqlBinaryRowConverter(Lists.newArrayList(
+                PrimitiveType.BOOLEAN, PrimitiveType.SMALLINT, PrimitiveType.INT, PrimitiveType.BIGINT,
+                PrimitiveType.FLOAT, PrimitiveType.DOUBLE, PrimitiveType.DECIMAL));
+        ByteBuffer row = converter.convert(textRow("1", "-2", "100000", "-9000000000", "1.5", "-inf", "12.345"));
+
+        // header and null bitmap of 7 columns
+        Assert.assertEquals(0x00, MysqlProto.readInt1(row));
+        Assert.assertEquals(0x00, MysqlProto.readInt2(row));
+        Assert.assertEquals(1, MysqlProto.readInt1(row));
+        Assert.assertEquals(-2, (short) MysqlProto.readInt2(row));
+        Assert.assertEquals(100000, MysqlProto.readInt4(row));
+        Assert.assertEquals(-9000000000L, MysqlProto.readInt8(row));
+        Assert.assertEquals(1.5f, Float.intBitsToFloat(MysqlProto.readInt4(row)), 0);
+        Assert.assertEquals(Double.NEGATIVE_INFINITY, Double.longBitsToDouble(MysqlProto.readInt8(row)), 0);
+        Assert.assertEquals("12.345", new String(MysqlProto.readLenEncodedString(row)));
+        Assert.assertEquals(0, row.remaining());
+    }
+
+    @Test
+    public void testNull() {
+        MysqlBinaryRowConverter converter = new MysqlBinaryRowConverter(Lists.newArrayList(
+                PrimitiveType.INT, PrimitiveType.VARCHAR, PrimitiveType.INT, PrimitiveType.INT,
+                PrimitiveType.INT, PrimitiveType.INT, PrimitiveType.INT));
+        ByteBuffer row = converter.convert(textRow(null, "abc", null, null, null, null, null));
+
+        Assert.assertEquals(0x00, MysqlProto.readInt1(row));
+        // bits are offset by 2
+        Assert.assertEquals(0x04 | 0x10 | 0x20 | 0x40 | 0x80, MysqlProto.readInt1(row));
+        Assert.assertEquals(0x01, MysqlProto.readInt1(row));
+        Assert.assertEquals("abc", new String(MysqlProto.readLenEncodedString(row)));
+        Assert.assertEquals(0, row.remaining());
+    }
+
+    @Test
+    public void testDatetime() {
+        MysqlBinaryRowConverter converter = new MysqlBinaryRowConverter(Lists.newArrayList(
+                PrimitiveType.DATE, PrimitiveType.DATETIME, PrimitiveType.DATETIME, PrimitiveType.DATETIME));
+        ByteBuffer row = converter.convert(textRow("2019-01-02", "2019-01-02 03:04:05", "2019-01-02 00:00:00",
+                                                   "2019-01-02 03:04:05.5"));
+
+        Assert.assertEquals(0x00, MysqlProto.readInt1(row));
+        Assert.assertEquals(0x00, MysqlProto.readInt1(row));
+
+        Assert.assertEquals(4, MysqlProto.readInt1(row));
+        Assert.assertEquals(2019, MysqlProto.readInt2(row));
+        Assert.assertEquals(1, MysqlProto.readInt1(row));
+        Assert.assertEquals(2, MysqlProto.readInt1(row));
+
+        Assert.assertEquals(7, MysqlProto.readInt1(row));
+        Assert.assertEquals(2019, MysqlProto.readInt2(row));
+        Assert.assertEquals(1, MysqlProto.readInt1(row));
+        Assert.assertEquals(2, MysqlProto.readInt1(row));
+        Assert.assertEquals(3, MysqlProto.readInt1(row));
+        Assert.assertEquals(4, MysqlProto.readInt1(row));
+        Assert.assertEquals(5, MysqlProto.readInt1(row));
+
+        // time part is omitted if it is zero
+        Assert.assertEquals(4, MysqlProto.readInt1(row));
+        Assert.assertEquals(2019, MysqlProto.readInt2(row));
+        Assert.assertEquals(1, MysqlProto.readInt1(row));
+        Assert.assertEquals(2, MysqlProto.readInt1(row));
+
+        Assert.assertEquals(11, MysqlProto.readInt1(row));
+        Assert.assertEquals(2019, MysqlProto.readInt2(row));
+        Assert.assertEquals(1, MysqlProto.readInt1(row));
+        Assert.assertEquals(2, MysqlProto.readInt1(row));
+        Assert.assertEquals(3, MysqlProto.readInt1(row));
+        Assert.assertEquals(4, MysqlProto.readInt1(row));
+        Assert.assertEquals(5, MysqlProto.readInt1(row));
+        Assert.assertEquals(500000, MysqlProto.readInt4(row));
+        Assert.assertEquals(0, row.remaining());
+    }
+}
@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 
 public class MysqlChannelTest {
@@ -260,4 +261,177 @@ public class MysqlChannelTest {
         Assert.fail("No Exception throws.");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testNonBlocking() throws IOException, InterruptedException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        SocketChannel client = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+        SocketChannel server = serverChannel.accept();
+        try {
+            MysqlChannel channel1 = new MysqlChannel(server);
+            channel1.setNonBlocking();
+            Assert.assertNull(channel1.readPacketNonBlocking());
+
+            // a packet of 10 bytes, whose header and content arrive separately
+            MysqlSerializer serializer = MysqlSerializer.newInstance();
+            serializer.writeInt3(10);
+            serializer.writeInt1(0);
+            serializer.writeBytes("abcde".getBytes());
+            client.write(serializer.toByteBuffer());
+            Thread.sleep(100);
+            Assert.assertNull(channel1.readPacketNonBlocking());
+
+            client.write(ByteBuffer.wrap("fghij".getBytes()));
+            Thread.sleep(100);
+            ByteBuffer buf = channel1.readPacketNonBlocking();
+            Assert.assertNotNull(buf);
+            Assert.assertEquals(10, buf.remaining());
+            for (int i = 0; i < 10; ++i) {
+                Assert.assertEquals('a' + i, buf.get());
+            }
+
+            // larger than socket buffer, so sending waits for the channel to be writable
+            final int packetLen = 4 * 1024 * 1024;
+            final SocketChannel reader = client;
+            Thread readThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ByteBuffer readBuf = ByteBuffer.allocate(packetLen + 4);
+                    try {
+                        while (readBuf.hasRemaining()) {
+                            if (reader.read(readBuf) < 0) {
+                                break;
+                            }
+                        }
+                    } catch (IOException e) {
+                        // checked by the length of read
+                    }
+                    readIdx = readBuf.position();
+                }
+            });
+            readThread.start();
+            channel1.sendAndFlush(ByteBuffer.allocate(packetLen));
+            readThread.join();
+            Assert.assertEquals(packetLen + 4, readIdx);
+        } finally {
+            client.close();
+            server.close();
+            serverChannel.close();
+        }
+    }
+
+    @Test
+    public void testSendManyBuffers() throws IOException, InterruptedException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        SocketChannel client = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+        SocketChannel server = serverChannel.accept();
+        try {
+            // more than the send buffers of a channel, so some of them are flushed before flush() is called
+            final int packetNum = 400;
+            final int packetLen = 10000;
+            final SocketChannel reader = client;
+            final ByteBuffer readBuf = ByteBuffer.allocate(packetNum * (packetLen + 4));
+            Thread readThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (readBuf.hasRemaining()) {
+                            if (reader.read(readBuf) < 0) {
+                                break;
+                            }
+                        }
+                    } catch (IOException e) {
+                        // checked by the length of read
+                    }
+                }
+            });
+            readThread.start();
+
+            MysqlChannel channel1 = new MysqlChannel(server);
+            for (int i = 0; i < packetNum; ++i) {
+                ByteBuffer packet = ByteBuffer.allocate(packetLen);
+                while (packet.hasRemaining()) {
+                    packet.put((byte) i);
+                }
+                packet.flip();
+                channel1.sendOnePacket(packet);
+            }
+            channel1.flush();
+            readThread.join();
+
+            Assert.assertFalse(readBuf.hasRemaining());
+            readBuf.flip();
+            for (int i = 0; i < packetNum; ++i) {
+                int len = (readBuf.get() & 0xFF) | ((readBuf.get() & 0xFF) << 8) | ((readBuf.get() & 0xFF) << 16);
+                Assert.assertEquals(packetLen, len);
+                Assert.assertEquals(i & 0xFF, readBuf.get() & 0xFF);
+                for (int j = 0; j < packetLen; ++j) {
+                    Assert.assertEquals((byte) i, readBuf.get());
+                }
+            }
+        } finally {
+            client.close();
+            server.close();
+            serverChannel.close();
+        }
+    }
+
+    @Test
+    public void testNonBlockingSendManyTimes() throws IOException, InterruptedException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        SocketChannel client = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+        SocketChannel server = serverChannel.accept();
+        try {
+            final int packetNum = 20;
+            final int packetLen = 1024 * 1024;
+            final SocketChannel reader = client;
+            final ByteBuffer readBuf = ByteBuffer.allocate(packetNum * (packetLen + 4));
+            Thread readThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        // the sender waits for the channel to be writable many times
+                        ByteBuffer smallBuf = ByteBuffer.allocate(4096);
+                        while (readBuf.hasRemaining()) {
+                            Thread.sleep(1);
+                            smallBuf.clear();
+                            smallBuf.limit(Math.min(smallBuf.capacity(), readBuf.remaining()));
+                            if (reader.read(smallBuf) < 0) {
+                                break;
+                            }
+                            smallBuf.flip();
+                            readBuf.put(smallBuf);
+                        }
+                    } catch (Exception e) {
+                        // checked by the length of read
+                    }
+                }
+            });
+            readThread.start();
+
+            MysqlChannel channel1 = new MysqlChannel(server);
+            channel1.setNonBlocking();
+            for (int i = 0; i < packetNum; ++i) {
+                channel1.setSequenceId(0);
+                channel1.sendAndFlush(ByteBuffer.allocate(packetLen));
+            }
+            readThread.join();
+            Assert.assertFalse(readBuf.hasRemaining());
+
+            // sending fails after the channel is closed by others
+            channel1.close();
+            try {
+                channel1.sendAndFlush(ByteBuffer.allocate(packetLen));
+                Assert.fail("No exception throws.");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            client.close();
+            server.close();
+            serverChannel.close();
+        }
+    }
+}
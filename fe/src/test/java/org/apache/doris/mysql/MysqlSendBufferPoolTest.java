@@ -0,0 +1,77 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.mysql;
+
+import org.apache.doris.common.Config;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public class MysqlSendBufferPoolTest {
+    private int poolSize;
+
+    @Before
+    public void setUp() {
+        poolSize = Config.mysql_send_buffer_pool_size;
+    }
+
+    @After
+    public void tearDown() {
+        Config.mysql_send_buffer_pool_size = poolSize;
+    }
+
+    @Test
+    public void testDirectBufferLimit() {
+        int freeNum = MysqlSendBufferPool.getFreeBufferNum();
+        int directNum = MysqlSendBufferPool.getDirectBufferNum();
+        Config.mysql_send_buffer_pool_size = directNum + 2;
+
+        // the free buffers and 2 new direct buffers, then heap buffers
+        List<ByteBuffer> buffers = Lists.newArrayList();
+        for (int i = 0; i < freeNum + 4; i++) {
+            ByteBuffer buffer = MysqlSendBufferPool.acquire();
+            Assert.assertEquals(MysqlSendBufferPool.BUFFER_SIZE, buffer.remaining());
+            Assert.assertEquals(i < freeNum + 2, buffer.isDirect());
+            buffers.add(buffer);
+        }
+        Assert.assertEquals(0, MysqlSendBufferPool.getFreeBufferNum());
+        Assert.assertEquals(directNum + 2, MysqlSendBufferPool.getDirectBufferNum());
+
+        // all direct buffers are kept for reuse
+        for (ByteBuffer buffer : buffers) {
+            buffer.put((byte) 1);
+            MysqlSendBufferPool.release(buffer);
+        }
+        Assert.assertEquals(freeNum + 2, MysqlSendBufferPool.getFreeBufferNum());
+        Assert.assertEquals(directNum + 2, MysqlSendBufferPool.getDirectBufferNum());
+
+        ByteBuffer buffer = MysqlSendBufferPool.acquire();
+        Assert.assertTrue(buffer.isDirect());
+        Assert.assertEquals(0, buffer.position());
+        Assert.assertEquals(MysqlSendBufferPool.BUFFER_SIZE, buffer.remaining());
+        MysqlSendBufferPool.release(buffer);
+        Assert.assertEquals(freeNum + 2, MysqlSendBufferPool.getFreeBufferNum());
+    }
+}
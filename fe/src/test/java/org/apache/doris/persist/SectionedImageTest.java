@@ -0,0 +1,297 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.persist;
+
+import org.apache.doris.common.io.Text;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+public class SectionedImageTest {
+    private File file = new File("./sectionedImageTest");
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private void writeImage(int bufferSize) throws IOException {
+        writeImage(bufferSize, false);
+    }
+
+    private void writeImage(int bufferSize, boolean compressed) throws IOException {
+        SectionedImageWriter writer = new SectionedImageWriter(file, bufferSize, compressed);
+        try {
+            DataOutputStream dos = writer.beginSection("header");
+            dos.writeInt(45);
+            dos.writeLong(1000L);
+            writer.endSection();
+
+            for (int i = 0; i < 10; i++) {
+                dos = writer.beginSection("db." + i);
+                Text.writeString(dos, "db_" + i);
+                for (int j = 0; j < 1000; j++) {
+                    dos.writeLong(i * 1000L + j);
+                }
+                writer.endSection();
+            }
+
+            // empty section
+            writer.beginSection("empty");
+            writer.endSection();
+            writer.finish();
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        writeImage(16);
+        checkImage(false);
+    }
+
+    @Test
+    public void testCompressedReadWrite() throws IOException {
+        writeImage(16, true);
+        checkImage(true);
+    }
+
+    private void checkImage(boolean compressed) throws IOException {
+        Assert.assertTrue(SectionedImageReader.isSectionedImage(file));
+        Assert.assertFalse(ImageCompression.isCompressedLegacyImage(file));
+
+        SectionedImageReader reader = new SectionedImageReader(file, 64);
+        try {
+            Assert.assertEquals(compressed, reader.isCompressed());
+            Assert.assertEquals(12, reader.getSections().size());
+            Assert.assertEquals(12, reader.getSection("header").rawLength);
+            Assert.assertEquals("header", reader.getSections().get(0).name);
+            Assert.assertTrue(reader.hasSection("empty"));
+            Assert.assertFalse(reader.hasSection("db.10"));
+
+            // read sections in a different order from writing
+            for (int i = 9; i >= 0; i--) {
+                DataInputStream dis = reader.openSection("db." + i);
+                Assert.assertEquals("db_" + i, Text.readString(dis));
+                for (int j = 0; j < 1000; j++) {
+                    Assert.assertEquals(i * 1000L + j, dis.readLong());
+                }
+                dis.close();
+            }
+
+            DataInputStream dis = reader.openSection("header");
+            Assert.assertEquals(45, dis.readInt());
+            Assert.assertEquals(1000L, dis.readLong());
+            dis.close();
+
+            reader.openSection("empty").close();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotFullyRead() throws IOException {
+        writeImage(1024);
+        SectionedImageReader reader = new SectionedImageReader(file, 1024);
+        try {
+            DataInputStream dis = reader.openSection("header");
+            dis.readInt();
+            dis.close();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testCorruptedSection() throws IOException {
+        writeImage(1024);
+        long offset;
+        SectionedImageReader reader = new SectionedImageReader(file, 1024);
+        try {
+            offset = reader.getSections().get(3).offset;
+        } finally {
+            reader.close();
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(offset + 100);
+            int b = raf.read();
+            raf.seek(offset + 100);
+            raf.write(b ^ 0xff);
+        } finally {
+            raf.close();
+        }
+
+        reader = new SectionedImageReader(file, 1024);
+        try {
+            // other sections are not affected
+            DataInputStream dis = reader.openSection("db.1");
+            Text.readString(dis);
+            for (int j = 0; j < 1000; j++) {
+                dis.readLong();
+            }
+            dis.close();
+
+            dis = reader.openSection("db.2");
+            Text.readString(dis);
+            for (int j = 0; j < 1000; j++) {
+                dis.readLong();
+            }
+            try {
+                dis.close();
+                Assert.fail("checksum mismatch should be detected");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().contains("checksum mismatch"));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testCopySection() throws IOException {
+        writeImage(1024);
+        File newFile = new File("./sectionedImageTest.new");
+        try {
+            SectionedImageReader reader = new SectionedImageReader(file, 1024);
+            SectionedImageWriter writer = new SectionedImageWriter(newFile, 1024);
+            try {
+                DataOutputStream dos = writer.beginSection("header");
+                dos.writeInt(46);
+                writer.endSection();
+                writer.copySection(reader, "db.3");
+                writer.copySection(reader, "empty");
+                writer.finish();
+            } finally {
+                writer.close();
+                reader.close();
+            }
+
+            reader = new SectionedImageReader(newFile, 1024);
+            try {
+                Assert.assertEquals(3, reader.getSections().size());
+                DataInputStream dis = reader.openSection("header");
+                Assert.assertEquals(46, dis.readInt());
+                dis.close();
+
+                dis = reader.openSection("db.3");
+                Assert.assertEquals("db_3", Text.readString(dis));
+                for (int j = 0; j < 1000; j++) {
+                    Assert.assertEquals(3000L + j, dis.readLong());
+                }
+                dis.close();
+            } finally {
+                reader.close();
+            }
+        } finally {
+            newFile.delete();
+        }
+    }
+
+    @Test
+    public void testCopyCompressedSection() throws IOException {
+        // compressed to compressed, and compressed to uncompressed
+        for (boolean compressed : new boolean[] { true, false }) {
+            writeImage(1024, true);
+            File newFile = new File("./sectionedImageTest.new");
+            try {
+                SectionedImageReader reader = new SectionedImageReader(file, 1024);
+                SectionedImageWriter writer = new SectionedImageWriter(newFile, 1024, compressed);
+                try {
+                    writer.copySection(reader, "db.3");
+                    writer.copySection(reader, "empty");
+                    writer.finish();
+                    if (compressed) {
+                        Assert.assertEquals(reader.getSection("db.3").length, writer.getSections().get(0).length);
+                        Assert.assertEquals(reader.getSection("db.3").crc, writer.getSections().get(0).crc);
+                    }
+                    Assert.assertEquals(reader.getSection("db.3").rawLength, writer.getRawLength());
+                } finally {
+                    writer.close();
+                    reader.close();
+                }
+
+                reader = new SectionedImageReader(newFile, 1024);
+                try {
+                    Assert.assertEquals(compressed, reader.isCompressed());
+                    DataInputStream dis = reader.openSection("db.3");
+                    Assert.assertEquals("db_3", Text.readString(dis));
+                    for (int j = 0; j < 1000; j++) {
+                        Assert.assertEquals(3000L + j, dis.readLong());
+                    }
+                    dis.close();
+                    reader.openSection("empty").close();
+                } finally {
+                    reader.close();
+                }
+            } finally {
+                newFile.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testCompressedLegacyImage() throws IOException {
+        DataOutputStream dos = new DataOutputStream(ImageCompression.compress(new FileOutputStream(file)));
+        dos.writeInt(45);
+        for (int i = 0; i < 10000; i++) {
+            dos.writeLong(i);
+        }
+        dos.close();
+        Assert.assertFalse(SectionedImageReader.isSectionedImage(file));
+        Assert.assertTrue(ImageCompression.isCompressedLegacyImage(file));
+        Assert.assertTrue(file.length() < 4 + 10000 * 8);
+
+        InputStream in = ImageCompression.decompress(new FileInputStream(file));
+        DataInputStream dis = new DataInputStream(in);
+        try {
+            Assert.assertEquals(45, dis.readInt());
+            for (int i = 0; i < 10000; i++) {
+                Assert.assertEquals(i, dis.readLong());
+            }
+            Assert.assertEquals(-1, dis.read());
+        } finally {
+            dis.close();
+        }
+    }
+
+    @Test
+    public void testLegacyImage() throws IOException {
+        DataOutputStream dos = new DataOutputStream(new FileOutputStream(file));
+        dos.writeInt(45);
+        for (int i = 0; i < 10; i++) {
+            dos.writeLong(i);
+        }
+        dos.close();
+        Assert.assertFalse(SectionedImageReader.isSectionedImage(file));
+        Assert.assertFalse(ImageCompression.isCompressedLegacyImage(file));
+    }
+}
@@ -0,0 +1,302 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.planner;
+
+import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.JoinOperator;
+import org.apache.doris.analysis.SlotDescriptor;
+import org.apache.doris.analysis.SlotRef;
+import org.apache.doris.analysis.TableName;
+import org.apache.doris.analysis.TableRef;
+import org.apache.doris.analysis.TupleDescriptor;
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.ColocateTableIndex;
+import org.apache.doris.catalog.Column;
+import org.apache.doris.catalog.HashDistributionInfo;
+import org.apache.doris.catalog.KeysType;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.PrimitiveType;
+import org.apache.doris.catalog.SinglePartitionInfo;
+import org.apache.doris.common.Config;
+import org.apache.doris.common.Pair;
+import org.apache.doris.persist.ColocatePersistInfo;
+import org.apache.doris.thrift.TNetworkAddress;
+import org.apache.doris.thrift.TPartitionType;
+import org.apache.doris.thrift.TQueryOptions;
+import org.apache.doris.thrift.TScanRange;
+import org.apache.doris.thrift.TScanRangeLocation;
+import org.apache.doris.thrift.TScanRangeLocations;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Set;
+
+import mockit.NonStrictExpectations;
+import mockit.internal.startup.Startup;
+
+public class DistributedPlannerTest {
+    private static final int BUCKET_NUM = 3;
+    private static final String GROUP = ColocateTableIndex.getFullGroupName(1L, "group1");
+
+    static {
+        Startup.initializeIfPossible();
+    }
+
+    private boolean disableColocateJoin;
+    private boolean enableBucketShuffleJoin;
+    private Analyzer analyzer;
+    private PlannerContext ctx;
+    private ColocateTableIndex colocateIndex;
+    // t1 and t2 are in the colocation group, and t3 is not. all of them are distributed by k1.
+    private OlapTable t1;
+    private OlapTable t2;
+    private OlapTable t3;
+
+    @Before
+    public void setUp() {
+        disableColocateJoin = Config.disable_colocate_join;
+        enableBucketShuffleJoin = Config.enable_bucket_shuffle_join;
+        analyzer = new Analyzer(null, null);
+        ctx = new PlannerContext(analyzer, null, new TQueryOptions(), null);
+
+        t1 = createTable(10L, "t1", PrimitiveType.BIGINT);
+        t2 = createTable(11L, "t2", PrimitiveType.BIGINT);
+        t3 = createTable(12L, "t3", PrimitiveType.INT);
+        colocateIndex = new ColocateTableIndex();
+        colocateIndex.addTableToGroup(1L, t1.getId(), GROUP, createBackendsPerBucketSeq());
+        colocateIndex.addTableToGroup(1L, t2.getId(), GROUP, null);
+
+        new NonStrictExpectations(Catalog.class) {
+            {
+                Catalog.getCurrentColocateIndex();
+                minTimes = 0;
+                result = colocateIndex;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        Config.disable_colocate_join = disableColocateJoin;
+        Config.enable_bucket_shuffle_join = enableBucketShuffleJoin;
+    }
+
+    private static OlapTable createTable(long id, String name, PrimitiveType k1Type) {
+        Column k1 = new Column("k1", k1Type);
+        Column k2 = new Column("k2", PrimitiveType.BIGINT);
+        return new OlapTable(id, name, Lists.newArrayList(k1, k2), KeysType.DUP_KEYS, new SinglePartitionInfo(),
+                             new HashDistributionInfo(BUCKET_NUM, Lists.newArrayList(k1)));
+    }
+
+    // bucket seq i is on backend i and i + 1
+    private static List<List<Long>> createBackendsPerBucketSeq() {
+        List<List<Long>> backendsPerBucketSeq = Lists.newArrayList();
+        for (long i = 0; i < BUCKET_NUM; i++) {
+            backendsPerBucketSeq.add(Lists.newArrayList(i, i + 1));
+        }
+        return backendsPerBucketSeq;
+    }
+
+    private static Object getField(Object object, String fieldName) throws Exception {
+        Field field = object.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    // Create the scan of the table with the scan ranges of all its buckets, on the backends of the bucket seqs.
+    private OlapScanNode createScanNode(OlapTable table) throws Exception {
+        TupleDescriptor tuple = analyzer.getDescTbl().createTupleDescriptor();
+        tuple.setTable(table);
+        for (Column column : table.getBaseSchema()) {
+            SlotDescriptor slot = analyzer.getDescTbl().addSlotDescriptor(tuple);
+            slot.setColumn(column);
+            slot.setIsMaterialized(true);
+        }
+        OlapScanNode scanNode = new OlapScanNode(ctx.getNextNodeId(), tuple, "OlapScanNode");
+
+        List<TScanRangeLocations> result = (List<TScanRangeLocations>) getField(scanNode, "result");
+        Set<Integer> bucketNums = (Set<Integer>) getField(scanNode, "bucketNums");
+        bucketNums.add(BUCKET_NUM);
+        List<List<Long>> backendsPerBucketSeq = createBackendsPerBucketSeq();
+        for (int bucketSeq = 0; bucketSeq < BUCKET_NUM; bucketSeq++) {
+            TScanRangeLocations locations = new TScanRangeLocations();
+            for (long backendId : backendsPerBucketSeq.get(bucketSeq)) {
+                locations.addToLocations(new TScanRangeLocation(new TNetworkAddress("host" + backendId, 9060))
+                        .setBackend_id(backendId));
+            }
+            locations.setScan_range(new TScanRange());
+            result.add(locations);
+            scanNode.getBucketSeqToLocations().put(bucketSeq, locations);
+        }
+        return scanNode;
+    }
+
+    private SlotRef createSlotRef(OlapScanNode scanNode, String columnName) {
+        TupleDescriptor tuple = analyzer.getTupleDesc(scanNode.getTupleIds().get(0));
+        for (SlotDescriptor slot : tuple.getSlots()) {
+            if (slot.getColumn().getName().equals(columnName)) {
+                return new SlotRef(slot);
+            }
+        }
+        return null;
+    }
+
+    // Join the column of the leftmost scan of the left side with the column of the right side.
+    private HashJoinNode createJoin(PlanNode left, OlapScanNode right, String leftColumn, String rightColumn) {
+        PlanNode leftScanNode = left;
+        while (!(leftScanNode instanceof OlapScanNode)) {
+            leftScanNode = leftScanNode.getChild(0);
+        }
+        TableRef innerRef = new TableRef(new TableName("db", right.getOlapTable().getName()), null);
+        innerRef.setJoinOp(JoinOperator.INNER_JOIN);
+        List<Pair<Expr, Expr>> eqJoinConjuncts = Lists.newArrayList();
+        eqJoinConjuncts.add(new Pair<Expr, Expr>(createSlotRef((OlapScanNode) leftScanNode, leftColumn),
+                                                 createSlotRef(right, rightColumn)));
+        return new HashJoinNode(ctx.getNextNodeId(), left, right, innerRef, eqJoinConjuncts,
+                                Lists.<Expr>newArrayList());
+    }
+
+    private List<PlanFragment> createPlanFragments(PlanNode root) throws Exception {
+        return new DistributedPlanner(ctx).createPlanFragments(root);
+    }
+
+    @Test
+    public void testColocateJoin() throws Exception {
+        OlapScanNode left = createScanNode(t1);
+        OlapScanNode right = createScanNode(t2);
+        HashJoinNode join = createJoin(left, right, "k1", "k1");
+        List<PlanFragment> fragments = createPlanFragments(join);
+
+        // the join and both scans are in one fragment, whose output is merged by the root fragment
+        Assert.assertEquals(HashJoinNode.DistributionMode.COLOCATE, join.getDistributionMode());
+        Assert.assertTrue(join.isBucketJoin());
+        Assert.assertEquals(2, fragments.size());
+        PlanFragment joinFragment = fragments.get(0);
+        Assert.assertSame(join, joinFragment.getPlanRoot());
+        Assert.assertEquals(TPartitionType.RANDOM, joinFragment.getDataPartition().getType());
+        Assert.assertSame(left, join.getChild(0));
+        Assert.assertSame(right, join.getChild(1));
+        Assert.assertSame(joinFragment, right.getFragment());
+        Assert.assertTrue(fragments.get(1).getPlanRoot() instanceof ExchangeNode);
+        Assert.assertEquals(TPartitionType.UNPARTITIONED, fragments.get(1).getDataPartition().getType());
+    }
+
+    @Test
+    public void testColocateJoinAfterBucketShuffleJoin() throws Exception {
+        // (t1 join t3 on t1.k1 = t3.k2) join t2 on t1.k1 = t2.k1
+        OlapScanNode t1Scan = createScanNode(t1);
+        OlapScanNode t3Scan = createScanNode(t3);
+        HashJoinNode bucketShuffleJoin = createJoin(t1Scan, t3Scan, "k1", "k2");
+        OlapScanNode t2Scan = createScanNode(t2);
+        HashJoinNode colocateJoin = createJoin(bucketShuffleJoin, t2Scan, "k1", "k1");
+        List<PlanFragment> fragments = createPlanFragments(colocateJoin);
+
+        // the scan of t1 is the leftmost one of the fragment, so t2 is still joined locally
+        Assert.assertEquals(HashJoinNode.DistributionMode.BUCKET_SHUFFLE, bucketShuffleJoin.getDistributionMode());
+        Assert.assertEquals(HashJoinNode.DistributionMode.COLOCATE, colocateJoin.getDistributionMode());
+        Assert.assertEquals(3, fragments.size());
+        Assert.assertSame(t3Scan, fragments.get(0).getPlanRoot());
+        Assert.assertSame(colocateJoin, fragments.get(1).getPlanRoot());
+        Assert.assertSame(t2Scan, colocateJoin.getChild(1));
+        Assert.assertSame(fragments.get(1), t1Scan.getFragment());
+    }
+
+    @Test
+    public void testNoColocateJoin() throws Exception {
+        // not on the distribution columns, t1.k1 is not joined, so it is not a bucket shuffle join either
+        HashJoinNode join = createJoin(createScanNode(t1), createScanNode(t2), "k2", "k2");
+        Assert.assertEquals(3, createPlanFragments(join).size());
+        Assert.assertEquals(HashJoinNode.DistributionMode.BROADCAST, join.getDistributionMode());
+
+        // not in the same group
+        join = createJoin(createScanNode(t1), createScanNode(t3), "k1", "k2");
+        createPlanFragments(join);
+        Assert.assertEquals(HashJoinNode.DistributionMode.BUCKET_SHUFFLE, join.getDistributionMode());
+
+        // the group is unstable
+        colocateIndex.updateGroup(new ColocatePersistInfo(GROUP, createBackendsPerBucketSeq(), false));
+        join = createJoin(createScanNode(t1), createScanNode(t2), "k1", "k1");
+        createPlanFragments(join);
+        Assert.assertEquals(HashJoinNode.DistributionMode.BUCKET_SHUFFLE, join.getDistributionMode());
+        colocateIndex.updateGroup(new ColocatePersistInfo(GROUP, createBackendsPerBucketSeq(), true));
+
+        // disabled
+        Config.disable_colocate_join = true;
+        join = createJoin(createScanNode(t1), createScanNode(t2), "k1", "k1");
+        createPlanFragments(join);
+        Assert.assertEquals(HashJoinNode.DistributionMode.BUCKET_SHUFFLE, join.getDistributionMode());
+    }
+
+    @Test
+    public void testBucketShuffleJoin() throws Exception {
+        OlapScanNode left = createScanNode(t1);
+        OlapScanNode right = createScanNode(t3);
+        HashJoinNode join = createJoin(left, right, "k1", "k2");
+        List<PlanFragment> fragments = createPlanFragments(join);
+
+        // the right side is sent to the instances scanning the buckets of the left side
+        Assert.assertEquals(HashJoinNode.DistributionMode.BUCKET_SHUFFLE, join.getDistributionMode());
+        Assert.assertTrue(join.isBucketJoin());
+        Assert.assertEquals(3, fragments.size());
+        PlanFragment rightFragment = fragments.get(0);
+        PlanFragment joinFragment = fragments.get(1);
+        Assert.assertSame(right, rightFragment.getPlanRoot());
+        Assert.assertSame(join, joinFragment.getPlanRoot());
+        Assert.assertEquals(TPartitionType.RANDOM, joinFragment.getDataPartition().getType());
+        Assert.assertSame(left, join.getChild(0));
+        Assert.assertTrue(join.getChild(1) instanceof ExchangeNode);
+        Assert.assertSame(joinFragment, rightFragment.getDestFragment());
+
+        DataPartition outputPartition = rightFragment.getOutputPartition();
+        Assert.assertEquals(TPartitionType.BUCKET_SHUFFLE_HASH_PARTITIONED, outputPartition.getType());
+        Assert.assertEquals(1, outputPartition.getPartitionExprs().size());
+        SlotRef partitionExpr = (SlotRef) outputPartition.getPartitionExprs().get(0);
+        Assert.assertEquals("k2", partitionExpr.getDesc().getColumn().getName());
+        Assert.assertEquals(right.getTupleIds().get(0), partitionExpr.getDesc().getParent().getId());
+    }
+
+    @Test
+    public void testNoBucketShuffleJoin() throws Exception {
+        // t3.k1 is INT, so the rows are not hashed to the buckets of the BIGINT t1.k1
+        HashJoinNode join = createJoin(createScanNode(t1), createScanNode(t3), "k1", "k1");
+        createPlanFragments(join);
+        Assert.assertEquals(HashJoinNode.DistributionMode.BROADCAST, join.getDistributionMode());
+
+        // the left side is not an olap scan
+        join = createJoin(createScanNode(t1), createScanNode(t3), "k1", "k2");
+        join.setLimit(10);
+        HashJoinNode parentJoin = createJoin(join, createScanNode(t2), "k1", "k1");
+        createPlanFragments(parentJoin);
+        Assert.assertEquals(HashJoinNode.DistributionMode.BROADCAST, parentJoin.getDistributionMode());
+
+        // disabled
+        Config.enable_bucket_shuffle_join = false;
+        join = createJoin(createScanNode(t1), createScanNode(t3), "k1", "k2");
+        createPlanFragments(join);
+        Assert.assertEquals(HashJoinNode.DistributionMode.BROADCAST, join.getDistributionMode());
+        Assert.assertFalse(join.isBucketJoin());
+    }
+}
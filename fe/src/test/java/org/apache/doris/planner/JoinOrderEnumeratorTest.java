@@ -0,0 +1,139 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.planner;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class JoinOrderEnumeratorTest {
+
+    private static double[][] createSelectivities(int num) {
+        double[][] selectivities = new double[num][num];
+        for (int i = 0; i < num; i++) {
+            for (int j = 0; j < num; j++) {
+                selectivities[i][j] = 1.0;
+            }
+        }
+        return selectivities;
+    }
+
+    private static void join(double[][] selectivities, int i, int j, double ndv) {
+        selectivities[i][j] = 1.0 / ndv;
+        selectivities[j][i] = 1.0 / ndv;
+    }
+
+    // every relation after the first one is joined with some relation before it
+    private static void assertNoCrossJoin(List<Integer> order, double[][] selectivities) {
+        for (int i = 1; i < order.size(); i++) {
+            boolean isJoined = false;
+            for (int j = 0; j < i; j++) {
+                isJoined |= selectivities[order.get(j)][order.get(i)] < 1.0;
+            }
+            Assert.assertTrue("cross join in " + order, isJoined);
+        }
+    }
+
+    @Test
+    public void testStarJoin() {
+        // dim1, dim2, fact
+        double[] rows = {1000, 100, 1000000000};
+        double[][] selectivities = createSelectivities(3);
+        join(selectivities, 0, 2, 1000);
+        join(selectivities, 1, 2, 100);
+
+        List<Integer> order = JoinOrderEnumerator.findCheapestOrder(rows, selectivities);
+        Assert.assertEquals(3, order.size());
+        // hash tables are built on dimension tables
+        Assert.assertEquals(2, (int) order.get(0));
+        assertNoCrossJoin(order, selectivities);
+    }
+
+    @Test
+    public void testChainJoin() {
+        // a join b join c join d, written in reverse order
+        double[] rows = {10, 1000, 100000, 10000000};
+        double[][] selectivities = createSelectivities(4);
+        join(selectivities, 3, 2, 100000);
+        join(selectivities, 2, 1, 1000);
+        join(selectivities, 1, 0, 10);
+
+        List<Integer> order = JoinOrderEnumerator.findCheapestOrder(rows, selectivities);
+        Assert.assertEquals(4, order.size());
+        Assert.assertEquals(3, (int) order.get(0));
+        assertNoCrossJoin(order, selectivities);
+    }
+
+    @Test
+    public void testGreedy() {
+        int num = JoinOrderEnumerator.MAX_DP_RELATIONS + 2;
+        double[] rows = new double[num];
+        double[][] selectivities = createSelectivities(num);
+        for (int i = 0; i < num - 1; i++) {
+            rows[i] = 100 * (i + 1);
+            join(selectivities, i, num - 1, rows[i]);
+        }
+        rows[num - 1] = 1000000000;
+
+        List<Integer> order = JoinOrderEnumerator.findCheapestOrder(rows, selectivities);
+        Assert.assertEquals(num, order.size());
+        Assert.assertEquals(num - 1, (int) order.get(0));
+        assertNoCrossJoin(order, selectivities);
+    }
+
+    @Test
+    public void testGreedyChainJoin() {
+        // r0 join r1 join ... join r11, the relations of similar sizes are not adjacent in the chain
+        int num = JoinOrderEnumerator.MAX_DP_RELATIONS + 2;
+        double[] rows = new double[num];
+        double[][] selectivities = createSelectivities(num);
+        for (int i = 0; i < num; i++) {
+            rows[i] = 1000 * (i * 5 % num + 1);
+        }
+        for (int i = 0; i < num - 1; i++) {
+            join(selectivities, i, i + 1, rows[i + 1]);
+        }
+
+        List<Integer> order = JoinOrderEnumerator.findCheapestOrder(rows, selectivities);
+        Assert.assertEquals(num, order.size());
+        assertNoCrossJoin(order, selectivities);
+    }
+
+    @Test
+    public void testGreedySelectivity() {
+        // a fact table joins dimension tables, the last one of which is filtered to 10 of its 1000 rows
+        int num = JoinOrderEnumerator.MAX_DP_RELATIONS + 2;
+        double[] rows = new double[num];
+        double[][] selectivities = createSelectivities(num);
+        rows[0] = 1000000000;
+        for (int i = 1; i < num - 1; i++) {
+            rows[i] = 5;
+            join(selectivities, 0, i, rows[i]);
+        }
+        rows[num - 1] = 10;
+        join(selectivities, 0, num - 1, 1000);
+
+        List<Integer> order = JoinOrderEnumerator.findCheapestOrder(rows, selectivities);
+        Assert.assertEquals(num, order.size());
+        Assert.assertEquals(0, (int) order.get(0));
+        // the filtering join first, though its build side is larger
+        Assert.assertEquals(num - 1, (int) order.get(1));
+        assertNoCrossJoin(order, selectivities);
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.doris.planner;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -30,12 +31,22 @@ import org.apache.doris.analysis.InPredicate;
 import org.apache.doris.analysis.IntLiteral;
 import org.apache.doris.analysis.SlotRef;
 import org.apache.doris.analysis.TableName;
+import org.apache.doris.analysis.TupleDescriptor;
+import org.apache.doris.analysis.TupleId;
 import org.apache.doris.catalog.Column;
+import org.apache.doris.catalog.HashDistributionInfo;
+import org.apache.doris.catalog.KeysType;
+import org.apache.doris.catalog.OlapTable;
 import org.apache.doris.catalog.PartitionKey;
 import org.apache.doris.catalog.PrimitiveType;
+import org.apache.doris.catalog.RangePartitionInfo;
 import org.apache.doris.common.AnalysisException;
+import org.apache.doris.thrift.TKeyRange;
+import org.apache.doris.thrift.TPaloScanRange;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
 
 public class OlapScanNodeTest {    
     // columnA in (1) hashmode=3
@@ -159,4 +170,50 @@ public class OlapScanNodeTest {
             Assert.assertEquals(mod, 2);
         } 
     }
+
+    // p1: [MIN, 10), p2: [10, MAX), partitioned by the INT column k1
+    @Test
+    public void testAddPartitionColumnRanges() throws Exception {
+        Column k1 = new Column("k1", PrimitiveType.INT);
+        Column k2 = new Column("k2", PrimitiveType.BIGINT);
+        List<Column> partitionColumns = Lists.newArrayList(k1);
+        RangePartitionInfo partitionInfo = new RangePartitionInfo(partitionColumns);
+        PartitionKey key10 = PartitionKey.createPartitionKey(Lists.newArrayList("10"), partitionColumns);
+        partitionInfo.setRange(1L, Range.closedOpen(PartitionKey.createInfinityPartitionKey(partitionColumns, false),
+                                                    key10));
+        partitionInfo.setRange(2L, Range.closedOpen(key10,
+                                                    PartitionKey.createInfinityPartitionKey(partitionColumns, true)));
+        OlapTable table = new OlapTable(1L, "tbl", Lists.newArrayList(k1, k2), KeysType.DUP_KEYS, partitionInfo,
+                                        new HashDistributionInfo(3, Lists.newArrayList(k2)));
+        TupleDescriptor tuple = new TupleDescriptor(new TupleId(0));
+        tuple.setTable(table);
+        OlapScanNode scanNode = new OlapScanNode(new PlanNodeId(0), tuple, "OlapScanNode");
+        Field field = OlapScanNode.class.getDeclaredField("partitionToScanRanges");
+        field.setAccessible(true);
+        ArrayListMultimap<Long, TPaloScanRange> partitionToScanRanges =
+                (ArrayListMultimap<Long, TPaloScanRange>) field.get(scanNode);
+        TPaloScanRange p1ScanRange = new TPaloScanRange();
+        TPaloScanRange p2ScanRange = new TPaloScanRange();
+        partitionToScanRanges.put(1L, p1ScanRange);
+        partitionToScanRanges.put(2L, p2ScanRange);
+
+        // not the partition column
+        scanNode.addPartitionColumnRanges(k2);
+        Assert.assertFalse(p1ScanRange.isSetPartition_column_ranges());
+
+        scanNode.addPartitionColumnRanges(k1);
+        Assert.assertEquals(1, p1ScanRange.getPartition_column_ranges().size());
+        TKeyRange p1KeyRange = p1ScanRange.getPartition_column_ranges().get(0);
+        Assert.assertEquals("k1", p1KeyRange.getColumn_name());
+        Assert.assertEquals(Integer.MIN_VALUE, p1KeyRange.getBegin_key());
+        Assert.assertEquals(9L, p1KeyRange.getEnd_key());
+        // the max value of INT, which is not truncated by backends
+        TKeyRange p2KeyRange = p2ScanRange.getPartition_column_ranges().get(0);
+        Assert.assertEquals(10L, p2KeyRange.getBegin_key());
+        Assert.assertEquals(Integer.MAX_VALUE, p2KeyRange.getEnd_key());
+
+        // added once for the filters on the same column
+        scanNode.addPartitionColumnRanges(k1);
+        Assert.assertEquals(1, p1ScanRange.getPartition_column_ranges().size());
+    }
 }
@@ -0,0 +1,376 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.planner;
+
+import org.apache.doris.analysis.AggregateInfo;
+import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.JoinOperator;
+import org.apache.doris.analysis.SlotDescriptor;
+import org.apache.doris.analysis.SlotRef;
+import org.apache.doris.analysis.TableName;
+import org.apache.doris.analysis.TableRef;
+import org.apache.doris.analysis.TupleDescriptor;
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.ColocateTableIndex;
+import org.apache.doris.catalog.Column;
+import org.apache.doris.catalog.HashDistributionInfo;
+import org.apache.doris.catalog.KeysType;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.PrimitiveType;
+import org.apache.doris.catalog.SinglePartitionInfo;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.Pair;
+import org.apache.doris.qe.ConnectContext;
+import org.apache.doris.thrift.TNetworkAddress;
+import org.apache.doris.thrift.TQueryOptions;
+import org.apache.doris.thrift.TRuntimeFilterType;
+import org.apache.doris.thrift.TScanRange;
+import org.apache.doris.thrift.TScanRangeLocation;
+import org.apache.doris.thrift.TScanRangeLocations;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Set;
+
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.internal.startup.Startup;
+
+public class RuntimeFilterGeneratorTest {
+    private static final int BUCKET_NUM = 3;
+    private static final String GROUP = ColocateTableIndex.getFullGroupName(1L, "group1");
+
+    static {
+        Startup.initializeIfPossible();
+    }
+
+    private ConnectContext connectContext;
+    private Analyzer analyzer;
+    private PlannerContext ctx;
+    // t1 and t2 are in the colocation group, and t3 is not. all of them are distributed by k1.
+    private OlapTable t1;
+    private OlapTable t2;
+    private OlapTable t3;
+
+    @Before
+    public void setUp() {
+        connectContext = new ConnectContext(null);
+        connectContext.getSessionVariable().setRuntimeFilterType("IN,MIN_MAX");
+        connectContext.getSessionVariable().setRuntimeFiltersMaxNum(10);
+        analyzer = new Analyzer(null, connectContext);
+        ctx = new PlannerContext(analyzer, null, new TQueryOptions(), null);
+
+        t1 = createTable(10L, "t1");
+        t2 = createTable(11L, "t2");
+        t3 = createTable(12L, "t3");
+        final ColocateTableIndex colocateIndex = new ColocateTableIndex();
+        colocateIndex.addTableToGroup(1L, t1.getId(), GROUP, createBackendsPerBucketSeq());
+        colocateIndex.addTableToGroup(1L, t2.getId(), GROUP, null);
+
+        new NonStrictExpectations(Catalog.class) {
+            {
+                Catalog.getCurrentColocateIndex();
+                minTimes = 0;
+                result = colocateIndex;
+            }
+        };
+    }
+
+    private static OlapTable createTable(long id, String name) {
+        Column k1 = new Column("k1", PrimitiveType.BIGINT);
+        Column k2 = new Column("k2", PrimitiveType.BIGINT);
+        return new OlapTable(id, name, Lists.newArrayList(k1, k2), KeysType.DUP_KEYS, new SinglePartitionInfo(),
+                             new HashDistributionInfo(BUCKET_NUM, Lists.newArrayList(k1)));
+    }
+
+    // bucket seq i is on backend i and i + 1
+    private static List<List<Long>> createBackendsPerBucketSeq() {
+        List<List<Long>> backendsPerBucketSeq = Lists.newArrayList();
+        for (long i = 0; i < BUCKET_NUM; i++) {
+            backendsPerBucketSeq.add(Lists.newArrayList(i, i + 1));
+        }
+        return backendsPerBucketSeq;
+    }
+
+    private static Object getField(Object object, String fieldName) throws Exception {
+        Field field = object.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    // Create the scan of the table with the scan ranges of all its buckets, on the backends of the bucket seqs.
+    private OlapScanNode createScanNode(OlapTable table) throws Exception {
+        TupleDescriptor tuple = analyzer.getDescTbl().createTupleDescriptor();
+        tuple.setTable(table);
+        for (Column column : table.getBaseSchema()) {
+            SlotDescriptor slot = analyzer.getDescTbl().addSlotDescriptor(tuple);
+            slot.setColumn(column);
+            slot.setIsMaterialized(true);
+        }
+        OlapScanNode scanNode = new OlapScanNode(ctx.getNextNodeId(), tuple, "OlapScanNode");
+
+        List<TScanRangeLocations> result = (List<TScanRangeLocations>) getField(scanNode, "result");
+        Set<Integer> bucketNums = (Set<Integer>) getField(scanNode, "bucketNums");
+        bucketNums.add(BUCKET_NUM);
+        List<List<Long>> backendsPerBucketSeq = createBackendsPerBucketSeq();
+        for (int bucketSeq = 0; bucketSeq < BUCKET_NUM; bucketSeq++) {
+            TScanRangeLocations locations = new TScanRangeLocations();
+            for (long backendId : backendsPerBucketSeq.get(bucketSeq)) {
+                locations.addToLocations(new TScanRangeLocation(new TNetworkAddress("host" + backendId, 9060))
+                        .setBackend_id(backendId));
+            }
+            locations.setScan_range(new TScanRange());
+            result.add(locations);
+            scanNode.getBucketSeqToLocations().put(bucketSeq, locations);
+        }
+        return scanNode;
+    }
+
+    private SlotRef createSlotRef(PlanNode node, String columnName) {
+        TupleDescriptor tuple = analyzer.getTupleDesc(node.getTupleIds().get(0));
+        for (SlotDescriptor slot : tuple.getSlots()) {
+            if (slot.getColumn().getName().equals(columnName)) {
+                return new SlotRef(slot);
+            }
+        }
+        return null;
+    }
+
+    // the equal join conjunct "<probe column of the probe scan> = <build column of the build scan>"
+    private Pair<Expr, Expr> createEqJoinConjunct(OlapScanNode probeScanNode, String probeColumn,
+                                                  OlapScanNode buildScanNode, String buildColumn) {
+        return new Pair<Expr, Expr>(createSlotRef(probeScanNode, probeColumn),
+                                    createSlotRef(buildScanNode, buildColumn));
+    }
+
+    private HashJoinNode createJoin(PlanNode left, PlanNode right, JoinOperator joinOp,
+                                    List<Pair<Expr, Expr>> eqJoinConjuncts) {
+        TableRef innerRef = new TableRef(new TableName("db", "tbl"), null);
+        innerRef.setJoinOp(joinOp);
+        return new HashJoinNode(ctx.getNextNodeId(), left, right, innerRef, eqJoinConjuncts,
+                                Lists.<Expr>newArrayList());
+    }
+
+    // Distribute the plan into fragments and generate the runtime filters.
+    private void generateRuntimeFilters(PlanNode root) throws Exception {
+        List<PlanFragment> fragments = new DistributedPlanner(ctx).createPlanFragments(root);
+        RuntimeFilterGenerator.generateRuntimeFilters(analyzer, fragments.get(fragments.size() - 1).getPlanRoot());
+    }
+
+    // Assert the filters of the join are of the types in order, and each of them has the only target scan.
+    private static void assertRuntimeFilters(HashJoinNode joinNode, OlapScanNode scanNode, boolean isLocal,
+                                             TRuntimeFilterType... types) {
+        List<RuntimeFilter> filters = joinNode.getRuntimeFilters();
+        Assert.assertEquals(types.length, filters.size());
+        for (int i = 0; i < types.length; i++) {
+            RuntimeFilter filter = filters.get(i);
+            Assert.assertEquals(types[i], filter.getType());
+            Assert.assertEquals(1, filter.getTargets().size());
+            Assert.assertSame(scanNode, filter.getTargets().get(0).node);
+            Assert.assertEquals(isLocal, filter.getTargets().get(0).isLocal);
+            Assert.assertTrue(scanNode.getRuntimeFilters().contains(filter));
+        }
+    }
+
+    @Test
+    public void testParseFilterTypes() throws AnalysisException {
+        Assert.assertTrue(RuntimeFilterGenerator.parseFilterTypes("").isEmpty());
+        Assert.assertTrue(RuntimeFilterGenerator.parseFilterTypes(null).isEmpty());
+        Assert.assertEquals(Lists.newArrayList(TRuntimeFilterType.IN, TRuntimeFilterType.MIN_MAX),
+                            RuntimeFilterGenerator.parseFilterTypes("IN,MIN_MAX"));
+        // case insensitive, blanks and duplicates are ignored
+        Assert.assertEquals(Lists.newArrayList(TRuntimeFilterType.BLOOM, TRuntimeFilterType.IN),
+                            RuntimeFilterGenerator.parseFilterTypes(" bloom, in,,IN "));
+    }
+
+    @Test(expected = AnalysisException.class)
+    public void testParseUnknownFilterType() throws AnalysisException {
+        RuntimeFilterGenerator.parseFilterTypes("IN,HASH");
+    }
+
+    @Test
+    public void testBloomFilterSize() {
+        long minSize = 1024L;
+        long maxSize = 16 * 1024L;
+        // 10 bits per value, rounded up to the power of 2
+        Assert.assertEquals(2048L, RuntimeFilterGenerator.getBloomFilterSize(1000L, minSize, maxSize));
+        Assert.assertEquals(2048L, RuntimeFilterGenerator.getBloomFilterSize(1600L, minSize, maxSize));
+        Assert.assertEquals(4096L, RuntimeFilterGenerator.getBloomFilterSize(1700L, minSize, maxSize));
+        Assert.assertEquals(minSize, RuntimeFilterGenerator.getBloomFilterSize(0L, minSize, maxSize));
+        Assert.assertEquals(maxSize, RuntimeFilterGenerator.getBloomFilterSize(1000000L, minSize, maxSize));
+    }
+
+    @Test
+    public void testGenerateLocalFilters() throws Exception {
+        // t1.k2 is not the distribution column, so it is a broadcast join
+        OlapScanNode t1Scan = createScanNode(t1);
+        OlapScanNode t3Scan = createScanNode(t3);
+        HashJoinNode join = createJoin(t1Scan, t3Scan, JoinOperator.INNER_JOIN,
+                                       Lists.newArrayList(createEqJoinConjunct(t1Scan, "k2", t3Scan, "k2")));
+        generateRuntimeFilters(join);
+
+        Assert.assertEquals(HashJoinNode.DistributionMode.BROADCAST, join.getDistributionMode());
+        Assert.assertTrue(join.isPushDown());
+        assertRuntimeFilters(join, t1Scan, true, TRuntimeFilterType.IN, TRuntimeFilterType.MIN_MAX);
+        Assert.assertEquals(0, join.getRuntimeFilters().get(0).getExprOrder());
+        Assert.assertTrue(t3Scan.getRuntimeFilters().isEmpty());
+    }
+
+    @Test
+    public void testJoinTypes() throws Exception {
+        // only the joins pushed down by DistributedPlanner get filters
+        for (JoinOperator joinOp : Lists.newArrayList(JoinOperator.LEFT_SEMI_JOIN, JoinOperator.RIGHT_OUTER_JOIN,
+                JoinOperator.RIGHT_SEMI_JOIN, JoinOperator.RIGHT_ANTI_JOIN, JoinOperator.LEFT_OUTER_JOIN,
+                JoinOperator.LEFT_ANTI_JOIN)) {
+            OlapScanNode t1Scan = createScanNode(t1);
+            OlapScanNode t3Scan = createScanNode(t3);
+            HashJoinNode join = createJoin(t1Scan, t3Scan, joinOp,
+                                           Lists.newArrayList(createEqJoinConjunct(t1Scan, "k2", t3Scan, "k2")));
+            generateRuntimeFilters(join);
+
+            if (joinOp == JoinOperator.LEFT_SEMI_JOIN) {
+                Assert.assertTrue(join.isPushDown());
+                assertRuntimeFilters(join, t1Scan, true, TRuntimeFilterType.IN, TRuntimeFilterType.MIN_MAX);
+            } else {
+                Assert.assertFalse(joinOp.toString(), join.isPushDown());
+                Assert.assertTrue(joinOp.toString(), join.getRuntimeFilters().isEmpty());
+                Assert.assertTrue(joinOp.toString(), t1Scan.getRuntimeFilters().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void testMaxNumFilters() throws Exception {
+        // (t1 join t3 on t1.k2 = t3.k2) join t3 on t1.k2 = t3.k2, the upper join is visited first
+        connectContext.getSessionVariable().setRuntimeFilterType("BLOOM,IN,MIN_MAX");
+        connectContext.getSessionVariable().setRuntimeFiltersMaxNum(2);
+        OlapScanNode t1Scan = createScanNode(t1);
+        OlapScanNode t3Scan = createScanNode(t3);
+        HashJoinNode join = createJoin(t1Scan, t3Scan, JoinOperator.INNER_JOIN,
+                                       Lists.newArrayList(createEqJoinConjunct(t1Scan, "k2", t3Scan, "k2")));
+        OlapScanNode upperT3Scan = createScanNode(t3);
+        HashJoinNode upperJoin = createJoin(join, upperT3Scan, JoinOperator.INNER_JOIN,
+                                            Lists.newArrayList(createEqJoinConjunct(t1Scan, "k2", upperT3Scan, "k2")));
+        generateRuntimeFilters(upperJoin);
+
+        // backends do not apply bloom filters, so only the IN and MIN_MAX filters count
+        assertRuntimeFilters(upperJoin, t1Scan, true,
+                             TRuntimeFilterType.BLOOM, TRuntimeFilterType.IN, TRuntimeFilterType.MIN_MAX);
+        Assert.assertTrue(join.getRuntimeFilters().isEmpty());
+    }
+
+    @Test
+    public void testTargetScanAcrossExchange() throws Exception {
+        // (t1 right outer join t3 on t1.k2 = t3.k2) join t2 on t1.k2 = t2.k2, the right outer join is a
+        // partitioned join, so the scan of t1 is in another fragment
+        OlapScanNode t1Scan = createScanNode(t1);
+        OlapScanNode t3Scan = createScanNode(t3);
+        HashJoinNode rightOuterJoin = createJoin(t1Scan, t3Scan, JoinOperator.RIGHT_OUTER_JOIN,
+                                                 Lists.newArrayList(createEqJoinConjunct(t1Scan, "k2", t3Scan, "k2")));
+        OlapScanNode t2Scan = createScanNode(t2);
+        HashJoinNode join = createJoin(rightOuterJoin, t2Scan, JoinOperator.INNER_JOIN,
+                                       Lists.newArrayList(createEqJoinConjunct(t1Scan, "k2", t2Scan, "k2")));
+        generateRuntimeFilters(join);
+
+        Assert.assertEquals(HashJoinNode.DistributionMode.PARTITIONED, rightOuterJoin.getDistributionMode());
+        Assert.assertTrue(rightOuterJoin.getChild(0) instanceof ExchangeNode);
+        Assert.assertNotSame(join.getFragment(), t1Scan.getFragment());
+        assertRuntimeFilters(join, t1Scan, false, TRuntimeFilterType.IN, TRuntimeFilterType.MIN_MAX);
+        Assert.assertTrue(rightOuterJoin.getRuntimeFilters().isEmpty());
+    }
+
+    @Test
+    public void testNoTargetScanUnderLimit() throws Exception {
+        // the rows of the scan are limited before they are joined
+        OlapScanNode t1Scan = createScanNode(t1);
+        t1Scan.setLimit(10);
+        OlapScanNode t3Scan = createScanNode(t3);
+        HashJoinNode join = createJoin(t1Scan, t3Scan, JoinOperator.INNER_JOIN,
+                                       Lists.newArrayList(createEqJoinConjunct(t1Scan, "k2", t3Scan, "k2")));
+        generateRuntimeFilters(join);
+
+        Assert.assertTrue(join.getRuntimeFilters().isEmpty());
+        Assert.assertTrue(t1Scan.getRuntimeFilters().isEmpty());
+    }
+
+    @Test
+    public void testNoTargetScanUnderAggregation(@Mocked final AggregateInfo aggInfo) throws Exception {
+        // an aggregation is not crossed even if its output tuple were the tuple of the scan
+        final OlapScanNode t1Scan = createScanNode(t1);
+        new NonStrictExpectations() {
+            {
+                aggInfo.getOutputTupleId();
+                result = t1Scan.getTupleIds().get(0);
+            }
+        };
+        AggregationNode aggNode = new AggregationNode(ctx.getNextNodeId(), t1Scan, aggInfo);
+        OlapScanNode t3Scan = createScanNode(t3);
+        HashJoinNode join = createJoin(aggNode, t3Scan, JoinOperator.INNER_JOIN,
+                                       Lists.newArrayList(createEqJoinConjunct(t1Scan, "k2", t3Scan, "k2")));
+        join.setDistributionMode(HashJoinNode.DistributionMode.BROADCAST);
+        join.setIsPushDown(true);
+        new PlanFragment(ctx.getNextFragmentId(), join, DataPartition.RANDOM);
+        RuntimeFilterGenerator.generateRuntimeFilters(analyzer, join);
+
+        Assert.assertTrue(join.getRuntimeFilters().isEmpty());
+        Assert.assertTrue(t1Scan.getRuntimeFilters().isEmpty());
+    }
+
+    @Test
+    public void testBucketJoinTargetsLeftmostScan() throws Exception {
+        connectContext.getSessionVariable().setRuntimeFilterType("IN");
+        // (t1 join t2 on t1.k1 = t2.k1) join t2 on t1.k1 = t2.k1 and t2.k2 = t2.k2, both are colocate joins
+        OlapScanNode t1Scan = createScanNode(t1);
+        OlapScanNode t2Scan = createScanNode(t2);
+        HashJoinNode join = createJoin(t1Scan, t2Scan, JoinOperator.INNER_JOIN,
+                                       Lists.newArrayList(createEqJoinConjunct(t1Scan, "k1", t2Scan, "k1")));
+        OlapScanNode upperT2Scan = createScanNode(t2);
+        HashJoinNode upperJoin = createJoin(join, upperT2Scan, JoinOperator.INNER_JOIN,
+                                            Lists.newArrayList(createEqJoinConjunct(t1Scan, "k1", upperT2Scan, "k1"),
+                                                               createEqJoinConjunct(t2Scan, "k2", upperT2Scan, "k2")));
+        generateRuntimeFilters(upperJoin);
+
+        // the filter of t2.k2 is only built from the buckets of the instance, but t2 is not the scan of the buckets
+        Assert.assertEquals(HashJoinNode.DistributionMode.COLOCATE, upperJoin.getDistributionMode());
+        Assert.assertSame(t2Scan.getFragment(), upperJoin.getFragment());
+        assertRuntimeFilters(upperJoin, t1Scan, true, TRuntimeFilterType.IN);
+        Assert.assertEquals(0, upperJoin.getRuntimeFilters().get(0).getExprOrder());
+        assertRuntimeFilters(join, t1Scan, true, TRuntimeFilterType.IN);
+        Assert.assertTrue(t2Scan.getRuntimeFilters().isEmpty());
+
+        // a broadcast join builds the whole filter, which can be applied to any local scan
+        t1Scan = createScanNode(t1);
+        t2Scan = createScanNode(t2);
+        join = createJoin(t1Scan, t2Scan, JoinOperator.INNER_JOIN,
+                          Lists.newArrayList(createEqJoinConjunct(t1Scan, "k1", t2Scan, "k1")));
+        OlapScanNode t3Scan = createScanNode(t3);
+        upperJoin = createJoin(join, t3Scan, JoinOperator.INNER_JOIN,
+                               Lists.newArrayList(createEqJoinConjunct(t2Scan, "k2", t3Scan, "k2")));
+        generateRuntimeFilters(upperJoin);
+
+        Assert.assertEquals(HashJoinNode.DistributionMode.BROADCAST, upperJoin.getDistributionMode());
+        assertRuntimeFilters(upperJoin, t2Scan, true, TRuntimeFilterType.IN);
+    }
+}
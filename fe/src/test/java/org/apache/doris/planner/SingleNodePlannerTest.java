@@ -0,0 +1,379 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.planner;
+
+import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.BinaryPredicate;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.FunctionName;
+import org.apache.doris.analysis.InPredicate;
+import org.apache.doris.analysis.InlineViewRef;
+import org.apache.doris.analysis.IntLiteral;
+import org.apache.doris.analysis.JoinOperator;
+import org.apache.doris.analysis.SelectStmt;
+import org.apache.doris.analysis.SlotDescriptor;
+import org.apache.doris.analysis.SlotRef;
+import org.apache.doris.analysis.TableName;
+import org.apache.doris.analysis.TableRef;
+import org.apache.doris.analysis.TupleDescriptor;
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.Column;
+import org.apache.doris.catalog.Function;
+import org.apache.doris.catalog.HashDistributionInfo;
+import org.apache.doris.catalog.InlineView;
+import org.apache.doris.catalog.KeysType;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.PartitionKey;
+import org.apache.doris.catalog.PrimitiveType;
+import org.apache.doris.catalog.RangePartitionInfo;
+import org.apache.doris.catalog.ScalarFunction;
+import org.apache.doris.catalog.Table;
+import org.apache.doris.catalog.Type;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.qe.ConnectContext;
+import org.apache.doris.thrift.TQueryOptions;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.internal.startup.Startup;
+
+public class SingleNodePlannerTest {
+    private static final int BUCKET_NUM = 3;
+
+    static {
+        Startup.initializeIfPossible();
+    }
+
+    @Mocked
+    private Catalog catalog;
+
+    // the stmt of the inline views, without limit or analytic functions unless recorded by the test
+    @Mocked
+    private SelectStmt viewStmt;
+
+    private Analyzer analyzer;
+    private PlannerContext ctx;
+    // range partitioned by k1 into [MIN, 10) and [10, MAX), and distributed by k1
+    private OlapTable table;
+
+    @Before
+    public void setUp() throws AnalysisException {
+        new NonStrictExpectations() {
+            {
+                catalog.getFunction((Function) any, (Function.CompareMode) any);
+                minTimes = 0;
+                result = new ScalarFunction(new FunctionName("eq"), Lists.<Type>newArrayList(), Type.BOOLEAN, false);
+            }
+        };
+
+        analyzer = new Analyzer(catalog, new ConnectContext(null));
+        ctx = new PlannerContext(analyzer, null, new TQueryOptions(), null);
+
+        Column k1 = new Column("k1", PrimitiveType.BIGINT);
+        Column k2 = new Column("k2", PrimitiveType.BIGINT);
+        List<Column> partitionColumns = Lists.newArrayList(k1);
+        RangePartitionInfo partitionInfo = new RangePartitionInfo(partitionColumns);
+        PartitionKey key10 = PartitionKey.createPartitionKey(Lists.newArrayList("10"), partitionColumns);
+        partitionInfo.setRange(1L, Range.closedOpen(PartitionKey.createInfinityPartitionKey(partitionColumns, false),
+                                                    key10));
+        partitionInfo.setRange(2L, Range.closedOpen(key10,
+                                                    PartitionKey.createInfinityPartitionKey(partitionColumns, true)));
+        table = new OlapTable(1L, "tbl", Lists.newArrayList(k1, k2), KeysType.DUP_KEYS, partitionInfo,
+                              new HashDistributionInfo(BUCKET_NUM, Lists.newArrayList(k1)));
+    }
+
+    private TupleDescriptor createTuple(Table tbl) {
+        TupleDescriptor tuple = analyzer.getDescTbl().createTupleDescriptor();
+        tuple.setTable(tbl);
+        for (Column column : tbl.getBaseSchema()) {
+            SlotDescriptor slot = analyzer.getDescTbl().addSlotDescriptor(tuple);
+            slot.setColumn(column);
+            slot.setIsMaterialized(true);
+        }
+        return tuple;
+    }
+
+    private static SlotRef createSlotRef(TupleDescriptor tuple, String columnName) {
+        for (SlotDescriptor slot : tuple.getSlots()) {
+            if (slot.getColumn().getName().equals(columnName)) {
+                return new SlotRef(slot);
+            }
+        }
+        return null;
+    }
+
+    // the analyzed table ref of the tuple, which is the rhs of the join if joinOp is set
+    private static TableRef createTableRef(final TupleDescriptor tuple, JoinOperator joinOp) {
+        TableRef tableRef = new TableRef(new TableName("db", "tbl"), null) {
+            {
+                desc = tuple;
+                isAnalyzed = true;
+            }
+        };
+        tableRef.setJoinOp(joinOp);
+        return tableRef;
+    }
+
+    private BinaryPredicate createPredicate(BinaryPredicate.Operator op, Expr lhs, Expr rhs)
+            throws AnalysisException {
+        BinaryPredicate predicate = new BinaryPredicate(op, lhs, rhs);
+        predicate.analyze(analyzer);
+        return predicate;
+    }
+
+    private BinaryPredicate createEqPredicate(Expr lhs, long value) throws AnalysisException {
+        return createPredicate(BinaryPredicate.Operator.EQ, lhs, new IntLiteral(value, Type.BIGINT));
+    }
+
+    private InPredicate createInPredicate(Expr compareExpr, boolean isNotIn, long... values)
+            throws AnalysisException {
+        List<Expr> inList = Lists.newArrayList();
+        for (long value : values) {
+            inList.add(new IntLiteral(value, Type.BIGINT));
+        }
+        InPredicate predicate = new InPredicate(compareExpr, inList, isNotIn);
+        predicate.analyze(analyzer);
+        return predicate;
+    }
+
+    // Infer the predicates of the tuple, and assert they are the expected unassigned conjuncts of it.
+    private void assertInferredPredicates(TupleDescriptor tuple, Expr... expected) throws AnalysisException {
+        analyzer.registerInferredPredicates(tuple.getId());
+        List<Expr> conjuncts = analyzer.getUnassignedConjuncts(tuple.getId().asList());
+        Assert.assertEquals(expected.length, conjuncts.size());
+        for (Expr e : expected) {
+            Assert.assertTrue(conjuncts.contains(e));
+        }
+    }
+
+    @Test
+    public void testInferPredicates() throws AnalysisException {
+        // a join b on a.k1 = b.k1 join c on b.k1 = c.k1
+        // where c.k1 = 1 and c.k1 in (1, 2) and c.k1 not in (3) and a.k2 > 0
+        TupleDescriptor a = createTuple(table);
+        TupleDescriptor b = createTuple(table);
+        TupleDescriptor c = createTuple(table);
+        analyzer.registerOnClauseConjuncts(
+                Lists.<Expr>newArrayList(createPredicate(BinaryPredicate.Operator.EQ,
+                                                         createSlotRef(a, "k1"), createSlotRef(b, "k1"))),
+                createTableRef(b, JoinOperator.INNER_JOIN));
+        analyzer.registerOnClauseConjuncts(
+                Lists.<Expr>newArrayList(createPredicate(BinaryPredicate.Operator.EQ,
+                                                         createSlotRef(b, "k1"), createSlotRef(c, "k1"))),
+                createTableRef(c, JoinOperator.INNER_JOIN));
+        analyzer.registerConjuncts(Lists.<Expr>newArrayList(
+                createEqPredicate(createSlotRef(c, "k1"), 1),
+                createInPredicate(createSlotRef(c, "k1"), false, 1, 2),
+                createInPredicate(createSlotRef(c, "k1"), true, 3),
+                createPredicate(BinaryPredicate.Operator.GT, createSlotRef(a, "k2"), new IntLiteral(0, Type.BIGINT))));
+
+        // inferred transitively, and the predicate of a.k2 is not transferred to the other tuples
+        assertInferredPredicates(a,
+                                 createEqPredicate(createSlotRef(a, "k1"), 1),
+                                 createInPredicate(createSlotRef(a, "k1"), false, 1, 2),
+                                 createInPredicate(createSlotRef(a, "k1"), true, 3),
+                                 createPredicate(BinaryPredicate.Operator.GT, createSlotRef(a, "k2"),
+                                                 new IntLiteral(0, Type.BIGINT)));
+        assertInferredPredicates(b,
+                                 createEqPredicate(createSlotRef(b, "k1"), 1),
+                                 createInPredicate(createSlotRef(b, "k1"), false, 1, 2),
+                                 createInPredicate(createSlotRef(b, "k1"), true, 3));
+
+        // registered once
+        assertInferredPredicates(b,
+                                 createEqPredicate(createSlotRef(b, "k1"), 1),
+                                 createInPredicate(createSlotRef(b, "k1"), false, 1, 2),
+                                 createInPredicate(createSlotRef(b, "k1"), true, 3));
+    }
+
+    @Test
+    public void testNoInferenceIntoOuterJoinedTuple() throws AnalysisException {
+        // a left join b on a.k1 = b.k1 where a.k1 = 1
+        TupleDescriptor a = createTuple(table);
+        TupleDescriptor b = createTuple(table);
+        TableRef bRef = createTableRef(b, JoinOperator.LEFT_OUTER_JOIN);
+        analyzer.registerOuterJoinedTids(b.getId().asList(), bRef);
+        analyzer.registerOnClauseConjuncts(
+                Lists.<Expr>newArrayList(createPredicate(BinaryPredicate.Operator.EQ,
+                                                         createSlotRef(a, "k1"), createSlotRef(b, "k1"))),
+                bRef);
+        analyzer.registerConjuncts(Lists.<Expr>newArrayList(createEqPredicate(createSlotRef(a, "k1"), 1)));
+
+        // "b.k1 = 1" would filter out the rows of a without matched rows of b
+        assertInferredPredicates(b);
+        assertInferredPredicates(a, createEqPredicate(createSlotRef(a, "k1"), 1));
+    }
+
+    @Test
+    public void testNoInferenceIntoSemiJoinedTuple() throws AnalysisException {
+        // a left semi join b on a.k1 = b.k1 left anti join c on a.k1 = c.k1 where a.k1 = 1
+        TupleDescriptor a = createTuple(table);
+        TupleDescriptor b = createTuple(table);
+        TupleDescriptor c = createTuple(table);
+        TableRef bRef = createTableRef(b, JoinOperator.LEFT_SEMI_JOIN);
+        analyzer.registerSemiJoinedTid(b.getId(), bRef);
+        analyzer.registerOnClauseConjuncts(
+                Lists.<Expr>newArrayList(createPredicate(BinaryPredicate.Operator.EQ,
+                                                         createSlotRef(a, "k1"), createSlotRef(b, "k1"))),
+                bRef);
+        TableRef cRef = createTableRef(c, JoinOperator.LEFT_ANTI_JOIN);
+        analyzer.registerSemiJoinedTid(c.getId(), cRef);
+        analyzer.registerOnClauseConjuncts(
+                Lists.<Expr>newArrayList(createPredicate(BinaryPredicate.Operator.EQ,
+                                                         createSlotRef(a, "k1"), createSlotRef(c, "k1"))),
+                cRef);
+        analyzer.registerConjuncts(Lists.<Expr>newArrayList(createEqPredicate(createSlotRef(a, "k1"), 1)));
+
+        assertInferredPredicates(b);
+        assertInferredPredicates(c);
+    }
+
+    @Test
+    public void testOuterJoinOnClauseNotInferred() throws AnalysisException {
+        // a left join b on a.k1 = b.k1 and a.k1 = 1 join c on a.k1 = c.k1
+        TupleDescriptor a = createTuple(table);
+        TupleDescriptor b = createTuple(table);
+        TupleDescriptor c = createTuple(table);
+        TableRef bRef = createTableRef(b, JoinOperator.LEFT_OUTER_JOIN);
+        analyzer.registerOuterJoinedTids(b.getId().asList(), bRef);
+        analyzer.registerOnClauseConjuncts(
+                Lists.<Expr>newArrayList(createPredicate(BinaryPredicate.Operator.EQ,
+                                                         createSlotRef(a, "k1"), createSlotRef(b, "k1")),
+                                         createEqPredicate(createSlotRef(a, "k1"), 1)),
+                bRef);
+        analyzer.registerOnClauseConjuncts(
+                Lists.<Expr>newArrayList(createPredicate(BinaryPredicate.Operator.EQ,
+                                                         createSlotRef(a, "k1"), createSlotRef(c, "k1"))),
+                createTableRef(c, JoinOperator.INNER_JOIN));
+
+        // "a.k1 = 1" doesn't filter the rows of a, which are joined with c regardless of it
+        assertInferredPredicates(c);
+    }
+
+    // Create the inline view "v" of the select stmt with the output k1 of the base table, and migrate the
+    // conjuncts of "a join v on a.k1 = v.k1 where a.k1 = 1" into it. Return the tuple of the base table.
+    private TupleDescriptor migrateConjunctsToInlineView() throws AnalysisException {
+        TupleDescriptor a = createTuple(table);
+        TupleDescriptor t = createTuple(table);
+        final TupleDescriptor v = createTuple(new InlineView("v", Lists.newArrayList(
+                new Column("k1", PrimitiveType.BIGINT))));
+        final Analyzer viewAnalyzer = new Analyzer(analyzer);
+        InlineViewRef viewRef = new InlineViewRef("v", viewStmt) {
+            {
+                desc = v;
+                isAnalyzed = true;
+            }
+
+            @Override
+            public Analyzer getAnalyzer() {
+                return viewAnalyzer;
+            }
+        };
+        viewRef.getSmap().put(createSlotRef(v, "k1"), createSlotRef(t, "k1"));
+        viewRef.getBaseTblSmap().put(createSlotRef(v, "k1"), createSlotRef(t, "k1"));
+        analyzer.createAuxEquivPredicate(createSlotRef(v, "k1"), createSlotRef(t, "k1"));
+
+        analyzer.registerOnClauseConjuncts(
+                Lists.<Expr>newArrayList(createPredicate(BinaryPredicate.Operator.EQ,
+                                                         createSlotRef(a, "k1"), createSlotRef(v, "k1"))),
+                createTableRef(v, JoinOperator.INNER_JOIN));
+        analyzer.registerConjuncts(Lists.<Expr>newArrayList(createEqPredicate(createSlotRef(a, "k1"), 1)));
+
+        // the values of a.k1 are not transferred into the inline view
+        assertInferredPredicates(t);
+
+        new SingleNodePlanner(ctx).migrateConjunctsToInlineView(analyzer, viewRef);
+        Assert.assertTrue(analyzer.getUnassignedConjuncts(v.getId().asList()).isEmpty());
+        return t;
+    }
+
+    @Test
+    public void testMigrateInferredPredicatesToInlineView() throws AnalysisException {
+        TupleDescriptor t = migrateConjunctsToInlineView();
+        // "v.k1 = 1" is inferred and migrated
+        Assert.assertEquals(Lists.newArrayList(createEqPredicate(createSlotRef(t, "k1"), 1)),
+                            analyzer.getUnassignedConjuncts(t.getId().asList()));
+    }
+
+    @Test
+    public void testNoInferenceIntoInlineViewWithLimit() throws AnalysisException {
+        new NonStrictExpectations() {
+            {
+                viewStmt.hasLimit();
+                result = true;
+            }
+        };
+        TupleDescriptor t = migrateConjunctsToInlineView();
+        Assert.assertTrue(analyzer.getUnassignedConjuncts(t.getId().asList()).isEmpty());
+    }
+
+    @Test
+    public void testNoInferenceIntoInlineViewWithAnalytic() throws AnalysisException {
+        new NonStrictExpectations() {
+            {
+                viewStmt.hasAnalyticInfo();
+                result = true;
+            }
+        };
+        TupleDescriptor t = migrateConjunctsToInlineView();
+        Assert.assertTrue(analyzer.getUnassignedConjuncts(t.getId().asList()).isEmpty());
+    }
+
+    @Test
+    public void testPruneJoinedTable() throws Exception {
+        // a join b on a.k1 = b.k1 where b.k1 = 1
+        TupleDescriptor a = createTuple(table);
+        TupleDescriptor b = createTuple(table);
+        analyzer.registerOnClauseConjuncts(
+                Lists.<Expr>newArrayList(createPredicate(BinaryPredicate.Operator.EQ,
+                                                         createSlotRef(a, "k1"), createSlotRef(b, "k1"))),
+                createTableRef(b, JoinOperator.INNER_JOIN));
+        analyzer.registerConjuncts(Lists.<Expr>newArrayList(createEqPredicate(createSlotRef(b, "k1"), 1)));
+
+        Method method = SingleNodePlanner.class.getDeclaredMethod("createScanNode", Analyzer.class, TableRef.class);
+        method.setAccessible(true);
+        OlapScanNode scanNode = (OlapScanNode) method.invoke(new SingleNodePlanner(ctx), analyzer,
+                                                             createTableRef(a, null));
+        Assert.assertEquals(Lists.newArrayList(createEqPredicate(createSlotRef(a, "k1"), 1)),
+                            scanNode.getConjuncts());
+
+        // the scan of a is pruned to partition [MIN, 10) and the bucket of 1
+        RangePartitionInfo partitionInfo = (RangePartitionInfo) table.getPartitionInfo();
+        Collection<Long> partitionIds = new RangePartitionPruner(partitionInfo.getIdToRange(),
+                                                                 partitionInfo.getPartitionColumns(),
+                                                                 scanNode.getColumnFilters()).prune();
+        Assert.assertEquals(Lists.newArrayList(1L), Lists.newArrayList(partitionIds));
+        HashDistributionInfo distributionInfo = (HashDistributionInfo) table.getDefaultDistributionInfo();
+        Collection<Long> bucketIds = new HashDistributionPruner(Lists.newArrayList(0L, 1L, 2L),
+                                                                distributionInfo.getDistributionColumns(),
+                                                                scanNode.getColumnFilters(),
+                                                                BUCKET_NUM).prune();
+        Assert.assertEquals(Lists.newArrayList(1L), Lists.newArrayList(bucketIds));
+    }
+}
@@ -0,0 +1,112 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class BackendLoadTrackerTest {
+    private BackendLoadTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = BackendLoadTracker.getInstance();
+        tracker.clear();
+    }
+
+    @Test
+    public void testRunningInstances() {
+        tracker.instanceStarted(1L);
+        tracker.instanceStarted(1L);
+        tracker.instanceStarted(2L);
+
+        // no execution time is known, so the backend running more instances has a higher score
+        Map<Long, Double> scores = tracker.getLoadScores();
+        Assert.assertEquals(3.0, scores.get(1L), 0.001);
+        Assert.assertEquals(2.0, scores.get(2L), 0.001);
+        Assert.assertEquals(1.0, tracker.getDefaultScore(), 0.001);
+
+        tracker.instanceFinished(1L, -1);
+        tracker.instanceFinished(1L, -1);
+        scores = tracker.getLoadScores();
+        Assert.assertEquals(1.0, scores.get(1L), 0.001);
+        Assert.assertEquals(2.0, scores.get(2L), 0.001);
+
+        // instances started before the loads are cleared
+        tracker.clear();
+        tracker.instanceFinished(2L, -1);
+        tracker.instanceStarted(2L);
+        Assert.assertEquals(2.0, tracker.getLoadScores().get(2L), 0.001);
+    }
+
+    @Test
+    public void testExecTime() {
+        tracker.instanceStarted(1L);
+        tracker.instanceStarted(2L);
+        tracker.instanceFinished(1L, 100);
+        tracker.instanceFinished(2L, -1);
+
+        // execution time of backend 2 is unknown, so it is the average one
+        Map<Long, Double> scores = tracker.getLoadScores();
+        Assert.assertEquals(100.0, scores.get(1L), 0.001);
+        Assert.assertEquals(100.0, scores.get(2L), 0.001);
+        Assert.assertEquals(100.0, tracker.getDefaultScore(), 0.001);
+
+        tracker.instanceStarted(1L);
+        tracker.instanceFinished(1L, 200);
+        tracker.instanceStarted(1L);
+        scores = tracker.getLoadScores();
+        Assert.assertEquals((0.2 * 200 + 0.8 * 100) * 2, scores.get(1L), 0.001);
+    }
+
+    @Test
+    public void testConcurrentInstances() throws InterruptedException {
+        final int instanceNum = 1000;
+        List<Thread> threads = Lists.newArrayList();
+        for (int i = 0; i < 8; i++) {
+            final long backendId = i % 2;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < instanceNum; j++) {
+                        tracker.instanceStarted(backendId);
+                    }
+                    for (int j = 0; j < instanceNum; j++) {
+                        tracker.instanceFinished(backendId, 10);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<Long, Double> scores = tracker.getLoadScores();
+        Assert.assertEquals(10.0, scores.get(0L), 0.001);
+        Assert.assertEquals(10.0, scores.get(1L), 0.001);
+    }
+}
@@ -18,15 +18,23 @@
 package org.apache.doris.qe;
 
 import org.apache.doris.analysis.AccessTestUtil;
+import org.apache.doris.analysis.PlaceHolderExpr;
+import org.apache.doris.analysis.QueryStmt;
+import org.apache.doris.analysis.SqlParser;
+import org.apache.doris.analysis.SqlScanner;
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.AnalysisException;
 import org.apache.doris.metric.MetricRepo;
 import org.apache.doris.mysql.MysqlChannel;
+import org.apache.doris.mysql.MysqlColType;
 import org.apache.doris.mysql.MysqlCommand;
 import org.apache.doris.mysql.MysqlEofPacket;
 import org.apache.doris.mysql.MysqlErrPacket;
 import org.apache.doris.mysql.MysqlOkPacket;
 import org.apache.doris.mysql.MysqlSerializer;
 
+import com.google.common.collect.Lists;
+
 import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.Before;
@@ -39,8 +47,10 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.List;
 
 @RunWith(PowerMockRunner.class)
 @PowerMockIgnore({"javax.management.*"})
@@ -163,6 +173,15 @@ public class ConnectProcessorTest {
         context.setStmtId(EasyMock.anyLong());
         EasyMock.expectLastCall().anyTimes();
         EasyMock.expect(context.getStmtId()).andReturn(1L).anyTimes();
+        EasyMock.expect(context.getPreparedStmtNum()).andDelegateTo(myContext).anyTimes();
+        EasyMock.expect(context.getNextPreparedStmtId()).andDelegateTo(myContext).anyTimes();
+        EasyMock.expect(context.getPreparedStmt(EasyMock.anyInt())).andDelegateTo(myContext).anyTimes();
+        context.addPreparedStmt(EasyMock.anyObject(PreparedStatement.class));
+        EasyMock.expectLastCall().andDelegateTo(myContext).anyTimes();
+        context.removePreparedStmt(EasyMock.anyInt());
+        EasyMock.expectLastCall().andDelegateTo(myContext).anyTimes();
+        context.setExecutor(EasyMock.anyObject(StmtExecutor.class));
+        EasyMock.expectLastCall().anyTimes();
 
         EasyMock.replay(context);
 
@@ -383,4 +402,196 @@ public class ConnectProcessorTest {
         processor.loop();
         Assert.assertTrue(myContext.isKilled());
     }
+
+    private PreparedStatement addPreparedStmt(String sql) throws Exception {
+        SqlParser parser = new SqlParser(new SqlScanner(new StringReader(sql)));
+        QueryStmt stmt = (QueryStmt) parser.parse().value;
+        PreparedStatement preparedStmt = new PreparedStatement(myContext.getNextPreparedStmtId(), sql);
+        preparedStmt.setStmt(stmt, parser.placeHolders);
+        myContext.addPreparedStmt(preparedStmt);
+        return preparedStmt;
+    }
+
+    private void mockPreparedStmtExecutor(boolean fail) throws Exception {
+        StmtExecutor qe = EasyMock.createNiceMock(StmtExecutor.class);
+        qe.prepare();
+        if (fail) {
+            EasyMock.expectLastCall().andThrow(new AnalysisException("Only query statement can be prepared"));
+        } else {
+            EasyMock.expectLastCall().anyTimes();
+        }
+        qe.execute();
+        EasyMock.expectLastCall().anyTimes();
+        EasyMock.replay(qe);
+        PowerMock.expectNew(StmtExecutor.class, EasyMock.isA(ConnectContext.class),
+                            EasyMock.isA(PreparedStatement.class)).andReturn(qe).anyTimes();
+        PowerMock.replay(StmtExecutor.class);
+    }
+
+    @Test
+    public void testStmtPrepare() throws Exception {
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeInt1(22);
+        serializer.writeEofString("select * from a where k1 = ?");
+        ConnectContext ctx = initMockContext(mockChannel(serializer.toByteBuffer()),
+                AccessTestUtil.fetchAdminCatalog());
+        mockPreparedStmtExecutor(false);
+
+        ConnectProcessor processor = new ConnectProcessor(ctx);
+        processor.processOnce();
+        Assert.assertEquals(MysqlCommand.COM_STMT_PREPARE, myContext.getCommand());
+        Assert.assertEquals(QueryState.MysqlStateType.NOOP, myContext.getState().getStateType());
+        Assert.assertEquals(1, myContext.getPreparedStmtNum());
+        Assert.assertEquals("select * from a where k1 = ?", myContext.getPreparedStmt(1).getOriginStmt());
+    }
+
+    @Test
+    public void testStmtPrepareFail() throws Exception {
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeInt1(22);
+        serializer.writeEofString("set a = ?");
+        ConnectContext ctx = initMockContext(mockChannel(serializer.toByteBuffer()),
+                AccessTestUtil.fetchAdminCatalog());
+        mockPreparedStmtExecutor(true);
+
+        ConnectProcessor processor = new ConnectProcessor(ctx);
+        processor.processOnce();
+        Assert.assertEquals(MysqlCommand.COM_STMT_PREPARE, myContext.getCommand());
+        Assert.assertTrue(myContext.getState().toResponsePacket() instanceof MysqlErrPacket);
+        Assert.assertEquals("Only query statement can be prepared", myContext.getState().getErrorMessage());
+        Assert.assertEquals(0, myContext.getPreparedStmtNum());
+    }
+
+    @Test
+    public void testStmtExecute() throws Exception {
+        PreparedStatement preparedStmt = addPreparedStmt("select * from a where k1 = ? and k2 = ? and k3 = ? "
+                + "and k4 = ? and k5 = ?");
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeInt1(23);
+        serializer.writeInt4(preparedStmt.getId());
+        // flags and iteration count
+        serializer.writeInt1(0);
+        serializer.writeInt4(1);
+        // null bitmap, the 5th parameter is NULL
+        serializer.writeInt1(0x10);
+        // new-params-bound flag and types
+        serializer.writeInt1(1);
+        serializer.writeInt2(MysqlColType.MYSQL_TYPE_LONG.getCode());
+        serializer.writeInt2(MysqlColType.MYSQL_TYPE_LONGLONG.getCode() | 0x8000);
+        serializer.writeInt2(MysqlColType.MYSQL_TYPE_VARSTRING.getCode());
+        serializer.writeInt2(MysqlColType.MYSQL_TYPE_DATE.getCode());
+        serializer.writeInt2(MysqlColType.MYSQL_TYPE_LONG.getCode());
+        // values
+        serializer.writeInt4(-5);
+        serializer.writeInt8(-1L);
+        serializer.writeLenEncodedString("abc");
+        serializer.writeInt1(4);
+        serializer.writeInt2(2020);
+        serializer.writeInt1(1);
+        serializer.writeInt1(2);
+        ConnectContext ctx = initMockContext(mockChannel(serializer.toByteBuffer()),
+                AccessTestUtil.fetchAdminCatalog());
+        mockPreparedStmtExecutor(false);
+
+        ConnectProcessor processor = new ConnectProcessor(ctx);
+        processor.processOnce();
+        Assert.assertEquals(MysqlCommand.COM_STMT_EXECUTE, myContext.getCommand());
+        Assert.assertTrue(myContext.getState().isQuery());
+        Assert.assertEquals(preparedStmt.getOriginStmt()
+                + " /* params: -5 18446744073709551615 'abc' '2020-01-02' NULL */", preparedStmt.getBoundSql());
+    }
+
+    @Test
+    public void testStmtExecuteWithBoundTypes() throws Exception {
+        PreparedStatement preparedStmt = addPreparedStmt("select * from a where k1 = ?");
+        preparedStmt.setParamTypes(new int[] {MysqlColType.MYSQL_TYPE_DOUBLE.getCode()});
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeInt1(23);
+        serializer.writeInt4(preparedStmt.getId());
+        serializer.writeInt1(0);
+        serializer.writeInt4(1);
+        serializer.writeInt1(0);
+        // types are not sent again
+        serializer.writeInt1(0);
+        serializer.writeInt8(Double.doubleToLongBits(1.5));
+        ConnectContext ctx = initMockContext(mockChannel(serializer.toByteBuffer()),
+                AccessTestUtil.fetchAdminCatalog());
+        mockPreparedStmtExecutor(false);
+
+        ConnectProcessor processor = new ConnectProcessor(ctx);
+        processor.processOnce();
+        Assert.assertEquals(MysqlCommand.COM_STMT_EXECUTE, myContext.getCommand());
+        Assert.assertEquals(preparedStmt.getOriginStmt() + " /* params: 1.5 */", preparedStmt.getBoundSql());
+    }
+
+    @Test
+    public void testStmtExecuteFail() throws Exception {
+        PreparedStatement preparedStmt = addPreparedStmt("select * from a where k1 = ?");
+        // types are never sent
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeInt1(23);
+        serializer.writeInt4(preparedStmt.getId());
+        serializer.writeInt1(0);
+        serializer.writeInt4(1);
+        serializer.writeInt1(0);
+        serializer.writeInt1(0);
+        ConnectContext ctx = initMockContext(mockChannel(serializer.toByteBuffer()),
+                AccessTestUtil.fetchAdminCatalog());
+
+        ConnectProcessor processor = new ConnectProcessor(ctx);
+        processor.processOnce();
+        Assert.assertTrue(myContext.getState().toResponsePacket() instanceof MysqlErrPacket);
+        Assert.assertEquals("Types of parameters are not sent", myContext.getState().getErrorMessage());
+
+        // unknown statement
+        serializer = MysqlSerializer.newInstance();
+        serializer.writeInt1(23);
+        serializer.writeInt4(preparedStmt.getId() + 1);
+        ctx = initMockContext(mockChannel(serializer.toByteBuffer()), AccessTestUtil.fetchAdminCatalog());
+        processor = new ConnectProcessor(ctx);
+        processor.processOnce();
+        Assert.assertTrue(myContext.getState().toResponsePacket() instanceof MysqlErrPacket);
+        Assert.assertEquals("Unknown prepared statement(" + (preparedStmt.getId() + 1) + ")",
+                            myContext.getState().getErrorMessage());
+    }
+
+    @Test
+    public void testStmtClose() throws Exception {
+        PreparedStatement preparedStmt = addPreparedStmt("select * from a where k1 = ?");
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeInt1(25);
+        serializer.writeInt4(preparedStmt.getId());
+        ConnectContext ctx = initMockContext(mockChannel(serializer.toByteBuffer()),
+                AccessTestUtil.fetchAdminCatalog());
+
+        ConnectProcessor processor = new ConnectProcessor(ctx);
+        processor.processOnce();
+        Assert.assertEquals(MysqlCommand.COM_STMT_CLOSE, myContext.getCommand());
+        // no response
+        Assert.assertNull(myContext.getState().toResponsePacket());
+        Assert.assertNull(myContext.getPreparedStmt(preparedStmt.getId()));
+    }
+
+    @Test
+    public void testStmtReset() throws Exception {
+        PreparedStatement preparedStmt = addPreparedStmt("select * from a where k1 = ?");
+        List<Integer> stmtIds = Lists.newArrayList(preparedStmt.getId(), preparedStmt.getId() + 1);
+        for (int stmtId : stmtIds) {
+            MysqlSerializer serializer = MysqlSerializer.newInstance();
+            serializer.writeInt1(26);
+            serializer.writeInt4(stmtId);
+            ConnectContext ctx = initMockContext(mockChannel(serializer.toByteBuffer()),
+                    AccessTestUtil.fetchAdminCatalog());
+
+            ConnectProcessor processor = new ConnectProcessor(ctx);
+            processor.processOnce();
+            Assert.assertEquals(MysqlCommand.COM_STMT_RESET, myContext.getCommand());
+            if (stmtId == preparedStmt.getId()) {
+                Assert.assertTrue(myContext.getState().toResponsePacket() instanceof MysqlOkPacket);
+            } else {
+                Assert.assertTrue(myContext.getState().toResponsePacket() instanceof MysqlErrPacket);
+            }
+        }
+        Assert.assertNotNull(myContext.getPreparedStmt(preparedStmt.getId()));
+    }
 }
@@ -0,0 +1,235 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import org.apache.doris.analysis.AccessTestUtil;
+import org.apache.doris.common.Config;
+import org.apache.doris.mysql.MysqlProto;
+import org.apache.doris.mysql.MysqlSerializer;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.easymock.PowerMock;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({"org.apache.log4j.*", "javax.management.*"})
+@PrepareForTest({ConnectScheduler.class, ConnectSelector.class, MysqlProto.class})
+public class ConnectSelectorTest {
+    private boolean nioEnabled;
+    private ServerSocketChannel serverChannel;
+    private SocketChannel client;
+    private ConnectContext context;
+    // commands processed by the connection
+    private BlockingQueue<String> commands;
+
+    @Before
+    public void setUp() throws Exception {
+        nioEnabled = Config.mysql_service_nio_enabled;
+        commands = new LinkedBlockingQueue<String>();
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        client = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+        context = new ConnectContext(serverChannel.accept());
+        context.setCatalog(AccessTestUtil.fetchAdminCatalog());
+        context.setQualifiedUser("root");
+
+        PowerMock.expectNew(ConnectProcessor.class, EasyMock.anyObject(ConnectContext.class))
+                .andReturn(mockProcessor()).anyTimes();
+        PowerMock.replay(ConnectProcessor.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Config.mysql_service_nio_enabled = nioEnabled;
+        client.close();
+        context.cleanup();
+        serverChannel.close();
+    }
+
+    // Record the commands. The connection is killed by command "kill", and the processing fails by "fail".
+    private ConnectProcessor mockProcessor() throws IOException {
+        ConnectProcessor processor = EasyMock.createMock(ConnectProcessor.class);
+        processor.processOnce(EasyMock.anyObject(ByteBuffer.class));
+        EasyMock.expectLastCall().andDelegateTo(new ConnectProcessor(null) {
+            @Override
+            public void processOnce(ByteBuffer packet) {
+                byte[] bytes = new byte[packet.remaining()];
+                packet.get(bytes);
+                String command = new String(bytes);
+                if (command.equals("fail")) {
+                    throw new RuntimeException("failed");
+                }
+                if (command.equals("kill")) {
+                    context.setKilled();
+                }
+                commands.add(command);
+            }
+        }).anyTimes();
+        EasyMock.replay(processor);
+        return processor;
+    }
+
+    private void mockNegotiate(boolean result) throws IOException {
+        PowerMock.mockStatic(MysqlProto.class);
+        EasyMock.expect(MysqlProto.negotiate(EasyMock.anyObject(ConnectContext.class))).andReturn(result).anyTimes();
+        MysqlProto.sendResponsePacket(EasyMock.anyObject(ConnectContext.class));
+        EasyMock.expectLastCall().anyTimes();
+        PowerMock.replay(MysqlProto.class);
+    }
+
+    private static ByteBuffer commandPacket(String command) {
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeInt3(command.length());
+        serializer.writeInt1(0);
+        serializer.writeBytes(command.getBytes());
+        return serializer.toByteBuffer();
+    }
+
+    private static void waitConnectionNum(ConnectScheduler scheduler, int num) throws InterruptedException {
+        for (int i = 0; i < 500 && scheduler.getConnectionNum() != num; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(num, scheduler.getConnectionNum());
+    }
+
+    // wait until the connection is closed by server
+    private void assertClosed() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        while (client.read(buffer) >= 0) {
+            buffer.clear();
+        }
+        Assert.assertFalse(context.getMysqlChannel().getChannel().isOpen());
+    }
+
+    private ConnectScheduler createSelectedConnection() throws IOException {
+        ConnectScheduler scheduler = new ConnectScheduler(10);
+        Assert.assertTrue(scheduler.registerConnection(context));
+        ConnectSelector selector = new ConnectSelector(scheduler, Executors.newFixedThreadPool(2));
+        selector.start();
+        selector.add(context);
+        return scheduler;
+    }
+
+    @Test(timeout = 10000)
+    public void testReadCommands() throws Exception {
+        ConnectScheduler scheduler = createSelectedConnection();
+
+        // a command arrives in pieces
+        ByteBuffer packet = commandPacket("select 1");
+        packet.limit(2);
+        client.write(packet);
+        Thread.sleep(100);
+        Assert.assertTrue(commands.isEmpty());
+        packet.limit(packet.capacity());
+        client.write(packet);
+        Assert.assertEquals("select 1", commands.poll(5, TimeUnit.SECONDS));
+
+        // the next command is read after the previous one is processed, with sequence id from 0
+        client.write(commandPacket("select 2"));
+        Assert.assertEquals("select 2", commands.poll(5, TimeUnit.SECONDS));
+        Assert.assertNull(commands.poll(100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, scheduler.getConnectionNum());
+
+        // closed by client
+        client.close();
+        waitConnectionNum(scheduler, 0);
+        Assert.assertFalse(context.getMysqlChannel().getChannel().isOpen());
+    }
+
+    @Test(timeout = 10000)
+    public void testKilled() throws Exception {
+        ConnectScheduler scheduler = createSelectedConnection();
+        client.write(commandPacket("kill"));
+        Assert.assertEquals("kill", commands.poll(5, TimeUnit.SECONDS));
+        waitConnectionNum(scheduler, 0);
+        assertClosed();
+    }
+
+    @Test(timeout = 10000)
+    public void testProcessException() throws Exception {
+        ConnectScheduler scheduler = createSelectedConnection();
+        client.write(commandPacket("fail"));
+        waitConnectionNum(scheduler, 0);
+        assertClosed();
+        Assert.assertTrue(commands.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testClosedByOthers() throws Exception {
+        ConnectScheduler scheduler = createSelectedConnection();
+        // eg. the timeout checker
+        context.getMysqlChannel().close();
+        waitConnectionNum(scheduler, 0);
+        assertClosed();
+    }
+
+    @Test(timeout = 10000)
+    public void testNegotiate() throws Exception {
+        Config.mysql_service_nio_enabled = true;
+        mockNegotiate(true);
+        ConnectScheduler scheduler = new ConnectScheduler(10);
+        Assert.assertTrue(scheduler.submit(context));
+        waitConnectionNum(scheduler, 1);
+        Assert.assertSame(context, scheduler.getContext(context.getConnectionId()));
+
+        // the commands are read by selector after authenticated
+        client.write(commandPacket("select 1"));
+        Assert.assertEquals("select 1", commands.poll(5, TimeUnit.SECONDS));
+        client.close();
+        waitConnectionNum(scheduler, 0);
+    }
+
+    @Test(timeout = 10000)
+    public void testNegotiateFail() throws Exception {
+        Config.mysql_service_nio_enabled = true;
+        mockNegotiate(false);
+        ConnectScheduler scheduler = new ConnectScheduler(10);
+        Assert.assertTrue(scheduler.submit(context));
+        assertClosed();
+        waitConnectionNum(scheduler, 0);
+    }
+
+    @Test(timeout = 10000)
+    public void testNegotiateTooManyConnections() throws Exception {
+        Config.mysql_service_nio_enabled = true;
+        mockNegotiate(true);
+        ConnectScheduler scheduler = new ConnectScheduler(0);
+        Assert.assertTrue(scheduler.submit(context));
+        assertClosed();
+        waitConnectionNum(scheduler, 0);
+        Assert.assertTrue(commands.isEmpty());
+    }
+}
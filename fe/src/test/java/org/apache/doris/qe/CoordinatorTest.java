@@ -18,32 +18,70 @@
 package org.apache.doris.qe;
 
 import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.JoinOperator;
+import org.apache.doris.analysis.SlotRef;
+import org.apache.doris.analysis.TableName;
+import org.apache.doris.analysis.TableRef;
 import org.apache.doris.analysis.TupleDescriptor;
 import org.apache.doris.analysis.TupleId;
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Config;
 import org.apache.doris.common.FeConstants;
+import org.apache.doris.common.Pair;
+import org.apache.doris.common.UserException;
 import org.apache.doris.persist.EditLog;
 import org.apache.doris.planner.DataPartition;
 import org.apache.doris.planner.ExchangeNode;
+import org.apache.doris.planner.HashJoinNode;
 import org.apache.doris.planner.OlapScanNode;
 import org.apache.doris.planner.PlanFragment;
 import org.apache.doris.planner.PlanFragmentId;
 import org.apache.doris.planner.PlanNode;
 import org.apache.doris.planner.PlanNodeId;
 import org.apache.doris.planner.Planner;
+import org.apache.doris.planner.RuntimeFilter;
+import org.apache.doris.planner.RuntimeFilterId;
+import org.apache.doris.rpc.PExecPlanFragmentResult;
+import org.apache.doris.rpc.PStatus;
 import org.apache.doris.service.FrontendOptions;
 import org.apache.doris.system.Backend;
+import org.apache.doris.system.SystemInfoService;
+import org.apache.doris.thrift.PaloInternalServiceVersion;
+import org.apache.doris.thrift.TDataPartition;
+import org.apache.doris.thrift.TDescriptorTable;
+import org.apache.doris.thrift.TErrorHubType;
+import org.apache.doris.thrift.TExecPlanFragmentParams;
+import org.apache.doris.thrift.TLoadErrorHubInfo;
 import org.apache.doris.thrift.TNetworkAddress;
+import org.apache.doris.thrift.TPartitionType;
+import org.apache.doris.thrift.TPlanFragment;
+import org.apache.doris.thrift.TPlanFragmentDestination;
+import org.apache.doris.thrift.TPlanFragmentExecParams;
+import org.apache.doris.thrift.TQueryGlobals;
+import org.apache.doris.thrift.TQueryOptions;
+import org.apache.doris.thrift.TResourceInfo;
+import org.apache.doris.thrift.TRuntimeFilterParams;
+import org.apache.doris.thrift.TRuntimeFilterTargetParams;
+import org.apache.doris.thrift.TRuntimeFilterType;
 import org.apache.doris.thrift.TScanRange;
 import org.apache.doris.thrift.TScanRangeLocation;
 import org.apache.doris.thrift.TScanRangeLocations;
+import org.apache.doris.thrift.TScanRangeParams;
+import org.apache.doris.thrift.TStatusCode;
+import org.apache.doris.thrift.TTupleDescriptor;
 import org.apache.doris.thrift.TUniqueId;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 
+import org.apache.thrift.TDeserializer;
+import org.apache.thrift.TException;
+import org.apache.thrift.TSerializer;
 import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.powermock.api.easymock.PowerMock;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
@@ -57,6 +95,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RunWith(PowerMockRunner.class)
 @PowerMockIgnore({"org.apache.log4j.*", "javax.management.*"})
@@ -100,8 +142,12 @@ public class CoordinatorTest extends Coordinator {
         EasyMock.expect(catalog.getEditLog()).andReturn(editLog).anyTimes();
         EasyMock.replay(catalog);
 
+        // replayed after the backends are created
+        SystemInfoService systemInfo = EasyMock.createMock(SystemInfoService.class);
+
         PowerMock.mockStatic(Catalog.class);
         EasyMock.expect(Catalog.getInstance()).andReturn(catalog).anyTimes();
+        EasyMock.expect(Catalog.getCurrentSystemInfo()).andReturn(systemInfo).anyTimes();
         PowerMock.replay(Catalog.class);
 
         PowerMock.mockStatic(FrontendOptions.class);
@@ -110,13 +156,18 @@ public class CoordinatorTest extends Coordinator {
 
         FeConstants.heartbeat_interval_second = Integer.MAX_VALUE;
         backendA = new Backend(0, "machineA", 0);
-        backendA.updateOnce(10000, 0, 0);
+        backendA.updateOnce(10000, 0, 0, 8060);
         backendB = new Backend(1, "machineB", 0);
-        backendB.updateOnce(10000, 0, 0);
+        backendB.updateOnce(10000, 0, 0, 8060);
         backendC = new Backend(2, "machineC", 0);
         backendC.updateOnce(10000, 0, 0);
         backendD = new Backend(3, "machineD", 0);
         backendD.updateOnce(10000, 0, 0);
+        for (Backend backend : Lists.newArrayList(backendA, backendB, backendC, backendD)) {
+            EasyMock.expect(systemInfo.getBackendWithBePort(backend.getHost(), backend.getBePort()))
+                    .andReturn(backend).anyTimes();
+        }
+        EasyMock.replay(systemInfo);
 
         // private 方法赋值
         Field field = coor.getClass().getDeclaredField("idToBackend");
@@ -414,6 +465,450 @@ public class CoordinatorTest extends Coordinator {
         }
     }
 
+
+    private static TExecPlanFragmentParams createInstanceParams(TExecPlanFragmentParams commonParams,
+                                                                long instanceId, int backendNum) {
+        TExecPlanFragmentParams params = getCommonParams(commonParams);
+        TPlanFragmentExecParams execParams = new TPlanFragmentExecParams();
+        execParams.setQuery_id(new TUniqueId(1, 2));
+        execParams.setFragment_instance_id(new TUniqueId(1, instanceId));
+        execParams.setPer_node_scan_ranges(new HashMap<Integer, List<TScanRangeParams>>());
+        execParams.setPer_exch_num_senders(new HashMap<Integer, Integer>());
+        execParams.setDestinations(new ArrayList<TPlanFragmentDestination>());
+        TRuntimeFilterParams runtimeFilterParams = new TRuntimeFilterParams();
+        runtimeFilterParams.setRuntime_filter_merge_addr(new TNetworkAddress("machineA", 8060));
+        runtimeFilterParams.setRuntime_filter_builder_num(ImmutableMap.of(0, 2));
+        execParams.setRuntime_filter_params(runtimeFilterParams);
+        params.setParams(execParams);
+        params.setBackend_num(backendNum);
+        return params;
+    }
+
+    @Test
+    public void testSerializeFragmentExecParams() throws TException {
+        TExecPlanFragmentParams commonParams = new TExecPlanFragmentParams();
+        commonParams.setProtocol_version(PaloInternalServiceVersion.V1);
+        TPlanFragment fragment = new TPlanFragment();
+        fragment.setPartition(new TDataPartition(TPartitionType.UNPARTITIONED));
+        commonParams.setFragment(fragment);
+        TDescriptorTable descTable = new TDescriptorTable();
+        descTable.setTupleDescriptors(new ArrayList<TTupleDescriptor>());
+        commonParams.setDesc_tbl(descTable);
+        commonParams.setCoord(new TNetworkAddress("127.0.0.1", 9020));
+        commonParams.setQuery_globals(new TQueryGlobals("2020-01-01 00:00:00"));
+        commonParams.setQuery_options(new TQueryOptions());
+        commonParams.setIs_report_success(true);
+        commonParams.setResource_info(new TResourceInfo("user", "group"));
+        commonParams.setImport_label("label");
+        commonParams.setDb_name("db");
+        commonParams.setLoad_job_id(10);
+        commonParams.setLoad_error_hub_info(new TLoadErrorHubInfo(TErrorHubType.NULL_TYPE));
+
+        TSerializer serializer = new TSerializer();
+        TDeserializer deserializer = new TDeserializer();
+        byte[] serializedCommonParams = null;
+        TExecPlanFragmentParams firstParams = null;
+        for (int i = 0; i < 3; i++) {
+            TExecPlanFragmentParams params = createInstanceParams(commonParams, i, i);
+            for (TExecPlanFragmentParams._Fields field : TExecPlanFragmentParams._Fields.values()) {
+                Assert.assertTrue(params.isSet(field));
+            }
+            if (firstParams == null) {
+                firstParams = getCommonParams(params);
+                serializedCommonParams = serializer.serialize(firstParams);
+            }
+            Assert.assertTrue(hasSameCommonParams(firstParams, params));
+
+            // every field is in one of the parts
+            TExecPlanFragmentParams instanceParams = getInstanceParams(params);
+            for (TExecPlanFragmentParams._Fields field : TExecPlanFragmentParams._Fields.values()) {
+                Assert.assertTrue(firstParams.isSet(field) || instanceParams.isSet(field));
+            }
+
+            byte[] bytes = concatSerializedParams(serializedCommonParams, serializer.serialize(instanceParams));
+            TExecPlanFragmentParams deserializedParams = new TExecPlanFragmentParams();
+            deserializer.deserialize(deserializedParams, bytes);
+            Assert.assertEquals(params, deserializedParams);
+        }
+
+        // params of other common fields can not be serialized with the cached common part
+        TExecPlanFragmentParams params = createInstanceParams(commonParams, 3, 3);
+        params.setDb_name("other_db");
+        Assert.assertFalse(hasSameCommonParams(firstParams, params));
+        params.setDb_name("db");
+        params.unsetLoad_error_hub_info();
+        Assert.assertFalse(hasSameCommonParams(firstParams, params));
+    }
+
+    private static final TNetworkAddress HOST_A = new TNetworkAddress("machineA", 10000);
+    private static final TNetworkAddress HOST_B = new TNetworkAddress("machineB", 10000);
+
+    // Create the scan of bucket seqs, the tablet of bucket seq i is on the backends of backendIds[i].
+    private static OlapScanNode createBucketScanNode(int id, long[][] backendIds) throws Exception {
+        OlapScanNode scanNode = new OlapScanNode(new PlanNodeId(id), new TupleDescriptor(new TupleId(id)),
+                                                 "OlapScanNode");
+        ((Set<Integer>) getField(scanNode, "bucketNums")).add(backendIds.length);
+        for (int bucketSeq = 0; bucketSeq < backendIds.length; bucketSeq++) {
+            TScanRangeLocations locations = new TScanRangeLocations();
+            for (long backendId : backendIds[bucketSeq]) {
+                String host = backendId == 0 ? "machineA" : "machineB";
+                locations.addToLocations(new TScanRangeLocation(new TNetworkAddress(host, 10000))
+                        .setBackend_id(backendId));
+            }
+            locations.setScan_range(new TScanRange());
+            scanNode.getBucketSeqToLocations().put(bucketSeq, locations);
+        }
+        return scanNode;
+    }
+
+    private static PlanFragment createJoinFragment(int id, PlanNode left, PlanNode right) {
+        TableRef innerRef = new TableRef(new TableName("db", "tbl"), null);
+        innerRef.setJoinOp(JoinOperator.INNER_JOIN);
+        HashJoinNode joinNode = new HashJoinNode(new PlanNodeId(id), left, right, innerRef,
+                                                 new ArrayList<Pair<Expr, Expr>>(), new ArrayList<Expr>());
+        return new PlanFragment(new PlanFragmentId(id), joinNode, DataPartition.RANDOM);
+    }
+
+    @Test
+    public void testComputeBucketScanRangeAssignment() throws Exception {
+        // bucket seq 3 of the right scan is only on machineB
+        OlapScanNode left = createBucketScanNode(1, new long[][] {{0, 1}, {0, 1}, {0, 1}, {1, 0}});
+        OlapScanNode right = createBucketScanNode(2, new long[][] {{0, 1}, {1, 0}, {0, 1}, {1}});
+        FragmentExecParams params = new FragmentExecParams(createJoinFragment(3, left, right));
+        Method method = coor.getClass().getDeclaredMethod("computeBucketScanRangeAssignment",
+                FragmentExecParams.class, List.class, Map.class, double.class);
+        method.setAccessible(true);
+        method.invoke(coor, params, Lists.newArrayList(left, right), null, 1.0);
+
+        // each bucket seq is on exactly one host, and the buckets are evenly assigned to the hosts
+        Assert.assertEquals(4, params.bucketNum);
+        Assert.assertEquals(ImmutableMap.of(0, HOST_A, 1, HOST_B, 2, HOST_A, 3, HOST_B), params.bucketSeqToAddress);
+        for (int bucketSeq = 0; bucketSeq < 4; bucketSeq++) {
+            Map<Integer, List<TScanRangeParams>> bucketScanRanges = params.bucketSeqToScanRanges.get(bucketSeq);
+            Assert.assertEquals(1, bucketScanRanges.get(1).size());
+            Assert.assertEquals(1, bucketScanRanges.get(2).size());
+        }
+        Assert.assertEquals(2, params.scanRangeAssignment.get(HOST_A).get(1).size());
+        Assert.assertEquals(2, params.scanRangeAssignment.get(HOST_A).get(2).size());
+        Assert.assertEquals(2, params.scanRangeAssignment.get(HOST_B).get(1).size());
+        Assert.assertEquals(2, params.scanRangeAssignment.get(HOST_B).get(2).size());
+
+        // no backend has all the replicas of bucket seq 3
+        left = createBucketScanNode(1, new long[][] {{0, 1}, {0, 1}, {0, 1}, {1}});
+        right = createBucketScanNode(2, new long[][] {{0, 1}, {1, 0}, {0, 1}, {0}});
+        try {
+            method.invoke(coor, new FragmentExecParams(createJoinFragment(3, left, right)),
+                          Lists.newArrayList(left, right), null, 1.0);
+            Assert.fail();
+        } catch (InvocationTargetException e) {
+            Assert.assertTrue(e.getCause() instanceof UserException);
+        }
+    }
+
+    @Test
+    public void testAddBucketShuffleDestinations() throws Exception {
+        OlapScanNode left = createBucketScanNode(1, new long[][] {{0}, {1}, {0}, {1}});
+        OlapScanNode right = createBucketScanNode(2, new long[][] {{0}});
+        FragmentExecParams destParams = new FragmentExecParams(createJoinFragment(3, left, right));
+        FInstanceExecParam instanceA = new FInstanceExecParam(new TUniqueId(1, 1), HOST_A, 0, destParams);
+        FInstanceExecParam instanceB = new FInstanceExecParam(new TUniqueId(1, 2), HOST_B, 1, destParams);
+        destParams.instanceExecParams.add(instanceA);
+        destParams.instanceExecParams.add(instanceB);
+        // bucket seq 2 is pruned
+        destParams.bucketNum = 4;
+        destParams.bucketSeqToInstance.put(0, instanceA);
+        destParams.bucketSeqToInstance.put(1, instanceB);
+        destParams.bucketSeqToInstance.put(3, instanceB);
+
+        FragmentExecParams params = new FragmentExecParams(
+                new PlanFragment(new PlanFragmentId(4), right, DataPartition.RANDOM));
+        Method method = coor.getClass().getDeclaredMethod("addBucketShuffleDestinations",
+                FragmentExecParams.class, FragmentExecParams.class);
+        method.setAccessible(true);
+        method.invoke(coor, params, destParams);
+
+        // one destination per bucket seq in the order of bucket seqs, the rows of the pruned bucket seq
+        // are sent to any instance
+        Assert.assertEquals(4, params.destinations.size());
+        Assert.assertEquals(instanceA.instanceId, params.destinations.get(0).getFragment_instance_id());
+        Assert.assertEquals(instanceB.instanceId, params.destinations.get(1).getFragment_instance_id());
+        Assert.assertEquals(instanceA.instanceId, params.destinations.get(2).getFragment_instance_id());
+        Assert.assertEquals(instanceB.instanceId, params.destinations.get(3).getFragment_instance_id());
+        Assert.assertEquals(new TNetworkAddress("machineA", backendA.getBeRpcPort()),
+                            params.destinations.get(0).getServer());
+        Assert.assertEquals(new TNetworkAddress("machineB", backendB.getBeRpcPort()),
+                            params.destinations.get(1).getServer());
+
+        // the bucket num is unknown if the selected partitions have different bucket nums,
+        // so there is a destination per instance
+        destParams.bucketNum = -1;
+        params.destinations.clear();
+        method.invoke(coor, params, destParams);
+        Assert.assertEquals(2, params.destinations.size());
+        Assert.assertEquals(instanceA.instanceId, params.destinations.get(0).getFragment_instance_id());
+        Assert.assertEquals(instanceB.instanceId, params.destinations.get(1).getFragment_instance_id());
+    }
+
+    private static RuntimeFilter createRuntimeFilter(int id, HashJoinNode joinNode, OlapScanNode target,
+                                                     boolean isLocal) {
+        SlotRef slotRef = new SlotRef(new TableName("db", "tbl"), "k1");
+        RuntimeFilter filter = new RuntimeFilter(new RuntimeFilterId(id), joinNode, TRuntimeFilterType.IN,
+                                                 slotRef, 0);
+        filter.addTarget(new RuntimeFilter.RuntimeFilterTarget(target, slotRef, isLocal));
+        return filter;
+    }
+
+    private FragmentExecParams createFragmentExecParams(PlanFragment fragment, TNetworkAddress... hosts) {
+        FragmentExecParams params = new FragmentExecParams(fragment);
+        for (int i = 0; i < hosts.length; i++) {
+            params.instanceExecParams.add(new FInstanceExecParam(
+                    new TUniqueId(fragment.getFragmentId().asInt(), i), hosts[i], i, params));
+        }
+        return params;
+    }
+
+    @Test
+    public void testAssignRuntimeFilterParams() throws Exception {
+        // fragment 0: exchange of fragment 4
+        // fragment 4: partitioned join of the exchange of fragment 2 and scan 2
+        // fragment 2: scan 1
+        OlapScanNode probeScanNode = createBucketScanNode(1, new long[][] {{0}});
+        PlanFragment scanFragment = new PlanFragment(new PlanFragmentId(2), probeScanNode, DataPartition.RANDOM);
+        OlapScanNode buildScanNode = createBucketScanNode(2, new long[][] {{0}});
+        PlanFragment joinFragment = createJoinFragment(4,
+                new ExchangeNode(new PlanNodeId(3), probeScanNode, false), buildScanNode);
+        HashJoinNode joinNode = (HashJoinNode) joinFragment.getPlanRoot();
+        joinNode.setDistributionMode(HashJoinNode.DistributionMode.PARTITIONED);
+        PlanFragment rootFragment = new PlanFragment(new PlanFragmentId(0),
+                new ExchangeNode(new PlanNodeId(5), joinNode, false), DataPartition.UNPARTITIONED);
+        joinNode.addRuntimeFilter(createRuntimeFilter(0, joinNode, probeScanNode, false));
+        // pushed down by the join itself
+        joinNode.addRuntimeFilter(createRuntimeFilter(1, joinNode, buildScanNode, true));
+
+        List<PlanFragment> privateFragments = (List<PlanFragment>) getField(coor, "fragments");
+        privateFragments.clear();
+        privateFragments.add(rootFragment);
+        privateFragments.add(joinFragment);
+        privateFragments.add(scanFragment);
+        Map<PlanFragmentId, FragmentExecParams> privateFragmentExecParams =
+                (Map<PlanFragmentId, FragmentExecParams>) getField(coor, "fragmentExecParamsMap");
+        privateFragmentExecParams.clear();
+        FragmentExecParams rootParams = createFragmentExecParams(rootFragment, HOST_A);
+        FragmentExecParams scanParams = createFragmentExecParams(scanFragment, HOST_A, HOST_B);
+        privateFragmentExecParams.put(rootFragment.getFragmentId(), rootParams);
+        privateFragmentExecParams.put(joinFragment.getFragmentId(),
+                                      createFragmentExecParams(joinFragment, HOST_A, HOST_B, HOST_A));
+        privateFragmentExecParams.put(scanFragment.getFragmentId(), scanParams);
+        Map<Integer, List<TRuntimeFilterTargetParams>> ridToTargetParams =
+                (Map<Integer, List<TRuntimeFilterTargetParams>>) getField(coor, "ridToTargetParams");
+        Map<Integer, Integer> ridToBuilderNum = (Map<Integer, Integer>) getField(coor, "ridToBuilderNum");
+        ridToTargetParams.clear();
+        ridToBuilderNum.clear();
+        invokeFunction("assignRuntimeFilterParams");
+
+        // the filters built by the 3 instances of the join are merged by the first instance of the root
+        // fragment, and sent to the brpc addresses of the 2 instances of the scan
+        Assert.assertEquals(1, ridToTargetParams.size());
+        Assert.assertEquals(Lists.newArrayList(
+                new TRuntimeFilterTargetParams(scanParams.instanceExecParams.get(0).instanceId,
+                                               new TNetworkAddress("machineA", 8060)),
+                new TRuntimeFilterTargetParams(scanParams.instanceExecParams.get(1).instanceId,
+                                               new TNetworkAddress("machineB", 8060))),
+                ridToTargetParams.get(0));
+        Assert.assertEquals(ImmutableMap.of(0, 3), ridToBuilderNum);
+        Assert.assertEquals(rootParams.instanceExecParams.get(0).instanceId,
+                            getField(coor, "runtimeFilterMergeInstanceId"));
+        Assert.assertEquals(new TNetworkAddress("machineA", 8060), getField(coor, "runtimeFilterMergeAddr"));
+
+        // each instance of a broadcast join builds the whole filter
+        joinNode.setDistributionMode(HashJoinNode.DistributionMode.BROADCAST);
+        ridToTargetParams.clear();
+        ridToBuilderNum.clear();
+        invokeFunction("assignRuntimeFilterParams");
+        Assert.assertEquals(ImmutableMap.of(0, 1), ridToBuilderNum);
+    }
+
+    @Test
+    public void testGetDispatchWaves() throws Exception {
+        // fragment 0: join of the exchanges of fragment 4 and fragment 8
+        // fragment 4: join of the exchange of fragment 2 and scan 2
+        // fragment 2: scan 1
+        // fragment 8: scan 7
+        OlapScanNode scanNode = createBucketScanNode(1, new long[][] {{0}});
+        PlanFragment scanFragment = new PlanFragment(new PlanFragmentId(2), scanNode, DataPartition.RANDOM);
+        ExchangeNode scanExchange = new ExchangeNode(new PlanNodeId(3), scanNode, false);
+        PlanFragment joinFragment = createJoinFragment(4, scanExchange, createBucketScanNode(2, new long[][] {{0}}));
+        OlapScanNode otherScanNode = createBucketScanNode(7, new long[][] {{0}});
+        PlanFragment otherScanFragment = new PlanFragment(new PlanFragmentId(8), otherScanNode,
+                                                          DataPartition.RANDOM);
+        ExchangeNode joinExchange = new ExchangeNode(new PlanNodeId(5), joinFragment.getPlanRoot(), false);
+        ExchangeNode otherScanExchange = new ExchangeNode(new PlanNodeId(6), otherScanNode, false);
+        PlanFragment rootFragment = createJoinFragment(0, joinExchange, otherScanExchange);
+        joinFragment.setDestination(joinExchange);
+        otherScanFragment.setDestination(otherScanExchange);
+        scanFragment.setDestination(scanExchange);
+
+        List<PlanFragment> privateFragments = (List<PlanFragment>) getField(coor, "fragments");
+        privateFragments.clear();
+        privateFragments.add(rootFragment);
+        privateFragments.add(joinFragment);
+        privateFragments.add(scanFragment);
+        privateFragments.add(otherScanFragment);
+        Method method = coor.getClass().getDeclaredMethod("getDispatchWaves");
+        method.setAccessible(true);
+
+        // the fragments at the same depth are sent together, and a fragment is sent after its destination
+        boolean enableConcurrentDispatch = Config.enable_concurrent_fragment_dispatch;
+        try {
+            Config.enable_concurrent_fragment_dispatch = true;
+            Assert.assertEquals(Lists.newArrayList(Lists.newArrayList(rootFragment),
+                                                   Lists.newArrayList(joinFragment, otherScanFragment),
+                                                   Lists.newArrayList(scanFragment)),
+                                method.invoke(coor));
+
+            Config.enable_concurrent_fragment_dispatch = false;
+            Assert.assertEquals(Lists.newArrayList(Lists.newArrayList(rootFragment),
+                                                   Lists.newArrayList(joinFragment),
+                                                   Lists.newArrayList(scanFragment),
+                                                   Lists.newArrayList(otherScanFragment)),
+                                method.invoke(coor));
+        } finally {
+            Config.enable_concurrent_fragment_dispatch = enableConcurrentDispatch;
+        }
+    }
+
+    // Future of an exec rpc, which succeeds after delayMs if it is waited long enough, otherwise times out.
+    // The timeouts it is waited with are added to timeoutsMs.
+    private static Future<PExecPlanFragmentResult> createExecFuture(final long delayMs, final List<Long> timeoutsMs) {
+        return new Future<PExecPlanFragmentResult>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return false;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+
+            @Override
+            public boolean isDone() {
+                return false;
+            }
+
+            @Override
+            public PExecPlanFragmentResult get() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public PExecPlanFragmentResult get(long timeout, TimeUnit unit)
+                    throws InterruptedException, TimeoutException {
+                long timeoutMs = unit.toMillis(timeout);
+                timeoutsMs.add(timeoutMs);
+                if (delayMs > timeoutMs) {
+                    throw new TimeoutException();
+                }
+                Thread.sleep(delayMs);
+                PExecPlanFragmentResult result = new PExecPlanFragmentResult();
+                result.status = new PStatus();
+                result.status.code = TStatusCode.OK.getValue();
+                return result;
+            }
+        };
+    }
+
+    @Test
+    public void testWaitRemoteFragmentExec() throws Exception {
+        Coordinator coordinator = new Coordinator(context, analyzer, planner);
+        PlanFragment fragment = new PlanFragment(new PlanFragmentId(1), createBucketScanNode(1, new long[][] {{0}}),
+                                                 DataPartition.RANDOM);
+        Map<PlanFragmentId, FragmentExecParams> privateFragmentExecParams =
+                (Map<PlanFragmentId, FragmentExecParams>) getField(coordinator, "fragmentExecParamsMap");
+        privateFragmentExecParams.put(fragment.getFragmentId(), createFragmentExecParams(fragment, HOST_A, HOST_B));
+        Map<TNetworkAddress, Long> addressToBackendId = ImmutableMap.of(HOST_A, 0L, HOST_B, 1L);
+        BackendExecState stateA = coordinator.new BackendExecState(fragment.getFragmentId(), 0, 0,
+                new TExecPlanFragmentParams(), addressToBackendId);
+        BackendExecState stateB = coordinator.new BackendExecState(fragment.getFragmentId(), 1, 0,
+                new TExecPlanFragmentParams(), addressToBackendId);
+        Method method = coordinator.getClass().getDeclaredMethod("waitRemoteFragmentExec", List.class);
+        method.setAccessible(true);
+
+        long timeoutMs = Config.remote_fragment_exec_timeout_ms;
+        Config.remote_fragment_exec_timeout_ms = 1000;
+        try {
+            // the rpcs of a wave share one deadline, so the second one is only waited for the time left
+            List<Long> timeoutsMs = Lists.newArrayList();
+            method.invoke(coordinator, Lists.newArrayList(
+                    Pair.create(stateA, createExecFuture(300, timeoutsMs)),
+                    Pair.create(stateB, createExecFuture(300, timeoutsMs))));
+            Assert.assertEquals(2, timeoutsMs.size());
+            Assert.assertTrue(timeoutsMs.get(0) > 700);
+            Assert.assertTrue(timeoutsMs.get(1) <= 700);
+            Assert.assertTrue(coordinator.getExecStatus().ok());
+
+            // a later wave has a deadline of its own, which both rpcs of the wave can not finish before
+            timeoutsMs.clear();
+            try {
+                method.invoke(coordinator, Lists.newArrayList(
+                        Pair.create(stateA, createExecFuture(300, timeoutsMs)),
+                        Pair.create(stateB, createExecFuture(800, timeoutsMs))));
+                Assert.fail();
+            } catch (InvocationTargetException e) {
+                Assert.assertTrue(e.getCause() instanceof UserException);
+                Assert.assertEquals("query timeout. backend id: 1", e.getCause().getMessage());
+            }
+            Assert.assertEquals(2, timeoutsMs.size());
+            Assert.assertTrue(timeoutsMs.get(0) > 700);
+            Assert.assertTrue(timeoutsMs.get(1) <= 700);
+            Assert.assertFalse(coordinator.getExecStatus().ok());
+        } finally {
+            Config.remote_fragment_exec_timeout_ms = timeoutMs;
+        }
+    }
+
+    @Test
+    public void testFinishLoads() throws Exception {
+        Coordinator coordinator = new Coordinator(context, analyzer, planner);
+        PlanFragment fragment = new PlanFragment(new PlanFragmentId(1), createBucketScanNode(1, new long[][] {{0}}),
+                                                 DataPartition.RANDOM);
+        Map<PlanFragmentId, FragmentExecParams> privateFragmentExecParams =
+                (Map<PlanFragmentId, FragmentExecParams>) getField(coordinator, "fragmentExecParamsMap");
+        privateFragmentExecParams.put(fragment.getFragmentId(), createFragmentExecParams(fragment, HOST_A, HOST_B));
+        Map<TNetworkAddress, Long> addressToBackendId = ImmutableMap.of(HOST_A, 0L, HOST_B, 1L);
+        List<BackendExecState> privateBackendExecStates =
+                (List<BackendExecState>) getField(coordinator, "backendExecStates");
+        Field loadStartTimeField = BackendExecState.class.getDeclaredField("loadStartTime");
+        loadStartTimeField.setAccessible(true);
+        for (int i = 0; i < 2; i++) {
+            TExecPlanFragmentParams params = new TExecPlanFragmentParams();
+            params.setParams(new TPlanFragmentExecParams());
+            params.params.putToPer_node_scan_ranges(1, Lists.newArrayList(new TScanRangeParams()));
+            BackendExecState state = coordinator.new BackendExecState(fragment.getFragmentId(), i, 0, params,
+                                                                      addressToBackendId);
+            // started 100ms ago
+            loadStartTimeField.set(state, System.currentTimeMillis() - 100);
+            privateBackendExecStates.add(state);
+        }
+
+        BackendLoadTracker tracker = BackendLoadTracker.getInstance();
+        tracker.clear();
+        try {
+            // the instances are not reported done, and the time of the query is not counted as their time
+            coordinator.finishLoads();
+            Assert.assertEquals(1.0, tracker.getDefaultScore(), 0.001);
+            Assert.assertEquals(ImmutableMap.of(0L, 1.0, 1L, 1.0), tracker.getLoadScores());
+
+            // the instance is reported done by its backend, so the execution time is the time of the backend
+            loadStartTimeField.set(privateBackendExecStates.get(0), System.currentTimeMillis() - 100);
+            privateBackendExecStates.get(0).finishLoad(true);
+            Assert.assertTrue(tracker.getDefaultScore() >= 100);
+            Assert.assertTrue(tracker.getLoadScores().get(0L) >= 100);
+        } finally {
+            tracker.clear();
+        }
+    }
+
     /*
     public void testNetworkException() throws TException, NoSuchFieldException,
             SecurityException, IllegalArgumentException, IllegalAccessException,
@@ -0,0 +1,195 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import org.apache.doris.analysis.IntLiteral;
+import org.apache.doris.analysis.LiteralExpr;
+import org.apache.doris.analysis.PlaceHolderExpr;
+import org.apache.doris.analysis.QueryStmt;
+import org.apache.doris.analysis.SqlParser;
+import org.apache.doris.analysis.SqlScanner;
+import org.apache.doris.analysis.StringLiteral;
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.Column;
+import org.apache.doris.catalog.Database;
+import org.apache.doris.catalog.HashDistributionInfo;
+import org.apache.doris.catalog.KeysType;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.PrimitiveType;
+import org.apache.doris.catalog.SinglePartitionInfo;
+import org.apache.doris.common.Config;
+import org.apache.doris.mysql.privilege.PaloAuth;
+import org.apache.doris.mysql.privilege.PrivPredicate;
+import org.apache.doris.planner.Planner;
+
+import com.google.common.collect.Lists;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+public class PreparedStatementTest {
+    private static final String SQL = "SELECT k1 FROM db.tbl WHERE k1 = ? AND k2 = ?";
+
+    private int maxCachedPlans;
+    private ConnectContext context;
+    private PreparedStatement preparedStmt;
+    private QueryStmt stmt;
+
+    @Before
+    public void setUp() throws Exception {
+        maxCachedPlans = Config.max_cached_plans_per_prepared_stmt;
+        context = new ConnectContext(null);
+        context.setDatabase("testCluster:testDb");
+
+        SqlParser parser = new SqlParser(new SqlScanner(new StringReader(SQL)));
+        stmt = (QueryStmt) parser.parse().value;
+        preparedStmt = new PreparedStatement(1, SQL);
+        preparedStmt.setStmt(stmt, parser.placeHolders);
+    }
+
+    @After
+    public void tearDown() {
+        Config.max_cached_plans_per_prepared_stmt = maxCachedPlans;
+    }
+
+    private void bind(long k1, String k2) {
+        List<LiteralExpr> params = Lists.newArrayList();
+        params.add(new IntLiteral(k1));
+        params.add(new StringLiteral(k2));
+        preparedStmt.bind(params);
+    }
+
+    @Test
+    public void testBind() {
+        Assert.assertEquals(2, preparedStmt.getParamNum());
+        // parameters are bound to NULL when prepared
+        Assert.assertEquals(SQL + " /* params: NULL NULL */", preparedStmt.getBoundSql());
+
+        bind(1, "a");
+        Assert.assertEquals(SQL + " /* params: 1 'a' */", preparedStmt.getBoundSql());
+        QueryStmt boundStmt = preparedStmt.getBoundStmt();
+        Assert.assertNotSame(stmt, boundStmt);
+        Assert.assertTrue(boundStmt.toSql().contains("= 1"));
+        Assert.assertTrue(boundStmt.toSql().contains("= 'a'"));
+        Assert.assertTrue(stmt.toSql().contains("?"));
+
+        // the statement bound before is not changed by the next binding
+        bind(2, "b");
+        Assert.assertTrue(boundStmt.toSql().contains("= 1"));
+        Assert.assertTrue(preparedStmt.getBoundStmt().toSql().contains("= 2"));
+    }
+
+    @Test
+    public void testCachedPlan() {
+        bind(1, "a");
+        Assert.assertNull(preparedStmt.getCachedPlan(context, null));
+        QueryStmt analyzedStmt = preparedStmt.getBoundStmt();
+        preparedStmt.cachePlan(context, analyzedStmt, null, new Planner());
+        PreparedStatement.CachedPlan plan = preparedStmt.getCachedPlan(context, null);
+        Assert.assertNotNull(plan);
+        Assert.assertSame(analyzedStmt, plan.getStmt());
+
+        // plans are cached by the bound values
+        bind(2, "a");
+        Assert.assertNull(preparedStmt.getCachedPlan(context, null));
+        bind(1, "a");
+        Assert.assertNotNull(preparedStmt.getCachedPlan(context, null));
+
+        // prepared again
+        preparedStmt.setStmt(stmt, Lists.newArrayList(new PlaceHolderExpr(), new PlaceHolderExpr()));
+        Assert.assertEquals(0, preparedStmt.getCachedPlanNum());
+    }
+
+    @Test
+    public void testCachedPlanInvalidated() {
+        bind(1, "a");
+        preparedStmt.cachePlan(context, preparedStmt.getBoundStmt(), null, new Planner());
+
+        context.getSessionVariable().setQueryTimeoutS(context.getSessionVariable().getQueryTimeoutS() + 1);
+        Assert.assertNull(preparedStmt.getCachedPlan(context, null));
+        Assert.assertEquals(0, preparedStmt.getCachedPlanNum());
+
+        preparedStmt.cachePlan(context, preparedStmt.getBoundStmt(), null, new Planner());
+        context.setDatabase("testCluster:otherDb");
+        Assert.assertNull(preparedStmt.getCachedPlan(context, null));
+        Assert.assertEquals(0, preparedStmt.getCachedPlanNum());
+
+        preparedStmt.cachePlan(context, preparedStmt.getBoundStmt(), null, new Planner());
+        preparedStmt.clearCachedPlans();
+        Assert.assertNull(preparedStmt.getCachedPlan(context, null));
+    }
+
+    @Test
+    public void testCachedPlanEvicted() {
+        Config.max_cached_plans_per_prepared_stmt = 2;
+        for (int i = 0; i < 3; i++) {
+            bind(i, "a");
+            preparedStmt.cachePlan(context, preparedStmt.getBoundStmt(), null, new Planner());
+        }
+        Assert.assertEquals(2, preparedStmt.getCachedPlanNum());
+        // the least recently used one is evicted
+        bind(0, "a");
+        Assert.assertNull(preparedStmt.getCachedPlan(context, null));
+        bind(1, "a");
+        Assert.assertNotNull(preparedStmt.getCachedPlan(context, null));
+        bind(3, "a");
+        preparedStmt.cachePlan(context, preparedStmt.getBoundStmt(), null, new Planner());
+        bind(1, "a");
+        Assert.assertNotNull(preparedStmt.getCachedPlan(context, null));
+        bind(2, "a");
+        Assert.assertNull(preparedStmt.getCachedPlan(context, null));
+
+        Config.max_cached_plans_per_prepared_stmt = 0;
+        preparedStmt.clearCachedPlans();
+        preparedStmt.cachePlan(context, preparedStmt.getBoundStmt(), null, new Planner());
+        Assert.assertEquals(0, preparedStmt.getCachedPlanNum());
+    }
+
+    @Test
+    public void testCachedPlanPrivilegeRevoked() {
+        Column k1 = new Column("k1", PrimitiveType.BIGINT);
+        OlapTable table = new OlapTable(2L, "tbl", Lists.newArrayList(k1), KeysType.DUP_KEYS,
+                                        new SinglePartitionInfo(), new HashDistributionInfo(1, Lists.newArrayList(k1)));
+        Database db = new Database(1L, "testCluster:db");
+        db.createTable(table);
+        preparedStmt.addTableVersion(db, table);
+
+        // SELECT privilege of the table is revoked after the first execution
+        PaloAuth auth = EasyMock.createMock(PaloAuth.class);
+        EasyMock.expect(auth.checkTblPriv(context, "testCluster:db", "tbl", PrivPredicate.SELECT))
+                .andReturn(true).times(2).andReturn(false).anyTimes();
+        Catalog catalog = EasyMock.createMock(Catalog.class);
+        EasyMock.expect(catalog.getDb(1L)).andReturn(db).anyTimes();
+        EasyMock.expect(catalog.getAuth()).andReturn(auth).anyTimes();
+        EasyMock.replay(auth, catalog);
+
+        bind(1, "a");
+        preparedStmt.cachePlan(context, preparedStmt.getBoundStmt(), null, new Planner());
+        Assert.assertNotNull(preparedStmt.getCachedPlan(context, catalog));
+        Assert.assertNotNull(preparedStmt.getCachedPlan(context, catalog));
+        // the statement is analyzed again, which checks the privilege
+        Assert.assertNull(preparedStmt.getCachedPlan(context, catalog));
+        Assert.assertEquals(0, preparedStmt.getCachedPlanNum());
+    }
+}
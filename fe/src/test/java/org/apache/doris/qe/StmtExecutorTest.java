@@ -60,6 +60,7 @@ import java.lang.reflect.Field;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
 
 import java_cup.runtime.Symbol;
@@ -129,7 +130,7 @@ public class StmtExecutorTest {
         EasyMock.expect(queryStmt.getColLabels()).andReturn(Lists.<String>newArrayList()).anyTimes();
         EasyMock.expect(queryStmt.getResultExprs()).andReturn(Lists.<Expr>newArrayList()).anyTimes();
         EasyMock.expect(queryStmt.isExplain()).andReturn(false).anyTimes();
-        queryStmt.getDbs(EasyMock.isA(Analyzer.class), EasyMock.isA(SortedMap.class));
+        queryStmt.getDbs(EasyMock.isA(Analyzer.class), EasyMock.isA(SortedMap.class), EasyMock.isA(Map.class));
         EasyMock.expectLastCall().anyTimes();
         EasyMock.expect(queryStmt.getRedirectStatus()).andReturn(RedirectStatus.NO_FORWARD).anyTimes();
         queryStmt.rewriteExprs(EasyMock.isA(ExprRewriter.class));
@@ -0,0 +1,357 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe.cache;
+
+import org.apache.doris.analysis.AggregateInfo;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.SelectStmt;
+import org.apache.doris.analysis.SlotRef;
+import org.apache.doris.analysis.SortInfo;
+import org.apache.doris.analysis.TableRef;
+import org.apache.doris.catalog.Column;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.Partition;
+import org.apache.doris.catalog.PartitionInfo;
+import org.apache.doris.catalog.PartitionKey;
+import org.apache.doris.catalog.PrimitiveType;
+import org.apache.doris.catalog.RangePartitionInfo;
+import org.apache.doris.catalog.SinglePartitionInfo;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.Pair;
+import org.apache.doris.mysql.MysqlSerializer;
+import org.apache.doris.planner.OlapScanNode;
+import org.apache.doris.planner.ScanNode;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class PartitionResultCacheTest {
+    private static final long TABLE_ID = 1000L;
+    // partitions of column 'day': p1 [MIN, 10), p2 [10, 20), p3 [20, 30)
+    private static final long P1 = 1001L;
+    private static final long P2 = 1002L;
+    private static final long P3 = 1003L;
+    private static final String CONTEXT = "db=db";
+    private static int sqlId = 0;
+
+    private String sql;
+    private List<Column> partitionColumns;
+    private RangePartitionInfo partitionInfo;
+    private OlapTable table;
+    private TableRef tableRef;
+
+    @Before
+    public void setUp() throws AnalysisException {
+        // results of different tests are not mixed in the shared result cache
+        sql = "select k, day, v from t group by k, day /* " + (sqlId++) + " */";
+        partitionColumns = Lists.newArrayList(new Column("day", PrimitiveType.INT));
+        partitionInfo = new RangePartitionInfo(partitionColumns);
+        partitionInfo.setRange(P1, Range.closedOpen(PartitionKey.createInfinityPartitionKey(partitionColumns, false),
+                                                    key("10")));
+        partitionInfo.setRange(P2, Range.closedOpen(key("10"), key("20")));
+        partitionInfo.setRange(P3, Range.closedOpen(key("20"), key("30")));
+        table = mockTable(partitionInfo);
+        tableRef = new TableRef();
+    }
+
+    @After
+    public void tearDown() {
+        ResultCache.getInstance().invalidate(P1);
+        ResultCache.getInstance().invalidate(P2);
+        ResultCache.getInstance().invalidate(P3);
+    }
+
+    private PartitionKey key(String value) throws AnalysisException {
+        return PartitionKey.createPartitionKey(Lists.newArrayList(value), partitionColumns);
+    }
+
+    private static OlapTable mockTable(PartitionInfo partitionInfo) {
+        OlapTable table = EasyMock.createNiceMock(OlapTable.class);
+        EasyMock.expect(table.getId()).andReturn(TABLE_ID).anyTimes();
+        EasyMock.expect(table.getSchemaVersionByIndexId(TABLE_ID)).andReturn(0).anyTimes();
+        EasyMock.expect(table.getPartitionInfo()).andReturn(partitionInfo).anyTimes();
+        for (long partitionId : new long[] {P1, P2, P3}) {
+            EasyMock.expect(table.getPartition(partitionId))
+                    .andReturn(new Partition(partitionId, "p" + (partitionId - TABLE_ID), null, null)).anyTimes();
+        }
+        EasyMock.replay(table);
+        return table;
+    }
+
+    // scan node of the partitions, whose versions are given by pairs of partition id and version
+    private List<ScanNode> scanNodes(long... partitionVersions) {
+        Map<Long, Pair<Long, Long>> versions = Maps.newHashMap();
+        for (int i = 0; i < partitionVersions.length; i += 2) {
+            versions.put(partitionVersions[i], Pair.create(partitionVersions[i + 1], 0L));
+        }
+        OlapScanNode scanNode = EasyMock.createNiceMock(OlapScanNode.class);
+        EasyMock.expect(scanNode.getOlapTable()).andReturn(table).anyTimes();
+        EasyMock.expect(scanNode.getScannedPartitionVersions()).andReturn(versions).anyTimes();
+        EasyMock.replay(scanNode);
+        return Lists.<ScanNode>newArrayList(scanNode);
+    }
+
+    private List<ScanNode> allScanNodes() {
+        return scanNodes(P1, 2, P2, 2, P3, 2);
+    }
+
+    private static SlotRef slot(String column) {
+        return new SlotRef(null, column);
+    }
+
+    // 'select k, day, v from t group by <groupBy> order by <orderBy>'
+    private SelectStmt mockStmt(String groupBy, String orderBy, boolean isAsc, boolean nullsFirst,
+                                boolean hasLimit) {
+        ArrayList<Expr> selectExprs = Lists.<Expr>newArrayList(slot("k"), slot("day"), slot("v"));
+        AggregateInfo aggInfo = EasyMock.createNiceMock(AggregateInfo.class);
+        EasyMock.expect(aggInfo.getGroupingExprs()).andReturn(Lists.<Expr>newArrayList(slot(groupBy))).anyTimes();
+        EasyMock.replay(aggInfo);
+
+        SelectStmt stmt = EasyMock.createNiceMock(SelectStmt.class);
+        EasyMock.expect(stmt.getTableRefs()).andReturn(Lists.newArrayList(tableRef)).anyTimes();
+        EasyMock.expect(stmt.hasLimit()).andReturn(hasLimit).anyTimes();
+        EasyMock.expect(stmt.getAggInfo()).andReturn(aggInfo).anyTimes();
+        EasyMock.expect(stmt.getSelectListExprs()).andReturn(selectExprs).anyTimes();
+        EasyMock.expect(stmt.getResultExprs()).andReturn(selectExprs).anyTimes();
+        if (orderBy != null) {
+            SortInfo sortInfo = new SortInfo(Lists.<Expr>newArrayList(slot(orderBy)), Lists.newArrayList(isAsc),
+                                             Lists.newArrayList(nullsFirst));
+            EasyMock.expect(stmt.getSortInfo()).andReturn(sortInfo).anyTimes();
+        }
+        EasyMock.replay(stmt);
+        return stmt;
+    }
+
+    private SelectStmt mockStmt() {
+        return mockStmt("day", null, true, true, false);
+    }
+
+    // result row of (k, day, v), null is NULL
+    private static ByteBuffer row(String k, String day) {
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeLenEncodedString(k);
+        if (day == null) {
+            serializer.writeNull();
+        } else {
+            serializer.writeLenEncodedString(day);
+        }
+        serializer.writeLenEncodedString("1");
+        return serializer.toByteBuffer();
+    }
+
+    private static int findPartition(PartitionResultCache cache, ByteBuffer row) throws Exception {
+        Method method = PartitionResultCache.class.getDeclaredMethod("findPartition", ByteBuffer.class);
+        method.setAccessible(true);
+        return (Integer) method.invoke(cache, row);
+    }
+
+    // send rows of backends, and return the rows of the query, in which cached rows are merged
+    private static List<ByteBuffer> execute(PartitionResultCache cache, ByteBuffer... rows) throws Exception {
+        List<ByteBuffer> result = Lists.newArrayList();
+        for (ByteBuffer row : rows) {
+            result.addAll(cache.getRowsBefore(row));
+            result.add(row);
+        }
+        result.addAll(cache.finish());
+        return result;
+    }
+
+    @Test
+    public void testCreate() {
+        Assert.assertNotNull(PartitionResultCache.create(sql, CONTEXT, mockStmt(), allScanNodes()));
+        // ordered by the partition column
+        Assert.assertNotNull(PartitionResultCache.create(sql, CONTEXT, mockStmt("day", "day", true, true, false),
+                                                         allScanNodes()));
+        Assert.assertNotNull(PartitionResultCache.create(sql, CONTEXT, mockStmt("day", "day", false, false, false),
+                                                         allScanNodes()));
+
+        // not grouped by the partition column
+        Assert.assertNull(PartitionResultCache.create(sql, CONTEXT, mockStmt("k", null, true, true, false),
+                                                      allScanNodes()));
+        // ordered by other column
+        Assert.assertNull(PartitionResultCache.create(sql, CONTEXT, mockStmt("day", "k", true, true, false),
+                                                      allScanNodes()));
+        // null is not in the order of partitions
+        Assert.assertNull(PartitionResultCache.create(sql, CONTEXT, mockStmt("day", "day", true, false, false),
+                                                      allScanNodes()));
+        Assert.assertNull(PartitionResultCache.create(sql, CONTEXT, mockStmt("day", "day", false, true, false),
+                                                      allScanNodes()));
+        // limit
+        Assert.assertNull(PartitionResultCache.create(sql, CONTEXT, mockStmt("day", null, true, true, true),
+                                                      allScanNodes()));
+        // nondeterministic function
+        Assert.assertNull(PartitionResultCache.create("select now(), day from t group by day", CONTEXT, mockStmt(),
+                                                      allScanNodes()));
+        // no partition is scanned
+        Assert.assertNull(PartitionResultCache.create(sql, CONTEXT, mockStmt(), scanNodes()));
+        // more than one scan node
+        List<ScanNode> scanNodes = allScanNodes();
+        scanNodes.addAll(allScanNodes());
+        Assert.assertNull(PartitionResultCache.create(sql, CONTEXT, mockStmt(), scanNodes));
+
+        // not range partitioned
+        table = mockTable(new SinglePartitionInfo());
+        Assert.assertNull(PartitionResultCache.create(sql, CONTEXT, mockStmt(), allScanNodes()));
+    }
+
+    @Test
+    public void testFindPartition() throws Exception {
+        PartitionResultCache cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), allScanNodes());
+        Assert.assertEquals(0, findPartition(cache, row("a", "-5")));
+        Assert.assertEquals(1, findPartition(cache, row("a", "10")));
+        Assert.assertEquals(1, findPartition(cache, row("a", "19")));
+        Assert.assertEquals(2, findPartition(cache, row("a", "20")));
+        // null is in the partition of min value
+        Assert.assertEquals(0, findPartition(cache, row("a", null)));
+        Assert.assertEquals(-1, findPartition(cache, row("a", "30")));
+
+        // positions are in the order of results
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt("day", "day", false, false, false), allScanNodes());
+        Assert.assertEquals(2, findPartition(cache, row("a", "5")));
+        Assert.assertEquals(0, findPartition(cache, row("a", "25")));
+
+        // only scanned partitions
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), scanNodes(P2, 2, P3, 2));
+        Assert.assertEquals(-1, findPartition(cache, row("a", "5")));
+        Assert.assertEquals(0, findPartition(cache, row("a", "15")));
+    }
+
+    @Test
+    public void testRestrictToMissedPartitions() throws Exception {
+        PartitionResultCache cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), allScanNodes());
+        cache.lookup();
+        Assert.assertFalse(cache.hasHit());
+        execute(cache, row("a", "5"), row("a", "15"), row("a", "25"));
+
+        // p2 is loaded
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), scanNodes(P1, 2, P2, 3, P3, 2));
+        cache.lookup();
+        Assert.assertTrue(cache.hasHit());
+        Assert.assertFalse(cache.isAllHit());
+        SelectStmt stmt = mockStmt();
+        cache.restrictToMissedPartitions(stmt);
+        Assert.assertEquals(Lists.newArrayList("p2"), tableRef.getPartitions());
+
+        // all cached
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), allScanNodes());
+        cache.lookup();
+        Assert.assertTrue(cache.isAllHit());
+    }
+
+    @Test
+    public void testMergeAsc() throws Exception {
+        PartitionResultCache cache = PartitionResultCache.create(sql, CONTEXT,
+                                                                 mockStmt("day", "day", true, true, false),
+                                                                 allScanNodes());
+        cache.lookup();
+        List<ByteBuffer> rows = execute(cache, row("a", null), row("b", "5"), row("a", "15"), row("a", "25"),
+                                        row("b", "25"));
+        Assert.assertEquals(5, rows.size());
+
+        // p2 is loaded and scanned again
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt("day", "day", true, true, false),
+                                            scanNodes(P1, 2, P2, 3, P3, 2));
+        cache.lookup();
+        cache.setScanNodes(scanNodes(P2, 3));
+        List<ByteBuffer> merged = execute(cache, row("c", "15"));
+        Assert.assertEquals(Lists.newArrayList(row("a", null), row("b", "5"), row("c", "15"), row("a", "25"),
+                                               row("b", "25")), merged);
+
+        // result of p2 in the new version is cached
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt("day", "day", true, true, false),
+                                            scanNodes(P1, 2, P2, 3, P3, 2));
+        cache.lookup();
+        Assert.assertTrue(cache.isAllHit());
+        Assert.assertEquals(merged, execute(cache));
+    }
+
+    @Test
+    public void testMergeDesc() throws Exception {
+        PartitionResultCache cache = PartitionResultCache.create(sql, CONTEXT,
+                                                                 mockStmt("day", "day", false, false, false),
+                                                                 allScanNodes());
+        cache.lookup();
+        execute(cache, row("a", "25"), row("a", "15"), row("b", "5"), row("a", null));
+
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt("day", "day", false, false, false),
+                                            scanNodes(P1, 2, P2, 3, P3, 2));
+        cache.lookup();
+        cache.setScanNodes(scanNodes(P2, 3));
+        Assert.assertEquals(Lists.newArrayList(row("a", "25"), row("c", "15"), row("b", "5"), row("a", null)),
+                            execute(cache, row("c", "15")));
+    }
+
+    @Test
+    public void testMergeMissedPartitions() throws Exception {
+        PartitionResultCache cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), allScanNodes());
+        cache.lookup();
+        // no group in p2
+        execute(cache, row("a", "5"), row("a", "25"));
+
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), allScanNodes());
+        cache.lookup();
+        Assert.assertTrue(cache.isAllHit());
+        Assert.assertEquals(Lists.newArrayList(row("a", "5"), row("a", "25")), execute(cache));
+
+        // p1 and p3 are loaded, and only the cached result of p2 is used
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), scanNodes(P1, 3, P2, 2, P3, 3));
+        cache.lookup();
+        Assert.assertTrue(cache.hasHit());
+        cache.restrictToMissedPartitions(mockStmt());
+        Assert.assertEquals(Lists.newArrayList("p1", "p3"), tableRef.getPartitions());
+        cache.setScanNodes(scanNodes(P1, 3, P3, 3));
+        Assert.assertEquals(Lists.newArrayList(row("b", "5"), row("b", "25")),
+                            execute(cache, row("b", "5"), row("b", "25")));
+
+        // p2 has a group now
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), scanNodes(P1, 3, P2, 3, P3, 3));
+        cache.lookup();
+        cache.setScanNodes(scanNodes(P2, 3));
+        Assert.assertEquals(Lists.newArrayList(row("b", "5"), row("c", "15"), row("b", "25")),
+                            execute(cache, row("c", "15")));
+    }
+
+    @Test
+    public void testContext() throws Exception {
+        PartitionResultCache cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), allScanNodes());
+        cache.lookup();
+        execute(cache, row("a", "5"), row("a", "15"), row("a", "25"));
+
+        // same sql in another database
+        cache = PartitionResultCache.create(sql, "db=db2", mockStmt(), allScanNodes());
+        cache.lookup();
+        Assert.assertFalse(cache.hasHit());
+
+        cache = PartitionResultCache.create(sql, CONTEXT, mockStmt(), allScanNodes());
+        cache.lookup();
+        Assert.assertTrue(cache.isAllHit());
+    }
+}
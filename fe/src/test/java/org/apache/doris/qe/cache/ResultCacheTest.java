@@ -0,0 +1,166 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe.cache;
+
+import org.apache.doris.catalog.View;
+import org.apache.doris.common.Config;
+import org.apache.doris.planner.ScanNode;
+import org.apache.doris.qe.ConnectContext;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public class ResultCacheTest {
+    private ResultCache cache;
+    private long maxSizeBytes;
+    private long maxEntrySizeBytes;
+
+    @Before
+    public void setUp() {
+        cache = new ResultCache();
+        maxSizeBytes = Config.result_cache_max_size_bytes;
+        maxEntrySizeBytes = Config.result_cache_max_entry_size_bytes;
+        Config.result_cache_max_size_bytes = 100;
+        Config.result_cache_max_entry_size_bytes = 50;
+    }
+
+    @After
+    public void tearDown() {
+        Config.result_cache_max_size_bytes = maxSizeBytes;
+        Config.result_cache_max_entry_size_bytes = maxEntrySizeBytes;
+    }
+
+    private static ResultCache.Key key(String sql, Long... partitionIds) {
+        StringBuilder versions = new StringBuilder();
+        for (Long partitionId : partitionIds) {
+            versions.append(partitionId).append(":1:0;");
+        }
+        return new ResultCache.Key(sql, "db=db", versions.toString(), Lists.newArrayList(partitionIds));
+    }
+
+    private static List<ByteBuffer> rows(int bytes) {
+        return Lists.newArrayList(ByteBuffer.allocate(bytes));
+    }
+
+    @Test
+    public void testNormalize() {
+        Assert.assertEquals("select * from t where k = 'a  b'",
+                ResultCache.normalize("  select *\n from   t\twhere k = 'a  b' ;"));
+        Assert.assertEquals("select \"x\\\" y\" from t",
+                ResultCache.normalize("select  \"x\\\" y\"  from t"));
+    }
+
+    @Test
+    public void testNotCacheable() {
+        List<ScanNode> scanNodes = Lists.newArrayList();
+        Assert.assertNull(ResultCache.createKey("select 1", "db=db", scanNodes));
+    }
+
+    @Test
+    public void testIsDeterministic() {
+        Assert.assertTrue(ResultCache.isDeterministic("select user, `database` from t where schema = 'a'"));
+        Assert.assertFalse(ResultCache.isDeterministic("select user() from t"));
+        Assert.assertFalse(ResultCache.isDeterministic("select * from t where day = NOW ()"));
+    }
+
+    @Test
+    public void testCreateContext() {
+        ConnectContext context = new ConnectContext(null);
+        context.setDatabase("db1");
+        View view = new View(1L, "v", null);
+        view.setInlineViewDef("select k from t");
+        String viewContext = ResultCache.createContext(context, Lists.newArrayList(view));
+        String dbContext = ResultCache.createContext(context, Lists.<View>newArrayList());
+        Assert.assertFalse(viewContext.equals(dbContext));
+
+        // same sql in another database
+        context.setDatabase("db2");
+        Assert.assertFalse(dbContext.equals(ResultCache.createContext(context, Lists.<View>newArrayList())));
+        context.setDatabase("db1");
+        Assert.assertEquals(dbContext, ResultCache.createContext(context, Lists.<View>newArrayList()));
+
+        // functions of time are evaluated in the time zone of session
+        context.getSessionVariable().setTimeZone("+08:00");
+        Assert.assertFalse(dbContext.equals(ResultCache.createContext(context, Lists.<View>newArrayList())));
+
+        // view is altered
+        String oldViewContext = ResultCache.createContext(context, Lists.newArrayList(view));
+        view.setInlineViewDef("select k from t where k > 0");
+        Assert.assertFalse(oldViewContext.equals(ResultCache.createContext(context, Lists.newArrayList(view))));
+    }
+
+    @Test
+    public void testKeyContext() {
+        List<Long> partitionIds = Lists.newArrayList(1L);
+        cache.put(new ResultCache.Key("select 1", "db=db1", "1:1:0;", partitionIds), rows(10), 10);
+        Assert.assertNotNull(cache.get(new ResultCache.Key("select 1", "db=db1", "1:1:0;", partitionIds)));
+        Assert.assertNull(cache.get(new ResultCache.Key("select 1", "db=db2", "1:1:0;", partitionIds)));
+    }
+
+    @Test
+    public void testGetAndPut() {
+        Assert.assertNull(cache.get(key("select 1", 1L)));
+        List<ByteBuffer> rows = rows(10);
+        cache.put(key("select 1", 1L), rows, 10);
+        Assert.assertEquals(rows, cache.get(key("select 1", 1L)));
+        Assert.assertNull(cache.get(key("select 2", 1L)));
+        Assert.assertEquals(10, cache.getTotalBytes());
+
+        // too large to cache
+        cache.put(key("select 3", 1L), rows(60), 60);
+        Assert.assertNull(cache.get(key("select 3", 1L)));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testEvict() {
+        cache.put(key("select 1", 1L), rows(40), 40);
+        cache.put(key("select 2", 1L), rows(40), 40);
+        // select 1 is used recently, so select 2 is evicted
+        Assert.assertNotNull(cache.get(key("select 1", 1L)));
+        cache.put(key("select 3", 2L), rows(40), 40);
+        Assert.assertNotNull(cache.get(key("select 1", 1L)));
+        Assert.assertNull(cache.get(key("select 2", 1L)));
+        Assert.assertNotNull(cache.get(key("select 3", 2L)));
+        Assert.assertEquals(80, cache.getTotalBytes());
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.put(key("select 1", 1L), rows(10), 10);
+        cache.put(key("select 2", 1L, 2L), rows(10), 10);
+        cache.put(key("select 3", 2L), rows(10), 10);
+
+        cache.invalidate(1L);
+        Assert.assertNull(cache.get(key("select 1", 1L)));
+        Assert.assertNull(cache.get(key("select 2", 1L, 2L)));
+        Assert.assertNotNull(cache.get(key("select 3", 2L)));
+        Assert.assertEquals(10, cache.getTotalBytes());
+
+        cache.invalidate(2L);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getTotalBytes());
+    }
+}
@@ -0,0 +1,105 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.benchmark;
+
+import org.apache.doris.analysis.TablePattern;
+import org.apache.doris.analysis.UserIdentity;
+import org.apache.doris.cluster.ClusterNamespace;
+import org.apache.doris.mysql.privilege.PaloAuth;
+import org.apache.doris.mysql.privilege.PaloPrivilege;
+import org.apache.doris.mysql.privilege.PrivBitSet;
+import org.apache.doris.mysql.privilege.PrivPredicate;
+import org.apache.doris.system.SystemInfoService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Check table privilege with many table level grants, which is done for every table in every query.
+ * Each user is granted SELECT on GRANTS_PER_USER tables, and half of the users are granted from a host pattern.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthBenchmark {
+    private static final int GRANTS_PER_USER = 10;
+    private static final int DB_NUM = 100;
+    private static final String HOST = "192.168.1.100";
+
+    @Param({"1000", "10000"})
+    public int grantNum;
+
+    private PaloAuth auth;
+    private String user;
+    private String db;
+    private String grantedTbl;
+    private String notGrantedTbl;
+
+    private static String getUser(int i) {
+        return "user" + i;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        auth = new PaloAuth();
+        int userNum = Math.max(1, grantNum / GRANTS_PER_USER);
+        for (int i = 0; i < userNum; i++) {
+            UserIdentity userIdent = new UserIdentity(getUser(i), i % 2 == 0 ? "%" : "192.168.1.%");
+            userIdent.analyze(SystemInfoService.DEFAULT_CLUSTER);
+            for (int j = 0; j < GRANTS_PER_USER; j++) {
+                TablePattern tblPattern = new TablePattern(SyntheticCatalog.DB_PREFIX + (i % DB_NUM),
+                                                           SyntheticCatalog.TABLE_PREFIX + j);
+                tblPattern.analyze(SystemInfoService.DEFAULT_CLUSTER);
+                auth.grantPrivs(userIdent, tblPattern, PrivBitSet.of(PaloPrivilege.SELECT_PRIV),
+                                false /* err on non exist */, false /* grant by resolver */);
+            }
+        }
+
+        // the last user, whose grants are checked last
+        int i = userNum - 1;
+        user = ClusterNamespace.getFullName(SystemInfoService.DEFAULT_CLUSTER, getUser(i));
+        db = SyntheticCatalog.getDbName(i % DB_NUM);
+        grantedTbl = SyntheticCatalog.TABLE_PREFIX + (GRANTS_PER_USER - 1);
+        notGrantedTbl = SyntheticCatalog.TABLE_PREFIX + GRANTS_PER_USER;
+    }
+
+    @Benchmark
+    public boolean checkGrantedTblPriv() {
+        return auth.checkTblPriv(HOST, db, user, grantedTbl, PrivPredicate.SELECT);
+    }
+
+    @Benchmark
+    public boolean checkNotGrantedTblPriv() {
+        return auth.checkTblPriv(HOST, db, user, notGrantedTbl, PrivPredicate.SELECT);
+    }
+}
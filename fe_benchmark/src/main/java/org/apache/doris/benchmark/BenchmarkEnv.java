@@ -0,0 +1,78 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.benchmark;
+
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+
+/*
+ * Environment of a frontend running inside the benchmark process.
+ *
+ * Some paths, eg. Catalog.BDB_DIR, are fixed when class Catalog is initialized,
+ * so initMetaDir() must be called before Catalog is used.
+ */
+public class BenchmarkEnv {
+    private static File metaDir = null;
+
+    public static synchronized File initMetaDir() throws IOException {
+        if (metaDir == null) {
+            metaDir = Files.createTempDirectory("doris-fe-benchmark").toFile();
+            Config.meta_dir = metaDir.getAbsolutePath();
+            new File(metaDir, "bdb").mkdirs();
+            new File(metaDir, "image").mkdirs();
+        }
+        return metaDir;
+    }
+
+    public static synchronized void cleanMetaDir() {
+        if (metaDir != null) {
+            delete(metaDir);
+            metaDir = null;
+        }
+    }
+
+    public static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    // a catalog which is not the singleton, like the one checkpoint thread loads image into
+    public static Catalog newCatalog() throws Exception {
+        Constructor<Catalog> constructor = Catalog.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+
+    // set the state which is normally set while the frontend starts up, eg. self node and helper nodes
+    public static void setCatalogField(String name, Object value) throws Exception {
+        Field field = Catalog.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(Catalog.getInstance(), value);
+    }
+}
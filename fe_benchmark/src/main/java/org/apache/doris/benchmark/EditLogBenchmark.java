@@ -0,0 +1,117 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.benchmark;
+
+import org.apache.doris.common.Config;
+import org.apache.doris.common.Pair;
+import org.apache.doris.persist.EditLog;
+import org.apache.doris.system.Backend;
+
+import com.google.common.collect.Lists;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Write journals from concurrent threads to a single-node BDB JE replication group in a temporary directory,
+ * which is how the master FE writes edit log when there is no follower.
+ *
+ * Each forked JVM starts its own environment, because Catalog.BDB_DIR can only be set once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class EditLogBenchmark {
+    @Param({"false", "true"})
+    public boolean groupCommit;
+
+    @Param({"SYNC", "WRITE_NO_SYNC"})
+    public String syncPolicy;
+
+    private EditLog editLog;
+    private Backend backend;
+    private AtomicLong nextId = new AtomicLong(0);
+
+    private static int getFreePort() throws Exception {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkEnv.initMetaDir();
+        Config.edit_log_group_commit = groupCommit;
+        Config.master_sync_policy = syncPolicy;
+        Config.edit_log_port = getFreePort();
+
+        // a single electable node which is the helper of itself, like the first FE of a cluster
+        Pair<String, Integer> selfNode = new Pair<String, Integer>("127.0.0.1", Config.edit_log_port);
+        BenchmarkEnv.setCatalogField("selfNode", selfNode);
+        BenchmarkEnv.setCatalogField("helperNodes", Lists.newArrayList(selfNode));
+        BenchmarkEnv.setCatalogField("isElectable", true);
+        BenchmarkEnv.setCatalogField("canWrite", true);
+
+        editLog = new EditLog(selfNode.first + "_" + selfNode.second + "_benchmark");
+        editLog.open();
+
+        backend = new Backend(10001, "192.168.0.1", 9050);
+        backend.setAlive(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        editLog.close();
+        BenchmarkEnv.cleanMetaDir();
+    }
+
+    // a tiny journal, which is the most common kind
+    @Benchmark
+    public void logSaveNextId() {
+        editLog.logSaveNextId(nextId.incrementAndGet());
+    }
+
+    // a journal of about a hundred bytes
+    @Benchmark
+    public void logBackendStateChange() {
+        editLog.logBackendStateChange(backend);
+    }
+}
@@ -0,0 +1,117 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.benchmark;
+
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Config;
+import org.apache.doris.persist.Storage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Save the image of a synthetic catalog, and load it, as checkpoint and FE startup do.
+ * The default catalog has 160,000 tablets and 480,000 replicas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ImageBenchmark {
+    private static final long REPLAYED_JOURNAL_ID = 1;
+
+    @Param({"false", "true"})
+    public boolean sectioned;
+
+    @Param({"none", "snappy"})
+    public String compression;
+
+    @Param({"10"})
+    public int dbNum;
+
+    @Param({"20"})
+    public int tableNum;
+
+    @Param({"100"})
+    public int partitionNum;
+
+    @Param({"8"})
+    public int bucketNum;
+
+    private File imageDir;
+
+    // a new catalog to load image into, like the one of a starting FE
+    @State(Scope.Thread)
+    public static class LoadState {
+        private Catalog catalog;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws Exception {
+            catalog = BenchmarkEnv.newCatalog();
+            // the inverted index of the singleton catalog is rebuilt by loading
+            Catalog.getCurrentInvertedIndex().clear();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        imageDir = new File(BenchmarkEnv.initMetaDir(), "image");
+        Config.enable_sectioned_image = sectioned;
+        Config.image_compression = compression;
+
+        new SyntheticCatalog(dbNum, tableNum, partitionNum, bucketNum, 10).build(Catalog.getInstance());
+        // the image to load
+        Catalog.getInstance().saveImage(new File(imageDir, Storage.IMAGE + "." + REPLAYED_JOURNAL_ID),
+                                        REPLAYED_JOURNAL_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkEnv.cleanMetaDir();
+    }
+
+    @Benchmark
+    public File saveImage() throws Exception {
+        // image.ckpt is ignored by loading
+        File file = new File(imageDir, Storage.IMAGE_NEW);
+        Catalog.getInstance().saveImage(file, REPLAYED_JOURNAL_ID);
+        return file;
+    }
+
+    @Benchmark
+    public Catalog loadImage(LoadState state) throws Exception {
+        state.catalog.loadImage(imageDir.getAbsolutePath());
+        return state.catalog;
+    }
+}
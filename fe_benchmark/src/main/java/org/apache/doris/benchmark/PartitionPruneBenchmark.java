@@ -0,0 +1,111 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.benchmark;
+
+import org.apache.doris.analysis.LiteralExpr;
+import org.apache.doris.catalog.Column;
+import org.apache.doris.catalog.PartitionKey;
+import org.apache.doris.catalog.RangePartitionIndex;
+import org.apache.doris.catalog.Type;
+import org.apache.doris.planner.PartitionColumnFilter;
+import org.apache.doris.planner.RangePartitionPruner;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Prune the daily partitions of a table by a filter on the partition column, as OlapScanNode does.
+ * prune uses the partition index cached in RangePartitionInfo, and pruneWithoutCachedIndex sorts the partitions
+ * for every query, as the pruner does when the partitions of the query are specified.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartitionPruneBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int partitionNum;
+
+    // point: k1 = day, range: one month, unbounded: k1 >= day
+    @Param({"point", "range", "unbounded"})
+    public String filter;
+
+    private Map<Long, Range<PartitionKey>> rangeMap;
+    private RangePartitionIndex partitionIndex;
+    private List<Column> partitionColumns;
+    private Map<String, PartitionColumnFilter> filters;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        partitionColumns = Lists.newArrayList(SyntheticCatalog.createSchema().get(0));
+        rangeMap = Maps.newHashMap();
+        for (int i = 0; i < partitionNum; i++) {
+            rangeMap.put((long) i, SyntheticCatalog.createPartitionRange(i, partitionColumns));
+        }
+        partitionIndex = RangePartitionIndex.create(rangeMap);
+
+        // filter on the recent partitions, which are the most queried
+        Type type = Type.fromPrimitiveType(partitionColumns.get(0).getDataType());
+        String day = SyntheticCatalog.getPartitionDate(partitionNum - 30);
+        LiteralExpr lower = LiteralExpr.create(day, type);
+        PartitionColumnFilter columnFilter = new PartitionColumnFilter();
+        if (filter.equals("point")) {
+            columnFilter.setLowerBound(lower, true);
+            columnFilter.setUpperBound(lower, true);
+        } else if (filter.equals("range")) {
+            columnFilter.setLowerBound(lower, true);
+            columnFilter.setUpperBound(LiteralExpr.create(SyntheticCatalog.getPartitionDate(partitionNum), type),
+                                       false);
+        } else {
+            columnFilter.setLowerBound(lower, true);
+        }
+        filters = Maps.newHashMap();
+        filters.put(partitionColumns.get(0).getName(), columnFilter);
+    }
+
+    @Benchmark
+    public Collection<Long> prune() throws Exception {
+        return new RangePartitionPruner(partitionIndex, partitionColumns, filters).prune();
+    }
+
+    @Benchmark
+    public Collection<Long> pruneWithoutCachedIndex() throws Exception {
+        return new RangePartitionPruner(rangeMap, partitionColumns, filters).prune();
+    }
+}
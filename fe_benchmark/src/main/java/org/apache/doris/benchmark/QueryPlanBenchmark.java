@@ -0,0 +1,161 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.benchmark;
+
+import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.SqlParser;
+import org.apache.doris.analysis.SqlScanner;
+import org.apache.doris.analysis.StatementBase;
+import org.apache.doris.analysis.StmtRewriter;
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.Database;
+import org.apache.doris.catalog.Type;
+import org.apache.doris.mysql.privilege.PaloAuth;
+import org.apache.doris.planner.Planner;
+import org.apache.doris.qe.ConnectContext;
+import org.apache.doris.rewrite.ExprRewriter;
+import org.apache.doris.system.SystemInfoService;
+import org.apache.doris.thrift.TQueryOptions;
+
+import com.google.common.collect.Lists;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Parse, analyze and plan queries against a synthetic catalog, the same way as StmtExecutor does,
+ * but without executing them, so no backend is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryPlanBenchmark {
+    private static final int PARTITION_NUM = 365;
+    private static final int BUCKET_NUM = 16;
+    private static final int BACKEND_NUM = 10;
+
+    @Param({"point", "aggregate", "join", "subquery"})
+    public String query;
+
+    private Catalog catalog;
+    private Database db;
+    private ConnectContext context;
+    private String sql;
+
+    private static String getSql(String query) {
+        String lastMonth = SyntheticCatalog.getPartitionDate(PARTITION_NUM - 30);
+        if (query.equals("point")) {
+            return "select * from tbl0 where k1 = '" + lastMonth + "' and k2 = 100";
+        } else if (query.equals("aggregate")) {
+            return "select k2, sum(v1), max(v2), count(*) from tbl0 where k1 >= '" + lastMonth + "'"
+                    + " group by k2 order by 2 desc limit 10";
+        } else if (query.equals("join")) {
+            return "select a.k1, sum(a.v1), sum(b.v2) from tbl0 a join tbl1 b on a.k2 = b.k2 and a.k1 = b.k1"
+                    + " where a.k1 >= '" + lastMonth + "' and b.v1 > 10 group by a.k1";
+        } else if (query.equals("subquery")) {
+            return "select k1, sum(v1) from tbl0 where k1 >= '" + lastMonth + "'"
+                    + " and k2 in (select k2 from tbl1 where v2 > 0.5) group by k1";
+        }
+        throw new IllegalArgumentException("unknown query: " + query);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        catalog = Catalog.getInstance();
+        synchronized (QueryPlanBenchmark.class) {
+            if (catalog.getDb(SyntheticCatalog.getDbName(0)) == null) {
+                new SyntheticCatalog(1, 2, PARTITION_NUM, BUCKET_NUM, BACKEND_NUM).build(catalog);
+            }
+        }
+        db = catalog.getDb(SyntheticCatalog.getDbName(0));
+
+        context = new ConnectContext(null);
+        context.setCatalog(catalog);
+        context.setCluster(SystemInfoService.DEFAULT_CLUSTER);
+        context.setDatabase(db.getFullName());
+        context.setQualifiedUser(PaloAuth.ROOT_USER);
+        context.setRemoteIP("127.0.0.1");
+        context.setThreadLocalInfo();
+        sql = getSql(query);
+    }
+
+    private StatementBase parse() throws Exception {
+        SqlParser parser = new SqlParser(new SqlScanner(new StringReader(sql)));
+        return (StatementBase) parser.parse().value;
+    }
+
+    @Benchmark
+    public StatementBase parseOnly() throws Exception {
+        return parse();
+    }
+
+    // see StmtExecutor.analyze()
+    @Benchmark
+    public Planner parseAnalyzeAndPlan() throws Exception {
+        StatementBase stmt = parse();
+        Analyzer analyzer = new Analyzer(catalog, context);
+        db.readLock();
+        try {
+            stmt.analyze(analyzer);
+            ExprRewriter rewriter = analyzer.getExprRewriter();
+            rewriter.reset();
+            stmt.rewriteExprs(rewriter);
+            boolean reAnalyze = rewriter.changed();
+            if (analyzer.containSubquery()) {
+                StmtRewriter.rewrite(analyzer, stmt);
+                reAnalyze = true;
+            }
+            if (reAnalyze) {
+                List<Type> origResultTypes = Lists.newArrayList();
+                for (Expr e : stmt.getResultExprs()) {
+                    origResultTypes.add(e.getType());
+                }
+                List<String> origColLabels = Lists.newArrayList(stmt.getColLabels());
+                analyzer = new Analyzer(catalog, context);
+                stmt.reset();
+                stmt.analyze(analyzer);
+                stmt.castResultExprs(origResultTypes);
+                stmt.setColLabels(origColLabels);
+            }
+
+            Planner planner = new Planner();
+            planner.plan(stmt, analyzer, new TQueryOptions());
+            return planner;
+        } finally {
+            db.readUnlock();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.benchmark;
+
+import org.apache.doris.catalog.AggregateType;
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.Column;
+import org.apache.doris.catalog.ColumnType;
+import org.apache.doris.catalog.DataProperty;
+import org.apache.doris.catalog.Database;
+import org.apache.doris.catalog.HashDistributionInfo;
+import org.apache.doris.catalog.KeysType;
+import org.apache.doris.catalog.MaterializedIndex;
+import org.apache.doris.catalog.MaterializedIndex.IndexState;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.Partition;
+import org.apache.doris.catalog.PartitionKey;
+import org.apache.doris.catalog.PrimitiveType;
+import org.apache.doris.catalog.RangePartitionInfo;
+import org.apache.doris.catalog.Replica;
+import org.apache.doris.catalog.Replica.ReplicaState;
+import org.apache.doris.catalog.Tablet;
+import org.apache.doris.catalog.TabletMeta;
+import org.apache.doris.cluster.Cluster;
+import org.apache.doris.cluster.ClusterNamespace;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.FeConstants;
+import org.apache.doris.system.Backend;
+import org.apache.doris.system.SystemInfoService;
+import org.apache.doris.thrift.TStorageType;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/*
+ * Build a catalog in memory, as if the tables were created by 'CREATE TABLE', without any backend running.
+ *
+ * Every table has the same schema:
+ *   k1 DATE, k2 INT, v1 BIGINT SUM, v2 DOUBLE SUM
+ * It is partitioned by k1, one partition per day from START_DATE, and distributed by k2.
+ * Every tablet has REPLICA_NUM replicas on different backends.
+ *
+ * Database, table and partition names are DB_PREFIX + i, TABLE_PREFIX + i and PARTITION_PREFIX + i.
+ */
+public class SyntheticCatalog {
+    public static final String DB_PREFIX = "db";
+    public static final String TABLE_PREFIX = "tbl";
+    public static final String PARTITION_PREFIX = "p";
+    public static final int REPLICA_NUM = 3;
+    public static final int SCHEMA_HASH = 123456789;
+
+    private static final String START_DATE = "2015-01-01";
+    // image does not save databases with id less than Catalog.NEXT_ID_INIT_VALUE
+    private static final long FIRST_ID = 100000L;
+
+    private final int dbNum;
+    private final int tableNum;
+    private final int partitionNum;
+    private final int bucketNum;
+    private final int backendNum;
+
+    private long nextId = FIRST_ID;
+
+    /*
+     * tableNum tables in each of dbNum databases, and partitionNum * bucketNum tablets in each table.
+     */
+    public SyntheticCatalog(int dbNum, int tableNum, int partitionNum, int bucketNum, int backendNum) {
+        this.dbNum = dbNum;
+        this.tableNum = tableNum;
+        this.partitionNum = partitionNum;
+        this.bucketNum = bucketNum;
+        this.backendNum = Math.max(backendNum, REPLICA_NUM);
+    }
+
+    public static String getDbName(int i) {
+        return ClusterNamespace.getFullName(SystemInfoService.DEFAULT_CLUSTER, DB_PREFIX + i);
+    }
+
+    // the lower bound of the i-th partition, in 'yyyy-MM-dd'
+    public static String getPartitionDate(int i) {
+        return LocalDate.parse(START_DATE).plusDays(i).toString();
+    }
+
+    public static List<Column> createSchema() {
+        List<Column> columns = Lists.newArrayList();
+        Column k1 = new Column("k1", PrimitiveType.DATE);
+        k1.setIsKey(true);
+        columns.add(k1);
+        Column k2 = new Column("k2", PrimitiveType.INT);
+        k2.setIsKey(true);
+        columns.add(k2);
+        columns.add(new Column("v1", new ColumnType(PrimitiveType.BIGINT), false, AggregateType.SUM, "0", ""));
+        columns.add(new Column("v2", new ColumnType(PrimitiveType.DOUBLE), false, AggregateType.SUM, "0", ""));
+        return columns;
+    }
+
+    // [date of partition i, date of partition i + 1)
+    public static Range<PartitionKey> createPartitionRange(int i, List<Column> partitionColumns)
+            throws AnalysisException {
+        PartitionKey lower = PartitionKey.createPartitionKey(Lists.newArrayList(getPartitionDate(i)),
+                                                             partitionColumns);
+        PartitionKey upper = PartitionKey.createPartitionKey(Lists.newArrayList(getPartitionDate(i + 1)),
+                                                             partitionColumns);
+        return Range.closedOpen(lower, upper);
+    }
+
+    /*
+     * Add backends, the default cluster and the databases to the given catalog,
+     * and tablets to the inverted index of the current catalog.
+     * Nothing is written to edit log.
+     */
+    public void build(Catalog catalog) throws AnalysisException {
+        // as if the meta is replayed to the latest version
+        Catalog.getInstance().setJournalVersion(FeConstants.meta_version);
+
+        List<Long> backendIds = Lists.newArrayList();
+        for (int i = 0; i < backendNum; i++) {
+            Backend backend = new Backend(nextId++, "192.168.0." + i, 9050);
+            backend.setBePort(9060);
+            backend.setOwnerClusterName(SystemInfoService.DEFAULT_CLUSTER);
+            backend.setAlive(true);
+            Catalog.getCurrentSystemInfo().addBackend(backend);
+            backendIds.add(backend.getId());
+        }
+
+        Cluster cluster = new Cluster(SystemInfoService.DEFAULT_CLUSTER, nextId++);
+        cluster.setBackendIdList(backendIds);
+        catalog.addCluster(cluster);
+
+        for (int i = 0; i < dbNum; i++) {
+            Database db = new Database(nextId++, getDbName(i));
+            db.setClusterName(SystemInfoService.DEFAULT_CLUSTER);
+            for (int j = 0; j < tableNum; j++) {
+                db.createTable(createTable(db.getId(), TABLE_PREFIX + j, backendIds));
+            }
+            catalog.unprotectCreateDb(db);
+        }
+    }
+
+    private OlapTable createTable(long dbId, String name, List<Long> backendIds) throws AnalysisException {
+        List<Column> columns = createSchema();
+        List<Column> partitionColumns = Lists.newArrayList(columns.get(0));
+        RangePartitionInfo partitionInfo = new RangePartitionInfo(partitionColumns);
+        HashDistributionInfo distributionInfo = new HashDistributionInfo(bucketNum,
+                                                                         Lists.newArrayList(columns.get(1)));
+
+        long tableId = nextId++;
+        // base index id is the same as table id
+        long indexId = tableId;
+        OlapTable table = new OlapTable(tableId, name, columns, KeysType.AGG_KEYS, partitionInfo, distributionInfo);
+        table.setIndexSchemaInfo(indexId, name, columns, 0, SCHEMA_HASH, (short) 2);
+        table.setStorageTypeToIndex(indexId, TStorageType.COLUMN);
+
+        int backendIdx = 0;
+        for (int i = 0; i < partitionNum; i++) {
+            long partitionId = nextId++;
+            MaterializedIndex index = new MaterializedIndex(indexId, IndexState.NORMAL);
+            TabletMeta tabletMeta = new TabletMeta(dbId, tableId, partitionId, indexId, SCHEMA_HASH);
+            for (int j = 0; j < bucketNum; j++) {
+                Tablet tablet = new Tablet(nextId++);
+                index.addTablet(tablet, tabletMeta);
+                for (int k = 0; k < REPLICA_NUM; k++) {
+                    long backendId = backendIds.get(backendIdx++ % backendIds.size());
+                    tablet.addReplica(new Replica(nextId++, backendId, ReplicaState.NORMAL,
+                                                  Partition.PARTITION_INIT_VERSION,
+                                                  Partition.PARTITION_INIT_VERSION_HASH));
+                }
+            }
+
+            table.addPartition(new Partition(partitionId, PARTITION_PREFIX + i, index, distributionInfo));
+            partitionInfo.setRange(partitionId, createPartitionRange(i, partitionColumns));
+            partitionInfo.setDataProperty(partitionId, DataProperty.DEFAULT_HDD_DATA_PROPERTY);
+            partitionInfo.setReplicationNum(partitionId, (short) REPLICA_NUM);
+        }
+        return table;
+    }
+}
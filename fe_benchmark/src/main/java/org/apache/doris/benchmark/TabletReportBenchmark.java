@@ -0,0 +1,137 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.benchmark;
+
+import org.apache.doris.catalog.Replica;
+import org.apache.doris.catalog.Replica.ReplicaState;
+import org.apache.doris.catalog.TabletInvertedIndex;
+import org.apache.doris.catalog.TabletMeta;
+import org.apache.doris.task.RecoverTabletTask;
+import org.apache.doris.thrift.TPartitionVersionInfo;
+import org.apache.doris.thrift.TStorageMedium;
+import org.apache.doris.thrift.TTablet;
+import org.apache.doris.thrift.TTabletInfo;
+
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Diff a full tablet report of one backend against the tablet inverted index, as ReportHandler does.
+ * Every tablet has 3 replicas, so each backend reports tabletNum * 3 / backendNum tablets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TabletReportBenchmark {
+    private static final long DB_ID = 1;
+    private static final long TABLE_ID = 2;
+    private static final long INDEX_ID = 2;
+    private static final int TABLETS_PER_PARTITION = 32;
+    private static final long VERSION = 10;
+    private static final long VERSION_HASH = 12345;
+    private static final long REPORT_BACKEND_ID = 0;
+
+    @Param({"1000000"})
+    public int tabletNum;
+
+    @Param({"10"})
+    public int backendNum;
+
+    // percent of reported tablets which have a newer version than meta, and need to be synced
+    @Param({"0", "10"})
+    public int changedPercent;
+
+    private TabletInvertedIndex invertedIndex;
+    private Map<Long, TTablet> backendTablets;
+    private HashMap<Long, TStorageMedium> storageMediumMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        invertedIndex = new TabletInvertedIndex();
+        backendTablets = Maps.newHashMap();
+        storageMediumMap = Maps.newHashMap();
+        long replicaId = 0;
+        for (long tabletId = 0; tabletId < tabletNum; tabletId++) {
+            long partitionId = tabletId / TABLETS_PER_PARTITION;
+            storageMediumMap.put(partitionId, TStorageMedium.HDD);
+            invertedIndex.addTablet(tabletId, new TabletMeta(DB_ID, TABLE_ID, partitionId, INDEX_ID,
+                                                             SyntheticCatalog.SCHEMA_HASH));
+            for (int i = 0; i < SyntheticCatalog.REPLICA_NUM; i++) {
+                long backendId = (tabletId * SyntheticCatalog.REPLICA_NUM + i) % backendNum;
+                invertedIndex.addReplica(tabletId, new Replica(replicaId++, backendId, ReplicaState.NORMAL,
+                                                               VERSION, VERSION_HASH));
+                if (backendId != REPORT_BACKEND_ID) {
+                    continue;
+                }
+                boolean changed = tabletId % 100 < changedPercent;
+                TTabletInfo tabletInfo = new TTabletInfo(tabletId, SyntheticCatalog.SCHEMA_HASH,
+                                                         changed ? VERSION + 1 : VERSION, VERSION_HASH,
+                                                         1000L, 1024L * 1024L);
+                tabletInfo.setStorage_medium(TStorageMedium.HDD);
+                tabletInfo.setVersion_count(5);
+                backendTablets.put(tabletId, new TTablet(Lists.newArrayList(tabletInfo)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void tabletReport(Blackhole blackhole) {
+        ListMultimap<Long, Long> tabletSyncMap = LinkedListMultimap.create();
+        ListMultimap<Long, Long> tabletDeleteFromMeta = LinkedListMultimap.create();
+        Set<Long> foundTabletsWithValidSchema = Sets.newHashSet();
+        Map<Long, TTabletInfo> foundTabletsWithInvalidSchema = Maps.newHashMap();
+        ListMultimap<TStorageMedium, Long> tabletMigrationMap = LinkedListMultimap.create();
+        ListMultimap<Long, TPartitionVersionInfo> transactionsToPublish = LinkedListMultimap.create();
+        ListMultimap<Long, Long> transactionsToClear = LinkedListMultimap.create();
+        List<RecoverTabletTask> tabletRecoverTask = Lists.newArrayList();
+
+        invertedIndex.tabletReport(REPORT_BACKEND_ID, backendTablets, storageMediumMap, tabletSyncMap,
+                                   tabletDeleteFromMeta, foundTabletsWithValidSchema, foundTabletsWithInvalidSchema,
+                                   tabletMigrationMap, transactionsToPublish, transactionsToClear,
+                                   tabletRecoverTask);
+
+        blackhole.consume(tabletSyncMap);
+        blackhole.consume(foundTabletsWithValidSchema);
+    }
+}
@@ -136,6 +136,25 @@ struct TPlanFragmentDestination {
   3: optional Types.TNetworkAddress brpc_server
 }
 
+struct TRuntimeFilterTargetParams {
+  1: required Types.TUniqueId target_fragment_instance_id
+  // brpc address of the instance
+  2: required Types.TNetworkAddress target_fragment_instance_addr
+}
+
+// Runtime filters with remote targets are sent by the instances building them to one instance
+// of the query, which merges the filters of each id and sends them to the target instances.
+struct TRuntimeFilterParams {
+  // brpc address of the instance merging runtime filters
+  1: optional Types.TNetworkAddress runtime_filter_merge_addr
+
+  // filter id -> the instances applying the filter, only set for the merging instance
+  2: optional map<i32, list<TRuntimeFilterTargetParams>> rid_to_target_param
+
+  // filter id -> the number of filters to merge, only set for the merging instance
+  3: optional map<i32, i32> runtime_filter_builder_num
+}
+
 // Parameters for a single execution instance of a particular TPlanFragment
 // TODO: for range partitioning, we also need to specify the range boundaries
 struct TPlanFragmentExecParams {
@@ -167,6 +186,8 @@ struct TPlanFragmentExecParams {
   // Id of this fragment in its role as a sender.
   9: optional i32 sender_id
   10: optional i32 num_senders
+
+  11: optional TRuntimeFilterParams runtime_filter_params
 }
 
 // Global query parameters assigned by the coordinator.
@@ -33,7 +33,11 @@ enum TPartitionType {
 
   // ordered partition on a list of exprs
   // (partition bounds don't overlap)
-  RANGE_PARTITIONED
+  RANGE_PARTITIONED,
+
+  // partition on a set of exprs by the same hash function as the distribution of olap tables,
+  // to the receivers of the buckets, one destination per bucket
+  BUCKET_SHUFFLE_HASH_PARTITIONED
 }
 
 enum TDistributionType {
@@ -240,6 +240,48 @@ struct TOlapScanNode {
   4: required bool is_preaggregation
   5: optional string sort_column
 }
+enum TRuntimeFilterType {
+  // the values of the build side
+  IN,
+  // the min and max values of the build side
+  MIN_MAX,
+  BLOOM
+}
+
+// A filter built from the values of an expr on the build side of a hash join, and applied to
+// the values of the other expr of the equal join conjunct on the probe side, in scan nodes.
+struct TRuntimeFilterDesc {
+  1: required i32 filter_id
+  2: required TRuntimeFilterType type
+
+  // the build side expr of the equal join conjunct
+  3: required Exprs.TExpr src_expr
+
+  // index of the equal join conjunct in THashJoinNode.eq_join_conjuncts
+  4: required i32 expr_order
+
+  // id of target scan node -> the probe side expr, which is bound by the tuple of the scan node
+  5: required map<Types.TPlanNodeId, Exprs.TExpr> plan_id_to_target_expr
+
+  // true if every instance of the join builds the whole filter, otherwise the filter has to
+  // be merged from all the instances of the join before it is applied to remote targets
+  6: required bool is_broadcast_join
+
+  // true if there are targets in the same fragment instance as the join, to which the filter
+  // is pushed down directly
+  7: required bool has_local_targets
+
+  // true if there are targets in other fragments, to which the filter is sent by the
+  // instance merging runtime filters, see TRuntimeFilterParams
+  8: required bool has_remote_targets
+
+  // for IN filters: the filter is not built if there are more values
+  9: optional i32 max_in_num
+
+  // for BLOOM filters
+  10: optional i64 bloom_filter_size_bytes
+}
+
 struct TEqJoinCondition {
   // left-hand side of "<a> = <b>"
   1: required Exprs.TExpr left;
@@ -281,6 +323,9 @@ struct THashJoinNode {
   // If true, this join node can (but may choose not to) generate slot filters
   // after constructing the build side that can be applied to the probe side.
   5: optional bool add_probe_filters
+
+  // filters built from the build side of this join
+  6: optional list<TRuntimeFilterDesc> runtime_filters
 }
 
 struct TMergeJoinNode {
@@ -568,6 +613,9 @@ struct TPlanNode {
   28: optional TUnionNode union_node
   29: optional TBackendResourceProfile resource_profile
   30: optional TEsScanNode es_scan_node
+
+  // runtime filters applied to this node, only for scan nodes
+  31: optional list<TRuntimeFilterDesc> runtime_filters
 }
 
 // A flattened representation of a tree of PlanNodes, obtained by depth-first